@@ -1,3 +1,6 @@
+import com.example.virtuaracing.tools.BakeMeshesTask
+import com.example.virtuaracing.tools.BakeTexturesTask
+
 plugins {
     alias(libs.plugins.android.application)
 }
@@ -31,6 +34,32 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    androidResources {
+        // Las mallas y texturas precompiladas van sin comprimir para poder mapearlas desde el APK
+        noCompress += listOf("vrm", "ktx")
+    }
+}
+
+// Convierte los OBJ de res/raw a mallas binarias (assets/meshes/*.vrm).
+// Con -PquantizeMeshes=true se guardan cuantizadas (16 bytes por vértice en vez de 32).
+val bakeMeshes = tasks.register<BakeMeshesTask>("bakeMeshes") {
+    objDir.set(layout.projectDirectory.dir("src/main/res/raw"))
+    quantize.set(providers.gradleProperty("quantizeMeshes").map { it.toBoolean() }.orElse(false))
+}
+
+// Empaqueta las imágenes del HUD en un atlas y comprime las texturas de res/raw a ETC2 con
+// mipmaps (assets/textures/*.ktx); el atlas también se guarda en PNG para GLES 1.x/2.0.
+val bakeTextures = tasks.register<BakeTexturesTask>("bakeTextures") {
+    pngDir.set(layout.projectDirectory.dir("src/main/res/raw"))
+    atlasPrefix.set("hud_")
+    atlasName.set("hud")
+}
+
+androidComponents {
+    onVariants { variant ->
+        variant.sources.assets?.addGeneratedSourceDirectory(bakeMeshes, BakeMeshesTask::getOutputDir)
+        variant.sources.assets?.addGeneratedSourceDirectory(bakeTextures, BakeTexturesTask::getOutputDir)
+    }
 }
 
 dependencies {
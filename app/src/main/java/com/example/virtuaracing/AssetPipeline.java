@@ -0,0 +1,131 @@
+package com.example.virtuaracing;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Carga de recursos en dos fases, para que el hilo de GL no espere a la CPU:
+ *
+ *  - prepare(): parseo de mallas, decodificación de imágenes... en los hilos de 'workers'. Lo
+ *    que sale son buffers en memoria, sin tocar OpenGL.
+ *  - upload(): lo que sí necesita el contexto (VBOs, texturas). Se encola al terminar su
+ *    preparación y runUploads() lo ejecuta en el hilo de GL con un presupuesto de tiempo por
+ *    frame, así el renderer puede seguir pintando la pantalla de carga.
+ *
+ * Un paso que depende de otro puede hacer join() de su futuro dentro de la tarea: con un pool
+ * FIFO (newWorkerPool) la dependencia, registrada antes, ya ha empezado. Los registros
+ * (prepare/upload) y runUploads se llaman desde el mismo hilo.
+ */
+public class AssetPipeline {
+
+    // Paso final en el hilo de GL con el resultado de la preparación
+    public interface Upload<T> {
+        void upload(T data);
+    }
+
+    private static final class Ready<T> {
+        final String name;
+        final T data;
+        final Throwable error;
+        final Upload<T> upload;
+
+        Ready(String name, T data, Throwable error, Upload<T> upload) {
+            this.name = name;
+            this.data = data;
+            this.error = error;
+            this.upload = upload;
+        }
+
+        void run() {
+            upload.upload(data);
+        }
+    }
+
+    private final Executor workers;
+    private final ConcurrentLinkedQueue<Ready<?>> ready = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger prepared = new AtomicInteger();
+    private int prepareCount, uploadCount, uploaded;
+
+    public AssetPipeline(Executor workers) {
+        this.workers = workers;
+    }
+
+    // Pool FIFO de hilos daemon (no impiden cerrar la app) para las preparaciones
+    public static ExecutorService newWorkerPool(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "Carga-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Ejecuta 'task' en los workers; el futuro sirve para upload() o para otras preparaciones
+    public <T> CompletableFuture<T> prepare(String name, Callable<T> task) {
+        prepareCount++;
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(name, e);
+            } finally {
+                prepared.incrementAndGet();
+            }
+        }, workers);
+    }
+
+    // Encola 'upload' para el hilo de GL cuando 'data' esté listo (también si ha fallado)
+    public <T> void upload(String name, CompletableFuture<T> data, Upload<T> upload) {
+        uploadCount++;
+        data.whenComplete((value, error) -> ready.add(new Ready<>(name, value, error, upload)));
+    }
+
+    /**
+     * Ejecuta subidas pendientes hasta agotar 'budgetNanos' (al menos una si hay alguna lista,
+     * para avanzar siempre). Si una preparación o subida ha fallado lanza IllegalStateException
+     * con su nombre; las demás siguen en la cola para la próxima llamada.
+     *
+     * @return subidas ejecutadas
+     */
+    public int runUploads(long budgetNanos, LongSupplier clock) {
+        long start = clock.getAsLong();
+        int count = 0;
+        Ready<?> next;
+        while ((count == 0 || clock.getAsLong() - start < budgetNanos) && (next = ready.poll()) != null) {
+            uploaded++;
+            count++;
+            Throwable error = next.error;
+            if (error == null) {
+                try {
+                    next.run();
+                } catch (RuntimeException e) {
+                    error = e;
+                }
+            }
+            if (error != null) {
+                if (error instanceof CompletionException && error.getCause() != null) error = error.getCause();
+                throw new IllegalStateException("No se pudo cargar " + next.name, error);
+            }
+        }
+        return count;
+    }
+
+    // Fracción de pasos terminados (preparaciones y subidas), de 0 a 1
+    public float progress() {
+        int total = prepareCount + uploadCount;
+        return total == 0 ? 1 : (prepared.get() + uploaded) / (float) total;
+    }
+
+    public boolean isDone() {
+        return uploaded == uploadCount && prepared.get() == prepareCount;
+    }
+}
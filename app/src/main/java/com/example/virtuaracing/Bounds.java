@@ -0,0 +1,46 @@
+package com.example.virtuaracing;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Caja (AABB) y esfera envolventes de una malla en su espacio local, para el culling.
+ * La esfera se centra en la caja y su radio es la distancia al vértice más lejano.
+ */
+public class Bounds {
+
+    public float minX, minY, minZ, maxX, maxY, maxZ;
+    public float centerX, centerY, centerZ, radius;
+
+    // Recorre las posiciones de un buffer intercalado (stride en floats) con lecturas absolutas
+    public static Bounds of(FloatBuffer vertices, int vertexCount, int stride) {
+        Bounds b = new Bounds();
+        if (vertexCount == 0) return b;
+        b.minX = b.minY = b.minZ = Float.MAX_VALUE;
+        b.maxX = b.maxY = b.maxZ = -Float.MAX_VALUE;
+        for (int i = 0; i < vertexCount; i++) {
+            int o = i * stride;
+            float x = vertices.get(o), y = vertices.get(o + 1), z = vertices.get(o + 2);
+            if (x < b.minX) b.minX = x;
+            if (y < b.minY) b.minY = y;
+            if (z < b.minZ) b.minZ = z;
+            if (x > b.maxX) b.maxX = x;
+            if (y > b.maxY) b.maxY = y;
+            if (z > b.maxZ) b.maxZ = z;
+        }
+        b.centerX = (b.minX + b.maxX) * 0.5f;
+        b.centerY = (b.minY + b.maxY) * 0.5f;
+        b.centerZ = (b.minZ + b.maxZ) * 0.5f;
+        float maxSq = 0;
+        for (int i = 0; i < vertexCount; i++) {
+            int o = i * stride;
+            float dx = vertices.get(o) - b.centerX, dy = vertices.get(o + 1) - b.centerY, dz = vertices.get(o + 2) - b.centerZ;
+            maxSq = Math.max(maxSq, dx * dx + dy * dy + dz * dz);
+        }
+        b.radius = (float) Math.sqrt(maxSq);
+        return b;
+    }
+
+    public static Bounds of(MeshData mesh) {
+        return of(FloatBuffer.wrap(mesh.vertices), mesh.vertexCount, MeshData.STRIDE);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.virtuaracing;
+
+/**
+ * Estado de un coche en el frame actual. Se reutiliza frame a frame (la simulación lo rellena en
+ * su sitio) para no generar basura en el bucle de juego.
+ */
+public class CarState {
+    public final Vector4 position = new Vector4(0, 0, 0, 1);
+    public float rotationY;       // rumbo en grados
+    public float steeringAngle;   // giro de las ruedas delanteras en grados
+    public float progress;        // posición en la ruta (índice de punto + fracción)
+    public float distance;        // metros recorridos desde la salida
+    public float lateralOffset;   // desplazamiento lateral respecto a la ruta
+}
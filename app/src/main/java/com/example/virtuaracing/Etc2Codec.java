@@ -0,0 +1,314 @@
+package com.example.virtuaracing;
+
+/**
+ * Compresión ETC2 RGBA8 (GL_COMPRESSED_RGBA8_ETC2_EAC): bloques de 4x4 píxeles de 16 bytes, 8 de
+ * alfa (EAC) y 8 de color. El color se codifica solo con los modos de ETC1 (individual y
+ * diferencial), que son ETC2 válido; los modos T, H y planar no se usan. Lo usa la tarea
+ * bakeTextures en el build; decode() está para los tests y para comprobar la calidad.
+ *
+ * Los píxeles van en ARGB (como Bitmap.getPixels o BufferedImage.getRGB), fila a fila.
+ */
+public final class Etc2Codec {
+
+    public static final int GL_COMPRESSED_RGBA8_ETC2_EAC = 0x9278;
+    public static final int BLOCK_BYTES = 16;
+
+    // Tablas de modificadores de ETC1 (valores para los índices 0 y 1; 2 y 3 son los negativos)
+    private static final int[][] COLOR_TABLES = {
+            {2, 8}, {5, 17}, {9, 29}, {13, 42}, {18, 60}, {24, 80}, {33, 106}, {47, 183}
+    };
+
+    // Tablas de modificadores de EAC (alfa)
+    private static final int[][] ALPHA_TABLES = {
+            {-3, -6, -9, -15, 2, 5, 8, 14}, {-3, -7, -10, -13, 2, 6, 9, 12},
+            {-2, -5, -8, -13, 1, 4, 7, 12}, {-2, -4, -6, -13, 1, 3, 5, 12},
+            {-3, -6, -8, -12, 2, 5, 7, 11}, {-3, -7, -9, -11, 2, 6, 8, 10},
+            {-4, -7, -8, -11, 3, 6, 7, 10}, {-3, -5, -8, -11, 2, 4, 7, 10},
+            {-2, -6, -8, -10, 1, 5, 7, 9}, {-2, -5, -8, -10, 1, 4, 7, 9},
+            {-2, -4, -8, -10, 1, 3, 7, 9}, {-2, -5, -7, -10, 1, 4, 6, 9},
+            {-3, -4, -7, -10, 2, 3, 6, 9}, {-1, -2, -3, -10, 0, 1, 2, 9},
+            {-4, -6, -8, -9, 3, 5, 7, 8}, {-3, -5, -7, -9, 2, 4, 6, 8}
+    };
+
+    private Etc2Codec() {}
+
+    public static int encodedSize(int width, int height) {
+        return ((width + 3) / 4) * ((height + 3) / 4) * BLOCK_BYTES;
+    }
+
+    // --- CODIFICACIÓN ---
+    // Todos los niveles de una MipChain, listos para KtxFile.write
+    public static byte[][] encodeLevels(int[][] chain, int width, int height) {
+        byte[][] levels = new byte[chain.length][];
+        for (int l = 0; l < chain.length; l++) {
+            levels[l] = encode(chain[l], MipChain.levelSize(width, l), MipChain.levelSize(height, l));
+        }
+        return levels;
+    }
+
+    public static byte[] encode(int[] argb, int width, int height) {
+        byte[] out = new byte[encodedSize(width, height)];
+        int[] block = new int[16]; //píxeles del bloque en el orden de ETC (columna a columna)
+        int[] work = new int[16];
+        int offset = 0;
+        for (int by = 0; by < height; by += 4) {
+            for (int bx = 0; bx < width; bx += 4) {
+                for (int x = 0; x < 4; x++) {
+                    for (int y = 0; y < 4; y++) { //los bloques del borde repiten el último píxel
+                        int px = Math.min(bx + x, width - 1), py = Math.min(by + y, height - 1);
+                        block[x * 4 + y] = argb[py * width + px];
+                    }
+                }
+                putLong(out, offset, encodeAlpha(block, work));
+                putLong(out, offset + 8, encodeColor(block, work));
+                offset += BLOCK_BYTES;
+            }
+        }
+        return out;
+    }
+
+    // EAC: base + modificador * multiplicador; se prueban las 16 tablas con los multiplicadores
+    // que mejor cubren el rango del bloque
+    private static long encodeAlpha(int[] block, int[] indices) {
+        int min = 255, max = 0;
+        for (int p : block) {
+            int a = p >>> 24;
+            min = Math.min(min, a);
+            max = Math.max(max, a);
+        }
+        long best = 0;
+        int bestError = Integer.MAX_VALUE;
+        for (int t = 0; t < 16 && bestError > 0; t++) {
+            int[] table = ALPHA_TABLES[t];
+            int span = table[7] - table[3];
+            int estimate = Math.max(1, (max - min + span - 1) / span);
+            for (int m = Math.max(1, estimate - 1); m <= Math.min(15, estimate + 1); m++) {
+                int base = clamp255((min - m * table[3] + max - m * table[7] + 1) / 2);
+                int error = 0;
+                for (int i = 0; i < 16 && error < bestError; i++) {
+                    int a = block[i] >>> 24, bestIndex = 0, bestDiff = Integer.MAX_VALUE;
+                    for (int k = 0; k < 8; k++) {
+                        int d = Math.abs(clamp255(base + table[k] * m) - a);
+                        if (d < bestDiff) {
+                            bestDiff = d;
+                            bestIndex = k;
+                        }
+                    }
+                    indices[i] = bestIndex;
+                    error += bestDiff * bestDiff;
+                }
+                if (error < bestError) {
+                    bestError = error;
+                    best = (long) base << 56 | (long) m << 52 | (long) t << 48;
+                    for (int i = 0; i < 16; i++) best |= (long) indices[i] << (45 - 3 * i);
+                }
+            }
+        }
+        return best;
+    }
+
+    // ETC1: dos sub-bloques (2x4 o 4x2) con un color base cada uno; se prueba cada orientación
+    // en modo diferencial (5+3 bits) si cabe y en modo individual (4 bits), y se queda el mejor
+    private static long encodeColor(int[] block, int[] indices) {
+        long best = 0;
+        long bestError = Long.MAX_VALUE;
+        int[] avg0 = new int[3], avg1 = new int[3];
+        int[] c0 = new int[3], c1 = new int[3];
+        int[] tables = new int[2];
+        for (int flip = 0; flip < 2; flip++) {
+            average(block, flip, 0, avg0);
+            average(block, flip, 1, avg1);
+
+            // Diferencial: bases en 5 bits y diferencia de -4 a 3
+            boolean fits = true;
+            int bits = 0;
+            for (int ch = 0; ch < 3; ch++) {
+                int q0 = (avg0[ch] * 31 + 127) / 255, q1 = (avg1[ch] * 31 + 127) / 255;
+                int d = Math.max(-4, Math.min(3, q1 - q0));
+                if (q1 - q0 != d) fits = false; //fuera de rango: solo vale el modo individual
+                c0[ch] = expand5(q0);
+                c1[ch] = expand5(q0 + d);
+                bits |= (q0 << 3 | (d & 7)) << (24 - 8 * ch);
+            }
+            if (fits) {
+                long candidate = (long) bits << 32 | 2L << 32 | (long) flip << 32;
+                long error = fitSubblocks(block, flip, c0, c1, indices, tables);
+                if (error < bestError) {
+                    bestError = error;
+                    best = candidate | tableBits(tables) | packIndices(indices);
+                }
+            }
+
+            // Individual: 4 bits por canal en cada sub-bloque
+            bits = 0;
+            for (int ch = 0; ch < 3; ch++) {
+                int q0 = (avg0[ch] * 15 + 127) / 255, q1 = (avg1[ch] * 15 + 127) / 255;
+                c0[ch] = q0 * 17;
+                c1[ch] = q1 * 17;
+                bits |= (q0 << 4 | q1) << (24 - 8 * ch);
+            }
+            long candidate = (long) bits << 32 | (long) flip << 32;
+            long error = fitSubblocks(block, flip, c0, c1, indices, tables);
+            if (error < bestError) {
+                bestError = error;
+                best = candidate | tableBits(tables) | packIndices(indices);
+            }
+        }
+        return best;
+    }
+
+    // Media de color de un sub-bloque ponderada por alfa (lo transparente no importa)
+    private static void average(int[] block, int flip, int half, int[] out) {
+        long r = 0, g = 0, b = 0, weight = 0;
+        for (int i = 0; i < 16; i++) {
+            if (subblock(i, flip) != half) continue;
+            int p = block[i], w = (p >>> 24) + 1;
+            r += ((p >> 16) & 0xFF) * w;
+            g += ((p >> 8) & 0xFF) * w;
+            b += (p & 0xFF) * w;
+            weight += w;
+        }
+        out[0] = (int) ((r + weight / 2) / weight);
+        out[1] = (int) ((g + weight / 2) / weight);
+        out[2] = (int) ((b + weight / 2) / weight);
+    }
+
+    // Elige la tabla de cada sub-bloque (tables) y el índice de cada píxel (indices) para las dos
+    // bases dadas; devuelve el error cuadrático ponderado por alfa
+    private static long fitSubblocks(int[] block, int flip, int[] c0, int[] c1, int[] indices, int[] tables) {
+        long total = 0;
+        for (int half = 0; half < 2; half++) {
+            int[] base = half == 0 ? c0 : c1;
+            long bestError = Long.MAX_VALUE;
+            int bestTable = 0, bestIndices = 0;
+            for (int t = 0; t < 8; t++) {
+                long error = 0;
+                int packed = 0;
+                for (int i = 0; i < 16 && error < bestError; i++) {
+                    if (subblock(i, flip) != half) continue;
+                    int p = block[i], w = (p >>> 24) + 1;
+                    int r = (p >> 16) & 0xFF, g = (p >> 8) & 0xFF, b = p & 0xFF;
+                    long pixelBest = Long.MAX_VALUE;
+                    int pixelIndex = 0;
+                    for (int k = 0; k < 4; k++) {
+                        int mod = modifier(t, k);
+                        int dr = clamp255(base[0] + mod) - r, dg = clamp255(base[1] + mod) - g, db = clamp255(base[2] + mod) - b;
+                        long e = (long) (dr * dr + dg * dg + db * db) * w;
+                        if (e < pixelBest) {
+                            pixelBest = e;
+                            pixelIndex = k;
+                        }
+                    }
+                    error += pixelBest;
+                    packed |= pixelIndex << (2 * i);
+                }
+                if (error < bestError) {
+                    bestError = error;
+                    bestTable = t;
+                    bestIndices = packed;
+                }
+            }
+            total += bestError;
+            tables[half] = bestTable;
+            for (int i = 0; i < 16; i++) {
+                if (subblock(i, flip) == half) indices[i] = (bestIndices >>> (2 * i)) & 3;
+            }
+        }
+        return total;
+    }
+
+    private static long tableBits(int[] tables) {
+        return (long) tables[0] << 37 | (long) tables[1] << 34;
+    }
+
+    // Índices de 2 bits: MSB en los bits 31-16 y LSB en los 15-0; 0/1 = +a/+b, 2/3 = -a/-b
+    private static long packIndices(int[] indices) {
+        long msb = 0, lsb = 0;
+        for (int i = 0; i < 16; i++) {
+            msb |= (long) (indices[i] >> 1) << i;
+            lsb |= (long) (indices[i] & 1) << i;
+        }
+        return msb << 16 | lsb;
+    }
+
+    // --- DECODIFICACIÓN ---
+    public static int[] decode(byte[] data, int width, int height) {
+        int[] argb = new int[width * height];
+        int[] alpha = new int[16], color = new int[16];
+        int offset = 0;
+        for (int by = 0; by < height; by += 4) {
+            for (int bx = 0; bx < width; bx += 4) {
+                decodeAlpha(getLong(data, offset), alpha);
+                decodeColor(getLong(data, offset + 8), color);
+                for (int x = 0; x < 4 && bx + x < width; x++) {
+                    for (int y = 0; y < 4 && by + y < height; y++) {
+                        argb[(by + y) * width + bx + x] = alpha[x * 4 + y] << 24 | color[x * 4 + y];
+                    }
+                }
+                offset += BLOCK_BYTES;
+            }
+        }
+        return argb;
+    }
+
+    private static void decodeAlpha(long bits, int[] out) {
+        int base = (int) (bits >>> 56) & 0xFF;
+        int m = (int) (bits >>> 52) & 0xF;
+        int[] table = ALPHA_TABLES[(int) (bits >>> 48) & 0xF];
+        for (int i = 0; i < 16; i++) out[i] = clamp255(base + table[(int) (bits >>> (45 - 3 * i)) & 7] * m);
+    }
+
+    private static void decodeColor(long bits, int[] out) {
+        int high = (int) (bits >>> 32);
+        boolean diff = (high & 2) != 0, flip = (high & 1) != 0;
+        int[] c0 = new int[3], c1 = new int[3];
+        for (int ch = 0; ch < 3; ch++) {
+            int v = (high >>> (24 - 8 * ch)) & 0xFF;
+            if (diff) {
+                int q0 = v >> 3, d = (v & 7) << 29 >> 29; //diferencia con signo de 3 bits
+                c0[ch] = expand5(q0);
+                c1[ch] = expand5(q0 + d);
+            } else {
+                c0[ch] = (v >> 4) * 17;
+                c1[ch] = (v & 0xF) * 17;
+            }
+        }
+        int t0 = (high >>> 5) & 7, t1 = (high >>> 2) & 7;
+        for (int i = 0; i < 16; i++) {
+            int index = (int) ((bits >>> (16 + i)) & 1) << 1 | (int) ((bits >>> i) & 1);
+            boolean second = subblock(i, flip ? 1 : 0) == 1;
+            int[] base = second ? c1 : c0;
+            int mod = modifier(second ? t1 : t0, index);
+            out[i] = clamp255(base[0] + mod) << 16 | clamp255(base[1] + mod) << 8 | clamp255(base[2] + mod);
+        }
+    }
+
+    // --- AUXILIARES ---
+    // Píxel i (= x * 4 + y): sub-bloque 0/1 según la orientación (0 = izquierda/derecha)
+    private static int subblock(int i, int flip) {
+        return flip == 0 ? i / 8 : (i & 3) / 2;
+    }
+
+    private static int modifier(int table, int index) {
+        int v = COLOR_TABLES[table][index & 1];
+        return index < 2 ? v : -v;
+    }
+
+    private static int expand5(int v) {
+        return v << 3 | v >> 2;
+    }
+
+    private static int clamp255(int v) {
+        return v < 0 ? 0 : Math.min(v, 255);
+    }
+
+    private static void putLong(byte[] out, int offset, long v) { //big-endian, como define ETC
+        for (int i = 0; i < 8; i++) out[offset + i] = (byte) (v >>> (56 - 8 * i));
+    }
+
+    private static long getLong(byte[] in, int offset) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) v = v << 8 | (in[offset + i] & 0xFF);
+        return v;
+    }
+}
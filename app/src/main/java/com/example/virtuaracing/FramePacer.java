@@ -0,0 +1,119 @@
+package com.example.virtuaracing;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Control del ritmo de frames para no calentar el móvil:
+ *
+ *  - Límite de FPS: waitNanos() dice cuánto esperar antes de dibujar para no pasar de targetFps.
+ *  - Escena quieta: si varios frames seguidos no traen nada nuevo, isStatic() pide pasar a
+ *    RENDERMODE_WHEN_DIRTY (y que sea la simulación quien pida los frames).
+ *  - Resolución dinámica: con la media del tiempo de frame por encima del presupuesto baja la
+ *    escala de la superficie (setFixedSize) y la vuelve a subir cuando sobra margen. El tiempo de
+ *    frame es el de CPU entre beginFrame() y endFrame(): el intercambio de buffers que viene
+ *    después se bloquea hasta el vsync aunque la GPU esté parada, así que no dice nada de la
+ *    carga. Solo si el intervalo hasta el waitNanos() siguiente pasa de MISSED_VSYNC presupuestos
+ *    (se ha perdido un vsync: la GPU no ha terminado a tiempo) cuenta ese intervalo entero.
+ *
+ * No depende de Android; el reloj se inyecta (System::nanoTime en el juego) para probarlo en la JVM.
+ */
+public class FramePacer {
+
+    public static final float MIN_SCALE = 0.5f;
+    private static final float SCALE_STEP = 0.1f;
+    private static final float DOWNSCALE_LOAD = 0.9f;  //fracción del presupuesto para bajar
+    private static final float UPSCALE_LOAD = 0.6f;    //y para subir
+    private static final float AVERAGE_WEIGHT = 0.1f;  //media exponencial del tiempo de frame
+    private static final int SETTLE_FRAMES = 30;       //frames sin tocar la escala tras un cambio
+    private static final int STATIC_FRAMES = 30;       //frames sin cambios para considerar la escena quieta
+    private static final float MISSED_VSYNC = 1.5f;    //intervalo, en presupuestos, que indica un vsync perdido
+    private static final int STALL_FRAMES = 8;         //un frame más largo que esto es un parón (GC, pausa): no cuenta
+
+    private final LongSupplier clock;
+    private long frameInterval;
+    private long nextFrameTime = Long.MIN_VALUE;
+
+    private long frameStart;
+    private long workNanos;                  //CPU del frame anterior (beginFrame a endFrame)
+    private long waitStart = Long.MIN_VALUE; //última llamada a waitNanos()
+    private boolean measuring;               //el frame anterior se dibujó seguido: se mide hasta este
+    private float averageFrameNanos = -1;
+    private float resolutionScale = 1.0f;
+    private int framesSinceScaleChange = 0;
+    private int unchangedFrames = 0;
+
+    public FramePacer(LongSupplier clock, int targetFps) {
+        this.clock = clock;
+        setTargetFps(targetFps);
+    }
+
+    public void setTargetFps(int targetFps) {
+        frameInterval = 1_000_000_000L / targetFps;
+    }
+
+    public long getFrameBudgetNanos() {
+        return frameInterval;
+    }
+
+    // Nanosegundos que hay que esperar antes de empezar el siguiente frame (0 si vamos tarde)
+    public long waitNanos() {
+        long now = clock.getAsLong();
+        waitStart = now;
+        //primer frame o más de un frame de retraso: no intentamos recuperar, volvemos a sincronizar
+        if (nextFrameTime == Long.MIN_VALUE || now - nextFrameTime > frameInterval) nextFrameTime = now;
+        long wait = Math.max(0, nextFrameTime - now);
+        nextFrameTime += frameInterval;
+        return wait;
+    }
+
+    public void beginFrame() {
+        long now = clock.getAsLong();
+        if (measuring) {
+            long interval = (waitStart > frameStart ? waitStart : now) - frameStart;
+            long frameNanos = interval > frameInterval * MISSED_VSYNC ? interval : workNanos;
+            if (frameNanos <= frameInterval * STALL_FRAMES) {
+                averageFrameNanos = averageFrameNanos < 0 ? frameNanos
+                        : averageFrameNanos + (frameNanos - averageFrameNanos) * AVERAGE_WEIGHT;
+            }
+        }
+        frameStart = now;
+    }
+
+    /**
+     * Fin del frame. sceneChanged: si se ha dibujado algo distinto del frame anterior (tick nuevo
+     * de la simulación, entrada del jugador...). Devuelve true si ha cambiado la escala.
+     *
+     * La duración de este frame aún no se conoce (falta ver si el intercambio de buffers pierde el
+     * vsync): se añade a la media en el beginFrame() siguiente, salvo que la escena se haya quedado quieta, porque
+     * entonces el siguiente frame llega cuando lo pida la simulación.
+     */
+    public boolean endFrame(boolean sceneChanged) {
+        workNanos = clock.getAsLong() - frameStart;
+        unchangedFrames = sceneChanged ? 0 : unchangedFrames + 1;
+        measuring = !isStatic();
+
+        if (++framesSinceScaleChange < SETTLE_FRAMES || averageFrameNanos < 0) return false;
+        float scale = resolutionScale;
+        if (averageFrameNanos > frameInterval * DOWNSCALE_LOAD) {
+            scale = Math.max(MIN_SCALE, resolutionScale - SCALE_STEP);
+        } else if (averageFrameNanos < frameInterval * UPSCALE_LOAD) {
+            scale = Math.min(1.0f, resolutionScale + SCALE_STEP);
+        }
+        if (scale == resolutionScale) return false;
+        resolutionScale = Math.round(scale * 10) / 10.0f; //sin arrastrar error de redondeo
+        framesSinceScaleChange = 0;
+        return true;
+    }
+
+    public boolean isStatic() {
+        return unchangedFrames >= STATIC_FRAMES;
+    }
+
+    public float getResolutionScale() {
+        return resolutionScale;
+    }
+
+    public float getAverageFrameNanos() {
+        return averageFrameNanos;
+    }
+}
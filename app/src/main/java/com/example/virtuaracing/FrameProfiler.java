@@ -0,0 +1,85 @@
+package com.example.virtuaracing;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Tiempos por fase de onDrawFrame y contadores de GPU de los últimos frames, cada métrica en su
+ * RingHistogram para sacar p50/p95/p99. El renderer marca el final de cada fase con endPhase() (el
+ * tiempo se mide desde la marca anterior) y cierra con endFrame().
+ *
+ * Desactivado, cada llamada es una comprobación de un boolean; activado no reserva memoria.
+ */
+public class FrameProfiler {
+
+    // Fases de onDrawFrame (nanosegundos)
+    public static final int SIMULATION = 0, CAMERA = 1, SKY = 2, ROAD = 3, SCENERY = 4, CARS = 5, SUBMIT = 6, HUD = 7;
+    public static final int PHASE_COUNT = 8;
+    // Frame completo (nanosegundos) y contadores de RenderStats
+    public static final int FRAME = 8, DRAW_CALLS = 9, TEXTURE_BINDS = 10, TRIANGLES = 11;
+    public static final int METRIC_COUNT = 12;
+
+    public static final String[] NAMES = {
+            "simulación", "cámara", "cielo", "carretera", "escenario", "coches", "envío", "HUD",
+            "frame", "draw calls", "texturas", "triángulos"
+    };
+
+    private final LongSupplier clock;
+    private final RingHistogram[] histograms = new RingHistogram[METRIC_COUNT];
+    private final long[] current = new long[METRIC_COUNT];
+    private boolean enabled;
+    private long frameStart, phaseStart;
+
+    public FrameProfiler(LongSupplier clock, int frames) {
+        this.clock = clock;
+        for (int i = 0; i < METRIC_COUNT; i++) histograms[i] = new RingHistogram(frames);
+    }
+
+    public void setEnabled(boolean enabled) {
+        if (enabled && !this.enabled) {
+            for (RingHistogram h : histograms) h.clear(); //no mezclar con medidas antiguas
+        }
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void beginFrame() {
+        if (!enabled) return;
+        frameStart = phaseStart = clock.getAsLong();
+    }
+
+    // Suma a la fase el tiempo desde la marca anterior (una fase puede marcarse varias veces)
+    public void endPhase(int phase) {
+        if (!enabled) return;
+        long now = clock.getAsLong();
+        current[phase] += now - phaseStart;
+        phaseStart = now;
+    }
+
+    public void endFrame(int drawCalls, int textureBinds, int triangles) {
+        if (!enabled) return;
+        current[FRAME] = clock.getAsLong() - frameStart;
+        current[DRAW_CALLS] = drawCalls;
+        current[TEXTURE_BINDS] = textureBinds;
+        current[TRIANGLES] = triangles;
+        for (int i = 0; i < METRIC_COUNT; i++) {
+            histograms[i].add(current[i]);
+            current[i] = 0;
+        }
+    }
+
+    // p en [0, 1]: 0.5, 0.95, 0.99...
+    public long percentile(int metric, double p) {
+        return histograms[metric].percentile(p);
+    }
+
+    public long last(int metric) {
+        return histograms[metric].last();
+    }
+
+    public int frameCount() {
+        return histograms[FRAME].size();
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.virtuaracing;
+
+/**
+ * Pirámide de visión de la cámara en coordenadas de mundo, calculada a partir de los mismos datos
+ * que gluLookAt (eye, center, up) y gluPerspective (fovy, aspect, near, far). Guarda los 6 planos
+ * con la normal hacia dentro: un punto p está dentro si n·p + d >= 0 para todos ellos.
+ */
+public class Frustum {
+
+    private static final int PLANES = 6;
+
+    private float fovY = 60, aspect = 1, near = 1, far = 200;
+    private final float[] planes = new float[PLANES * 4]; // (nx, ny, nz, d) por plano
+
+    public void setPerspective(float fovYDegrees, float aspect, float near, float far) {
+        this.fovY = fovYDegrees;
+        this.aspect = aspect;
+        this.near = near;
+        this.far = far;
+    }
+
+    public void update(Vector4 eye, Vector4 center, Vector4 up) {
+        update(eye.get(0), eye.get(1), eye.get(2),
+                center.get(0), center.get(1), center.get(2),
+                up.get(0), up.get(1), up.get(2));
+    }
+
+    public void update(float ex, float ey, float ez, float cx, float cy, float cz, float ux, float uy, float uz) {
+        // Base de la cámara: f hacia delante, r a la derecha, u arriba (ortonormal)
+        float fx = cx - ex, fy = cy - ey, fz = cz - ez;
+        float len = (float) Math.sqrt(fx * fx + fy * fy + fz * fz);
+        fx /= len; fy /= len; fz /= len;
+        float rx = fy * uz - fz * uy, ry = fz * ux - fx * uz, rz = fx * uy - fy * ux;
+        len = (float) Math.sqrt(rx * rx + ry * ry + rz * rz);
+        rx /= len; ry /= len; rz /= len;
+        ux = ry * fz - rz * fy; uy = rz * fx - rx * fz; uz = rx * fy - ry * fx;
+
+        double halfV = Math.toRadians(fovY) / 2;
+        double halfH = Math.atan(Math.tan(halfV) * aspect);
+        float sv = (float) Math.sin(halfV), cv = (float) Math.cos(halfV);
+        float sh = (float) Math.sin(halfH), ch = (float) Math.cos(halfH);
+
+        // Near y far: perpendiculares a f
+        setPlane(0, fx, fy, fz, ex + fx * near, ey + fy * near, ez + fz * near);
+        setPlane(1, -fx, -fy, -fz, ex + fx * far, ey + fy * far, ez + fz * far);
+        // Laterales: pasan por el ojo
+        setPlane(2, fx * sh + rx * ch, fy * sh + ry * ch, fz * sh + rz * ch, ex, ey, ez); // izquierda
+        setPlane(3, fx * sh - rx * ch, fy * sh - ry * ch, fz * sh - rz * ch, ex, ey, ez); // derecha
+        setPlane(4, fx * sv + ux * cv, fy * sv + uy * cv, fz * sv + uz * cv, ex, ey, ez); // abajo
+        setPlane(5, fx * sv - ux * cv, fy * sv - uy * cv, fz * sv - uz * cv, ex, ey, ez); // arriba
+    }
+
+    private void setPlane(int i, float nx, float ny, float nz, float px, float py, float pz) {
+        planes[i * 4] = nx;
+        planes[i * 4 + 1] = ny;
+        planes[i * 4 + 2] = nz;
+        planes[i * 4 + 3] = -(nx * px + ny * py + nz * pz);
+    }
+
+    // Distancia con signo del punto al plano i (positiva = dentro)
+    public float distance(int plane, float x, float y, float z) {
+        int o = plane * 4;
+        return planes[o] * x + planes[o + 1] * y + planes[o + 2] * z + planes[o + 3];
+    }
+
+    public boolean isSphereVisible(float x, float y, float z, float radius) {
+        for (int i = 0; i < PLANES; i++) {
+            if (distance(i, x, y, z) < -radius) return false;
+        }
+        return true;
+    }
+}
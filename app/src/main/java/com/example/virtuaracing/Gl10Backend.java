@@ -0,0 +1,375 @@
+package com.example.virtuaracing;
+
+import android.graphics.Bitmap;
+import android.opengl.GLU;
+import android.opengl.GLUtils;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import javax.microedition.khronos.opengles.GL10;
+import javax.microedition.khronos.opengles.GL11;
+
+/**
+ * Backend de pipeline fijo (GLES 1.x): cada operación es la llamada de GL10 de siempre. Es el
+ * camino para dispositivos sin GLES 2 y la referencia para comparar con Gles2Backend.
+ * Los glEnable/glDisable, la textura y los arrays pasan por GlStateCache.
+ *
+ * GLES 1.x no tiene ETC2, así que las texturas van siempre desde PNG; con GL11 los mipmaps los
+ * genera el driver (GL_GENERATE_MIPMAP) si los lados son potencia de dos.
+ */
+public class Gl10Backend implements RenderBackend {
+
+    private static final int[] LIGHTS = {GL10.GL_LIGHT0, GL10.GL_LIGHT1};
+    private static final int[] LIGHT_PARAMETERS = {GL10.GL_POSITION, GL10.GL_AMBIENT, GL10.GL_DIFFUSE, GL10.GL_SPECULAR};
+
+    // Id de los arrays del cuadrado en GlStateCache (las mallas usan su id, que es positivo)
+    private static final int QUAD_ARRAYS = -1;
+
+    private final GL10 gl;
+    private final GlStateCache state = new GlStateCache();
+    private final Quad quad = new Quad();
+    // Material por defecto de GL10 (difuso 0.8); su alfa es el de lo iluminado, que ignora glColor
+    private final float[] materialDiffuse = {0.8f, 0.8f, 0.8f, 1.0f};
+    private boolean depthWrite = true;
+
+    public Gl10Backend(GL10 gl) {
+        this.gl = gl;
+    }
+
+    @Override
+    public Kind kind() {
+        return Kind.GL10;
+    }
+
+    // --- ESTADO GENERAL ---
+    @Override
+    public void init(float r, float g, float b) {
+        state.invalidate();
+        depthWrite = true;
+        gl.glDepthMask(true);
+        materialDiffuse[3] = 1.0f;
+        gl.glMaterialfv(GL10.GL_FRONT_AND_BACK, GL10.GL_DIFFUSE, materialDiffuse, 0);
+        gl.glClearColor(r, g, b, 1.0f);
+        gl.glClearDepthf(1.0f);
+        setCapability(GL10.GL_DEPTH_TEST, true);
+        gl.glDepthFunc(GL10.GL_LEQUAL);
+        gl.glShadeModel(GL10.GL_SMOOTH);
+        gl.glBlendFunc(GL10.GL_SRC_ALPHA, GL10.GL_ONE_MINUS_SRC_ALPHA);
+        gl.glAlphaFunc(GL10.GL_GREATER, ALPHA_REF);
+        quad.upload();
+    }
+
+    @Override
+    public void viewport(int width, int height) {
+        gl.glViewport(0, 0, width, height);
+    }
+
+    @Override
+    public void viewport(int x, int y, int width, int height) {
+        gl.glViewport(x, y, width, height);
+    }
+
+    @Override
+    public void setClearColor(float r, float g, float b) {
+        gl.glClearColor(r, g, b, 1.0f);
+    }
+
+    @Override
+    public void clear() {
+        gl.glClear(GL10.GL_COLOR_BUFFER_BIT | GL10.GL_DEPTH_BUFFER_BIT);
+    }
+
+    @Override
+    public void setLighting(boolean enabled) {
+        setCapability(GL10.GL_LIGHTING, enabled);
+    }
+
+    @Override
+    public void setDepthTest(boolean enabled) {
+        setCapability(GL10.GL_DEPTH_TEST, enabled);
+    }
+
+    @Override
+    public void setDepthWrite(boolean enabled) {
+        if (enabled == depthWrite) return;
+        depthWrite = enabled;
+        gl.glDepthMask(enabled);
+    }
+
+    @Override
+    public void setBlending(boolean enabled) {
+        setCapability(GL10.GL_BLEND, enabled);
+    }
+
+    @Override
+    public void setAlphaTest(boolean enabled) {
+        setCapability(GL10.GL_ALPHA_TEST, enabled);
+    }
+
+    @Override
+    public void setTexturing(boolean enabled) {
+        setCapability(GL10.GL_TEXTURE_2D, enabled);
+    }
+
+    private void setCapability(int capability, boolean enabled) {
+        if (!state.set(capability, enabled)) return;
+        if (enabled) gl.glEnable(capability);
+        else gl.glDisable(capability);
+    }
+
+    @Override
+    public void setColor(float r, float g, float b, float a) {
+        gl.glColor4f(r, g, b, a);
+        if (a != materialDiffuse[3]) {
+            materialDiffuse[3] = a;
+            gl.glMaterialfv(GL10.GL_FRONT_AND_BACK, GL10.GL_DIFFUSE, materialDiffuse, 0);
+        }
+    }
+
+    // --- MATRICES ---
+    @Override
+    public void perspective(float fovY, float aspect, float near, float far) {
+        gl.glMatrixMode(GL10.GL_PROJECTION);
+        gl.glLoadIdentity();
+        GLU.gluPerspective(gl, fovY, aspect, near, far);
+        gl.glMatrixMode(GL10.GL_MODELVIEW);
+        gl.glLoadIdentity();
+    }
+
+    @Override
+    public void pushOrtho(float left, float right, float bottom, float top) {
+        gl.glMatrixMode(GL10.GL_PROJECTION);
+        gl.glPushMatrix();
+        gl.glLoadIdentity();
+        gl.glOrthof(left, right, bottom, top, -1, 1);
+        gl.glMatrixMode(GL10.GL_MODELVIEW);
+        gl.glPushMatrix();
+        gl.glLoadIdentity();
+    }
+
+    @Override
+    public void popOrtho() {
+        gl.glPopMatrix();
+        gl.glMatrixMode(GL10.GL_PROJECTION);
+        gl.glPopMatrix();
+        gl.glMatrixMode(GL10.GL_MODELVIEW);
+    }
+
+    @Override
+    public void multMatrix(float[] m, int offset) {
+        gl.glMultMatrixf(m, offset);
+    }
+
+    @Override
+    public void loadIdentity() {
+        gl.glLoadIdentity();
+    }
+
+    @Override
+    public void lookAt(float ex, float ey, float ez, float cx, float cy, float cz, float ux, float uy, float uz) {
+        GLU.gluLookAt(gl, ex, ey, ez, cx, cy, cz, ux, uy, uz);
+    }
+
+    @Override
+    public void pushMatrix() {
+        gl.glPushMatrix();
+    }
+
+    @Override
+    public void popMatrix() {
+        gl.glPopMatrix();
+    }
+
+    @Override
+    public void translate(float x, float y, float z) {
+        gl.glTranslatef(x, y, z);
+    }
+
+    @Override
+    public void rotate(float angle, float x, float y, float z) {
+        gl.glRotatef(angle, x, y, z);
+    }
+
+    @Override
+    public void scale(float x, float y, float z) {
+        gl.glScalef(x, y, z);
+    }
+
+    // --- LUCES ---
+    @Override
+    public void setLightEnabled(int light, boolean enabled) {
+        setCapability(LIGHTS[light], enabled);
+    }
+
+    @Override
+    public void setLight(int light, int parameter, float[] value) {
+        gl.glLightfv(LIGHTS[light], LIGHT_PARAMETERS[parameter], value, 0);
+    }
+
+    @Override
+    public void setLightAttenuation(int light, float constant, float linear, float quadratic) {
+        gl.glLightf(LIGHTS[light], GL10.GL_CONSTANT_ATTENUATION, constant);
+        gl.glLightf(LIGHTS[light], GL10.GL_LINEAR_ATTENUATION, linear);
+        gl.glLightf(LIGHTS[light], GL10.GL_QUADRATIC_ATTENUATION, quadratic);
+    }
+
+    // --- RECURSOS ---
+    @Override
+    public int createTexture(Bitmap bitmap) {
+        int[] textures = new int[1];
+        gl.glGenTextures(1, textures, 0);
+        state.bindTexture(textures[0]); //queda ligada
+        gl.glBindTexture(GL10.GL_TEXTURE_2D, textures[0]);
+        boolean mipmaps = gl instanceof GL11 && isPowerOfTwo(bitmap.getWidth()) && isPowerOfTwo(bitmap.getHeight());
+        gl.glTexParameterf(GL10.GL_TEXTURE_2D, GL10.GL_TEXTURE_MIN_FILTER,
+                mipmaps ? GL10.GL_LINEAR_MIPMAP_LINEAR : GL10.GL_NEAREST);
+        gl.glTexParameterf(GL10.GL_TEXTURE_2D, GL10.GL_TEXTURE_MAG_FILTER, GL10.GL_NEAREST);
+        gl.glTexParameterf(GL10.GL_TEXTURE_2D, GL10.GL_TEXTURE_WRAP_S, GL10.GL_REPEAT);
+        gl.glTexParameterf(GL10.GL_TEXTURE_2D, GL10.GL_TEXTURE_WRAP_T, GL10.GL_REPEAT);
+        if (mipmaps) gl.glTexParameterf(GL10.GL_TEXTURE_2D, GL11.GL_GENERATE_MIPMAP, GL10.GL_TRUE);
+        GLUtils.texImage2D(GL10.GL_TEXTURE_2D, 0, bitmap, 0);
+        return textures[0];
+    }
+
+    static boolean isPowerOfTwo(int size) {
+        return size > 0 && (size & (size - 1)) == 0;
+    }
+
+    @Override
+    public boolean supportsEtc2() {
+        return false;
+    }
+
+    @Override
+    public void bindTexture(int textureId) {
+        setCapability(GL10.GL_TEXTURE_2D, true);
+        if (!state.bindTexture(textureId)) return;
+        gl.glBindTexture(GL10.GL_TEXTURE_2D, textureId);
+        RenderStats.textureBinds++;
+    }
+
+    @Override
+    public int createBuffer(boolean indices, Buffer data, int bytes) {
+        if (!(gl instanceof GL11)) return 0;
+        GL11 gl11 = (GL11) gl;
+        state.forgetArrays(); //cambia los buffers ligados
+        int target = indices ? GL11.GL_ELEMENT_ARRAY_BUFFER : GL11.GL_ARRAY_BUFFER;
+        int[] ids = new int[1];
+        gl11.glGenBuffers(1, ids, 0);
+        gl11.glBindBuffer(target, ids[0]);
+        gl11.glBufferData(target, bytes, data, GL11.GL_STATIC_DRAW);
+        gl11.glBindBuffer(target, 0);
+        return ids[0];
+    }
+
+    @Override
+    public void deleteBuffers(int[] ids, int count) {
+        state.forgetArrays();
+        ((GL11) gl).glDeleteBuffers(count, ids, 0);
+    }
+
+    @Override
+    public void readPixels(int x, int y, int width, int height, ByteBuffer rgba) {
+        gl.glReadPixels(x, y, width, height, GL10.GL_RGBA, GL10.GL_UNSIGNED_BYTE, rgba);
+    }
+
+    // --- DIBUJO ---
+    @Override
+    public void draw(Object3D mesh) {
+        mesh.draw(gl, state);
+    }
+
+    @Override
+    public void drawInstances(Object3D mesh, InstanceBatch batch) {
+        mesh.drawInstances(gl, state, batch);
+    }
+
+    @Override
+    public void drawQuad(float u0, float v0, float u1, float v1) {
+        // La región se aplica con la matriz de textura para no tocar las coordenadas del VBO
+        boolean region = u0 != 0 || v0 != 0 || u1 != 1 || v1 != 1;
+        if (region) {
+            gl.glMatrixMode(GL10.GL_TEXTURE);
+            gl.glLoadIdentity();
+            gl.glTranslatef(u0, v0, 0);
+            gl.glScalef(u1 - u0, v1 - v0, 1);
+        }
+        quad.draw();
+        if (region) {
+            gl.glLoadIdentity();
+            gl.glMatrixMode(GL10.GL_MODELVIEW);
+        }
+    }
+
+    // Cuadrado unidad del HUD, en VBOs si hay GL11 o con arrays de cliente
+    private class Quad {
+        private FloatBuffer vertexBuffer;
+        private FloatBuffer textureBuffer;
+        private int vertexVbo = 0, textureVbo = 0; //0 = arrays de cliente
+
+        // Coordenadas cuadradas simples
+        private final float[] vertices = {
+                0.0f, 0.0f, 0.0f,  // Abajo-Izq
+                1.0f, 0.0f, 0.0f,  // Abajo-Der
+                0.0f, 1.0f, 0.0f,  // Arriba-Izq
+                1.0f, 1.0f, 0.0f   // Arriba-Der
+        };
+
+        private final float[] textureCoords = {
+                0.0f, 1.0f,  //invertir Y para que la imagen no salga al revés
+                1.0f, 1.0f,
+                0.0f, 0.0f,
+                1.0f, 0.0f
+        };
+
+        Quad() {
+            ByteBuffer vbb = ByteBuffer.allocateDirect(vertices.length * 4);
+            vbb.order(ByteOrder.nativeOrder());
+            vertexBuffer = vbb.asFloatBuffer();
+            vertexBuffer.put(vertices);
+            vertexBuffer.position(0);
+
+            ByteBuffer tbb = ByteBuffer.allocateDirect(textureCoords.length * 4);
+            tbb.order(ByteOrder.nativeOrder());
+            textureBuffer = tbb.asFloatBuffer();
+            textureBuffer.put(textureCoords);
+            textureBuffer.position(0);
+        }
+
+        void upload() {
+            vertexVbo = createBuffer(false, vertexBuffer, vertices.length * 4);
+            textureVbo = vertexVbo != 0 ? createBuffer(false, textureBuffer, textureCoords.length * 4) : 0;
+            if (vertexVbo != 0) RenderStats.bytesUploaded += (vertices.length + textureCoords.length) * 4;
+        }
+
+        void draw() {
+            Object3D.setClientState(gl, state, GL10.GL_VERTEX_ARRAY, true);
+            Object3D.setClientState(gl, state, GL10.GL_NORMAL_ARRAY, false);
+            Object3D.setClientState(gl, state, GL10.GL_TEXTURE_COORD_ARRAY, true);
+
+            if (vertexVbo != 0) {
+                if (state.bindArrays(QUAD_ARRAYS, 5)) {
+                    GL11 gl11 = (GL11) gl;
+                    gl11.glBindBuffer(GL11.GL_ARRAY_BUFFER, vertexVbo);
+                    gl11.glVertexPointer(3, GL10.GL_FLOAT, 0, 0);
+                    gl11.glBindBuffer(GL11.GL_ARRAY_BUFFER, textureVbo);
+                    gl11.glTexCoordPointer(2, GL10.GL_FLOAT, 0, 0);
+                    gl11.glBindBuffer(GL11.GL_ARRAY_BUFFER, 0);
+                }
+            } else {
+                if (state.bindArrays(QUAD_ARRAYS, 2)) {
+                    gl.glVertexPointer(3, GL10.GL_FLOAT, 0, vertexBuffer);
+                    gl.glTexCoordPointer(2, GL10.GL_FLOAT, 0, textureBuffer);
+                }
+                RenderStats.bytesUploaded += (vertices.length + textureCoords.length) * 4; //se copian en cada llamada
+            }
+
+            gl.glDrawArrays(GL10.GL_TRIANGLE_STRIP, 0, 4);
+            RenderStats.drawCalls++;
+            RenderStats.trianglesSubmitted += 2;
+        }
+    }
+}
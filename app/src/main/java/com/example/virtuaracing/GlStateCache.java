@@ -0,0 +1,72 @@
+package com.example.virtuaracing;
+
+import java.util.Arrays;
+
+/**
+ * Copia en CPU del estado de GL que el renderer cambia a menudo (glEnable/glDisable, arrays de
+ * cliente, textura ligada, punteros de vértices), para no repetir llamadas que no cambian nada.
+ * Igual que UniformCache, no llama a GL: cada método dice si la llamada hace falta y, si no,
+ * la cuenta en RenderStats.stateCallsSkipped.
+ *
+ * Un estado que no se ha fijado desde invalidate() se da por desconocido y siempre se envía.
+ */
+public class GlStateCache {
+
+    private static final int UNKNOWN = Integer.MIN_VALUE;
+    private static final int MAX_STATES = 32;
+
+    // Capacidades y arrays de cliente por su enum de GL (pocos: búsqueda lineal)
+    private final int[] states = new int[MAX_STATES];
+    private final boolean[] enabled = new boolean[MAX_STATES];
+    private int stateCount;
+
+    private int texture = UNKNOWN;
+    private int arrays = UNKNOWN;
+
+    // true si hay que llamar a glEnable/glDisable (o glEnable/DisableClientState) con 'state'
+    public boolean set(int state, boolean on) {
+        for (int i = 0; i < stateCount; i++) {
+            if (states[i] != state) continue;
+            if (enabled[i] == on) return skip(1);
+            enabled[i] = on;
+            return true;
+        }
+        if (stateCount == MAX_STATES) return true; //sin sitio: no se sigue
+        states[stateCount] = state;
+        enabled[stateCount++] = on;
+        return true;
+    }
+
+    public boolean bindTexture(int id) {
+        if (texture == id) return skip(1);
+        texture = id;
+        return true;
+    }
+
+    /**
+     * true si hay que volver a poner los punteros de vértices. 'source' identifica lo que se
+     * ligó (id de malla o de VBO) y 'calls' es cuántas llamadas de GL cuesta ligarlo.
+     */
+    public boolean bindArrays(int source, int calls) {
+        if (arrays == source) return skip(calls);
+        arrays = source;
+        return true;
+    }
+
+    // Los buffers ligados han cambiado por fuera (subida o borrado de un VBO)
+    public void forgetArrays() {
+        arrays = UNKNOWN;
+    }
+
+    // Contexto nuevo: nada de lo guardado vale
+    public void invalidate() {
+        stateCount = 0;
+        Arrays.fill(states, 0);
+        texture = arrays = UNKNOWN;
+    }
+
+    private boolean skip(int calls) {
+        RenderStats.stateCallsSkipped += calls;
+        return false;
+    }
+}
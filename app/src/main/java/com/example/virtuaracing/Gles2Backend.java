@@ -0,0 +1,577 @@
+package com.example.virtuaracing;
+
+import android.graphics.Bitmap;
+import android.opengl.GLES20;
+import android.opengl.GLES30;
+import android.opengl.GLUtils;
+import android.util.Log;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Backend de shaders para GLES 2.0/3.0. Sustituye la pila de matrices de GL10 por dos
+ * MatrixStack propias y la iluminación fija por un pequeño juego de programas:
+ *
+ *  - LIT: textura modulada por la iluminación de GLES 1.x por vértice (material por defecto:
+ *    ambiente 0.2, difusa 0.8, sin especular; ambiente global 0.2), con las dos luces.
+ *  - UNLIT: textura por el color actual (cielo, HUD).
+ *  - COLOR: solo el color actual (overlay de rendimiento, con la textura desactivada).
+ *  - LIT_INSTANCED (solo ES 3.0): LIT con la matriz de modelo como atributo por instancia, para
+ *    dibujar un InstanceBatch entero con glDrawElementsInstanced.
+ *
+ * Solo dibuja mallas subidas a VBOs. Los uniforms pasan por la caché de ShaderProgram, así que
+ * matrices, luces y color solo se envían cuando cambian; glEnable/glDisable, la textura y los
+ * punteros de atributos, por GlStateCache.
+ *
+ * Con ES 3.0 el ETC2 es obligatorio, así que las texturas precompiladas (KtxFile) se suben sin
+ * decodificar con sus mipmaps; las de PNG generan los mipmaps con glGenerateMipmap (en ES 2.0
+ * solo si los lados son potencia de dos).
+ */
+public class Gles2Backend implements RenderBackend {
+
+    private static final String TAG = "Gles2Backend";
+
+    // Atributos en locations fijas; la matriz de instancia (mat4) ocupa MODEL..MODEL+3
+    private static final int POSITION = 0, NORMAL = 1, TEXCOORD = 2, MODEL = 3;
+    private static final String[] ATTRIBUTES = {"aPosition", "aNormal", "aTexCoord", "aModel"};
+
+    // Huecos de uniforms (ShaderProgram.set*); las luces ocupan LIGHT_COUNT huecos seguidos
+    private static final int U_MODELVIEW = 0, U_PROJECTION = 1, U_COLOR = 2;
+    private static final int U_LIGHT_POSITION = 3, U_LIGHT_AMBIENT = 5, U_LIGHT_DIFFUSE = 7, U_LIGHT_ATTENUATION = 9;
+    private static final int U_TEX_RECT = 11;
+    private static final String[] UNIFORMS = {
+            "uModelView", "uProjection", "uColor",
+            "uLightPosition[0]", "uLightPosition[1]", "uLightAmbient[0]", "uLightAmbient[1]",
+            "uLightDiffuse[0]", "uLightDiffuse[1]", "uLightAttenuation[0]", "uLightAttenuation[1]",
+            "uTexRect"
+    };
+
+    private static final int LIT = 0, UNLIT = 1, COLOR = 2, LIT_INSTANCED = 3, CUTOUT = 4, CUTOUT_INSTANCED = 5;
+
+    private static final String VERTEX_SHADER =
+            "attribute vec3 aPosition;\n" +
+            "attribute vec3 aNormal;\n" +
+            "attribute vec2 aTexCoord;\n" +
+            "#ifdef INSTANCED\n" +
+            "attribute mat4 aModel;\n" +
+            "#endif\n" +
+            "uniform mat4 uModelView; //con INSTANCED, solo la cámara\n" +
+            "uniform mat4 uProjection;\n" +
+            "uniform vec4 uColor;\n" +
+            "uniform vec4 uTexRect; //región de la textura: origen (xy) y tamaño (zw)\n" +
+            "#ifdef LIGHTING\n" +
+            "uniform vec4 uLightPosition[2]; //en espacio de ojo\n" +
+            "uniform vec3 uLightAmbient[2];\n" +
+            "uniform vec3 uLightDiffuse[2];\n" +
+            "uniform vec3 uLightAttenuation[2];\n" +
+            "#endif\n" +
+            "varying vec2 vTexCoord;\n" +
+            "varying vec4 vColor;\n" +
+            "void main() {\n" +
+            "#ifdef INSTANCED\n" +
+            "  mat4 modelView = uModelView * aModel;\n" +
+            "#else\n" +
+            "  mat4 modelView = uModelView;\n" +
+            "#endif\n" +
+            "  vec4 eyePosition = modelView * vec4(aPosition, 1.0);\n" +
+            "  gl_Position = uProjection * eyePosition;\n" +
+            "  vTexCoord = uTexRect.xy + aTexCoord * uTexRect.zw;\n" +
+            "#ifdef LIGHTING\n" +
+            "  vec3 n = normalize((modelView * vec4(aNormal, 0.0)).xyz);\n" +
+            "  vec3 c = vec3(0.04);\n" +
+            "  for (int i = 0; i < 2; i++) {\n" +
+            "    vec3 l = uLightPosition[i].xyz;\n" +
+            "    float attenuation = 1.0;\n" +
+            "    if (uLightPosition[i].w != 0.0) {\n" +
+            "      l -= eyePosition.xyz;\n" +
+            "      float d = length(l);\n" +
+            "      attenuation = 1.0 / (uLightAttenuation[i].x + (uLightAttenuation[i].y + uLightAttenuation[i].z * d) * d);\n" +
+            "    }\n" +
+            "    c += attenuation * (0.2 * uLightAmbient[i] + 0.8 * max(dot(n, normalize(l)), 0.0) * uLightDiffuse[i]);\n" +
+            "  }\n" +
+            "  vColor = vec4(min(c, 1.0), uColor.a);\n" +
+            "#else\n" +
+            "  vColor = uColor;\n" +
+            "#endif\n" +
+            "}\n";
+
+    private static final String FRAGMENT_SHADER =
+            "precision mediump float;\n" +
+            "uniform sampler2D uTexture;\n" +
+            "varying vec2 vTexCoord;\n" +
+            "varying vec4 vColor;\n" +
+            "void main() {\n" +
+            "#ifdef TEXTURED\n" +
+            "  vec4 c = vColor * TEXTURE(uTexture, vTexCoord);\n" +
+            "#else\n" +
+            "  vec4 c = vColor;\n" +
+            "#endif\n" +
+            "#ifdef ALPHA_TEST\n" +
+            "  if (c.a <= " + ALPHA_REF + ") discard;\n" +
+            "#endif\n" +
+            "  FRAG_COLOR = c;\n" +
+            "}\n";
+
+    // Cabeceras para compilar el mismo código como GLSL ES 1.00 o 3.00
+    private static final String VERTEX_ES2 = "";
+    private static final String FRAGMENT_ES2 = "#define FRAG_COLOR gl_FragColor\n#define TEXTURE texture2D\n";
+    private static final String VERTEX_ES3 = "#version 300 es\n#define attribute in\n#define varying out\n";
+    private static final String FRAGMENT_ES3 = "#version 300 es\n#define varying in\nout vec4 fragColor;\n"
+            + "#define FRAG_COLOR fragColor\n#define TEXTURE texture\n";
+
+    private final boolean es3;
+    private final GlStateCache state = new GlStateCache();
+    private final ShaderProgram[] programs = new ShaderProgram[6];
+    private ShaderProgram active;
+
+    private final MatrixStack modelview = new MatrixStack(32);
+    private final MatrixStack projection = new MatrixStack(4);
+
+    private boolean lighting, texturing, alphaTest;
+    private boolean depthWrite = true;
+    private final float[] color = {1, 1, 1, 1};
+
+    // Luces con los valores por defecto de GLES 1.x (LIGHT0 blanca, el resto apagadas)
+    private final boolean[] lightEnabled = new boolean[LIGHT_COUNT];
+    private final float[][] lightPosition = new float[LIGHT_COUNT][4]; //ya en espacio de ojo
+    private final float[][] lightAmbient = new float[LIGHT_COUNT][3];
+    private final float[][] lightDiffuse = new float[LIGHT_COUNT][3];
+    private final float[][] lightAttenuation = new float[LIGHT_COUNT][3];
+    private static final float[] BLACK = {0, 0, 0};
+
+    private int quadVbo;
+    private int instanceVbo, instanceVboBytes;
+    private boolean normalArray;
+
+    public Gles2Backend(boolean es3) {
+        this.es3 = es3;
+        for (int i = 0; i < LIGHT_COUNT; i++) {
+            lightPosition[i][2] = 1;
+            lightAttenuation[i][0] = 1;
+        }
+        lightDiffuse[0][0] = lightDiffuse[0][1] = lightDiffuse[0][2] = 1;
+    }
+
+    @Override
+    public Kind kind() {
+        return es3 ? Kind.GLES3 : Kind.GLES2;
+    }
+
+    // --- ESTADO GENERAL ---
+    @Override
+    public void init(float r, float g, float b) {
+        // Contexto nuevo: programas, buffers y estado de antes ya no existen
+        state.invalidate();
+        String vertex = es3 ? VERTEX_ES3 : VERTEX_ES2, fragment = es3 ? FRAGMENT_ES3 : FRAGMENT_ES2;
+        programs[LIT] = ShaderProgram.build(vertex + "#define LIGHTING\n" + VERTEX_SHADER,
+                fragment + "#define TEXTURED\n" + FRAGMENT_SHADER, ATTRIBUTES, UNIFORMS);
+        programs[UNLIT] = ShaderProgram.build(vertex + VERTEX_SHADER,
+                fragment + "#define TEXTURED\n" + FRAGMENT_SHADER, ATTRIBUTES, UNIFORMS);
+        programs[COLOR] = ShaderProgram.build(vertex + VERTEX_SHADER, fragment + FRAGMENT_SHADER, ATTRIBUTES, UNIFORMS);
+        programs[LIT_INSTANCED] = es3 ? ShaderProgram.build(VERTEX_ES3 + "#define LIGHTING\n#define INSTANCED\n" + VERTEX_SHADER,
+                FRAGMENT_ES3 + "#define TEXTURED\n" + FRAGMENT_SHADER, ATTRIBUTES, UNIFORMS) : null;
+        // Recortes (sin luz, con discard): programas aparte para no perder el early-z en el resto
+        programs[CUTOUT] = ShaderProgram.build(vertex + VERTEX_SHADER,
+                fragment + "#define TEXTURED\n#define ALPHA_TEST\n" + FRAGMENT_SHADER, ATTRIBUTES, UNIFORMS);
+        programs[CUTOUT_INSTANCED] = es3 ? ShaderProgram.build(VERTEX_ES3 + "#define INSTANCED\n" + VERTEX_SHADER,
+                FRAGMENT_ES3 + "#define TEXTURED\n#define ALPHA_TEST\n" + FRAGMENT_SHADER, ATTRIBUTES, UNIFORMS) : null;
+        if (es3 && programs[LIT_INSTANCED] == null) Log.w(TAG, "Sin programa instanciado: se dibuja instancia a instancia");
+        active = null;
+
+        GLES20.glClearColor(r, g, b, 1.0f);
+        GLES20.glClearDepthf(1.0f);
+        setCapability(GLES20.GL_DEPTH_TEST, true);
+        GLES20.glDepthFunc(GLES20.GL_LEQUAL);
+        depthWrite = true;
+        GLES20.glDepthMask(true);
+        GLES20.glBlendFunc(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
+        GLES20.glEnableVertexAttribArray(POSITION);
+        GLES20.glEnableVertexAttribArray(TEXCOORD);
+        GLES20.glVertexAttrib3f(NORMAL, 0, 0, 1); //normal por defecto de GLES 1.x
+        normalArray = false;
+
+        // Cuadrado del HUD con el mismo formato intercalado que las mallas
+        float[] quad = {
+                0, 0, 0, 0, 0, 1, 0, 1,
+                1, 0, 0, 0, 0, 1, 1, 1,
+                0, 1, 0, 0, 0, 1, 0, 0,
+                1, 1, 0, 0, 0, 1, 1, 0
+        };
+        FloatBuffer fb = ByteBuffer.allocateDirect(quad.length * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        fb.put(quad).position(0);
+        quadVbo = createBuffer(false, fb, quad.length * 4);
+        RenderStats.bytesUploaded += quad.length * 4;
+
+        int[] ids = new int[1];
+        GLES20.glGenBuffers(1, ids, 0);
+        instanceVbo = ids[0];
+        instanceVboBytes = 0;
+    }
+
+    @Override
+    public void viewport(int width, int height) {
+        GLES20.glViewport(0, 0, width, height);
+    }
+
+    @Override
+    public void viewport(int x, int y, int width, int height) {
+        GLES20.glViewport(x, y, width, height);
+    }
+
+    @Override
+    public void setClearColor(float r, float g, float b) {
+        GLES20.glClearColor(r, g, b, 1.0f);
+    }
+
+    @Override
+    public void clear() {
+        GLES20.glClear(GLES20.GL_COLOR_BUFFER_BIT | GLES20.GL_DEPTH_BUFFER_BIT);
+        modelview.reset();
+    }
+
+    @Override
+    public void setLighting(boolean enabled) {
+        lighting = enabled;
+    }
+
+    @Override
+    public void setDepthTest(boolean enabled) {
+        setCapability(GLES20.GL_DEPTH_TEST, enabled);
+    }
+
+    @Override
+    public void setDepthWrite(boolean enabled) {
+        if (enabled == depthWrite) return;
+        depthWrite = enabled;
+        GLES20.glDepthMask(enabled);
+    }
+
+    @Override
+    public void setBlending(boolean enabled) {
+        setCapability(GLES20.GL_BLEND, enabled);
+    }
+
+    @Override
+    public void setAlphaTest(boolean enabled) {
+        alphaTest = enabled;
+    }
+
+    @Override
+    public void setTexturing(boolean enabled) {
+        texturing = enabled;
+    }
+
+    private void setCapability(int capability, boolean enabled) {
+        if (!state.set(capability, enabled)) return;
+        if (enabled) GLES20.glEnable(capability);
+        else GLES20.glDisable(capability);
+    }
+
+    @Override
+    public void setColor(float r, float g, float b, float a) {
+        color[0] = r;
+        color[1] = g;
+        color[2] = b;
+        color[3] = a;
+    }
+
+    // --- MATRICES ---
+    @Override
+    public void perspective(float fovY, float aspect, float near, float far) {
+        projection.loadIdentity();
+        projection.perspective(fovY, aspect, near, far);
+        modelview.loadIdentity();
+    }
+
+    @Override
+    public void pushOrtho(float left, float right, float bottom, float top) {
+        projection.push();
+        projection.loadIdentity();
+        projection.ortho(left, right, bottom, top, -1, 1);
+        modelview.push();
+        modelview.loadIdentity();
+    }
+
+    @Override
+    public void popOrtho() {
+        modelview.pop();
+        projection.pop();
+    }
+
+    @Override
+    public void multMatrix(float[] m, int offset) {
+        modelview.multiply(m, offset);
+    }
+
+    @Override
+    public void loadIdentity() {
+        modelview.loadIdentity();
+    }
+
+    @Override
+    public void lookAt(float ex, float ey, float ez, float cx, float cy, float cz, float ux, float uy, float uz) {
+        modelview.lookAt(ex, ey, ez, cx, cy, cz, ux, uy, uz);
+    }
+
+    @Override
+    public void pushMatrix() {
+        modelview.push();
+    }
+
+    @Override
+    public void popMatrix() {
+        modelview.pop();
+    }
+
+    @Override
+    public void translate(float x, float y, float z) {
+        modelview.translate(x, y, z);
+    }
+
+    @Override
+    public void rotate(float angle, float x, float y, float z) {
+        modelview.rotate(angle, x, y, z);
+    }
+
+    @Override
+    public void scale(float x, float y, float z) {
+        modelview.scale(x, y, z);
+    }
+
+    // --- LUCES ---
+    @Override
+    public void setLightEnabled(int light, boolean enabled) {
+        lightEnabled[light] = enabled;
+    }
+
+    @Override
+    public void setLight(int light, int parameter, float[] value) {
+        switch (parameter) {
+            case LIGHT_POSITION: //como glLightfv: se guarda ya transformada por la modelview actual
+                modelview.transform(value[0], value[1], value[2], value[3], lightPosition[light], 0);
+                break;
+            case LIGHT_AMBIENT:
+                System.arraycopy(value, 0, lightAmbient[light], 0, 3);
+                break;
+            case LIGHT_DIFFUSE:
+                System.arraycopy(value, 0, lightDiffuse[light], 0, 3);
+                break;
+            default: //especular: el material por defecto no tiene, no se usa
+                break;
+        }
+    }
+
+    @Override
+    public void setLightAttenuation(int light, float constant, float linear, float quadratic) {
+        lightAttenuation[light][0] = constant;
+        lightAttenuation[light][1] = linear;
+        lightAttenuation[light][2] = quadratic;
+    }
+
+    // --- RECURSOS ---
+    @Override
+    public int createTexture(Bitmap bitmap) {
+        int[] textures = new int[1];
+        GLES20.glGenTextures(1, textures, 0);
+        state.bindTexture(textures[0]); //queda ligada
+        GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, textures[0]);
+        boolean mipmaps = es3 || Gl10Backend.isPowerOfTwo(bitmap.getWidth()) && Gl10Backend.isPowerOfTwo(bitmap.getHeight());
+        setTextureParameters(mipmaps);
+        GLUtils.texImage2D(GLES20.GL_TEXTURE_2D, 0, bitmap, 0);
+        if (mipmaps) GLES20.glGenerateMipmap(GLES20.GL_TEXTURE_2D);
+        return textures[0];
+    }
+
+    @Override
+    public boolean supportsEtc2() {
+        return es3;
+    }
+
+    @Override
+    public int createCompressedTexture(KtxFile ktx) {
+        if (!es3) return 0;
+        int[] textures = new int[1];
+        GLES20.glGenTextures(1, textures, 0);
+        state.bindTexture(textures[0]); //queda ligada
+        GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, textures[0]);
+        int levels = ktx.levelCount();
+        setTextureParameters(levels > 1);
+        // Si la cadena no llega a 1x1 (atlas), la textura está completa con los niveles que hay
+        GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MAX_LEVEL, levels - 1);
+        for (int l = 0; l < levels; l++) {
+            ByteBuffer data = ktx.level(l);
+            GLES20.glCompressedTexImage2D(GLES20.GL_TEXTURE_2D, l, ktx.internalFormat,
+                    MipChain.levelSize(ktx.width, l), MipChain.levelSize(ktx.height, l), 0, data.remaining(), data);
+        }
+        return textures[0];
+    }
+
+    private static void setTextureParameters(boolean mipmaps) {
+        GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER,
+                mipmaps ? GLES20.GL_LINEAR_MIPMAP_LINEAR : GLES20.GL_NEAREST);
+        GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_NEAREST);
+        GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_REPEAT);
+        GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_REPEAT);
+    }
+
+    @Override
+    public void bindTexture(int textureId) {
+        texturing = true;
+        if (!state.bindTexture(textureId)) return;
+        GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, textureId);
+        RenderStats.textureBinds++;
+    }
+
+    @Override
+    public int createBuffer(boolean indices, Buffer data, int bytes) {
+        int target = indices ? GLES20.GL_ELEMENT_ARRAY_BUFFER : GLES20.GL_ARRAY_BUFFER;
+        int[] ids = new int[1];
+        state.forgetArrays(); //cambia los buffers ligados
+        GLES20.glGenBuffers(1, ids, 0);
+        GLES20.glBindBuffer(target, ids[0]);
+        GLES20.glBufferData(target, bytes, data, GLES20.GL_STATIC_DRAW);
+        GLES20.glBindBuffer(target, 0);
+        return ids[0];
+    }
+
+    @Override
+    public void deleteBuffers(int[] ids, int count) {
+        state.forgetArrays();
+        GLES20.glDeleteBuffers(count, ids, 0);
+    }
+
+    @Override
+    public void readPixels(int x, int y, int width, int height, ByteBuffer rgba) {
+        GLES20.glReadPixels(x, y, width, height, GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, rgba);
+    }
+
+    // --- DIBUJO ---
+    @Override
+    public void draw(Object3D mesh) {
+        if (mesh.getVertexVbo() == 0) return; //solo VBOs
+        mesh.countDraw(1);
+        ShaderProgram program = useProgram(lighting ? LIT : !texturing ? COLOR : alphaTest ? CUTOUT : UNLIT);
+        if (program == null) return;
+        program.setMatrix(U_MODELVIEW, modelview.get());
+        bindMesh(mesh.getVertexVbo(), mesh.hasNormals());
+        submit(mesh, 0);
+    }
+
+    @Override
+    public void drawInstances(Object3D mesh, InstanceBatch batch) {
+        int instances = batch.size();
+        if (mesh.getVertexVbo() == 0 || instances == 0) return;
+        ShaderProgram program = !texturing ? null : lighting ? useProgram(LIT_INSTANCED)
+                : alphaTest ? useProgram(CUTOUT_INSTANCED) : null;
+        if (program == null) {
+            // GLES 2.0 (o sin programa instanciado): como glMultMatrixf + draw por instancia
+            float[] matrices = batch.matrices();
+            for (int i = 0; i < instances; i++) {
+                modelview.push();
+                modelview.multiply(matrices, i * InstanceBatch.FLOATS_PER_INSTANCE);
+                draw(mesh);
+                modelview.pop();
+            }
+            return;
+        }
+
+        RenderStats.drawCalls++;
+        RenderStats.trianglesSubmitted += mesh.triangleCount() * instances;
+        RenderStats.instancesDrawn += instances;
+        program.setMatrix(U_MODELVIEW, modelview.get()); //la cámara; el modelo va por instancia
+
+        // Matrices de las instancias: se reutiliza el VBO y solo se realoja si crece
+        int bytes = instances * InstanceBatch.FLOATS_PER_INSTANCE * 4;
+        GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, instanceVbo);
+        if (bytes > instanceVboBytes) {
+            instanceVboBytes = Integer.highestOneBit(bytes - 1) << 1;
+            GLES20.glBufferData(GLES20.GL_ARRAY_BUFFER, instanceVboBytes, null, GLES20.GL_STREAM_DRAW);
+        }
+        GLES20.glBufferSubData(GLES20.GL_ARRAY_BUFFER, 0, bytes, batch.buffer());
+        RenderStats.bytesUploaded += bytes;
+        int matrixBytes = InstanceBatch.FLOATS_PER_INSTANCE * 4;
+        for (int column = 0; column < 4; column++) {
+            GLES20.glEnableVertexAttribArray(MODEL + column);
+            GLES20.glVertexAttribPointer(MODEL + column, 4, GLES20.GL_FLOAT, false, matrixBytes, column * 16);
+            GLES30.glVertexAttribDivisor(MODEL + column, 1);
+        }
+
+        bindMesh(mesh.getVertexVbo(), mesh.hasNormals());
+        submit(mesh, instances);
+
+        for (int column = 0; column < 4; column++) {
+            GLES30.glVertexAttribDivisor(MODEL + column, 0);
+            GLES20.glDisableVertexAttribArray(MODEL + column);
+        }
+    }
+
+    @Override
+    public void drawQuad(float u0, float v0, float u1, float v1) {
+        ShaderProgram program = useProgram(texturing ? UNLIT : COLOR); //el HUD no se ilumina
+        if (program == null || quadVbo == 0) return;
+        program.setMatrix(U_MODELVIEW, modelview.get());
+        program.setVector(U_TEX_RECT, u0, v0, u1 - u0, v1 - v0);
+        bindMesh(quadVbo, false);
+        GLES20.glDrawArrays(GLES20.GL_TRIANGLE_STRIP, 0, 4);
+        RenderStats.drawCalls++;
+        RenderStats.trianglesSubmitted += 2;
+    }
+
+    // Programa en uso con proyección, color y luces al día (la caché evita repetir valores)
+    private ShaderProgram useProgram(int index) {
+        ShaderProgram program = programs[index];
+        if (program == null) return null;
+        if (program != active) {
+            program.use();
+            active = program;
+        }
+        program.setMatrix(U_PROJECTION, projection.get());
+        program.setVector(U_COLOR, color[0], color[1], color[2], color[3]);
+        program.setVector(U_TEX_RECT, 0, 0, 1, 1); //textura entera salvo en drawQuad
+        if (index == LIT || index == LIT_INSTANCED) {
+            for (int i = 0; i < LIGHT_COUNT; i++) {
+                float[] p = lightPosition[i];
+                program.setVector(U_LIGHT_POSITION + i, p[0], p[1], p[2], p[3]);
+                program.setVector3(U_LIGHT_AMBIENT + i, lightEnabled[i] ? lightAmbient[i] : BLACK);
+                program.setVector3(U_LIGHT_DIFFUSE + i, lightEnabled[i] ? lightDiffuse[i] : BLACK);
+                program.setVector3(U_LIGHT_ATTENUATION + i, lightAttenuation[i]);
+            }
+        }
+        return program;
+    }
+
+    // Atributos desde un VBO intercalado con el formato de MeshData (nada si ya es el ligado)
+    private void bindMesh(int vbo, boolean normals) {
+        if (!state.bindArrays(vbo, normals ? 5 : 4)) return;
+        GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, vbo);
+        GLES20.glVertexAttribPointer(POSITION, 3, GLES20.GL_FLOAT, false, MeshData.STRIDE_BYTES, 0);
+        GLES20.glVertexAttribPointer(TEXCOORD, 2, GLES20.GL_FLOAT, false, MeshData.STRIDE_BYTES, MeshData.TEXCOORD_OFFSET * 4);
+        if (normals) {
+            GLES20.glVertexAttribPointer(NORMAL, 3, GLES20.GL_FLOAT, false, MeshData.STRIDE_BYTES, MeshData.NORMAL_OFFSET * 4);
+        }
+        if (normals != normalArray) {
+            if (normals) GLES20.glEnableVertexAttribArray(NORMAL);
+            else GLES20.glDisableVertexAttribArray(NORMAL); //vuelve a la normal constante
+            normalArray = normals;
+        }
+        GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+    }
+
+    // instances == 0: draw normal; si no, glDraw*Instanced (solo ES 3.0)
+    private void submit(Object3D mesh, int instances) {
+        boolean instanced = instances > 0;
+        if (mesh.getIndexVbo() != 0) {
+            GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, mesh.getIndexVbo());
+            if (instanced) GLES30.glDrawElementsInstanced(GLES20.GL_TRIANGLES, mesh.getIndexCount(), mesh.getIndexType(), 0, instances);
+            else GLES20.glDrawElements(GLES20.GL_TRIANGLES, mesh.getIndexCount(), mesh.getIndexType(), 0);
+            GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0);
+        } else if (instanced) {
+            GLES30.glDrawArraysInstanced(GLES20.GL_TRIANGLES, 0, mesh.getVertexCount(), instances);
+        } else {
+            GLES20.glDrawArrays(GLES20.GL_TRIANGLES, 0, mesh.getVertexCount());
+        }
+    }
+}
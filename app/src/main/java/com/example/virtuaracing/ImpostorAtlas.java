@@ -0,0 +1,141 @@
+package com.example.virtuaracing;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Distribución de las vistas de los impostores (objetos lejanos dibujados como un cuadrado con
+ * su imagen): una fila por modelo y una columna por ángulo alrededor del eje Y, todas del mismo
+ * tamaño. El renderer pinta cada vista en su casilla del framebuffer al cargar, la lee con
+ * glReadPixels y toImage() la convierte en la textura, con transparencia donde quedó el color
+ * de fondo.
+ *
+ * Las casillas (tileX/tileY) van en píxeles del framebuffer, desde abajo; uv() da coordenadas de
+ * la imagen ya girada (v0 = fila de arriba, como TextureAtlas.uv).
+ */
+public class ImpostorAtlas {
+
+    public final int models, views, tileSize;
+
+    public ImpostorAtlas(int models, int views, int tileSize) {
+        this.models = models;
+        this.views = views;
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Mayor tamaño de casilla potencia de dos (hasta maxTile) con el que el atlas cabe en una
+     * superficie de surfaceWidth x surfaceHeight; 0 si ni con 1 px.
+     */
+    public static int fitTileSize(int models, int views, int maxTile, int surfaceWidth, int surfaceHeight) {
+        int tile = Integer.highestOneBit(Math.max(1, maxTile));
+        while (tile > 0 && (tile * views > surfaceWidth || tile * models > surfaceHeight)) tile >>= 1;
+        return tile;
+    }
+
+    public int width() {
+        return views * tileSize;
+    }
+
+    public int height() {
+        return models * tileSize;
+    }
+
+    public int tileX(int view) {
+        return view * tileSize;
+    }
+
+    public int tileY(int model) {
+        return model * tileSize;
+    }
+
+    // Ángulo (grados, alrededor de Y) desde el que se captura la vista 'view'
+    public float viewYaw(int view) {
+        return view * 360.0f / views;
+    }
+
+    // Vista capturada más cercana a mirar el modelo desde 'yawDegrees' (en su espacio local)
+    public int viewFor(float yawDegrees) {
+        int view = Math.round(yawDegrees * views / 360.0f) % views;
+        return view < 0 ? view + views : view;
+    }
+
+    // (u0, v0, u1, v1) de la casilla en la imagen de toImage()
+    public float[] uv(int model, int view) {
+        float top = (models - 1 - model) * tileSize;
+        return new float[]{
+                tileX(view) / (float) width(), top / height(),
+                (tileX(view) + tileSize) / (float) width(), (top + tileSize) / height()
+        };
+    }
+
+    /**
+     * Cuadrado unidad centrado en el origen en el plano XY, mirando a +Z, con la uv de la vista:
+     * escalado al diámetro capturado y girado hacia la cámara es el impostor.
+     */
+    public MeshData quad(int model, int view) {
+        float[] uv = uv(model, view);
+        float[] vertices = {
+                -0.5f, -0.5f, 0, 0, 0, 1, uv[0], uv[3],
+                0.5f, -0.5f, 0, 0, 0, 1, uv[2], uv[3],
+                0.5f, 0.5f, 0, 0, 0, 1, uv[2], uv[1],
+                -0.5f, 0.5f, 0, 0, 0, 1, uv[0], uv[1]
+        };
+        return new MeshData(vertices, 4, true, new int[]{0, 1, 2, 0, 2, 3}, 6);
+    }
+
+    // Opacidad de un impostor a 'distance': 0 antes de 'start', 1 desde 'end' (fundido lineal)
+    public static float fadeIn(float distance, float start, float end) {
+        if (distance <= start) return 0;
+        if (distance >= end) return 1;
+        return (distance - start) / (end - start);
+    }
+
+    /**
+     * Imagen RGBA de arriba abajo a partir de lo leído con glReadPixels (RGBA, de abajo arriba).
+     * Los píxeles a menos de 'tolerance' por canal de 'keyRgb' (0xRRGGBB) quedan transparentes
+     * con el color medio de sus vecinos opacos, para que el filtrado no meta el color de fondo
+     * en los bordes.
+     */
+    public static ByteBuffer toImage(ByteBuffer pixels, int width, int height, int keyRgb, int tolerance) {
+        int kr = keyRgb >> 16 & 0xFF, kg = keyRgb >> 8 & 0xFF, kb = keyRgb & 0xFF;
+        byte[] out = new byte[width * height * 4];
+        boolean[] opaque = new boolean[width * height];
+        for (int y = 0; y < height; y++) {
+            int src = y * width * 4, dst = (height - 1 - y) * width;
+            for (int x = 0; x < width; x++) {
+                int r = pixels.get(src + x * 4) & 0xFF, g = pixels.get(src + x * 4 + 1) & 0xFF,
+                        b = pixels.get(src + x * 4 + 2) & 0xFF;
+                int o = (dst + x) * 4;
+                if (Math.abs(r - kr) < tolerance && Math.abs(g - kg) < tolerance && Math.abs(b - kb) < tolerance) continue;
+                opaque[dst + x] = true;
+                out[o] = (byte) r;
+                out[o + 1] = (byte) g;
+                out[o + 2] = (byte) b;
+                out[o + 3] = (byte) 0xFF;
+            }
+        }
+
+        // Color (sin opacidad) de los vecinos para los transparentes del borde
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int p = y * width + x;
+                if (opaque[p]) continue;
+                int r = 0, g = 0, b = 0, count = 0;
+                for (int n = 0; n < 4; n++) {
+                    int nx = x + (n == 0 ? -1 : n == 1 ? 1 : 0), ny = y + (n == 2 ? -1 : n == 3 ? 1 : 0);
+                    if (nx < 0 || ny < 0 || nx >= width || ny >= height || !opaque[ny * width + nx]) continue;
+                    int o = (ny * width + nx) * 4;
+                    r += out[o] & 0xFF;
+                    g += out[o + 1] & 0xFF;
+                    b += out[o + 2] & 0xFF;
+                    count++;
+                }
+                if (count == 0) continue;
+                out[p * 4] = (byte) (r / count);
+                out[p * 4 + 1] = (byte) (g / count);
+                out[p * 4 + 2] = (byte) (b / count);
+            }
+        }
+        return ByteBuffer.wrap(out);
+    }
+}
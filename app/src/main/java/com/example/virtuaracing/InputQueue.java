@@ -0,0 +1,44 @@
+package com.example.virtuaracing;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cola de órdenes del jugador del hilo de UI (un único productor, onTouchEvent) al hilo de
+ * simulación (un único consumidor). Anillo de enteros sin bloqueos ni reservas de memoria: el
+ * productor publica con lazySet sobre tail y el consumidor libera el hueco igual sobre head.
+ */
+public class InputQueue {
+
+    public static final int NONE = 0;
+    public static final int TOGGLE_CAMERA = 1;
+
+    private final int[] commands;
+    private final int mask;
+    private final AtomicInteger head = new AtomicInteger(); //siguiente a leer
+    private final AtomicInteger tail = new AtomicInteger(); //siguiente a escribir
+
+    // capacity se redondea a potencia de 2
+    public InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        commands = new int[size];
+        mask = size - 1;
+    }
+
+    // Productor: false si la cola está llena (la orden se pierde)
+    public boolean offer(int command) {
+        int t = tail.get();
+        if (t - head.get() == commands.length) return false;
+        commands[t & mask] = command;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    // Consumidor: siguiente orden o NONE si no hay
+    public int poll() {
+        int h = head.get();
+        if (h == tail.get()) return NONE;
+        int command = commands[h & mask];
+        head.lazySet(h + 1);
+        return command;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.virtuaracing;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Lote de instancias de una misma malla: una matriz de modelo 4x4 (column-major, como OpenGL) por
+ * instancia en un array plano, listo para subirlo como buffer de instancias (GLES 3.0) o para
+ * recorrerlo con glMultMatrixf (GLES 1.x).
+ *
+ * Las matrices se construyen con las operaciones de MatrixStack, las mismas que el código de
+ * dibujo de siempre (translate/rotate/scale y una pila pequeña con push/pop), y emit() guarda la
+ * actual como una instancia. Tras el calentamiento no reserva memoria: clear() solo reinicia el
+ * contador.
+ */
+public class InstanceBatch extends MatrixStack {
+
+    public static final int FLOATS_PER_INSTANCE = 16;
+    private static final int STACK_DEPTH = 4;
+
+    private float[] matrices;
+    private int count;
+    private FloatBuffer buffer; //copia directa para glBufferData (se rehace solo al crecer)
+
+    public InstanceBatch(int initialCapacity) {
+        super(STACK_DEPTH);
+        matrices = new float[Math.max(1, initialCapacity) * FLOATS_PER_INSTANCE];
+    }
+
+    public void clear() {
+        count = 0;
+        reset();
+        loadIdentity();
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public float[] matrices() {
+        return matrices;
+    }
+
+    // Guarda la matriz actual como una instancia más
+    public void emit() {
+        if ((count + 1) * FLOATS_PER_INSTANCE > matrices.length) {
+            matrices = Arrays.copyOf(matrices, matrices.length * 2);
+        }
+        System.arraycopy(current, 0, matrices, count * FLOATS_PER_INSTANCE, FLOATS_PER_INSTANCE);
+        count++;
+    }
+
+    // Matrices en un buffer directo (posición 0, límite = instancias * 16) para subirlas a un VBO
+    public FloatBuffer buffer() {
+        int floats = count * FLOATS_PER_INSTANCE;
+        if (buffer == null || buffer.capacity() < matrices.length) {
+            buffer = ByteBuffer.allocateDirect(matrices.length * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        }
+        buffer.clear();
+        buffer.put(matrices, 0, floats);
+        buffer.flip();
+        return buffer;
+    }
+}
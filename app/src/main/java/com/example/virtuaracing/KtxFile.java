@@ -0,0 +1,105 @@
+package com.example.virtuaracing;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Contenedor KTX 1.1 para texturas comprimidas 2D: cabecera de 64 bytes y, por cada nivel de
+ * mipmap, su tamaño (uint32) y los bloques. Se escribe en little-endian desde la tarea
+ * bakeTextures y se lee sin copiar: cada nivel es un slice del buffer (mapeado desde el APK),
+ * listo para glCompressedTexImage2D.
+ */
+public class KtxFile {
+
+    private static final byte[] IDENTIFIER = {
+            (byte) 0xAB, 'K', 'T', 'X', ' ', '1', '1', (byte) 0xBB, '\r', '\n', 0x1A, '\n'
+    };
+    private static final int ENDIANNESS = 0x04030201;
+    public static final int HEADER_BYTES = 64;
+    public static final int GL_RGBA = 0x1908;
+
+    public final int internalFormat;
+    public final int width, height;
+    private final ByteBuffer[] levels;
+
+    public KtxFile(int internalFormat, int width, int height, ByteBuffer[] levels) {
+        this.internalFormat = internalFormat;
+        this.width = width;
+        this.height = height;
+        this.levels = levels;
+    }
+
+    public int levelCount() {
+        return levels.length;
+    }
+
+    public ByteBuffer level(int i) {
+        return levels[i].duplicate();
+    }
+
+    // Bytes de todos los niveles (lo que ocupa en la GPU)
+    public long dataBytes() {
+        long total = 0;
+        for (ByteBuffer level : levels) total += level.remaining();
+        return total;
+    }
+
+    public static void write(OutputStream out, int internalFormat, int baseFormat, int width, int height,
+                             byte[][] levels) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(IDENTIFIER).putInt(ENDIANNESS);
+        header.putInt(0).putInt(1).putInt(0); //glType, glTypeSize, glFormat: comprimida
+        header.putInt(internalFormat).putInt(baseFormat);
+        header.putInt(width).putInt(height).putInt(0); //profundidad 0 = 2D
+        header.putInt(0).putInt(1).putInt(levels.length); //sin array, 1 cara, niveles
+        header.putInt(0); //sin pares clave/valor
+        out.write(header.array());
+
+        ByteBuffer size = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        for (byte[] level : levels) {
+            size.clear();
+            out.write(size.putInt(level.length).array());
+            out.write(level);
+            for (int pad = (4 - level.length % 4) % 4; pad > 0; pad--) out.write(0);
+        }
+    }
+
+    public static KtxFile read(ByteBuffer data) {
+        ByteBuffer bb = data.duplicate();
+        if (bb.remaining() < HEADER_BYTES) throw new IllegalArgumentException("No es un fichero KTX");
+        for (byte b : IDENTIFIER) {
+            if (bb.get() != b) throw new IllegalArgumentException("No es un fichero KTX");
+        }
+        bb.order(ByteOrder.LITTLE_ENDIAN);
+        if (bb.getInt() != ENDIANNESS) bb.order(ByteOrder.BIG_ENDIAN);
+        int glType = bb.getInt();
+        bb.getInt(); //glTypeSize
+        bb.getInt(); //glFormat
+        int internalFormat = bb.getInt();
+        bb.getInt(); //glBaseInternalFormat
+        int width = bb.getInt(), height = bb.getInt();
+        int depth = bb.getInt(), arrayElements = bb.getInt(), faces = bb.getInt();
+        int levelCount = Math.max(1, bb.getInt());
+        int keyValueBytes = bb.getInt();
+        if (glType != 0 || depth > 1 || arrayElements != 0 || faces != 1) {
+            throw new IllegalArgumentException("Solo texturas 2D comprimidas");
+        }
+        if (keyValueBytes < 0 || keyValueBytes > bb.remaining()) throw new IllegalArgumentException("KTX truncado");
+        bb.position(bb.position() + keyValueBytes);
+
+        ByteBuffer[] levels = new ByteBuffer[levelCount];
+        for (int l = 0; l < levelCount; l++) {
+            if (bb.remaining() < 4) throw new IllegalArgumentException("KTX truncado"); //sin el tamaño del nivel
+            int size = bb.getInt();
+            int start = bb.position();
+            if (size < 0 || start + size > bb.limit()) throw new IllegalArgumentException("KTX truncado");
+            ByteBuffer level = bb.duplicate();
+            level.position(start).limit(start + size);
+            levels[l] = level.slice();
+            bb.position(start + ((size + 3) & ~3));
+        }
+        return new KtxFile(internalFormat, width, height, levels);
+    }
+}
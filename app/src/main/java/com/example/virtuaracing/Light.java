@@ -1,64 +1,55 @@
 package com.example.virtuaracing;
 
-import java.nio.ByteBuffer;
-import java.nio.FloatBuffer;
-
-import javax.microedition.khronos.opengles.GL10;
-
 /**
  * Permite situar una luz, y determinar el tipo de luz y su color. No se comenta con mucho detalle ya que lo
  * poco que se tenía que implementar se hizo durante un laboratorio, y es a demás bastante trivial, con
  * funciones de opengl.
  */
 public class Light {
-	ByteBuffer vtbb;
-	FloatBuffer posicio;
-	FloatBuffer ambient;
-	FloatBuffer difuse;
-	FloatBuffer specular;
-	GL10 gl;
-	int lightid;
+	RenderBackend gfx;
+	int lightid; //0..RenderBackend.LIGHT_COUNT-1
 
-	FloatBuffer fb_pos;
+	float[] pos;
 
-	public Light(GL10 gl, int lightid) {
-		this.gl = gl;
+	public Light(RenderBackend gfx, int lightid) {
+		this.gfx = gfx;
 		this.lightid = lightid;
-		gl.glEnable(lightid);
+		gfx.setLightEnabled(lightid, true);
 		//gl.glEnable(GL10.GL_COLOR_MATERIAL);
     }
 
 	//To enable and disable the light
-	public void enable() {gl.glEnable(lightid);}
-	public void disable() {gl.glDisable(lightid);}
+	public void enable() {gfx.setLightEnabled(lightid, true);}
+	public void disable() {gfx.setLightEnabled(lightid, false);}
 
 	//To position the light
 	public void setPosition(float[] pos) {
-		fb_pos = FloatBuffer.wrap(pos);
-		gl.glLightfv(lightid, GL10.GL_POSITION, fb_pos);
+		this.pos = pos;
+		gfx.setLight(lightid, RenderBackend.LIGHT_POSITION, pos);
 	}
 
 	public void setPosition() {		// Després d'una transformació es torna a cridar aquest metode
-		if(fb_pos!=null){
-			gl.glLightfv(lightid, GL10.GL_POSITION, fb_pos);
+		if(pos!=null){
+			gfx.setLight(lightid, RenderBackend.LIGHT_POSITION, pos);
 		}
 	}
 
 
 	//To set the light colors
 	public void setAmbientColor(float[] color) {
-		FloatBuffer fb = FloatBuffer.wrap(color);
-		gl.glLightfv(lightid, GL10.GL_AMBIENT, fb);
+		gfx.setLight(lightid, RenderBackend.LIGHT_AMBIENT, color);
 	}
 
 	public void setDiffuseColor(float[] color) {
-		FloatBuffer fb = FloatBuffer.wrap(color);
-		gl.glLightfv(lightid, GL10.GL_DIFFUSE, fb);
+		gfx.setLight(lightid, RenderBackend.LIGHT_DIFFUSE, color);
 	}
 
 	public void setSpecularColor(float[] color) {
-		FloatBuffer fb = FloatBuffer.wrap(color);
-		gl.glLightfv(lightid, GL10.GL_SPECULAR, fb);
+		gfx.setLight(lightid, RenderBackend.LIGHT_SPECULAR, color);
+	}
+
+	public void setAttenuation(float constant, float linear, float quadratic) {
+		gfx.setLightAttenuation(lightid, constant, linear, quadratic);
 	}
 
 }
@@ -0,0 +1,49 @@
+package com.example.virtuaracing;
+
+/**
+ * Elige el nivel de detalle de un objeto por su tamaño proyectado (radio / distancia a la
+ * cámara, proporcional a lo que ocupa en pantalla con un fov fijo). El nivel 0 es el modelo
+ * completo; se pasa al nivel l+1 cuando el tamaño baja de thresholds[l].
+ *
+ * Para que un objeto que está justo en un umbral no salte de nivel cada frame, cambiar exige
+ * cruzarlo con un margen relativo 'hysteresis': bajar de nivel a thresholds[l]*(1-h) y volver a
+ * subir a thresholds[l]*(1+h). Por eso select() recibe el nivel actual de cada instancia.
+ */
+public class LodSelector {
+
+    private final float[] thresholds;
+    private final float hysteresis;
+
+    /**
+     * @param hysteresis margen relativo alrededor de cada umbral, p. ej. 0.15
+     * @param thresholds tamaños proyectados de cambio de nivel, de mayor a menor
+     */
+    public LodSelector(float hysteresis, float... thresholds) {
+        for (int i = 1; i < thresholds.length; i++) {
+            if (thresholds[i] >= thresholds[i - 1]) throw new IllegalArgumentException("Umbrales no decrecientes");
+        }
+        this.thresholds = thresholds.clone();
+        this.hysteresis = hysteresis;
+    }
+
+    public int levelCount() {
+        return thresholds.length + 1;
+    }
+
+    /**
+     * @param current nivel del frame anterior, o -1 si no tiene (recién visible)
+     * @return nivel para este frame
+     */
+    public int select(int current, float radius, float distance) {
+        float size = distance > 0 ? radius / distance : Float.MAX_VALUE;
+        if (current < 0) {
+            int level = 0;
+            while (level < thresholds.length && size < thresholds[level]) level++;
+            return level;
+        }
+        int level = Math.min(current, thresholds.length);
+        while (level < thresholds.length && size < thresholds[level] * (1 - hysteresis)) level++;
+        while (level > 0 && size > thresholds[level - 1] * (1 + hysteresis)) level--;
+        return level;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.virtuaracing;
+
+/**
+ * Ordenación de long[] en su sitio, sin reservar memoria (heapsort), para las listas que se
+ * ordenan cada frame. Arrays.sort no sirve ahí: en cuanto los datos traen tramos ya ordenados
+ * (un anillo de muestras, claves que llegan casi en orden de un frame a otro) los fusiona con un
+ * array auxiliar nuevo en cada llamada (DualPivotQuicksort.tryMergeRuns en HotSpot 14+, y con más
+ * de 286 elementos en la versión de Android).
+ *
+ * No es estable: las claves deben ser distintas (las de RenderQueue llevan el índice de llegada).
+ */
+public final class LongSort {
+
+    private LongSort() {}
+
+    // Ordena a[0, count) de menor a mayor
+    public static void sort(long[] a, int count) {
+        for (int i = count / 2 - 1; i >= 0; i--) siftDown(a, i, count);
+        for (int end = count - 1; end > 0; end--) {
+            long top = a[0];
+            a[0] = a[end];
+            a[end] = top;
+            siftDown(a, 0, end);
+        }
+    }
+
+    private static void siftDown(long[] a, int i, int n) {
+        long value = a[i];
+        int child;
+        while ((child = 2 * i + 1) < n) {
+            if (child + 1 < n && a[child + 1] > a[child]) child++;
+            if (a[child] <= value) break;
+            a[i] = a[child];
+            i = child;
+        }
+        a[i] = value;
+    }
+}
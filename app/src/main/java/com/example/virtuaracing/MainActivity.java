@@ -1,6 +1,8 @@
 package com.example.virtuaracing;
 
 import android.app.Activity;
+import android.app.ActivityManager;
+import android.content.Context;
 import android.opengl.GLSurfaceView;
 import android.os.Bundle;
 import android.view.MotionEvent;
@@ -15,7 +17,40 @@ public class MainActivity extends Activity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         glView = new GLSurfaceView(this);           // Allocate a GLSurfaceView
-        glView.setRenderer(myGLRenderer=new MyGLRenderer(this)); // Use a custom renderer
+
+        // Backend de dibujo: el mejor que soporte el dispositivo, o el del extra "backend"
+        // (p. ej. adb shell am start -n ... --es backend gl10) para comparar tiempos de frame
+        ActivityManager am = (ActivityManager) getSystemService(Context.ACTIVITY_SERVICE);
+        RenderBackend.Kind backend = RenderBackend.Kind.select(getIntent().getStringExtra("backend"),
+                am.getDeviceConfigurationInfo().reqGlEsVersion);
+        if (backend.contextVersion > 1) glView.setEGLContextClientVersion(backend.contextVersion);
+
+        glView.setRenderer(myGLRenderer=new MyGLRenderer(this, backend)); // Use a custom renderer
+        myGLRenderer.setSurfaceControl(new MyGLRenderer.SurfaceControl() {
+            @Override
+            public void setContinuousRendering(boolean continuous) {
+                glView.setRenderMode(continuous ? GLSurfaceView.RENDERMODE_CONTINUOUSLY
+                        : GLSurfaceView.RENDERMODE_WHEN_DIRTY);
+            }
+
+            @Override
+            public void setResolutionScale(float scale) {
+                // El tamaño de la superficie se cambia desde el hilo de UI
+                runOnUiThread(() -> {
+                    if (scale >= 1.0f) {
+                        glView.getHolder().setSizeFromLayout();
+                    } else {
+                        glView.getHolder().setFixedSize(Math.round(glView.getWidth() * scale),
+                                Math.round(glView.getHeight() * scale));
+                    }
+                });
+            }
+
+            @Override
+            public void requestRender() {
+                glView.requestRender();
+            }
+        });
         this.setContentView(glView);                // This activity sets to GLSurfaceView
     }
 
@@ -24,6 +59,7 @@ public class MainActivity extends Activity {
     protected void onPause() {
         super.onPause();
         glView.onPause();
+        myGLRenderer.onPause(); // Para el hilo de simulación
     }
 
     // Call back after onPause()
@@ -31,16 +67,45 @@ public class MainActivity extends Activity {
     protected void onResume() {
         super.onResume();
         glView.onResume();
+        myGLRenderer.onResume();
+    }
+
+    // Call back when the activity is finishing or being recreated
+    @Override
+    protected void onDestroy() {
+        myGLRenderer.onDestroy(); // Cierra el fichero de la grabación
+        super.onDestroy();
     }
 
-    // En MainActivity.java
+    // Gesto en curso: máximo de dedos a la vez desde el primer ACTION_DOWN. Se decide al levantar el
+    // último dedo, así un toque de cuatro dedos no cambia también la cámara y el overlay por el camino
+    private int gesturePointers;
+
     @Override
     public boolean onTouchEvent(MotionEvent e) {
-        if (e.getAction() == MotionEvent.ACTION_DOWN) { //al tocar la pantalla
-            if (myGLRenderer != null) {
-                myGLRenderer.toggleCameraMode(); // Cambia entre vista trasera y aérea
-            }
+        switch (e.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                gesturePointers = 1;
+                break;
+            case MotionEvent.ACTION_POINTER_DOWN:
+                gesturePointers = Math.max(gesturePointers, e.getPointerCount());
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                gesturePointers = 0;
+                break;
+            case MotionEvent.ACTION_UP:
+                if (myGLRenderer != null) {
+                    if (gesturePointers == 1) {
+                        myGLRenderer.toggleCameraMode(); // Un dedo: vista trasera o aérea
+                    } else if (gesturePointers == 3) {
+                        myGLRenderer.togglePerformanceOverlay(); // Tres dedos: tiempos de frame en el HUD
+                    } else if (gesturePointers == 4) {
+                        myGLRenderer.toggleImpostors(); // Cuatro dedos: escenario lejano sin impostores (triángulos en el log)
+                    }
+                }
+                gesturePointers = 0;
+                break;
         }
         return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,159 @@
+package com.example.virtuaracing;
+
+import java.util.Arrays;
+
+/**
+ * Pila de matrices 4x4 en column-major con las mismas operaciones que la de GLES 1.x
+ * (glTranslatef, glRotatef, glScalef, glMultMatrixf, gluLookAt, gluPerspective, glOrthof y
+ * push/pop): cada operación multiplica la matriz actual por la derecha. La usan el backend de
+ * shaders para sustituir a la pila fija y InstanceBatch para construir matrices de instancias.
+ *
+ * No reserva memoria después de construirse, así que se puede usar dentro del frame.
+ */
+public class MatrixStack {
+
+    protected final float[] current = new float[16];
+    private final float[] stack;
+    private int depth;
+    private final float[] temp = new float[16];
+    private final float[] product = new float[16];
+
+    public MatrixStack(int maxDepth) {
+        stack = new float[16 * maxDepth];
+        loadIdentity();
+    }
+
+    // Matriz actual; se modifica en su sitio, así que hay que copiarla si se quiere guardar
+    public float[] get() {
+        return current;
+    }
+
+    public void load(float[] m, int offset) {
+        System.arraycopy(m, offset, current, 0, 16);
+    }
+
+    public void loadIdentity() {
+        Arrays.fill(current, 0);
+        current[0] = current[5] = current[10] = current[15] = 1;
+    }
+
+    public void push() {
+        if (depth * 16 == stack.length) throw new IllegalStateException("Pila de matrices llena");
+        System.arraycopy(current, 0, stack, depth++ * 16, 16);
+    }
+
+    public void pop() {
+        if (depth == 0) throw new IllegalStateException("Pila de matrices vacía");
+        System.arraycopy(stack, --depth * 16, current, 0, 16);
+    }
+
+    // Vacía la pila sin tocar la matriz actual (p. ej. al empezar un frame)
+    public void reset() {
+        depth = 0;
+    }
+
+    // current = current * T (como glTranslatef)
+    public void translate(float x, float y, float z) {
+        for (int r = 0; r < 4; r++) {
+            current[12 + r] += current[r] * x + current[4 + r] * y + current[8 + r] * z;
+        }
+    }
+
+    public void scale(float x, float y, float z) {
+        for (int r = 0; r < 4; r++) {
+            current[r] *= x;
+            current[4 + r] *= y;
+            current[8 + r] *= z;
+        }
+    }
+
+    // current = current * R (como glRotatef: ángulo en grados sobre el eje dado)
+    public void rotate(float angle, float x, float y, float z) {
+        float len = (float) Math.sqrt(x * x + y * y + z * z);
+        if (len == 0) return;
+        x /= len; y /= len; z /= len;
+        double rad = Math.toRadians(angle);
+        float c = (float) Math.cos(rad), s = (float) Math.sin(rad), k = 1 - c;
+
+        // Matriz de rotación en column-major (la misma que documenta glRotate)
+        temp[0] = x * x * k + c;     temp[4] = x * y * k - z * s; temp[8] = x * z * k + y * s;
+        temp[1] = y * x * k + z * s; temp[5] = y * y * k + c;     temp[9] = y * z * k - x * s;
+        temp[2] = x * z * k - y * s; temp[6] = y * z * k + x * s; temp[10] = z * z * k + c;
+
+        for (int r = 0; r < 4; r++) {
+            float a0 = current[r], a1 = current[4 + r], a2 = current[8 + r];
+            current[r] = a0 * temp[0] + a1 * temp[1] + a2 * temp[2];
+            current[4 + r] = a0 * temp[4] + a1 * temp[5] + a2 * temp[6];
+            current[8 + r] = a0 * temp[8] + a1 * temp[9] + a2 * temp[10];
+        }
+    }
+
+    // current = current * m (como glMultMatrixf)
+    public void multiply(float[] m, int offset) {
+        multiply(product, current, 0, m, offset);
+        System.arraycopy(product, 0, current, 0, 16);
+    }
+
+    // Como gluLookAt
+    public void lookAt(float ex, float ey, float ez, float cx, float cy, float cz, float ux, float uy, float uz) {
+        float fx = cx - ex, fy = cy - ey, fz = cz - ez;
+        float fl = (float) Math.sqrt(fx * fx + fy * fy + fz * fz);
+        fx /= fl; fy /= fl; fz /= fl;
+        // s = f x up
+        float sx = fy * uz - fz * uy, sy = fz * ux - fx * uz, sz = fx * uy - fy * ux;
+        float sl = (float) Math.sqrt(sx * sx + sy * sy + sz * sz);
+        sx /= sl; sy /= sl; sz /= sl;
+        // u = s x f
+        float vx = sy * fz - sz * fy, vy = sz * fx - sx * fz, vz = sx * fy - sy * fx;
+
+        Arrays.fill(temp, 0);
+        temp[0] = sx;  temp[4] = sy;  temp[8] = sz;
+        temp[1] = vx;  temp[5] = vy;  temp[9] = vz;
+        temp[2] = -fx; temp[6] = -fy; temp[10] = -fz;
+        temp[15] = 1;
+        multiply(temp, 0);
+        translate(-ex, -ey, -ez);
+    }
+
+    // Como gluPerspective (fovY en grados)
+    public void perspective(float fovY, float aspect, float near, float far) {
+        float f = (float) (1.0 / Math.tan(Math.toRadians(fovY) / 2));
+        Arrays.fill(temp, 0);
+        temp[0] = f / aspect;
+        temp[5] = f;
+        temp[10] = (far + near) / (near - far);
+        temp[11] = -1;
+        temp[14] = 2 * far * near / (near - far);
+        multiply(temp, 0);
+    }
+
+    // Como glOrthof
+    public void ortho(float left, float right, float bottom, float top, float near, float far) {
+        Arrays.fill(temp, 0);
+        temp[0] = 2 / (right - left);
+        temp[5] = 2 / (top - bottom);
+        temp[10] = -2 / (far - near);
+        temp[12] = -(right + left) / (right - left);
+        temp[13] = -(top + bottom) / (top - bottom);
+        temp[14] = -(far + near) / (far - near);
+        temp[15] = 1;
+        multiply(temp, 0);
+    }
+
+    // out = current * (x, y, z, w)
+    public void transform(float x, float y, float z, float w, float[] out, int offset) {
+        for (int r = 0; r < 4; r++) {
+            out[offset + r] = current[r] * x + current[4 + r] * y + current[8 + r] * z + current[12 + r] * w;
+        }
+    }
+
+    // out = a * b (out no puede ser a ni b)
+    public static void multiply(float[] out, float[] a, int aOffset, float[] b, int bOffset) {
+        for (int c = 0; c < 4; c++) {
+            float b0 = b[bOffset + c * 4], b1 = b[bOffset + c * 4 + 1], b2 = b[bOffset + c * 4 + 2], b3 = b[bOffset + c * 4 + 3];
+            for (int r = 0; r < 4; r++) {
+                out[c * 4 + r] = a[aOffset + r] * b0 + a[aOffset + 4 + r] * b1 + a[aOffset + 8 + r] * b2 + a[aOffset + 12 + r] * b3;
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.virtuaracing;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.util.Log;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Localiza las mallas precompiladas (assets/meshes/*.vrm) que genera la tarea bakeMeshes. Los
+ * .vrm se empaquetan sin comprimir, así que normalmente se pueden mapear en memoria; si no, se
+ * leen de una vez a un buffer directo. Devuelve null cuando no hay binario y toca leer el OBJ.
+ * openAsset() sirve igual para otros binarios precompilados (las texturas KTX).
+ */
+public final class MeshAssets {
+
+    private static final String TAG = "MeshAssets";
+    private static final String DIR = "meshes/";
+    private static final String EXTENSION = ".vrm";
+
+    private MeshAssets() {}
+
+    public static ByteBuffer open(Context context, int resourceId) {
+        String name = context.getResources().getResourceEntryName(resourceId);
+        return openAsset(context, DIR + name + EXTENSION);
+    }
+
+    // Cualquier asset como buffer directo little-endian, o null si no existe
+    public static ByteBuffer openAsset(Context context, String path) {
+        // 1. Mapeado directo del APK (solo funciona si el asset no está comprimido)
+        try (AssetFileDescriptor afd = context.getAssets().openFd(path);
+             FileInputStream fis = afd.createInputStream();
+             FileChannel channel = fis.getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, afd.getStartOffset(), afd.getLength())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        } catch (FileNotFoundException e) {
+            // Comprimido o inexistente: probamos con el stream
+        } catch (IOException e) {
+            Log.w(TAG, "No se pudo mapear " + path + ": " + e.getMessage());
+        }
+
+        // 2. Lectura completa a un buffer directo
+        try (InputStream is = context.getAssets().open(path)) {
+            byte[] chunk = new byte[16 * 1024];
+            ByteBuffer bb = ByteBuffer.allocateDirect(Math.max(is.available(), MeshBinary.HEADER_BYTES));
+            int read;
+            while ((read = is.read(chunk)) > 0) {
+                if (bb.remaining() < read) {
+                    ByteBuffer bigger = ByteBuffer.allocateDirect((bb.capacity() + read) * 2);
+                    bb.flip();
+                    bigger.put(bb);
+                    bb = bigger;
+                }
+                bb.put(chunk, 0, read);
+            }
+            bb.flip();
+            return bb.order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException e) {
+            return null; // no hay binario, se usará el original
+        }
+    }
+}
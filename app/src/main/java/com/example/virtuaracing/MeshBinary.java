@@ -0,0 +1,217 @@
+package com.example.virtuaracing;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Formato binario precompilado de malla (.vrm), little-endian, que genera la tarea de Gradle
+ * bakeMeshes a partir de los OBJ de res/raw. Cabecera de 40 bytes:
+ *
+ *   int magic ("VRM1"), int versión, int flags, int número de vértices,
+ *   float[3] mínimo de la caja, float[3] tamaño de la caja
+ *
+ * y a continuación los vértices intercalados. Sin cuantizar son los 8 floats de MeshData
+ * (32 bytes), de modo que el buffer mapeado se puede pasar tal cual a OpenGL. Cuantizados ocupan
+ * 16 bytes: posición en 3 x uint16 relativa a la caja, normal en 3 x int8 (+1 de relleno) y UV en
+ * 2 x int16 con 1/8192 de precisión. Las rutas (OBJ sin caras) se guardan como puntos (3 floats).
+ *
+ * Las mallas indexadas (FLAG_INDEXED) añaden tras los vértices un int con el número de índices y
+ * los índices en uint16, o en uint32 si además llevan FLAG_INDEX32, rellenando hasta múltiplo de 4.
+ */
+public final class MeshBinary {
+
+    public static final int MAGIC = 0x314D5256; // "VRM1" leído en little-endian
+    public static final int VERSION = 2;
+    public static final int HEADER_BYTES = 40;
+
+    public static final int FLAG_NORMALS = 1;
+    public static final int FLAG_QUANTIZED = 2;
+    public static final int FLAG_POINTS = 4;
+    public static final int FLAG_INDEXED = 8;
+    public static final int FLAG_INDEX32 = 16;
+
+    public static final int QUANTIZED_STRIDE_BYTES = 16;
+    public static final int POINT_STRIDE_BYTES = 12;
+    private static final float UV_SCALE = 8192.0f;
+
+    private MeshBinary() {}
+
+    // --- ESCRITURA (tarea de Gradle y tests) ---
+    public static void write(MeshData mesh, boolean quantize, OutputStream out) throws IOException {
+        float[] v = mesh.vertices;
+        float[] min = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE};
+        float[] max = {-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+        for (int i = 0; i < mesh.vertexCount; i++) {
+            for (int k = 0; k < 3; k++) {
+                float p = v[i * MeshData.STRIDE + k];
+                if (p < min[k]) min[k] = p;
+                if (p > max[k]) max[k] = p;
+            }
+        }
+        if (mesh.vertexCount == 0) { min = new float[3]; max = new float[3]; }
+        float[] extent = {max[0] - min[0], max[1] - min[1], max[2] - min[2]};
+
+        boolean index32 = mesh.vertexCount > 65536;
+        int flags = (mesh.hasNormals ? FLAG_NORMALS : 0) | (quantize ? FLAG_QUANTIZED : 0)
+                | (mesh.isIndexed() ? FLAG_INDEXED : 0) | (index32 ? FLAG_INDEX32 : 0);
+        int stride = quantize ? QUANTIZED_STRIDE_BYTES : MeshData.STRIDE_BYTES;
+        int indexBytes = mesh.isIndexed() ? 4 + align4(mesh.indexCount * (index32 ? 4 : 2)) : 0;
+        ByteBuffer bb = header(flags, mesh.vertexCount, min, extent, mesh.vertexCount * stride + indexBytes);
+
+        for (int i = 0; i < mesh.vertexCount; i++) {
+            int o = i * MeshData.STRIDE;
+            if (!quantize) {
+                for (int k = 0; k < MeshData.STRIDE; k++) bb.putFloat(v[o + k]);
+                continue;
+            }
+            for (int k = 0; k < 3; k++) {
+                float t = extent[k] == 0 ? 0 : (v[o + k] - min[k]) / extent[k];
+                bb.putShort((short) Math.round(t * 65535.0f));
+            }
+            for (int k = 0; k < 3; k++) {
+                bb.put((byte) Math.round(clamp(v[o + MeshData.NORMAL_OFFSET + k], -1, 1) * 127.0f));
+            }
+            bb.put((byte) 0);
+            for (int k = 0; k < 2; k++) {
+                float uv = clamp(v[o + MeshData.TEXCOORD_OFFSET + k], -4, 32767 / UV_SCALE);
+                bb.putShort((short) Math.round(uv * UV_SCALE));
+            }
+        }
+        if (mesh.isIndexed()) {
+            bb.putInt(mesh.indexCount);
+            for (int i = 0; i < mesh.indexCount; i++) {
+                if (index32) bb.putInt(mesh.indices[i]);
+                else bb.putShort((short) mesh.indices[i]);
+            }
+        }
+        out.write(bb.array());
+    }
+
+    public static void writePoints(float[] positions, int count, OutputStream out) throws IOException {
+        ByteBuffer bb = header(FLAG_POINTS, count, new float[3], new float[3], count * POINT_STRIDE_BYTES);
+        for (int i = 0; i < count * 3; i++) bb.putFloat(positions[i]);
+        out.write(bb.array());
+    }
+
+    private static ByteBuffer header(int flags, int count, float[] min, float[] extent, int dataBytes) {
+        ByteBuffer bb = ByteBuffer.allocate(HEADER_BYTES + dataBytes).order(ByteOrder.LITTLE_ENDIAN);
+        bb.putInt(MAGIC).putInt(VERSION).putInt(flags).putInt(count);
+        for (int k = 0; k < 3; k++) bb.putFloat(min[k]);
+        for (int k = 0; k < 3; k++) bb.putFloat(extent[k]);
+        return bb;
+    }
+
+    // --- LECTURA ---
+    public static int flags(ByteBuffer data) {
+        ByteBuffer bb = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (bb.remaining() < HEADER_BYTES || bb.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("No es un fichero VRM");
+        }
+        if (bb.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Versión VRM no soportada: " + bb.getInt(4));
+        }
+        return bb.getInt(8);
+    }
+
+    public static int vertexCount(ByteBuffer data) {
+        return data.duplicate().order(ByteOrder.LITTLE_ENDIAN).getInt(12);
+    }
+
+    /**
+     * Vista directa (sin copia) de los vértices intercalados, lista para glVertexPointer y
+     * compañía. Solo es posible si la malla no está cuantizada y la plataforma es little-endian;
+     * en otro caso devuelve null y hay que usar read().
+     */
+    public static FloatBuffer vertexView(ByteBuffer data) {
+        int flags = flags(data);
+        if ((flags & (FLAG_QUANTIZED | FLAG_POINTS)) != 0 || ByteOrder.nativeOrder() != ByteOrder.LITTLE_ENDIAN) {
+            return null;
+        }
+        ByteBuffer bb = data.duplicate();
+        bb.position(HEADER_BYTES);
+        bb.limit(HEADER_BYTES + vertexCount(data) * MeshData.STRIDE_BYTES);
+        return bb.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+    }
+
+    public static int indexCount(ByteBuffer data) {
+        if ((flags(data) & FLAG_INDEXED) == 0) return 0;
+        return data.duplicate().order(ByteOrder.LITTLE_ENDIAN).getInt(indexSectionOffset(data));
+    }
+
+    /**
+     * Vista directa de los índices (uint16, o uint32 si FLAG_INDEX32) sin copiarlos, o null si
+     * la malla no está indexada.
+     */
+    public static ByteBuffer indexView(ByteBuffer data) {
+        if ((flags(data) & FLAG_INDEXED) == 0) return null;
+        int offset = indexSectionOffset(data) + 4;
+        int bytes = indexCount(data) * ((flags(data) & FLAG_INDEX32) != 0 ? 4 : 2);
+        ByteBuffer bb = data.duplicate();
+        bb.position(offset);
+        bb.limit(offset + bytes);
+        return bb.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int indexSectionOffset(ByteBuffer data) {
+        int stride = (flags(data) & FLAG_QUANTIZED) != 0 ? QUANTIZED_STRIDE_BYTES : MeshData.STRIDE_BYTES;
+        return HEADER_BYTES + vertexCount(data) * stride;
+    }
+
+    public static MeshData read(ByteBuffer data) {
+        int flags = flags(data);
+        if ((flags & FLAG_POINTS) != 0) throw new IllegalArgumentException("El VRM contiene puntos, no una malla");
+        ByteBuffer bb = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int count = bb.getInt(12);
+        float[] out = new float[count * MeshData.STRIDE];
+        bb.position(HEADER_BYTES);
+
+        if ((flags & FLAG_QUANTIZED) == 0) {
+            bb.asFloatBuffer().get(out);
+        } else {
+            float[] min = new float[3], extent = new float[3];
+            for (int k = 0; k < 3; k++) {
+                min[k] = bb.getFloat(16 + k * 4);
+                extent[k] = bb.getFloat(28 + k * 4);
+            }
+            for (int i = 0; i < count; i++) {
+                int o = i * MeshData.STRIDE;
+                for (int k = 0; k < 3; k++) out[o + k] = min[k] + (bb.getShort() & 0xFFFF) / 65535.0f * extent[k];
+                for (int k = 0; k < 3; k++) out[o + MeshData.NORMAL_OFFSET + k] = bb.get() / 127.0f;
+                bb.get();
+                for (int k = 0; k < 2; k++) out[o + MeshData.TEXCOORD_OFFSET + k] = bb.getShort() / UV_SCALE;
+            }
+        }
+        int[] indices = null;
+        int indexCount = 0;
+        ByteBuffer indexData = indexView(data);
+        if (indexData != null) {
+            indexCount = indexCount(data);
+            indices = new int[indexCount];
+            boolean index32 = (flags & FLAG_INDEX32) != 0;
+            for (int i = 0; i < indexCount; i++) {
+                indices[i] = index32 ? indexData.getInt() : indexData.getShort() & 0xFFFF;
+            }
+        }
+        return new MeshData(out, count, (flags & FLAG_NORMALS) != 0, indices, indexCount);
+    }
+
+    public static float[] readPoints(ByteBuffer data) {
+        if ((flags(data) & FLAG_POINTS) == 0) throw new IllegalArgumentException("El VRM no contiene puntos");
+        ByteBuffer bb = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        float[] out = new float[bb.getInt(12) * 3];
+        bb.position(HEADER_BYTES);
+        bb.asFloatBuffer().get(out);
+        return out;
+    }
+
+    private static int align4(int bytes) {
+        return (bytes + 3) & ~3;
+    }
+
+    private static float clamp(float value, float min, float max) {
+        return value < min ? min : (value > max ? max : value);
+    }
+}
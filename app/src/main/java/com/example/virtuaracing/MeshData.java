@@ -0,0 +1,44 @@
+package com.example.virtuaracing;
+
+/**
+ * Geometría ya lista para subir a OpenGL: un único array intercalado con posición, normal y
+ * coordenada de textura por vértice (x, y, z, nx, ny, nz, u, v). No depende de Android para
+ * poder usarse desde los tests de JVM.
+ *
+ * Si indices es null la malla es una lista de triángulos sin indexar (glDrawArrays); si no,
+ * los vértices son únicos y cada tripleta de índices forma un triángulo (glDrawElements).
+ */
+public class MeshData {
+
+    public static final int STRIDE = 8;             // floats por vértice
+    public static final int STRIDE_BYTES = STRIDE * 4;
+    public static final int NORMAL_OFFSET = 3;
+    public static final int TEXCOORD_OFFSET = 6;
+
+    public final float[] vertices;
+    public final int vertexCount;
+    public final boolean hasNormals;
+    public final int[] indices;
+    public final int indexCount;
+
+    public MeshData(float[] vertices, int vertexCount, boolean hasNormals) {
+        this(vertices, vertexCount, hasNormals, null, 0);
+    }
+
+    public MeshData(float[] vertices, int vertexCount, boolean hasNormals, int[] indices, int indexCount) {
+        this.vertices = vertices;
+        this.vertexCount = vertexCount;
+        this.hasNormals = hasNormals;
+        this.indices = indices;
+        this.indexCount = indexCount;
+    }
+
+    public boolean isIndexed() {
+        return indices != null;
+    }
+
+    // Número de vértices que se envían al dibujar (índices si está indexada)
+    public int drawCount() {
+        return indices != null ? indexCount : vertexCount;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.virtuaracing;
+
+/**
+ * Deduplica los vértices de un OBJ: cada tripleta (v, vt, vn) distinta pasa a ser un único
+ * vértice y las caras se convierten en índices. Usa una tabla hash de direccionamiento abierto
+ * sobre arrays de int para no crear objetos por esquina.
+ */
+public final class MeshIndexer {
+
+    private MeshIndexer() {}
+
+    public static MeshData index(ObjParser parser) {
+        int cornerCount = parser.getCornerCount();
+        int[] corners = parser.getCorners();
+
+        int tableSize = Integer.highestOneBit(Math.max(cornerCount, 1) * 2 - 1) << 1;
+        int mask = tableSize - 1;
+        int[] table = new int[tableSize];   // id de vértice único + 1, 0 = libre
+
+        int[] uniqueCorner = new int[cornerCount]; // esquina del OBJ que originó cada vértice único
+        int[] indices = new int[cornerCount];
+        int uniqueCount = 0;
+
+        for (int c = 0; c < cornerCount; c++) {
+            int v = corners[c * 3], t = corners[c * 3 + 1], n = corners[c * 3 + 2];
+            int slot = hash(v, t, n) & mask;
+            while (true) {
+                int entry = table[slot];
+                if (entry == 0) {
+                    uniqueCorner[uniqueCount] = c;
+                    table[slot] = ++uniqueCount;
+                    indices[c] = uniqueCount - 1;
+                    break;
+                }
+                int o = uniqueCorner[entry - 1] * 3;
+                if (corners[o] == v && corners[o + 1] == t && corners[o + 2] == n) {
+                    indices[c] = entry - 1;
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        float[] vertices = new float[uniqueCount * MeshData.STRIDE];
+        for (int i = 0; i < uniqueCount; i++) {
+            parser.writeCorner(uniqueCorner[i], vertices, i * MeshData.STRIDE);
+        }
+        return new MeshData(vertices, uniqueCount, parser.hasNormals(), indices, cornerCount);
+    }
+
+    // Vuelve a expandir una malla indexada a triángulos sueltos (para comparar y para fallback)
+    public static MeshData expand(MeshData indexed) {
+        if (!indexed.isIndexed()) return indexed;
+        float[] out = new float[indexed.indexCount * MeshData.STRIDE];
+        for (int i = 0; i < indexed.indexCount; i++) {
+            System.arraycopy(indexed.vertices, indexed.indices[i] * MeshData.STRIDE, out, i * MeshData.STRIDE, MeshData.STRIDE);
+        }
+        return new MeshData(out, indexed.indexCount, indexed.hasNormals);
+    }
+
+    // Bytes que ocupa en GPU: vértices de 32 bytes + índices de 16 o 32 bits
+    public static int byteSize(MeshData mesh) {
+        int bytes = mesh.vertexCount * MeshData.STRIDE_BYTES;
+        if (mesh.isIndexed()) bytes += mesh.indexCount * (mesh.vertexCount <= 65536 ? 2 : 4);
+        return bytes;
+    }
+
+    public static String describeSavings(String name, MeshData indexed) {
+        int expandedVertices = indexed.drawCount();
+        int expandedBytes = expandedVertices * MeshData.STRIDE_BYTES;
+        int indexedBytes = byteSize(indexed);
+        return String.format(java.util.Locale.US, "%s: %d -> %d vértices, %d -> %d bytes (%.1f%% menos)",
+                name, expandedVertices, indexed.vertexCount, expandedBytes, indexedBytes,
+                100.0f * (expandedBytes - indexedBytes) / Math.max(expandedBytes, 1));
+    }
+
+    private static int hash(int v, int t, int n) {
+        int h = v * 0x9E3779B1 + t * 0x85EBCA77 + n * 0xC2B2AE3D;
+        return h ^ (h >>> 15);
+    }
+}
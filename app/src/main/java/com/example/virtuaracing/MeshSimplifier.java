@@ -0,0 +1,408 @@
+package com.example.virtuaracing;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Simplificación de mallas por colapso de aristas con cuádricas de error (Garland-Heckbert),
+ * para los niveles de detalle lejanos. Cada vértice acumula las cuádricas de los planos de sus
+ * triángulos (y de planos perpendiculares en los bordes abiertos, para que no se encojan) y en
+ * cada paso se colapsa la arista que menos error introduce.
+ *
+ * Los colapsos son a uno de los extremos (half-edge): no se crean vértices nuevos, así que las
+ * normales y uv siguen siendo las del modelo original. La topología se trabaja sobre posiciones
+ * soldadas (las costuras de uv comparten posición); al desaparecer un vértice, cada esquina que
+ * lo usaba pasa al vértice del superviviente con la normal y uv más parecidas. Se descartan los
+ * colapsos que darían la vuelta a un triángulo o crearían aristas no variedad.
+ */
+public final class MeshSimplifier {
+
+    private static final double BOUNDARY_WEIGHT = 10; //peso de los planos de borde frente a los de caras
+    private static final double MIN_NORMAL_DOT = 0.2; //coseno mínimo entre la normal antes y después
+
+    private MeshSimplifier() {}
+
+    /** Como simplify(mesh, targetTriangles) con una fracción de los triángulos actuales. */
+    public static MeshData simplify(MeshData mesh, float ratio) {
+        int triangles = mesh.drawCount() / 3;
+        return simplify(mesh, Math.max(1, Math.round(triangles * ratio)));
+    }
+
+    /**
+     * @param mesh malla indexada o no
+     * @param targetTriangles triángulos a los que bajar; se para antes si no quedan colapsos válidos
+     * @return malla indexada solo con los vértices que se usan
+     */
+    public static MeshData simplify(MeshData mesh, int targetTriangles) {
+        return new Collapser(mesh).run(targetTriangles);
+    }
+
+    public static int triangleCount(MeshData mesh) {
+        return mesh.drawCount() / 3;
+    }
+
+    private static final class Collapse implements Comparable<Collapse> {
+        final double cost;
+        final int from, to, fromVersion, toVersion;
+
+        Collapse(double cost, int from, int to, int fromVersion, int toVersion) {
+            this.cost = cost;
+            this.from = from;
+            this.to = to;
+            this.fromVersion = fromVersion;
+            this.toVersion = toVersion;
+        }
+
+        @Override
+        public int compareTo(Collapse o) {
+            return Double.compare(cost, o.cost);
+        }
+    }
+
+    // Estado de una simplificación (los arrays de vértices "w" son de posiciones soldadas)
+    private static final class Collapser {
+        final MeshData mesh;
+        final int[] corners;       //vértice original de cada esquina
+        final int[] welded;        //posición soldada de cada esquina
+        final boolean[] removed;   //por triángulo
+        int triangles;
+
+        final int[] weldOf;        //posición soldada de cada vértice original
+        final double[] position;   //3 por posición soldada
+        final double[] quadric;    //10 por posición soldada (matriz simétrica 4x4)
+        final int[][] originals;   //vértices originales de cada posición soldada
+        final int[][] faces;       //triángulos de cada posición soldada (puede haber repetidos o ya borrados)
+        final int[] faceCount;
+        final boolean[] alive;
+        final int[] version;
+        final PriorityQueue<Collapse> queue = new PriorityQueue<>();
+
+        Collapser(MeshData mesh) {
+            this.mesh = mesh;
+            int n = mesh.drawCount() - mesh.drawCount() % 3;
+            corners = new int[n];
+            for (int i = 0; i < n; i++) corners[i] = mesh.isIndexed() ? mesh.indices[i] : i;
+            triangles = n / 3;
+            removed = new boolean[triangles];
+
+            // Soldar por posición exacta
+            weldOf = new int[mesh.vertexCount];
+            Map<Long, Integer> firstWithHash = new HashMap<>();
+            int[] nextSameHash = new int[mesh.vertexCount];
+            int weldCount = 0;
+            int[] representative = new int[mesh.vertexCount];
+            for (int v = 0; v < mesh.vertexCount; v++) {
+                long key = positionKey(v);
+                Integer first = firstWithHash.get(key);
+                int found = -1;
+                for (int other = first != null ? first : -1; other >= 0; other = nextSameHash[other]) {
+                    if (samePosition(v, other)) {
+                        found = weldOf[other];
+                        break;
+                    }
+                }
+                nextSameHash[v] = first != null ? first : -1;
+                firstWithHash.put(key, v);
+                if (found < 0) {
+                    found = weldCount;
+                    representative[weldCount++] = v;
+                }
+                weldOf[v] = found;
+            }
+
+            position = new double[weldCount * 3];
+            quadric = new double[weldCount * 10];
+            alive = new boolean[weldCount];
+            version = new int[weldCount];
+            int[] originalCount = new int[weldCount];
+            for (int v = 0; v < mesh.vertexCount; v++) originalCount[weldOf[v]]++;
+            originals = new int[weldCount][];
+            for (int w = 0; w < weldCount; w++) {
+                originals[w] = new int[originalCount[w]];
+                originalCount[w] = 0;
+                int o = representative[w] * MeshData.STRIDE;
+                position[w * 3] = mesh.vertices[o];
+                position[w * 3 + 1] = mesh.vertices[o + 1];
+                position[w * 3 + 2] = mesh.vertices[o + 2];
+            }
+            for (int v = 0; v < mesh.vertexCount; v++) originals[weldOf[v]][originalCount[weldOf[v]]++] = v;
+
+            welded = new int[n];
+            for (int i = 0; i < n; i++) welded[i] = weldOf[corners[i]];
+            faces = new int[weldCount][];
+            faceCount = new int[weldCount];
+            for (int w = 0; w < weldCount; w++) faces[w] = new int[4];
+            for (int t = 0; t < triangles; t++) {
+                int a = welded[3 * t], b = welded[3 * t + 1], c = welded[3 * t + 2];
+                if (a == b || b == c || a == c) { //degenerado ya en el original
+                    removed[t] = true;
+                    triangles--;
+                    continue;
+                }
+                for (int k = 0; k < 3; k++) {
+                    int w = welded[3 * t + k];
+                    alive[w] = true;
+                    addFace(w, t);
+                }
+                addPlaneQuadric(t);
+            }
+            addBoundaryQuadrics();
+            for (int t = 0; t < removed.length; t++) {
+                if (removed[t]) continue;
+                for (int k = 0; k < 3; k++) pushEdge(welded[3 * t + k], welded[3 * t + (k + 1) % 3]);
+            }
+        }
+
+        private long positionKey(int v) {
+            int o = v * MeshData.STRIDE;
+            long h = Float.floatToIntBits(mesh.vertices[o] + 0.0f); //+0 junta 0 y -0
+            h = h * 31 + Float.floatToIntBits(mesh.vertices[o + 1] + 0.0f);
+            return h * 31 + Float.floatToIntBits(mesh.vertices[o + 2] + 0.0f);
+        }
+
+        private boolean samePosition(int a, int b) {
+            int oa = a * MeshData.STRIDE, ob = b * MeshData.STRIDE;
+            return mesh.vertices[oa] == mesh.vertices[ob] && mesh.vertices[oa + 1] == mesh.vertices[ob + 1]
+                    && mesh.vertices[oa + 2] == mesh.vertices[ob + 2];
+        }
+
+        private void addFace(int w, int t) {
+            if (faceCount[w] == faces[w].length) faces[w] = Arrays.copyOf(faces[w], faces[w].length * 2);
+            faces[w][faceCount[w]++] = t;
+        }
+
+        // Plano del triángulo ponderado por su área
+        private void addPlaneQuadric(int t) {
+            double[] n = new double[3];
+            double area = normal(welded[3 * t], welded[3 * t + 1], welded[3 * t + 2], -1, -1, n);
+            if (area == 0) return;
+            int a = welded[3 * t];
+            double d = -(n[0] * position[a * 3] + n[1] * position[a * 3 + 1] + n[2] * position[a * 3 + 2]);
+            for (int k = 0; k < 3; k++) addQuadric(welded[3 * t + k], n[0], n[1], n[2], d, area);
+        }
+
+        // En cada arista con un solo triángulo, un plano perpendicular a la cara que la contiene
+        private void addBoundaryQuadrics() {
+            Map<Long, Integer> edgeUses = new HashMap<>();
+            long stride = position.length / 3;
+            for (int t = 0; t < removed.length; t++) {
+                if (removed[t]) continue;
+                for (int k = 0; k < 3; k++) {
+                    int a = welded[3 * t + k], b = welded[3 * t + (k + 1) % 3];
+                    edgeUses.merge(Math.min(a, b) * stride + Math.max(a, b), 1, Integer::sum);
+                }
+            }
+            double[] n = new double[3];
+            for (int t = 0; t < removed.length; t++) {
+                if (removed[t]) continue;
+                if (normal(welded[3 * t], welded[3 * t + 1], welded[3 * t + 2], -1, -1, n) == 0) continue;
+                for (int k = 0; k < 3; k++) {
+                    int a = welded[3 * t + k], b = welded[3 * t + (k + 1) % 3];
+                    if (edgeUses.get(Math.min(a, b) * stride + Math.max(a, b)) != 1) continue;
+                    double ex = position[b * 3] - position[a * 3], ey = position[b * 3 + 1] - position[a * 3 + 1],
+                            ez = position[b * 3 + 2] - position[a * 3 + 2];
+                    double px = ey * n[2] - ez * n[1], py = ez * n[0] - ex * n[2], pz = ex * n[1] - ey * n[0];
+                    double length = Math.sqrt(px * px + py * py + pz * pz);
+                    if (length == 0) continue;
+                    px /= length;
+                    py /= length;
+                    pz /= length;
+                    double d = -(px * position[a * 3] + py * position[a * 3 + 1] + pz * position[a * 3 + 2]);
+                    double weight = BOUNDARY_WEIGHT * (ex * ex + ey * ey + ez * ez);
+                    addQuadric(a, px, py, pz, d, weight);
+                    addQuadric(b, px, py, pz, d, weight);
+                }
+            }
+        }
+
+        private void addQuadric(int w, double a, double b, double c, double d, double weight) {
+            int o = w * 10;
+            quadric[o] += weight * a * a;
+            quadric[o + 1] += weight * a * b;
+            quadric[o + 2] += weight * a * c;
+            quadric[o + 3] += weight * a * d;
+            quadric[o + 4] += weight * b * b;
+            quadric[o + 5] += weight * b * c;
+            quadric[o + 6] += weight * b * d;
+            quadric[o + 7] += weight * c * c;
+            quadric[o + 8] += weight * c * d;
+            quadric[o + 9] += weight * d * d;
+        }
+
+        // Error de llevar 'from' a la posición de 'to' con la suma de las dos cuádricas
+        private double cost(int from, int to) {
+            int p = from * 10, q = to * 10;
+            double x = position[to * 3], y = position[to * 3 + 1], z = position[to * 3 + 2];
+            double e = (quadric[p] + quadric[q]) * x * x + 2 * (quadric[p + 1] + quadric[q + 1]) * x * y
+                    + 2 * (quadric[p + 2] + quadric[q + 2]) * x * z + 2 * (quadric[p + 3] + quadric[q + 3]) * x
+                    + (quadric[p + 4] + quadric[q + 4]) * y * y + 2 * (quadric[p + 5] + quadric[q + 5]) * y * z
+                    + 2 * (quadric[p + 6] + quadric[q + 6]) * y + (quadric[p + 7] + quadric[q + 7]) * z * z
+                    + 2 * (quadric[p + 8] + quadric[q + 8]) * z + (quadric[p + 9] + quadric[q + 9]);
+            return Math.max(0, e);
+        }
+
+        private void pushEdge(int a, int b) {
+            queue.add(new Collapse(cost(a, b), a, b, version[a], version[b]));
+            queue.add(new Collapse(cost(b, a), b, a, version[b], version[a]));
+        }
+
+        MeshData run(int targetTriangles) {
+            Collapse c;
+            while (triangles > targetTriangles && (c = queue.poll()) != null) {
+                if (!alive[c.from] || !alive[c.to] || version[c.from] != c.fromVersion || version[c.to] != c.toVersion) {
+                    continue; //entrada antigua
+                }
+                if (!canCollapse(c.from, c.to)) continue;
+                collapse(c.from, c.to);
+            }
+            return build();
+        }
+
+        // Sin aristas no variedad (más de dos vecinos comunes) ni triángulos dados la vuelta
+        private boolean canCollapse(int u, int v) {
+            int common = 0;
+            int[] neighborsV = neighbors(v);
+            for (int w : neighbors(u)) {
+                if (w == v) continue;
+                for (int x : neighborsV) {
+                    if (x == w) {
+                        common++;
+                        break;
+                    }
+                }
+            }
+            if (common > 2) return false;
+
+            double[] before = new double[3], after = new double[3];
+            for (int i = 0; i < faceCount[u]; i++) {
+                int t = faces[u][i];
+                if (removed[t] || hasCorner(t, v) || !hasCorner(t, u)) continue;
+                int a = welded[3 * t], b = welded[3 * t + 1], cc = welded[3 * t + 2];
+                if (normal(a, b, cc, -1, -1, before) == 0) continue;
+                if (normal(a, b, cc, u, v, after) == 0) return false;
+                if (before[0] * after[0] + before[1] * after[1] + before[2] * after[2] < MIN_NORMAL_DOT) return false;
+            }
+            return true;
+        }
+
+        private int[] neighbors(int w) {
+            int[] out = new int[faceCount[w] * 2];
+            int count = 0;
+            for (int i = 0; i < faceCount[w]; i++) {
+                int t = faces[w][i];
+                if (removed[t] || !hasCorner(t, w)) continue;
+                for (int k = 0; k < 3; k++) {
+                    int x = welded[3 * t + k];
+                    if (x == w) continue;
+                    boolean seen = false;
+                    for (int j = 0; j < count && !seen; j++) seen = out[j] == x;
+                    if (!seen) out[count++] = x;
+                }
+            }
+            return Arrays.copyOf(out, count);
+        }
+
+        private boolean hasCorner(int t, int w) {
+            return welded[3 * t] == w || welded[3 * t + 1] == w || welded[3 * t + 2] == w;
+        }
+
+        private void collapse(int u, int v) {
+            for (int i = 0; i < faceCount[u]; i++) {
+                int t = faces[u][i];
+                if (removed[t] || !hasCorner(t, u)) continue;
+                if (hasCorner(t, v)) {
+                    removed[t] = true;
+                    triangles--;
+                    continue;
+                }
+                for (int k = 0; k < 3; k++) {
+                    int corner = 3 * t + k;
+                    if (welded[corner] != u) continue;
+                    welded[corner] = v;
+                    corners[corner] = closestOriginal(corners[corner], v);
+                }
+                addFace(v, t);
+            }
+            alive[u] = false;
+            faceCount[u] = 0;
+            for (int k = 0; k < 10; k++) quadric[v * 10 + k] += quadric[u * 10 + k];
+            version[v]++;
+
+            // Compactar la lista de v y recalcular sus aristas
+            int count = 0;
+            for (int i = 0; i < faceCount[v]; i++) {
+                int t = faces[v][i];
+                if (removed[t] || !hasCorner(t, v)) continue;
+                boolean seen = false;
+                for (int j = 0; j < count && !seen; j++) seen = faces[v][j] == t;
+                if (!seen) faces[v][count++] = t;
+            }
+            faceCount[v] = count;
+            for (int w : neighbors(v)) pushEdge(v, w);
+        }
+
+        // Vértice original de la posición 'w' con la normal y uv más parecidas a 'vertex'
+        private int closestOriginal(int vertex, int w) {
+            float[] data = mesh.vertices;
+            int best = originals[w][0];
+            float bestDistance = Float.MAX_VALUE;
+            for (int candidate : originals[w]) {
+                float distance = 0;
+                for (int k = MeshData.NORMAL_OFFSET; k < MeshData.STRIDE; k++) {
+                    float d = data[vertex * MeshData.STRIDE + k] - data[candidate * MeshData.STRIDE + k];
+                    distance += d * d;
+                }
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = candidate;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Normal unitaria de (a, b, c) en 'out', con 'replace' movido a la posición de 'with'
+         * (-1 = sin cambio). Devuelve el doble del área, 0 si es degenerado.
+         */
+        private double normal(int a, int b, int c, int replace, int with, double[] out) {
+            if (a == replace) a = with;
+            if (b == replace) b = with;
+            if (c == replace) c = with;
+            double e1x = position[b * 3] - position[a * 3], e1y = position[b * 3 + 1] - position[a * 3 + 1],
+                    e1z = position[b * 3 + 2] - position[a * 3 + 2];
+            double e2x = position[c * 3] - position[a * 3], e2y = position[c * 3 + 1] - position[a * 3 + 1],
+                    e2z = position[c * 3 + 2] - position[a * 3 + 2];
+            double nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x;
+            double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (length < 1e-12) return 0;
+            out[0] = nx / length;
+            out[1] = ny / length;
+            out[2] = nz / length;
+            return length;
+        }
+
+        // Malla indexada con los triángulos que quedan y solo los vértices que usan
+        private MeshData build() {
+            int[] remap = new int[mesh.vertexCount];
+            Arrays.fill(remap, -1);
+            int[] indices = new int[triangles * 3];
+            int indexCount = 0, vertexCount = 0;
+            float[] vertices = new float[Math.min(mesh.vertexCount, triangles * 3) * MeshData.STRIDE];
+            for (int t = 0; t < removed.length; t++) {
+                if (removed[t]) continue;
+                for (int k = 0; k < 3; k++) {
+                    int v = corners[3 * t + k];
+                    if (remap[v] < 0) {
+                        System.arraycopy(mesh.vertices, v * MeshData.STRIDE, vertices, vertexCount * MeshData.STRIDE, MeshData.STRIDE);
+                        remap[v] = vertexCount++;
+                    }
+                    indices[indexCount++] = remap[v];
+                }
+            }
+            return new MeshData(Arrays.copyOf(vertices, vertexCount * MeshData.STRIDE), vertexCount,
+                    mesh.hasNormals, indices, indexCount);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.virtuaracing;
+
+/**
+ * Cadena de mipmaps de una imagen ARGB: cada nivel es la mitad del anterior (mínimo 1) con un
+ * filtro de caja 2x2. El color se promedia ponderado por alfa para que los bordes transparentes
+ * no oscurezcan el HUD; en lados impares el último píxel se repite.
+ */
+public final class MipChain {
+
+    private MipChain() {}
+
+    public static int levelSize(int size, int level) {
+        return Math.max(1, size >> level);
+    }
+
+    // Niveles hasta 1x1
+    public static int fullLevelCount(int width, int height) {
+        int levels = 1;
+        while ((Math.max(width, height) >> levels) > 0) levels++;
+        return levels;
+    }
+
+    /**
+     * @param maxLevels tope de niveles (p. ej. para que el margen de un atlas no desaparezca)
+     * @return los niveles, empezando por la imagen original (no se copia)
+     */
+    public static int[][] build(int[] argb, int width, int height, int maxLevels) {
+        int levels = Math.min(maxLevels, fullLevelCount(width, height));
+        int[][] chain = new int[levels][];
+        chain[0] = argb;
+        for (int l = 1; l < levels; l++) {
+            chain[l] = downsample(chain[l - 1], levelSize(width, l - 1), levelSize(height, l - 1));
+        }
+        return chain;
+    }
+
+    static int[] downsample(int[] src, int width, int height) {
+        int w = Math.max(1, width / 2), h = Math.max(1, height / 2);
+        int[] dst = new int[w * h];
+        for (int y = 0; y < h; y++) {
+            int y0 = Math.min(2 * y, height - 1), y1 = Math.min(2 * y + 1, height - 1);
+            for (int x = 0; x < w; x++) {
+                int x0 = Math.min(2 * x, width - 1), x1 = Math.min(2 * x + 1, width - 1);
+                dst[y * w + x] = average(src[y0 * width + x0], src[y0 * width + x1],
+                        src[y1 * width + x0], src[y1 * width + x1]);
+            }
+        }
+        return dst;
+    }
+
+    private static int average(int p0, int p1, int p2, int p3) {
+        int a0 = p0 >>> 24, a1 = p1 >>> 24, a2 = p2 >>> 24, a3 = p3 >>> 24;
+        int alphaSum = a0 + a1 + a2 + a3;
+        int a = (alphaSum + 2) / 4;
+        if (alphaSum == 0) { //todo transparente: media simple para no perder el color
+            return channelAverage(p0, p1, p2, p3, 16) << 16 | channelAverage(p0, p1, p2, p3, 8) << 8
+                    | channelAverage(p0, p1, p2, p3, 0);
+        }
+        int r = weighted(p0, p1, p2, p3, a0, a1, a2, a3, alphaSum, 16);
+        int g = weighted(p0, p1, p2, p3, a0, a1, a2, a3, alphaSum, 8);
+        int b = weighted(p0, p1, p2, p3, a0, a1, a2, a3, alphaSum, 0);
+        return a << 24 | r << 16 | g << 8 | b;
+    }
+
+    private static int weighted(int p0, int p1, int p2, int p3, int a0, int a1, int a2, int a3, int alphaSum, int shift) {
+        int sum = ((p0 >> shift) & 0xFF) * a0 + ((p1 >> shift) & 0xFF) * a1
+                + ((p2 >> shift) & 0xFF) * a2 + ((p3 >> shift) & 0xFF) * a3;
+        return (sum + alphaSum / 2) / alphaSum;
+    }
+
+    private static int channelAverage(int p0, int p1, int p2, int p3, int shift) {
+        return (((p0 >> shift) & 0xFF) + ((p1 >> shift) & 0xFF) + ((p2 >> shift) & 0xFF) + ((p3 >> shift) & 0xFF) + 2) / 4;
+    }
+}
@@ -5,122 +5,388 @@ import javax.microedition.khronos.opengles.GL10;
 
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.opengl.GLSurfaceView;
-import android.opengl.GLUtils;
-import android.opengl.GLU;
 import android.util.Log;
 
-import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.LockSupport;
 
 public class MyGLRenderer implements GLSurfaceView.Renderer {
 
     private Context context;
+    private final RenderBackend.Kind backendKind;
+    private RenderBackend gfx; //se crea con cada contexto (onSurfaceCreated)
+    private static final float[] SKY_COLOR = {0.5f, 0.7f, 1.0f}; //color de fondo
     private int width, height;
+    private int hudWidth, hudHeight; //tamaño lógico del HUD (la superficie puede ir escalada)
 
     // --- OBJETOS 3D ---
-    private Object3D road, sky, carChassis, carWheel, tree, stand;
+    private Object3D sky;
+    private Object3D[] chassisLods, wheelLods, treeLods, standLods; //niveles de detalle, [0] = modelo completo
+    private boolean modelsLoaded; //en memoria; con un contexto nuevo solo hay que resubirlos
+
+    // --- CARGA (AssetPipeline: parseo en un pool, subidas a GPU repartidas entre frames) ---
+    private static final long UPLOAD_BUDGET_NANOS = 4_000_000; //subidas por frame, la pantalla de carga sigue fluida
+    private ExecutorService loaderPool;
+    private AssetPipeline loading; //null con todo cargado
+    private long loadingStart;
+
+    // --- CARRETERA POR TROZOS ---
+    private static final int ROUTE_POINTS_PER_CHUNK = 16; //puntos de ruta por trozo
+    private Object3D[] roadChunks = new Object3D[0];
+    private int roadChunkWindow = 1; //trozos por delante/detrás del jugador que se mantienen en GPU
 
     // --- TEXTURAS ---
     private int textureIdAtlas = -1;
     private int textureIdSky = -1;
 
     // --- LÓGICA DE RUTA ---
-    private List<Vector4> routePoints = new ArrayList<>();
-
-    // --- LÓGICA DEL JUGADOR ---
-    private float playerProgress = 0.0f;
-    private Vector4 playerPos = new Vector4(0,0,0,1);
-    private float playerRotY = 0;
+    private static final float ROUTE_SPACING = 2.0f; //metros entre puntos de la ruta remuestreada
+    private Route route = new Route(new float[0], 0); //se sustituye al cargar route.obj
+
+    // --- LÓGICA DEL JUGADOR (en su propio hilo, ver SimulationLoop) ---
+    private static final int RACE_CARS = 64; //jugador incluido (ver RaceField)
+    // Coches por tramo al repartir el tick en el pool: 64 coches van en 4 tramos. Sin medir aún en
+    // varios núcleos; se ajusta con RaceFieldBenchmark.parallelTick_findsTheCrossover en el dispositivo
+    private static final int PARALLEL_CARS_PER_TASK = 16;
+    private RaceSimulation simulation = new RaceSimulation(route, RACE_CARS);
+    private volatile SimulationLoop simulationLoop;
+    private final InputQueue input = new InputQueue(16); //órdenes desde el hilo de UI
+    private final SnapshotBuffer snapshots = new SnapshotBuffer(simulation.getCars().length);
+
+    // --- GRABACIÓN Y FANTASMA (la carrera anterior, ver ReplayRecorder) ---
+    private static final String REPLAY_FILE = "replay_current.vrr"; //la que se está grabando
+    private static final String GHOST_FILE = "replay_ghost.vrr";     //la de la sesión anterior
+    private static final int REPLAY_BUFFER_BYTES = 64 * 1024;        //minutos de carrera sin volcar
+    private ReplayPlayer ghostReplay;
+    private volatile FileChannel replayChannel; //lo abre el hilo de GL y lo cierra onDestroy()
+    // El fantasma se dibuja al final, translúcido, teñido y sin luz, sin escribir profundidad. Va un
+    // poco más grande para que, cuando coincide con el coche del jugador (misma conducción), lo
+    // envuelva como una carcasa en vez de pelearse con él en el z-buffer
+    private static final float GHOST_SCALE = 1.04f;
+    private static final float[] GHOST_COLOR = {0.55f, 0.8f, 1.0f, 0.45f};
+    private final InstanceBatch ghostChassis = new InstanceBatch(1), ghostWheels = new InstanceBatch(4);
+    private int ghostLevel = -1; //nivel de detalle del fantasma en este frame, -1 si no se dibuja
+
+    // Estado interpolado de la última foto (solo lo toca el hilo de GL)
+    private final CarState[] cars = new CarState[simulation.getCars().length];
+    private final CarState ghost = new CarState();
+    private final Vector4 eye = new Vector4(0, 10, -20, 1);
+    private final Vector4 center = new Vector4(0, 0, 0, 1);
+    private final Vector4 up = new Vector4(0, 1, 0, 0);
+    private final Vector4 playerPos; //se actualiza en su sitio
+    private float wheelRotation;
+    // Fase de la aguja del velocímetro en radianes: se acumula aparte con lo que gira la rueda cada
+    // frame porque su periodo (2π / 0.8 grados de rueda) no divide la vuelta de wheelRotation
+    private static final float SPEEDOMETER_RADIANS_PER_DEGREE = 0.8f;
+    private static final float TWO_PI = (float) (2 * Math.PI);
+    private float speedometerPhase;
 
     // --- ESCENARIO Y CULLING ---
     //clase auxiliar para guardar posición y tipo de objeto (0=arbol, 1=grada)
     private static class SceneryItem {
         Vector4 position;
         int type;
+        int region = -1; //malla fusionada que lo contiene (con batching estático)
         public SceneryItem(Vector4 p, int t) { position = p; type = t; }
     }
     private List<SceneryItem> sceneryItems = new ArrayList<>();
     private float RENDER_DISTANCE = 45.0f; //distancia de pop-up
+    private SpatialGrid sceneryGrid; //rejilla XZ para no recorrer todo el escenario cada frame
+    private int[] sceneryCandidates = new int[0]; //resultado de la consulta (reutilizado)
+
+    // Batching estático: árboles y gradas fusionados al cargar en una malla por región (SceneryBatcher).
+    // A false se dibuja objeto a objeto con los lotes instanciados, para comparar.
+    private static final boolean STATIC_SCENERY_BATCHING = true;
+    private static final float SCENERY_REGION_SIZE = 22.5f; //metros de lado de cada región
+    private Object3D[][] sceneryRegions = new Object3D[0][]; //[región][nivel de detalle]
+
+    // --- NIVELES DE DETALLE (MeshSimplifier al cargar, LodSelector por objeto y frame) ---
+    private static final float[] LOD_RATIOS = {1.0f, 0.5f, 0.25f}; //fracción de triángulos de cada nivel
+    private final LodSelector lodSelector = new LodSelector(0.15f, 0.1f, 0.04f); //radio/distancia de cada cambio
+    private final int[] carLod = newLodState(simulation.getCars().length + 1); //nivel actual de cada coche y del fantasma
+    private int[] sceneryLod = new int[0];   //de cada objeto (sin batching estático)
+    private int[] sceneryRegionLod = new int[0]; //de cada región fusionada
+    private float[] sceneryRegionFade = new float[0]; //alfa de cada región en el frame (0 fuera de alcance)
+    private float sceneryLodRadius; //radio de árboles y gradas para elegir el nivel de una región
+
+    // --- IMPOSTORES (árboles y gradas lejanos como un cuadrado con su imagen, ver ImpostorAtlas) ---
+    // En los IMPOSTOR_BLEND metros antes de RENDER_DISTANCE las mallas se desvanecen mientras los
+    // impostores aparecen (fundido cruzado); más allá solo quedan impostores, hasta IMPOSTOR_DISTANCE
+    private static final float IMPOSTOR_DISTANCE = 120.0f;   //pop-up de los impostores
+    private static final float IMPOSTOR_BLEND = 10.0f;       //metros de fundido antes de RENDER_DISTANCE
+    private static final int IMPOSTOR_VIEWS = 8;             //ángulos capturados alrededor de cada modelo
+    private static final int IMPOSTOR_TILE = 64;             //px por vista (menos si la superficie no cabe)
+    private static final float IMPOSTOR_CAPTURE_FOV = 10.0f; //cámara de captura lejana, casi ortográfica
+    private static final int IMPOSTOR_KEY = 0xFF00FF, IMPOSTOR_KEY_TOLERANCE = 16; //fondo de la captura
+    private volatile boolean impostorsEnabled = true; //lo cambia el hilo de UI, para comparar triángulos
+    private ImpostorAtlas impostorAtlas; //null sin capturar
+    private int textureIdImpostors = -1;
+    private Object3D[] impostorQuads = new Object3D[0]; //[modelo * IMPOSTOR_VIEWS + vista]
+    private InstanceBatch[] impostorBatches = new InstanceBatch[0]; //los opacos del todo, por vista
+    // Mallas e impostores del fundido, sueltos con su alfa y ordenados de lejos a cerca al enviarlos
+    private final InstanceBatch fading = new InstanceBatch(16);
+    private Object3D[] fadingMesh = new Object3D[16];
+    private boolean[] fadingImpostor = new boolean[16];
+    private float[] fadingAlpha = new float[16];
+    private long[] fadingOrder = new long[16]; //distancia invertida en los bits altos, índice en los 20 bajos
+
+    // --- LOTES DE INSTANCIAS (una llamada por malla con GLES 3.0, ver Object3D.drawInstances), uno por nivel ---
+    private final InstanceBatch[] treeBatches = newLodBatches(64);
+    private final InstanceBatch[] standBatches = newLodBatches(16);
+    private final InstanceBatch[] chassisBatches = newLodBatches(4);
+    private final InstanceBatch[] wheelBatches = newLodBatches(16);
 
     // --- CÁMARA ---
+    private static final float FOV_Y = 60.0f;
+    private static final float Z_NEAR = 1.0f;
+    private static final float Z_FAR = 200.0f; //far clipping 200m
     private Camera camera;
-    private boolean isOverheadView = false; // Para cambiar de cámara luego
+    private Frustum frustum = new Frustum(); //para descartar lo que queda fuera de cámara
 
     // --- LUCES ---
     private Light sunLight;
     private Light finishLineLight;//luz puntual para el punto 0
 
-    // Variables globales de animación
-    private float globalWheelRotation = 0;
+    // --- COCHE ---
+    private static final float WHEEL_X = 2.0f, WHEEL_Y = 1.0f, WHEEL_Z = 2.5f; //posición de las ruedas
+    private float carRadius = 0; //esfera envolvente del coche completo
+
+    // --- ESTADÍSTICAS ---
+    private static final int STATS_LOG_INTERVAL = 300; //frames entre cada log
+    private int frameCount = 0;
+
+    // --- RITMO DE FRAMES (límite de FPS, modo a demanda y resolución dinámica) ---
+    private static final int TARGET_FPS = 60;
+    private final FramePacer pacer = new FramePacer(System::nanoTime, TARGET_FPS);
+    private SurfaceControl surfaceControl; //lo pone MainActivity
+    private volatile boolean continuousRendering = true;
+    private WorldSnapshot lastSnapshot;
+
+    // Lo que el renderer necesita de la vista (MainActivity lo implementa sobre GLSurfaceView)
+    public interface SurfaceControl {
+        void setContinuousRendering(boolean continuous); //RENDERMODE_CONTINUOUSLY / WHEN_DIRTY
+        void setResolutionScale(float scale);            //setFixedSize sobre el tamaño de la vista
+        void requestRender();
+    }
+
+    // --- PERFIL DE FRAME (tiempos por fase + contadores, overlay opcional en el HUD) ---
+    private static final int PROFILE_FRAMES = 256; //frames de historial para los percentiles
+    private static final int OVERLAY_REFRESH = 30; //frames entre cada recálculo de percentiles
+    private static final float OVERLAY_BAR_WIDTH = 600.0f; //px que ocupa un frame de presupuesto
+    private final FrameProfiler profiler = new FrameProfiler(System::nanoTime, PROFILE_FRAMES);
+    private volatile boolean showOverlay = false; //lo cambia el hilo de UI
+    private final long[] overlayP95 = new long[FrameProfiler.PHASE_COUNT + 1]; //fases + frame
+    private static final float[][] OVERLAY_COLORS = {
+            {0.9f, 0.3f, 0.3f}, {0.9f, 0.6f, 0.2f}, {0.4f, 0.7f, 1.0f}, {0.5f, 0.5f, 0.5f},
+            {0.3f, 0.8f, 0.3f}, {0.9f, 0.9f, 0.2f}, {0.2f, 0.8f, 0.8f}, {0.8f, 0.4f, 0.9f},
+            {1.0f, 1.0f, 1.0f}
+    };
+
+    // --- COLA DE DIBUJO (opacos ordenados por capa, luz, textura y malla antes de enviarlos) ---
+    private final RenderQueue<Object3D> renderQueue = new RenderQueue<>(64);
+    private final MatrixStack itemMatrix = new MatrixStack(1); //matriz de los dibujos sueltos
 
     // --- HUD ---
-    private TextureRect hudElement; //cuadrado genérico
-    private int texSpeedBG, texNeedle, texPos;
+    private TextureLoader.Region hudSpeedBG, hudNeedle, hudPos;
 
-    public MyGLRenderer(Context context) {
+    public MyGLRenderer(Context context, RenderBackend.Kind backendKind) {
         this.context = context;
+        this.backendKind = backendKind;
+        for (int i = 0; i < cars.length; i++) cars[i] = new CarState();
+        playerPos = cars[0].position;
+    }
+
+    public void setSurfaceControl(SurfaceControl surfaceControl) {
+        this.surfaceControl = surfaceControl;
     }
 
     @Override
     public void onSurfaceCreated(GL10 gl, EGLConfig config) {
-        gl.glClearColor(0.5f, 0.7f, 1.0f, 1.0f);
-        gl.glClearDepthf(1.0f);
-        gl.glEnable(GL10.GL_DEPTH_TEST);
-        gl.glDepthFunc(GL10.GL_LEQUAL);
-        gl.glShadeModel(GL10.GL_SMOOTH);
+        gfx = backendKind == RenderBackend.Kind.GL10 ? new Gl10Backend(gl)
+                : new Gles2Backend(backendKind == RenderBackend.Kind.GLES3);
+        gfx.init(SKY_COLOR[0], SKY_COLOR[1], SKY_COLOR[2]);
+        Log.d("MyGLRenderer", "Backend: " + gfx.kind());
+
+        camera = new Camera(gfx, eye, center, up);
+
+        // Carga en segundo plano: los hilos del pool parsean y decodifican y onDrawFrame sube lo que
+        // ya está listo, con la pantalla de carga mientras tanto
+        if (loaderPool != null) loaderPool.shutdown(); //contexto perdido a media carga: se empieza de nuevo
+        loaderPool = AssetPipeline.newWorkerPool(Runtime.getRuntime().availableProcessors());
+        loading = new AssetPipeline(loaderPool);
+        loadingStart = System.nanoTime();
+        queueTextures(loading);
+        if (!modelsLoaded) {
+            queueModels(loading);
+        } else {
+            // Contexto nuevo con los modelos ya en memoria: basta con resubir la geometría (ids nuevos)
+            if (sky != null) sky.upload(gfx);
+            for (Object3D[] lods : new Object3D[][]{chassisLods, wheelLods, treeLods, standLods}) uploadAll(lods);
+            for (Object3D[] region : sceneryRegions) uploadAll(region);
+            for (Object3D chunk : roadChunks) chunk.discardGpu(); //se suben al acercarse
+        }
+        if (!continuousRendering && surfaceControl != null) { //la pantalla de carga se anima sola
+            continuousRendering = true;
+            surfaceControl.setContinuousRendering(true);
+        }
+    }
 
-        // Cargar Texturas
-        textureIdAtlas = loadTexture(gl, context, R.raw.texture_atlas_sq);
-        textureIdSky = loadTexture(gl, context, R.raw.sky_rural);
+    // --- CARGA DE RECURSOS ---
+    // Texturas (con cada contexto): ETC2 precompilado si el backend lo admite, si no PNG
+    private void queueTextures(AssetPipeline loading) {
+        TextureLoader textures = new TextureLoader(context, gfx);
+        loading.upload("texture_atlas_sq", loading.prepare("texture_atlas_sq", () -> textures.prepare(R.raw.texture_atlas_sq)),
+                image -> textureIdAtlas = textures.upload(image));
+        loading.upload("sky_rural", loading.prepare("sky_rural", () -> textures.prepare(R.raw.sky_rural)),
+                image -> textureIdSky = textures.upload(image));
+        // HUD: regiones de un solo atlas (el cuadrado donde se pintan lo sube gfx.init)
+        loading.upload("hud", loading.prepare("hud", () -> textures.prepareAtlas("hud")), image -> {
+            TextureLoader.Region[] hud = textures.regions(image, R.raw.hud_speed_bg, R.raw.hud_needle, R.raw.hud_pos);
+            hudSpeedBG = hud[0];
+            hudNeedle = hud[1];
+            hudPos = hud[2];
+        });
+    }
 
-        // Cargar Modelos
-        try {
-            road = new Object3D(context, R.raw.road);
-            sky = new Object3D(context, R.raw.sky);
-            carChassis = new Object3D(context, R.raw.chassis);
-            carWheel = new Object3D(context, R.raw.wheel);
-            tree = new Object3D(context, R.raw.tree);
-            stand = new Object3D(context, R.raw.stand);
+    // Modelos, ruta y escenario (solo la primera vez). Lo que depende de la ruta hace join() de
+    // su futuro dentro de la tarea; los campos del renderer solo se tocan en las subidas (hilo de GL)
+    private void queueModels(AssetPipeline loading) {
+        CompletableFuture<Route> routeReady = loading.prepare("route", () -> loadRoute(context, R.raw.route));
+        loading.upload("route", routeReady, loaded -> {
+            route = loaded;
+            simulation = new RaceSimulation(route, RACE_CARS);
+            // IA y choques por tramos de coches; con un solo núcleo el reparto no acelera nada
+            if (Runtime.getRuntime().availableProcessors() > 1) {
+                simulation.getField().setPool(ForkJoinPool.commonPool(), PARALLEL_CARS_PER_TASK);
+            }
+            simulationLoop = new SimulationLoop(simulation, snapshots, input, System::nanoTime);
+            simulationLoop.setPublishListener(this::onSnapshotPublished);
+        });
+        loading.upload("ghost", loading.prepare("ghost", this::loadGhost), replay -> ghostReplay = replay);
+        loading.upload("road", loading.prepare("road",
+                () -> buildRoadChunks(Object3D.loadMeshData(context, R.raw.road), routeReady.join())),
+                chunks -> roadChunks = chunks); //se suben al acercarse
+
+        queueModel(loading, "sky", R.raw.sky, obj -> sky = obj);
+        queueLodModel(loading, "chassis", R.raw.chassis, lods -> chassisLods = lods);
+        queueLodModel(loading, "wheel", R.raw.wheel, lods -> wheelLods = lods);
+        CompletableFuture<MeshData[]> treeMeshes = queueLodModel(loading, "tree", R.raw.tree, lods -> treeLods = lods);
+        CompletableFuture<MeshData[]> standMeshes = queueLodModel(loading, "stand", R.raw.stand, lods -> standLods = lods);
+
+        // GENERAR ESCENARIO AUTOMÁTICO ALREDEDOR DE LA RUTA
+        CompletableFuture<List<SceneryItem>> scenery = loading.prepare("scenery", () -> generateScenery(routeReady.join()));
+        loading.upload("scenery", scenery, this::indexScenery);
+        if (STATIC_SCENERY_BATCHING) {
+            loading.upload("scenery regions", loading.prepare("scenery regions",
+                    () -> buildSceneryRegions(scenery.join(), treeMeshes.join(), standMeshes.join())),
+                    regions -> {
+                        for (Object3D[] region : regions) uploadAll(region);
+                        sceneryRegionLod = newLodState(regions.length);
+                        sceneryRegionFade = new float[regions.length];
+                        sceneryRegions = regions;
+                    });
+        }
+    }
 
-            loadRoutePoints(context, R.raw.route);
+    // Malla parseada en el pool y subida a VBOs en el hilo de GL
+    private void queueModel(AssetPipeline loading, String name, int resourceId, AssetPipeline.Upload<Object3D> assign) {
+        loading.upload(name, loading.prepare(name, () -> new Object3D(context, resourceId)), obj -> {
+            obj.upload(gfx);
+            assign.upload(obj);
+        });
+    }
 
-            // GENERAR ESCENARIO AUTOMÁTICO ALREDEDOR DE LA RUTA
-            generateScenery();
+    /**
+     * Modelo con sus niveles de detalle: las mallas simplificadas se calculan en el pool y el
+     * nivel 0 sale del .vrm sin copiar si lo hay, o de la malla ya parseada para simplificar si
+     * no (el OBJ se lee una sola vez; si falla, AssetPipeline da el error con su nombre). Devuelve las mallas
+     * para quien las necesite en otra preparación (regiones de escenario).
+     */
+    private CompletableFuture<MeshData[]> queueLodModel(AssetPipeline loading, String name, int resourceId,
+                                                        AssetPipeline.Upload<Object3D[]> assign) {
+        CompletableFuture<MeshData[]> meshes = loading.prepare(name + " lod", () -> buildLods(name, resourceId));
+        loading.upload(name, loading.prepare(name, () -> {
+            MeshData[] levels = meshes.join();
+            Object3D[] lods = new Object3D[levels.length];
+            lods[0] = new Object3D(context, resourceId, levels[0]); //sin volver a parsear el OBJ
+            for (int l = 1; l < levels.length; l++) lods[l] = new Object3D(levels[l]);
+            return lods;
+        }), lods -> {
+            uploadAll(lods);
+            assign.upload(lods);
+        });
+        return meshes;
+    }
 
-        } catch (Exception e) {
-            Log.e("MyGLRenderer", "Error: " + e.getMessage());
+    // Malla completa y simplificadas según LOD_RATIOS, sin indexar si el renderer no usa índices
+    private MeshData[] buildLods(String name, int resourceId) throws IOException {
+        MeshData full = Object3D.loadMeshData(context, resourceId);
+        MeshData[] levels = new MeshData[LOD_RATIOS.length];
+        levels[0] = full;
+        StringBuilder sb = new StringBuilder(name).append(": LOD ").append(MeshSimplifier.triangleCount(full));
+        for (int l = 1; l < levels.length; l++) {
+            MeshData simplified = MeshSimplifier.simplify(full, LOD_RATIOS[l]);
+            sb.append(" → ").append(MeshSimplifier.triangleCount(simplified));
+            levels[l] = Object3D.indexedMeshes ? simplified : MeshIndexer.expand(simplified);
         }
+        Log.d("MyGLRenderer", sb.append(" triángulos").toString());
+        return levels;
+    }
 
-        camera = new Camera(gl,new Vector4(0, 10, -20, 1),
-                            new Vector4(0, 0, 0, 1),
-                            new Vector4(0, 1, 0, 0));
+    private void uploadAll(Object3D[] lods) {
+        if (lods == null) return;
+        for (Object3D obj : lods) obj.upload(gfx);
+    }
 
+    // Con todo en GPU: lo que necesita la ruta y los modelos a la vez, luces y simulación
+    private void finishLoading() {
+        loading = null;
+        loaderPool.shutdown();
+        loaderPool = null;
+        if (!modelsLoaded) {
+            modelsLoaded = true;
+            roadChunkWindow = roadChunkWindow();
+            computeCarRadius();
+            sceneryLodRadius = Math.max(treeLods != null ? treeLods[0].getBounds().radius : 0,
+                    standLods != null ? standLods[0].getBounds().radius : 0);
+            startReplay();
+        }
+        setupLights();
+        captureImpostors();
+        if (simulationLoop != null) simulationLoop.start(); //no hace nada si ya está en marcha
+        Log.d("MyGLRenderer", "Carga: " + (System.nanoTime() - loadingStart) / 1_000_000 + " ms con "
+                + Runtime.getRuntime().availableProcessors() + " hilos");
+    }
+
+    private void setupLights() {
         // Luz, global y puntual foco en jugador
-        gl.glEnable(GL10.GL_LIGHTING);
-        gl.glEnable(GL10.GL_LIGHT0);//Sol
-        sunLight = new Light(gl, GL10.GL_LIGHT0);
+        gfx.setLighting(true);
+        sunLight = new Light(gfx, 0);//Sol
         sunLight.setPosition(new float[]{50.0f, 200.0f, 50.0f, 0.0f});
         sunLight.setAmbientColor(new float[]{0.25f, 0.25f, 0.25f, 1.0f});
         sunLight.setDiffuseColor(new float[]{0.85f, 0.85f, 0.85f, 1.0f});
 
-        gl.glEnable(GL10.GL_LIGHT1);//luz foco en jugador
-        finishLineLight = new Light(gl, GL10.GL_LIGHT1);
-        if (!routePoints.isEmpty()) {
-            Vector4 startPoint = routePoints.get(0);
+        finishLineLight = new Light(gfx, 1);//luz foco en jugador
+        if (!route.isEmpty()) {
             finishLineLight.setPosition(new float[]{
-                    startPoint.get(0),
-                    startPoint.get(1) + 4.0f,
-                    startPoint.get(2),
+                    route.x(0),
+                    route.y(0) + 4.0f,
+                    route.z(0),
                     1.0f
             });
         } else {
@@ -131,17 +397,7 @@ public class MyGLRenderer implements GLSurfaceView.Renderer {
         finishLineLight.setDiffuseColor(new float[]{2.0f, 0.0f, 0.0f, 1.0f}); // Naranja/Dorado
         finishLineLight.setSpecularColor(new float[]{2.0f, 0.0f, 0.0f, 1.0f}); // Brillo naranja
 
-        gl.glLightf(GL10.GL_LIGHT1, GL10.GL_CONSTANT_ATTENUATION, 1.0f);
-        gl.glLightf(GL10.GL_LIGHT1, GL10.GL_LINEAR_ATTENUATION, 0.03f);
-        gl.glLightf(GL10.GL_LIGHT1, GL10.GL_QUADRATIC_ATTENUATION, 0.0f);
-
-        // Cargar texturas HUD
-        texSpeedBG = loadTexture(gl, context, R.raw.hud_speed_bg);
-        texNeedle = loadTexture(gl, context, R.raw.hud_needle);
-        texPos = loadTexture(gl, context, R.raw.hud_pos);
-
-        // Inicializar el cuadrado del HUD
-        hudElement = new TextureRect();
+        finishLineLight.setAttenuation(1.0f, 0.03f, 0.0f);
     }
 
     @Override
@@ -149,315 +405,855 @@ public class MyGLRenderer implements GLSurfaceView.Renderer {
         if (height == 0) height = 1;
         this.width = width;
         this.height = height;
+        hudWidth = Math.round(width / pacer.getResolutionScale());
+        hudHeight = Math.round(height / pacer.getResolutionScale());
         float aspect = (float) width / height;
-        gl.glViewport(0, 0, width, height);
-        gl.glMatrixMode(GL10.GL_PROJECTION);
-        gl.glLoadIdentity();
-        GLU.gluPerspective(gl, 60, aspect, 1f, 200f); //far clipping 200m
-        gl.glMatrixMode(GL10.GL_MODELVIEW);
-        gl.glLoadIdentity();
+        gfx.viewport(width, height);
+        gfx.perspective(FOV_Y, aspect, Z_NEAR, Z_FAR);
+        frustum.setPerspective(FOV_Y, aspect, Z_NEAR, Z_FAR);
     }
 
     @Override
     public void onDrawFrame(GL10 gl) {
-        gl.glClear(GL10.GL_COLOR_BUFFER_BIT | GL10.GL_DEPTH_BUFFER_BIT);
-        gl.glLoadIdentity();
-
-        // 1. UPDATE FÍSICAS (solo avanza contador global)
-        float speed = 1.25f;
-        playerProgress += speed;
-        if (playerProgress >= routePoints.size()) playerProgress = 0;
-
-        globalWheelRotation += speed * 30;
-
-        // 2. CALCULAR POSICIÓN JUGADOR (para la cámara)
-        //se precalcula antes de dibujar para saber dónde poner la cam
-        CarState playerState = calculateCarState(playerProgress);
-        playerPos = playerState.position;
-        playerRotY = playerState.rotationY;
+        long wait = pacer.waitNanos(); //límite de FPS
+        if (wait > 0) LockSupport.parkNanos(wait);
+        pacer.beginFrame();
+        if (profiler.isEnabled() != showOverlay) profiler.setEnabled(showOverlay);
+        profiler.beginFrame();
+
+        gfx.clear();
+        gfx.loadIdentity();
+
+        if (loading != null) {
+            try {
+                loading.runUploads(UPLOAD_BUDGET_NANOS, System::nanoTime);
+            } catch (IllegalStateException e) {
+                Log.e("MyGLRenderer", "Error: " + e.getMessage(), e.getCause()); //se sigue sin ese recurso
+            }
+            if (!loading.isDone()) {
+                drawLoadingScreen(loading.progress());
+                return;
+            }
+            finishLoading();
+        }
 
-        // 3. CÁMARA (Lógica de seguimiento)
-        updateCamera();
+        // 1-3. FÍSICAS, COCHES Y CÁMARA: se calculan en SimulationLoop, aquí solo se interpola la última foto
+        WorldSnapshot snapshot = snapshots.acquire(); //sin bloqueos
+        float alpha = (System.nanoTime() - snapshot.getTickTime()) / (float) RaceSimulation.TICK_NANOS;
+        alpha = Math.max(0, Math.min(1, alpha));
+        snapshot.interpolate(alpha, cars, eye, center, up);
+        advanceWheel(snapshot.wheelRotation(alpha));
+        profiler.endPhase(FrameProfiler.SIMULATION);
+        camera.look();
+        frustum.update(camera.eye, camera.center, camera.up);
+        profiler.endPhase(FrameProfiler.CAMERA);
 
-        // 4. DIBUJAR
+        // 4. DIBUJAR (A-D llenan la cola, E la envía ordenada)
         // Reset color base a blanco para texturas
-        gl.glColor4f(1.0f, 1.0f, 1.0f, 1.0f);
+        gfx.setColor(1.0f, 1.0f, 1.0f, 1.0f);
 
         // A. CIELO (Siempre sigue al jugador para no llegar al borde)
-        gl.glDisable(GL10.GL_LIGHTING);
-        gl.glPushMatrix();
-        gl.glTranslatef(playerPos.get(0), 0, playerPos.get(2));
-        bindTexture(gl, textureIdSky);
-        if(sky != null) sky.draw(gl);
-        gl.glPopMatrix();
-        gl.glEnable(GL10.GL_LIGHTING);
+        if(sky != null) {
+            itemMatrix.loadIdentity();
+            itemMatrix.translate(playerPos.get(0), 0, playerPos.get(2));
+            renderQueue.add(RenderQueue.LAYER_SKY, false, textureIdSky, sky.id, sky, itemMatrix.get(), 0, null);
+        }
+        profiler.endPhase(FrameProfiler.SKY);
 
         // B. CARRETERA
-        bindTexture(gl, textureIdAtlas);
-        if(road != null) road.draw(gl);
+        drawRoad();
+        profiler.endPhase(FrameProfiler.ROAD);
 
         // C. ESCENARIO CON POP-UP (CULLING)
-        drawScenery(gl);
+        drawScenery();
+        drawImpostors();
+        profiler.endPhase(FrameProfiler.SCENERY);
 
         // D. COCHES (JUGADOR Y RIVALES)
-        // Jugador
-        drawCar(gl, playerProgress, 0, 0.8f); // 0 offset lateral
-
-        // Rival 1 (Adelantado, a la derecha)
-        float rival1Prog = playerProgress + 25;
-        if(rival1Prog >= routePoints.size()) rival1Prog -= routePoints.size();
-        drawCar(gl, rival1Prog, -3.5f, 0.4f); // -3.5 offset lateral
-
-        // Rival 2 (Atrasado, a la izquierda)
-        float rival2Prog = playerProgress - 15;
-        if(rival2Prog < 0) rival2Prog += routePoints.size();
-        drawCar(gl, rival2Prog, 3.5f, 0.5f);
+        clearBatches(chassisBatches);
+        clearBatches(wheelBatches);
+        ghostChassis.clear();
+        ghostWheels.clear();
+        ghostLevel = -1;
+        for (int i = 0; i < cars.length; i++) drawCar(cars[i], i);
+        if (snapshot.ghost(alpha, ghost)) drawCar(ghost, cars.length);
+        queueOpaque(chassisLods, chassisBatches);
+        queueOpaque(wheelLods, wheelBatches);
+        profiler.endPhase(FrameProfiler.CARS);
+
+        // E. ENVÍO
+        submitQueue();
+        submitImpostors();
+        submitFading();
+        submitGhost();
+        profiler.endPhase(FrameProfiler.SUBMIT);
 
         // HUD
-        drawHUD(gl);
+        drawHUD();
+        profiler.endPhase(FrameProfiler.HUD);
+
+        profiler.endFrame(RenderStats.drawCalls, RenderStats.textureBinds, RenderStats.trianglesSubmitted);
+        RenderStats.endFrame();
+        // Quieta = sin foto nueva y ya en el último tick (no queda nada que interpolar)
+        updateFramePacing(snapshot != lastSnapshot || alpha < 1);
+        lastSnapshot = snapshot;
+        if (++frameCount % STATS_LOG_INTERVAL == 0) {
+            Log.d("MyGLRenderer", gfx.kind() + ": bytes subidos a GPU en el último frame: " + RenderStats.lastBytesUploaded
+                    + ", objetos dibujados/descartados: " + RenderStats.lastObjectsDrawn + "/" + RenderStats.lastObjectsCulled
+                    + ", draw calls: " + RenderStats.lastDrawCalls + ", texturas: " + RenderStats.lastTextureBinds
+                    + ", triángulos: " + RenderStats.lastTrianglesSubmitted
+                    + ", instancias: " + RenderStats.lastInstancesDrawn
+                    + ", llamadas GL evitadas: " + RenderStats.lastStateCallsSkipped
+                    + ", triángulos ahorrados por LOD: " + RenderStats.lastTrianglesSavedByLod
+                    + ", impostores: " + RenderStats.lastImpostorsDrawn + (impostorsEnabled ? "" : " (desactivados)"));
+            if (profiler.isEnabled()) logProfile();
+        }
     }
 
     // --- MÉTODOS DE DIBUJO ---
-    // Dibuja un coche completo en un punto concreto de la ruta
-    private void drawCar(GL10 gl, float progress, float lateralOffset, float sizeScale) {
-        // 1. Calcular dónde está este coche
-        CarState state = calculateCarState(progress);
+    // Malla opaca iluminada con el atlas, en coordenadas de mundo o como lote de instancias
+    private void queueOpaque(Object3D mesh, InstanceBatch instances) {
+        if (mesh == null || (instances != null && instances.size() == 0)) return;
+        renderQueue.add(RenderQueue.LAYER_OPAQUE, true, textureIdAtlas, mesh.id, mesh, null, 0, instances);
+    }
 
-        gl.glPushMatrix();
-        // Traslación base
-        gl.glTranslatef(state.position.get(0), state.position.get(1), state.position.get(2));
-        // Rotación base (rumbo)
-        gl.glRotatef(state.rotationY, 0, 1, 0);
-        gl.glTranslatef(lateralOffset, 0, 0);
+    // Un lote por nivel de detalle; los niveles sin instancias no se encolan
+    private void queueOpaque(Object3D[] lods, InstanceBatch[] batches) {
+        if (lods == null) return;
+        for (int l = 0; l < lods.length; l++) queueOpaque(lods[l], batches[l]);
+    }
 
-        // Escala (opcional, para variar tamaños)
-        //gl.glScalef(sizeScale, sizeScale, sizeScale); // Descomentar si quieres coches de distinto tamaño
+    private static void clearBatches(InstanceBatch[] batches) {
+        for (InstanceBatch batch : batches) batch.clear();
+    }
 
-        // Dibujar Chasis
-        if(carChassis != null) carChassis.draw(gl);
+    // Ordena la cola y la dibuja; GlStateCache se salta los cambios de luz/textura/arrays repetidos
+    private void submitQueue() {
+        renderQueue.sort();
+        float[] matrices = renderQueue.matrices();
+        for (int i = 0; i < renderQueue.size(); i++) {
+            gfx.setLighting(renderQueue.lighting(i));
+            gfx.bindTexture(renderQueue.texture(i));
+            int matrix = renderQueue.matrixOffset(i);
+            if (matrix >= 0) {
+                gfx.pushMatrix();
+                gfx.multMatrix(matrices, matrix);
+            }
+            InstanceBatch instances = renderQueue.instances(i);
+            if (instances != null) gfx.drawInstances(renderQueue.mesh(i), instances);
+            else gfx.draw(renderQueue.mesh(i));
+            if (matrix >= 0) gfx.popMatrix();
+        }
+        renderQueue.clear();
+        gfx.setLighting(true);
+    }
+
+    // Añade un coche completo (chasis y ruedas) a los lotes de su nivel de detalle; se dibujan todos juntos tras el bucle
+    private void drawCar(CarState state, int index) {
+        float lateralOffset = state.lateralOffset;
+
+        // Culling con una esfera que envuelve chasis y ruedas (centro tras el desplazamiento lateral)
+        double heading = Math.toRadians(state.rotationY);
+        float carX = state.position.get(0) + lateralOffset * (float) Math.cos(heading);
+        float carZ = state.position.get(2) - lateralOffset * (float) Math.sin(heading);
+        if (!isVisible(carX, state.position.get(1), carZ, carRadius)) return;
+        int level = carLod[index] = selectLod(carLod[index], carX, state.position.get(1), carZ, carRadius);
+        countLodSavings(chassisLods, level, 1);
+        countLodSavings(wheelLods, level, 4);
+        boolean ghost = index == cars.length; //va tras los coches en carLod
+        if (ghost) ghostLevel = level;
+
+        // Chasis
+        InstanceBatch chassis = ghost ? ghostChassis : chassisBatches[level];
+        loadCarMatrix(chassis, state);
+        if (ghost) chassis.scale(GHOST_SCALE, GHOST_SCALE, GHOST_SCALE);
+        chassis.emit();
+
+        // Ruedas (mismo nivel que el chasis)
+        InstanceBatch wheels = ghost ? ghostWheels : wheelBatches[level];
+        loadCarMatrix(wheels, state);
+        if (ghost) wheels.scale(GHOST_SCALE, GHOST_SCALE, GHOST_SCALE);
+        drawWheels(wheels, state.steeringAngle);
+    }
 
-        // Dibujar Ruedas
-        drawWheels(gl, state.steeringAngle);
+    // Lo último de la escena: el fantasma con mezcla y su tinte, sin taparse a sí mismo ni a nada
+    private void submitGhost() {
+        if (ghostLevel < 0) return;
+        gfx.setBlending(true);
+        gfx.setLighting(false);
+        gfx.setDepthWrite(false);
+        gfx.bindTexture(textureIdAtlas);
+        gfx.setColor(GHOST_COLOR[0], GHOST_COLOR[1], GHOST_COLOR[2], GHOST_COLOR[3]);
+        if (chassisLods != null) gfx.drawInstances(chassisLods[ghostLevel], ghostChassis);
+        if (wheelLods != null) gfx.drawInstances(wheelLods[ghostLevel], ghostWheels);
+        gfx.setColor(1.0f, 1.0f, 1.0f, 1.0f);
+        gfx.setDepthWrite(true);
+        gfx.setLighting(true);
+        gfx.setBlending(false);
+    }
 
-        gl.glPopMatrix();
+    // Matriz base del coche (mismas operaciones que antes con glTranslatef/glRotatef)
+    private static void loadCarMatrix(InstanceBatch m, CarState state) {
+        m.loadIdentity();
+        // Traslación base
+        m.translate(state.position.get(0), state.position.get(1), state.position.get(2));
+        // Rotación base (rumbo)
+        m.rotate(state.rotationY, 0, 1, 0);
+        m.translate(state.lateralOffset, 0, 0);
     }
 
-    private void drawWheels(GL10 gl, float steeringAngle) {
-        if(carWheel == null) return;
-        float wX = 2.0f; float wY = 1.0f; float wZ = 2.5f;
+    // Añade las 4 ruedas al lote partiendo de la matriz del coche que ya tiene 'm'
+    private void drawWheels(InstanceBatch m, float steeringAngle) {
+        float wX = WHEEL_X; float wY = WHEEL_Y; float wZ = WHEEL_Z;
         float toeAngle = 7.0f; //efecto ÁNGULO Toe-in "/ \"
+        float globalWheelRotation = wheelRotation;
 
         // Delantera Izq
-        gl.glPushMatrix();
-        gl.glTranslatef(wX*0.8f, wY, wZ*1.35f);
-        gl.glRotatef(-toeAngle + steeringAngle, 0, 1, 0);//rotar hacia adentro (eje Y)
-        gl.glRotatef(globalWheelRotation, 1, 0, 0);//girar por velocidad (eje X)
-        carWheel.draw(gl);
-        gl.glPopMatrix();
+        m.push();
+        m.translate(wX*0.8f, wY, wZ*1.35f);
+        m.rotate(-toeAngle + steeringAngle, 0, 1, 0);//rotar hacia adentro (eje Y)
+        m.rotate(globalWheelRotation, 1, 0, 0);//girar por velocidad (eje X)
+        m.emit();
+        m.pop();
 
         // Delantera Der
-        gl.glPushMatrix();
-        gl.glTranslatef(-wX*0.8f, wY, wZ*1.35f);
-        gl.glRotatef(180 + toeAngle + steeringAngle, 0, 1, 0);//espejo + inclinación
-        gl.glRotatef(globalWheelRotation, 1, 0, 0);//girar velocidad
-        carWheel.draw(gl);
-        gl.glPopMatrix();
+        m.push();
+        m.translate(-wX*0.8f, wY, wZ*1.35f);
+        m.rotate(180 + toeAngle + steeringAngle, 0, 1, 0);//espejo + inclinación
+        m.rotate(globalWheelRotation, 1, 0, 0);//girar velocidad
+        m.emit();
+        m.pop();
 
         // Trasera Izq
-        gl.glPushMatrix();
-        gl.glTranslatef(-wX, wY, -wZ);
-        gl.glRotatef(globalWheelRotation, 1, 0, 0);
-        carWheel.draw(gl);
-        gl.glPopMatrix();
+        m.push();
+        m.translate(-wX, wY, -wZ);
+        m.rotate(globalWheelRotation, 1, 0, 0);
+        m.emit();
+        m.pop();
 
         // Trasera Der
-        gl.glPushMatrix();
-        gl.glTranslatef(wX, wY, -wZ);
-        gl.glRotatef(180, 0, 1, 0);
-        gl.glRotatef(globalWheelRotation, 1, 0, 0);
-        carWheel.draw(gl);
-        gl.glPopMatrix();
+        m.push();
+        m.translate(wX, wY, -wZ);
+        m.rotate(180, 0, 1, 0);
+        m.rotate(globalWheelRotation, 1, 0, 0);
+        m.emit();
+        m.pop();
     }
 
-    // Recorre la lista de árboles y solo dibuja los cercanos
-    private void drawScenery(GL10 gl) {
-        bindTexture(gl, textureIdAtlas);
+    // Dibuja los trozos de carretera cercanos al jugador; los lejanos se liberan de la GPU
+    private void drawRoad() {
+        int playerChunk = (int) cars[0].progress / ROUTE_POINTS_PER_CHUNK;
+        for (int c = 0; c < roadChunks.length; c++) {
+            Object3D chunk = roadChunks[c];
+            if (chunk.isEmpty()) continue;
+
+            // Cerca en la ruta (con vuelta) o cerca en el espacio (cruces, curvas cerradas)
+            int d = Math.abs(c - playerChunk);
+            d = Math.min(d, roadChunks.length - d);
+            Bounds b = chunk.getBounds();
+            float dx = b.centerX - playerPos.get(0), dz = b.centerZ - playerPos.get(2);
+            boolean near = d <= roadChunkWindow || (float) Math.sqrt(dx * dx + dz * dz) - b.radius < Z_FAR;
+
+            if (!near) {
+                if (chunk.isUploaded()) chunk.release(gfx);
+                continue;
+            }
+            if (!chunk.isUploaded()) chunk.upload(gfx);
+            if (isVisible(b, 0, 0, 0, false)) queueOpaque(chunk, null);
+        }
+    }
 
-        for (SceneryItem item : sceneryItems) {
+    // Consulta la rejilla y solo dibuja los objetos cercanos (un lote por tipo de objeto)
+    private void drawScenery() {
+        fading.clear();
+        if (sceneryGrid == null) return;
+        if (sceneryRegions.length > 0) {
+            drawSceneryRegions();
+            return;
+        }
+        clearBatches(treeBatches);
+        clearBatches(standBatches);
+        boolean crossFade = impostorsEnabled && impostorAtlas != null;
+        float fadeStart = RENDER_DISTANCE - IMPOSTOR_BLEND;
+
+        int candidates = sceneryGrid.query(playerPos.get(0), playerPos.get(2), RENDER_DISTANCE, sceneryCandidates);
+        for (int c = 0; c < candidates; c++) {
+            SceneryItem item = sceneryItems.get(sceneryCandidates[c]);
             // CÁLCULO DE DISTANCIA
             float dx = item.position.get(0) - playerPos.get(0);
             float dz = item.position.get(2) - playerPos.get(2);
             float distSq = dx*dx + dz*dz; //distancia al cuadrado es más rápido que raíz cuadrada
 
-            // Si está dentro del rango
+            // Si está dentro del rango y delante de la cámara
             if (distSq < (RENDER_DISTANCE * RENDER_DISTANCE)) {
-                gl.glPushMatrix();
-                gl.glTranslatef(item.position.get(0), item.position.get(1), item.position.get(2));
-
-                // Rotar para que miren al centro (aprox) o aleatorio
-                if (item.type == 0 && tree != null) tree.draw(gl);
-                else if (item.type == 1 && stand != null) {
-                    gl.glRotatef(180, 0, 1, 0);
-                    stand.draw(gl);
+                Object3D[] lods = item.type == 0 ? treeLods : standLods;
+                if (lods == null) continue;
+                Bounds b = lods[0].getBounds();
+                if (!isVisible(b, item.position.get(0), item.position.get(1), item.position.get(2), item.type == 1)) continue;
+
+                int i = sceneryCandidates[c];
+                int level = sceneryLod[i] = selectLod(sceneryLod[i], item.position.get(0) + b.centerX,
+                        item.position.get(1) + b.centerY, item.position.get(2) + b.centerZ, b.radius);
+                countLodSavings(lods, level, 1);
+
+                // En la banda de fundido se desvanece mientras aparece su impostor
+                float fade = crossFade ? 1 - ImpostorAtlas.fadeIn((float) Math.sqrt(distSq), fadeStart, RENDER_DISTANCE) : 1;
+                if (fade < 1) {
+                    loadSceneryMatrix(fading, item);
+                    addFading(lods[level], false, fade, eyeDistance(item));
+                    continue;
                 }
-                gl.glPopMatrix();
+                InstanceBatch batch = (item.type == 0 ? treeBatches : standBatches)[level];
+                loadSceneryMatrix(batch, item);
+                batch.emit();
             }
         }
+        queueOpaque(treeLods, treeBatches);
+        queueOpaque(standLods, standBatches);
     }
 
-    private void drawHUD(GL10 gl) {
-        // 1. CAMBIAR A MODO 2D (Ortho)
-        gl.glDisable(GL10.GL_DEPTH_TEST); //dibujar encima de todo
-        gl.glDisable(GL10.GL_LIGHTING);   //el HUD no tiene sombras
-        gl.glEnable(GL10.GL_BLEND); //activar la mezcla de píxeles para que el canal Alpha/transparencia funcione
-        gl.glBlendFunc(GL10.GL_SRC_ALPHA, GL10.GL_ONE_MINUS_SRC_ALPHA);
+    /**
+     * Regiones fusionadas: una llamada por región a la distancia de pop-up y dentro de cámara. El
+     * nivel de detalle es el de un árbol en el punto de la región más cercano a la cámara, así
+     * que ningún objeto de la región se ve con menos detalle del que tendría suelto.
+     *
+     * El fundido con los impostores va por región entera, según su punto más cercano: su alfa se
+     * guarda en sceneryRegionFade (también si no está en cámara) y drawImpostors() da a los
+     * impostores de sus objetos el complementario.
+     */
+    private void drawSceneryRegions() {
+        boolean crossFade = impostorsEnabled && impostorAtlas != null;
+        float fadeStart = RENDER_DISTANCE - IMPOSTOR_BLEND;
+        for (int r = 0; r < sceneryRegions.length; r++) {
+            Object3D[] lods = sceneryRegions[r];
+            Bounds b = lods[0].getBounds();
+            float dx = b.centerX - playerPos.get(0), dz = b.centerZ - playerPos.get(2);
+            float nearest = (float) Math.sqrt(dx * dx + dz * dz) - b.radius;
+            if (nearest > RENDER_DISTANCE) {
+                sceneryRegionFade[r] = 0;
+                continue;
+            }
+            float fade = sceneryRegionFade[r] = crossFade ? 1 - ImpostorAtlas.fadeIn(nearest, fadeStart, RENDER_DISTANCE) : 1;
+            if (!isVisible(b, 0, 0, 0, false)) continue;
+
+            int level = 0;
+            if (lods.length > 1) {
+                float distance = length(b.centerX - camera.eye.get(0), b.centerY - camera.eye.get(1),
+                        b.centerZ - camera.eye.get(2)) - b.radius;
+                level = sceneryRegionLod[r] = lodSelector.select(sceneryRegionLod[r], sceneryLodRadius, distance);
+            }
+            countLodSavings(lods, level, 1);
+            if (fade < 1) {
+                fading.loadIdentity();
+                addFading(lods[level], false, fade,
+                        length(b.centerX - camera.eye.get(0), b.centerY - camera.eye.get(1), b.centerZ - camera.eye.get(2)));
+            } else {
+                queueOpaque(lods[level], null);
+            }
+        }
+    }
+
+    // --- NIVELES DE DETALLE ---
+    // Nivel de un objeto de radio 'radius' centrado en (x, y, z) según su distancia a la cámara
+    private int selectLod(int current, float x, float y, float z, float radius) {
+        float distance = length(x - camera.eye.get(0), y - camera.eye.get(1), z - camera.eye.get(2));
+        return lodSelector.select(current, radius, distance);
+    }
+
+    // Triángulos que no se envían por dibujar 'instances' veces el nivel 'level' en vez del completo
+    private static void countLodSavings(Object3D[] lods, int level, int instances) {
+        if (lods == null || level == 0) return;
+        RenderStats.trianglesSavedByLod += (lods[0].triangleCount() - lods[level].triangleCount()) * instances;
+    }
+
+    private static int[] newLodState(int count) {
+        int[] levels = new int[count];
+        Arrays.fill(levels, -1); //sin nivel previo
+        return levels;
+    }
+
+    private static InstanceBatch[] newLodBatches(int capacity) {
+        InstanceBatch[] batches = new InstanceBatch[LOD_RATIOS.length];
+        for (int l = 0; l < batches.length; l++) batches[l] = new InstanceBatch(capacity);
+        return batches;
+    }
+
+    // --- IMPOSTORES ---
+    /**
+     * Pinta los modelos de escenario desde IMPOSTOR_VIEWS ángulos en casillas del framebuffer, las
+     * lee y crea la textura de impostores y un cuadrado por vista. Va con cada contexto, dentro
+     * del primer frame tras la carga y antes de borrar la pantalla, así que no llega a verse.
+     */
+    private void captureImpostors() {
+        impostorAtlas = null;
+        Object3D[] models = {treeLods != null ? treeLods[0] : null, standLods != null ? standLods[0] : null};
+        int tile = ImpostorAtlas.fitTileSize(models.length, IMPOSTOR_VIEWS, IMPOSTOR_TILE, width, height);
+        if (tile == 0) return;
+        ImpostorAtlas atlas = new ImpostorAtlas(models.length, IMPOSTOR_VIEWS, tile);
+
+        gfx.setClearColor((IMPOSTOR_KEY >> 16 & 0xFF) / 255.0f, (IMPOSTOR_KEY >> 8 & 0xFF) / 255.0f,
+                (IMPOSTOR_KEY & 0xFF) / 255.0f);
+        gfx.clear();
+        finishLineLight.disable(); //de lejos solo se nota el sol
+        gfx.setColor(1.0f, 1.0f, 1.0f, 1.0f);
+        gfx.setLighting(true);
+        gfx.bindTexture(textureIdAtlas);
+        for (int m = 0; m < models.length; m++) {
+            if (models[m] == null) continue;
+            Bounds b = models[m].getBounds();
+            // Cámara a la distancia a la que la esfera llena la casilla justa
+            float distance = b.radius / (float) Math.tan(Math.toRadians(IMPOSTOR_CAPTURE_FOV / 2));
+            for (int v = 0; v < IMPOSTOR_VIEWS; v++) {
+                double yaw = Math.toRadians(atlas.viewYaw(v));
+                gfx.viewport(atlas.tileX(v), atlas.tileY(m), tile, tile);
+                gfx.perspective(IMPOSTOR_CAPTURE_FOV, 1, distance - b.radius, distance + b.radius);
+                gfx.lookAt(b.centerX + distance * (float) Math.sin(yaw), b.centerY, b.centerZ + distance * (float) Math.cos(yaw),
+                        b.centerX, b.centerY, b.centerZ, 0, 1, 0);
+                gfx.draw(models[m]);
+            }
+        }
+        ByteBuffer pixels = ByteBuffer.allocateDirect(atlas.width() * atlas.height() * 4).order(ByteOrder.nativeOrder());
+        gfx.readPixels(0, 0, atlas.width(), atlas.height(), pixels);
+        Bitmap bitmap = Bitmap.createBitmap(atlas.width(), atlas.height(), Bitmap.Config.ARGB_8888);
+        bitmap.copyPixelsFromBuffer(ImpostorAtlas.toImage(pixels, atlas.width(), atlas.height(),
+                IMPOSTOR_KEY, IMPOSTOR_KEY_TOLERANCE));
+        textureIdImpostors = gfx.createTexture(bitmap);
+        bitmap.recycle();
+
+        impostorQuads = new Object3D[models.length * IMPOSTOR_VIEWS];
+        impostorBatches = new InstanceBatch[impostorQuads.length];
+        for (int i = 0; i < impostorQuads.length; i++) {
+            MeshData quad = atlas.quad(i / IMPOSTOR_VIEWS, i % IMPOSTOR_VIEWS);
+            impostorQuads[i] = new Object3D(Object3D.indexedMeshes ? quad : MeshIndexer.expand(quad));
+            impostorQuads[i].upload(gfx);
+            impostorBatches[i] = new InstanceBatch(16);
+        }
+        impostorAtlas = atlas;
+        Log.d("MyGLRenderer", "Impostores: " + IMPOSTOR_VIEWS + " vistas de " + tile + " px, atlas "
+                + atlas.width() + "x" + atlas.height());
+
+        // Vuelta al estado del frame
+        finishLineLight.enable();
+        gfx.setClearColor(SKY_COLOR[0], SKY_COLOR[1], SKY_COLOR[2]);
+        gfx.viewport(width, height);
+        gfx.perspective(FOV_Y, (float) width / height, Z_NEAR, Z_FAR);
+        gfx.clear();
+    }
+
+    /**
+     * Escenario entre RENDER_DISTANCE - IMPOSTOR_BLEND e IMPOSTOR_DISTANCE como cuadrados girados
+     * hacia la cámara (solo en Y) con la vista capturada más cercana. Su alfa es el complementario
+     * del de la malla (la del objeto o la de su región, ver drawScenery): los opacos del todo van
+     * en un lote por vista; los del fundido, a la lista de addFading() junto a las mallas.
+     */
+    private void drawImpostors() {
+        for (InstanceBatch batch : impostorBatches) batch.clear();
+        if (!impostorsEnabled || impostorAtlas == null || sceneryGrid == null) return;
+
+        float fadeStart = RENDER_DISTANCE - IMPOSTOR_BLEND;
+        boolean batched = sceneryRegions.length > 0;
+        int candidates = sceneryGrid.query(playerPos.get(0), playerPos.get(2), IMPOSTOR_DISTANCE, sceneryCandidates);
+        for (int c = 0; c < candidates; c++) {
+            SceneryItem item = sceneryItems.get(sceneryCandidates[c]);
+            float dx = item.position.get(0) - playerPos.get(0);
+            float dz = item.position.get(2) - playerPos.get(2);
+            float distance = (float) Math.sqrt(dx * dx + dz * dz);
+            if (distance > IMPOSTOR_DISTANCE) continue;
+            float alpha = batched && item.region >= 0 ? 1 - sceneryRegionFade[item.region]
+                    : ImpostorAtlas.fadeIn(distance, fadeStart, RENDER_DISTANCE);
+            if (alpha <= 0) continue; //la malla aún es opaca
+            Object3D[] lods = item.type == 0 ? treeLods : standLods;
+            if (lods == null) continue;
+
+            // Centro de la esfera capturada (las gradas van giradas 180º)
+            Bounds b = lods[0].getBounds();
+            boolean rotated = item.type == 1;
+            float cx = item.position.get(0) + (rotated ? -b.centerX : b.centerX);
+            float cy = item.position.get(1) + b.centerY;
+            float cz = item.position.get(2) + (rotated ? -b.centerZ : b.centerZ);
+            if (!isVisible(cx, cy, cz, b.radius)) continue;
+
+            float yaw = (float) Math.toDegrees(Math.atan2(camera.eye.get(0) - cx, camera.eye.get(2) - cz));
+            int quad = item.type * IMPOSTOR_VIEWS + impostorAtlas.viewFor(rotated ? yaw - 180 : yaw);
+            InstanceBatch batch = alpha < 1 ? fading : impostorBatches[quad];
+            batch.loadIdentity();
+            batch.translate(cx, cy, cz);
+            batch.rotate(yaw, 0, 1, 0);
+            batch.scale(2 * b.radius, 2 * b.radius, 1);
+            if (alpha < 1) addFading(impostorQuads[quad], true, alpha, eyeDistance(item));
+            else batch.emit();
+            RenderStats.impostorsDrawn++;
+        }
+    }
+
+    // Tras los opacos: los impostores opacos del todo, recortados por alfa (sin orden)
+    private void submitImpostors() {
+        if (impostorAtlas == null || impostorBatches.length == 0) return;
+        gfx.setLighting(false); //la luz ya está en la captura
+        gfx.setAlphaTest(true);
+        gfx.bindTexture(textureIdImpostors);
+        for (int i = 0; i < impostorBatches.length; i++) {
+            if (impostorBatches[i].size() > 0) gfx.drawInstances(impostorQuads[i], impostorBatches[i]);
+        }
+        gfx.setAlphaTest(false);
+        gfx.setLighting(true);
+    }
+
+    // --- FUNDIDO CRUZADO ---
+    /**
+     * Añade a la lista del fundido la última matriz cargada en 'fading'. Se ordena por distancia
+     * a la cámara, de lejos a cerca; a igual distancia el impostor va antes que la malla del mismo
+     * objeto, que así se mezcla encima sin que el cuadrado la recorte.
+     */
+    private void addFading(Object3D mesh, boolean impostor, float alpha, float distance) {
+        int f = fading.size();
+        if (f == fadingMesh.length) {
+            fadingMesh = Arrays.copyOf(fadingMesh, f * 2);
+            fadingImpostor = Arrays.copyOf(fadingImpostor, f * 2);
+            fadingAlpha = Arrays.copyOf(fadingAlpha, f * 2);
+            fadingOrder = Arrays.copyOf(fadingOrder, f * 2);
+        }
+        fadingMesh[f] = mesh;
+        fadingImpostor[f] = impostor;
+        fadingAlpha[f] = alpha;
+        fadingOrder[f] = (long) (Integer.MAX_VALUE - Float.floatToIntBits(distance)) << 21 | (impostor ? 0 : 1L << 20) | f;
+        fading.emit();
+    }
 
-        gl.glMatrixMode(GL10.GL_PROJECTION);
-        gl.glPushMatrix(); //guarda cámara 3D
-        gl.glLoadIdentity();
-        // Configuramos pantalla: 0 a width (ancho), 0 a height (alto)
-        gl.glOrthof(0, width, 0, height, -1, 1);
+    // Distancia de la cámara al origen del objeto (la misma para su malla y su impostor)
+    private float eyeDistance(SceneryItem item) {
+        return length(item.position.get(0) - camera.eye.get(0), item.position.get(1) - camera.eye.get(1),
+                item.position.get(2) - camera.eye.get(2));
+    }
+
+    /**
+     * Lo último de la escena: mallas e impostores del fundido con mezcla, de lejos a cerca. Los
+     * impostores no escriben profundidad (su cuadrado taparía lo que haya detrás dentro de la
+     * esfera); las mallas sí, para que sus propias caras se oculten bien.
+     */
+    private void submitFading() {
+        int n = fading.size();
+        if (n == 0) return;
+        LongSort.sort(fadingOrder, n);
+        float[] matrices = fading.matrices();
+        gfx.setBlending(true);
+        for (int k = 0; k < n; k++) {
+            int f = (int) (fadingOrder[k] & 0xFFFFF);
+            boolean impostor = fadingImpostor[f];
+            gfx.setLighting(!impostor);
+            gfx.setDepthWrite(!impostor);
+            gfx.bindTexture(impostor ? textureIdImpostors : textureIdAtlas);
+            gfx.setColor(1.0f, 1.0f, 1.0f, fadingAlpha[f]);
+            gfx.pushMatrix();
+            gfx.multMatrix(matrices, f * InstanceBatch.FLOATS_PER_INSTANCE);
+            gfx.draw(fadingMesh[f]);
+            gfx.popMatrix();
+        }
+        gfx.setColor(1.0f, 1.0f, 1.0f, 1.0f);
+        gfx.setDepthWrite(true);
+        gfx.setBlending(false);
+        gfx.setLighting(true);
+    }
+
+    // Nuevo ángulo de rueda del frame; la aguja avanza lo mismo que ha girado (por el camino corto)
+    private void advanceWheel(float rotation) {
+        float turned = rotation - wheelRotation;
+        if (turned > RaceSimulation.WHEEL_ROTATION_WRAP / 2) turned -= RaceSimulation.WHEEL_ROTATION_WRAP;
+        if (turned < -RaceSimulation.WHEEL_ROTATION_WRAP / 2) turned += RaceSimulation.WHEEL_ROTATION_WRAP;
+        speedometerPhase = (speedometerPhase + turned * SPEEDOMETER_RADIANS_PER_DEGREE) % TWO_PI;
+        if (speedometerPhase < 0) speedometerPhase += TWO_PI;
+        wheelRotation = rotation;
+    }
+
+    private static void loadSceneryMatrix(InstanceBatch m, SceneryItem item) {
+        m.loadIdentity();
+        m.translate(item.position.get(0), item.position.get(1), item.position.get(2));
+
+        // Rotar para que miren al centro (aprox) o aleatorio
+        if (item.type == 1) m.rotate(180, 0, 1, 0);
+    }
+
+    private void drawHUD() {
+        // 1. CAMBIAR A MODO 2D (Ortho)
+        gfx.setDepthTest(false); //dibujar encima de todo
+        gfx.setLighting(false);  //el HUD no tiene sombras
+        gfx.setBlending(true);   //activar la mezcla de píxeles para que el canal Alpha/transparencia funcione
 
-        gl.glMatrixMode(GL10.GL_MODELVIEW);
-        gl.glLoadIdentity();
+        // Guarda cámara 3D. Configuramos pantalla: 0 a width (ancho), 0 a height (alto)
+        gfx.pushOrtho(0, hudWidth, 0, hudHeight);
 
         // 2. DIBUJAR POSICIÓN "2nd", arriba Izquierda
-        bindTexture(gl, texPos);
-        gl.glPushMatrix();
-        gl.glTranslatef(10, height - 500, 0); // Posición X, Y (px)
-        gl.glScalef(800, 400, 1);             // Tamaño Ancho, Alto (px)
-        hudElement.draw(gl);
-        gl.glPopMatrix();
+        gfx.pushMatrix();
+        gfx.translate(10, hudHeight - 500, 0); // Posición X, Y (px)
+        gfx.scale(800, 400, 1);             // Tamaño Ancho, Alto (px)
+        drawHudQuad(hudPos);
+        gfx.popMatrix();
 
         // 3. DIBUJAR VELOCÍMETRO - Abajo Derecha
 
         // A) El Fondo (Arco)
-        bindTexture(gl, texSpeedBG);
-        gl.glPushMatrix();
-        gl.glTranslatef(width - 500, 50, 0); // Esquina inferior derecha
-        gl.glScalef(450, 225, 1);            // Tamaño 300x300 px
-        hudElement.draw(gl);
+        gfx.pushMatrix();
+        gfx.translate(hudWidth - 500, 50, 0); // Esquina inferior derecha
+        gfx.scale(450, 225, 1);            // Tamaño 300x300 px
+        drawHudQuad(hudSpeedBG);
 
         // B) La Aguja (Animada)
         // Simulamos velocidad oscilante
-        float speedSim = 200 + (float)Math.sin(globalWheelRotation * 0.8f) * 30; // 180-220 km/h
+        float speedSim = 200 + (float)Math.sin(speedometerPhase) * 30; // 180-220 km/h
         float needleAngle = -90 + (speedSim * 0.6f); // Calibración (Ajustar según tu dibujo)
 
-        gl.glPopMatrix(); // Volvemos al origen del velocímetro para dibujar la aguja encima
+        gfx.popMatrix(); // Volvemos al origen del velocímetro para dibujar la aguja encima
 
-        bindTexture(gl, texNeedle);
-        gl.glPushMatrix();
+        gfx.pushMatrix();
         // mover al centro del velocímetro (width- 550 + mitad_ancho)
-        gl.glTranslatef(width - 550 + 250, 80, 0);
-        gl.glRotatef(-needleAngle, 0, 0, 1); // Rotación Z en 2D
-        gl.glTranslatef(-10, 0, 0); // Ajuste fino para centrar el pivote de la aguja
-        gl.glScalef(120, 180, 1);    // Aguja fina y larga
-        hudElement.draw(gl);
-        gl.glPopMatrix();
+        gfx.translate(hudWidth - 550 + 250, 80, 0);
+        gfx.rotate(-needleAngle, 0, 0, 1); // Rotación Z en 2D
+        gfx.translate(-10, 0, 0); // Ajuste fino para centrar el pivote de la aguja
+        gfx.scale(120, 180, 1);    // Aguja fina y larga
+        drawHudQuad(hudNeedle);
+        gfx.popMatrix();
+
+        if (showOverlay) drawPerformanceOverlay();
 
         // 4. RESTAURAR MODO 3D
-        gl.glEnable(GL10.GL_DEPTH_TEST);
-        gl.glEnable(GL10.GL_LIGHTING);
+        gfx.setDepthTest(true);
+        gfx.setLighting(true);
+
+        gfx.popOrtho(); // Recuperamos cámara 3D
+    }
 
-        gl.glMatrixMode(GL10.GL_PROJECTION);
-        gl.glPopMatrix(); // Recuperamos cámara 3D
-        gl.glMatrixMode(GL10.GL_MODELVIEW);
+    // Con el atlas, las tres imágenes comparten textura y solo hay un bindTexture efectivo
+    private void drawHudQuad(TextureLoader.Region region) {
+        gfx.bindTexture(region.texture);
+        gfx.drawQuad(region.u0, region.v0, region.u1, region.v1);
+    }
+
+    // Barra de progreso centrada sobre el color de fondo
+    private void drawLoadingScreen(float progress) {
+        float barWidth = hudWidth * 0.6f, barHeight = 24;
+        float x = (hudWidth - barWidth) / 2, y = (hudHeight - barHeight) / 2;
+        gfx.setDepthTest(false);
+        gfx.setLighting(false);
+        gfx.setTexturing(false);
+        gfx.pushOrtho(0, hudWidth, 0, hudHeight);
+        gfx.setColor(0.2f, 0.2f, 0.2f, 1.0f);
+        gfx.pushMatrix();
+        gfx.translate(x - 4, y - 4, 0);
+        gfx.scale(barWidth + 8, barHeight + 8, 1);
+        gfx.drawQuad(0, 0, 1, 1);
+        gfx.popMatrix();
+        gfx.setColor(1.0f, 1.0f, 1.0f, 1.0f);
+        gfx.pushMatrix();
+        gfx.translate(x, y, 0);
+        gfx.scale(Math.max(1, barWidth * progress), barHeight, 1);
+        gfx.drawQuad(0, 0, 1, 1);
+        gfx.popMatrix();
+        gfx.popOrtho();
+        gfx.setTexturing(true);
+        gfx.setDepthTest(true);
+    }
+
+    // Barras con el p95 de cada fase y del frame; la línea blanca vertical es el presupuesto del frame
+    private void drawPerformanceOverlay() {
+        if (frameCount % OVERLAY_REFRESH == 0) { //ordenar 256 muestras por métrica no hace falta cada frame
+            for (int i = 0; i < overlayP95.length; i++) overlayP95[i] = profiler.percentile(i, 0.95);
+        }
+        float budget = pacer.getFrameBudgetNanos();
+        gfx.setTexturing(false);
+        float y = hudHeight - 560;
+        for (int i = 0; i < overlayP95.length; i++, y -= 30) {
+            float[] c = OVERLAY_COLORS[i];
+            gfx.setColor(c[0], c[1], c[2], 0.85f);
+            gfx.pushMatrix();
+            gfx.translate(20, y, 0);
+            gfx.scale(Math.max(2, overlayP95[i] / budget * OVERLAY_BAR_WIDTH), 22, 1);
+            gfx.drawQuad(0, 0, 1, 1);
+            gfx.popMatrix();
+        }
+        gfx.setColor(1.0f, 1.0f, 1.0f, 1.0f);
+        gfx.pushMatrix();
+        gfx.translate(20 + OVERLAY_BAR_WIDTH, y + 30, 0);
+        gfx.scale(3, overlayP95.length * 30, 1);
+        gfx.drawQuad(0, 0, 1, 1);
+        gfx.popMatrix();
+        gfx.setTexturing(true);
+    }
+
+    private void logProfile() {
+        StringBuilder sb = new StringBuilder("p50/p95/p99 (us):");
+        for (int i = 0; i <= FrameProfiler.FRAME; i++) {
+            sb.append(' ').append(FrameProfiler.NAMES[i]).append(' ')
+                    .append(profiler.percentile(i, 0.50) / 1000).append('/')
+                    .append(profiler.percentile(i, 0.95) / 1000).append('/')
+                    .append(profiler.percentile(i, 0.99) / 1000);
+        }
+        Log.d("MyGLRenderer", sb.toString());
     }
 
     // --- LÓGICA MATEMÁTICA ---
-    // Struct para devolver posición y rotación a la vez
-    private class CarState {
-        Vector4 position;
-        float rotationY;
-        float steeringAngle;
-    }
-
-    private CarState calculateCarState(float progress) {
-        CarState state = new CarState();
-        if (routePoints.isEmpty()) return state;
-
-        int idx = (int) progress;
-        int nextIdx = (idx + 1) % routePoints.size();
-        float t = progress - idx;
-
-        Vector4 p1 = routePoints.get(idx);
-        Vector4 p2 = routePoints.get(nextIdx);
-
-        // Interpolación Posición
-        float x = p1.get(0) * (1-t) + p2.get(0) * t;
-        float y = p1.get(1) * (1-t) + p2.get(1) * t;
-        float z = p1.get(2) * (1-t) + p2.get(2) * t;
-        state.position = new Vector4(x, y, z, 1);
-
-        // Rotación Chasis
-        double dx = p2.get(0) - p1.get(0);
-        double dz = p2.get(2) - p1.get(2);
-        float currentHeading = (float) Math.toDegrees(Math.atan2(dx, dz));
-        state.rotationY = currentHeading;
-
-        // Rotación Volante (Look ahead)
-        int nextNextIdx = (nextIdx + 1) % routePoints.size();
-        Vector4 p3 = routePoints.get(nextNextIdx);
-
-        double dxNext = p3.get(0) - p2.get(0);
-        double dzNext = p3.get(2) - p2.get(2);
-        float futureHeading = (float) Math.toDegrees(Math.atan2(dxNext, dzNext));
-
-        float angleDiff = futureHeading - currentHeading;//calcular la diferencia (cuánto cambia la curva)
-        //corregir el salto de 360 a 0 grados
-        while (angleDiff < -180) angleDiff += 360;
-        while (angleDiff > 180) angleDiff -= 360;
-
-        float steer = angleDiff * 7.5f; //multiplicador de la ganancia de giro para hacerlo +-pronunciado
-        //Clamp, lím máx de giro
-        if(steer > 50) steer = 50;
-        if(steer < -50) steer = -50;
-        state.steeringAngle = steer;
-
-        return state;
-    }
-
-    private void updateCamera() {
-        if (!isOverheadView) {
-            // CÁMARA TRASERA (Juego normal)
-            float camDist = 16.0f;
-            float camHeight = 9.5f;
-            //actualizar vectores de cam
-            double rads = Math.toRadians(playerRotY);
-            float camX = playerPos.get(0) - (float)Math.sin(rads) * camDist;
-            float camZ = playerPos.get(2) - (float)Math.cos(rads) * camDist;
-
-            camera.eye = new Vector4(camX, playerPos.get(1) + camHeight, camZ, 1);
-            camera.center = new Vector4(playerPos.get(0), playerPos.get(1) + 6.5f, playerPos.get(2), 1);
-        } else {
-            // CÁMARA ZENITAL (Mapa aéreo)
-            // Subimos mucho en Y y miramos abajo
-            camera.eye = new Vector4(playerPos.get(0), 85, playerPos.get(2), 1);
-            camera.center = playerPos;
-            camera.up = new Vector4(0, 0, -1, 0);
+    // --- CULLING ---
+    // Esfera de un modelo trasladado a (x, y, z), opcionalmente girado 180º en Y (gradas)
+    private boolean isVisible(Bounds b, float x, float y, float z, boolean rotated180) {
+        float cx = rotated180 ? -b.centerX : b.centerX;
+        float cz = rotated180 ? -b.centerZ : b.centerZ;
+        return isVisible(x + cx, y + b.centerY, z + cz, b.radius);
+    }
+
+    private boolean isVisible(float x, float y, float z, float radius) {
+        if (frustum.isSphereVisible(x, y, z, radius)) {
+            RenderStats.objectsDrawn++;
+            return true;
         }
-        camera.look();
-        //restaurar UP vector si cambiar modo
-        if(!isOverheadView) camera.up = new Vector4(0, 1, 0, 0);
+        RenderStats.objectsCulled++;
+        return false;
     }
 
-    public void toggleCameraMode() { //metodo para alternar cámara
-        isOverheadView = !isOverheadView;
+    // Radio desde el origen del coche que cubre el chasis y las cuatro ruedas
+    private void computeCarRadius() {
+        carRadius = 0;
+        if (chassisLods != null) {
+            Bounds b = chassisLods[0].getBounds();
+            carRadius = length(b.centerX, b.centerY, b.centerZ) + b.radius;
+        }
+        if (wheelLods != null) {
+            Bounds b = wheelLods[0].getBounds();
+            float wheelExtent = length(b.centerX, b.centerY, b.centerZ) + b.radius;
+            float front = length(WHEEL_X * 0.8f, WHEEL_Y, WHEEL_Z * 1.35f);
+            float rear = length(WHEEL_X, WHEEL_Y, WHEEL_Z);
+            carRadius = Math.max(carRadius, Math.max(front, rear) + wheelExtent);
+        }
+    }
+
+    private static float length(float x, float y, float z) {
+        return (float) Math.sqrt(x * x + y * y + z * z);
+    }
+
+    // --- RITMO DE FRAMES ---
+    private void updateFramePacing(boolean sceneChanged) {
+        if (pacer.endFrame(sceneChanged) && surfaceControl != null) {
+            surfaceControl.setResolutionScale(pacer.getResolutionScale());
+        }
+        boolean continuous = !pacer.isStatic();
+        if (continuous != continuousRendering && surfaceControl != null) {
+            continuousRendering = continuous;
+            surfaceControl.setContinuousRendering(continuous);
+        }
+    }
+
+    // Hilo de simulación: en modo a demanda cada foto nueva pide un frame
+    private void onSnapshotPublished() {
+        SurfaceControl control = surfaceControl;
+        if (!continuousRendering && control != null) control.requestRender();
+    }
+
+    public void toggleImpostors() { //hilo de UI; el log de estadísticas muestra los triángulos con y sin ellos
+        impostorsEnabled = !impostorsEnabled;
+    }
+
+    public void togglePerformanceOverlay() { //hilo de UI; el perfil solo mide mientras se ve
+        showOverlay = !showOverlay;
+    }
+
+    public void toggleCameraMode() { //metodo para alternar cámara (hilo de UI)
+        input.offer(InputQueue.TOGGLE_CAMERA);
+    }
+
+    // Ciclo de vida de la actividad: la simulación se para con la app en segundo plano
+    public void onPause() {
+        SimulationLoop loop = simulationLoop;
+        if (loop != null) {
+            loop.stop(); //vuelca lo que quede de la grabación
+            if (loop.getReplayError() != null) Log.e("MyGLRenderer", "Grabación: " + loop.getReplayError().getMessage());
+        }
+    }
+
+    public void onResume() {
+        SimulationLoop loop = simulationLoop;
+        if (loop != null) loop.start(); //sin recuperar el tiempo parado
+    }
+
+    // Con la actividad destruida: la grabación ya está volcada (onPause), se cierra su fichero
+    public void onDestroy() {
+        SimulationLoop loop = simulationLoop;
+        if (loop != null) {
+            loop.stop();
+            loop.setReplayOutput(null);
+        }
+        FileChannel channel = replayChannel;
+        replayChannel = null;
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            Log.e("MyGLRenderer", "Grabación: " + e.getMessage());
+        }
+    }
+
+    // --- TROZOS DE CARRETERA ---
+    private static Object3D[] buildRoadChunks(MeshData roadMesh, Route route) {
+        MeshData[] chunks = RoadChunker.split(roadMesh, route.positions(), route.size(), ROUTE_POINTS_PER_CHUNK);
+        Object3D[] roadChunks = new Object3D[chunks.length];
+        for (int c = 0; c < chunks.length; c++) roadChunks[c] = new Object3D(chunks[c]);
+        Log.d("MyGLRenderer", "Carretera: " + chunks.length + " trozos");
+        return roadChunks;
+    }
+
+    //ventana que cubre la distancia de dibujado a lo largo de la ruta
+    private int roadChunkWindow() {
+        float chunkLength = route.size() > 1
+                ? route.length() / route.size() * ROUTE_POINTS_PER_CHUNK : Z_FAR;
+        int window = Math.max(1, (int) Math.ceil(Z_FAR / chunkLength));
+        Log.d("MyGLRenderer", "Carretera: ventana ±" + window);
+        return window;
+    }
+
+    /**
+     * Fusiona árboles y gradas (ya colocados por generateScenery) en mallas por región, una por
+     * nivel de detalle con los modelos simplificados. Si algún nivel reparte las regiones de otra
+     * forma (una región que solo se parte por MAX_VERTICES a resolución completa), las regiones
+     * se quedan solo con el nivel 0.
+     */
+    private static Object3D[][] buildSceneryRegions(List<SceneryItem> sceneryItems, MeshData[] treeMeshes,
+                                                    MeshData[] standMeshes) {
+        InstanceBatch instances = new InstanceBatch(sceneryItems.size());
+        int[] modelOf = new int[sceneryItems.size()], regionOf = new int[sceneryItems.size()];
+        for (int i = 0; i < sceneryItems.size(); i++) {
+            SceneryItem item = sceneryItems.get(i);
+            loadSceneryMatrix(instances, item);
+            instances.emit();
+            modelOf[i] = item.type;
+        }
+        MeshData[][] levels = new MeshData[LOD_RATIOS.length][];
+        int levelCount = levels.length;
+        for (int l = 0; l < levels.length; l++) {
+            MeshData[] models = {treeMeshes[l], standMeshes[l]};
+            levels[l] = SceneryBatcher.merge(models, instances, modelOf, SCENERY_REGION_SIZE, l == 0 ? regionOf : null);
+            if (levels[l].length != levels[0].length) levelCount = 1;
+        }
+        for (int i = 0; i < sceneryItems.size(); i++) sceneryItems.get(i).region = regionOf[i];
+        Object3D[][] sceneryRegions = new Object3D[levels[0].length][levelCount];
+        for (int r = 0; r < sceneryRegions.length; r++) {
+            for (int l = 0; l < levelCount; l++) sceneryRegions[r][l] = new Object3D(levels[l][r]);
+        }
+        Log.d("MyGLRenderer", "Escenario: " + sceneryItems.size() + " objetos en " + sceneryRegions.length
+                + " regiones, " + levelCount + " niveles de detalle");
+        return sceneryRegions;
     }
 
     // --- GENERACIÓN PROCEDURAL DE ESCENARIO ---
-    private void generateScenery() {
-        if(routePoints.isEmpty()) return;
+    private static List<SceneryItem> generateScenery(Route route) {
+        List<SceneryItem> sceneryItems = new ArrayList<>();
+        if(route.isEmpty()) return sceneryItems;
         Random rand = new Random();
 
         // Recorremos la ruta y cada 'i' pasos ponemos algo
-        for (int i = 0; i < routePoints.size(); i+= 7) { // Cada 8 puntos
-            Vector4 p = routePoints.get(i);
-            Vector4 nextP = routePoints.get((i+1)%routePoints.size());//evitamos error de índice al buscar el siguiente punto
+        for (int i = 0; i < route.size(); i+= 7) { // Cada 8 puntos
+            int next = (i+1)%route.size();//evitamos error de índice al buscar el siguiente punto
+            float px = route.x(i), py = route.y(i), pz = route.z(i);
 
             // Vector dirección
-            float dx = nextP.get(0) - p.get(0);
-            float dz = nextP.get(2) - p.get(2);
+            float dx = route.x(next) - px;
+            float dz = route.z(next) - pz;
             // Normalizar
             float len = (float)Math.sqrt(dx*dx + dz*dz);
             if (len == 0) continue;
@@ -470,110 +1266,89 @@ public class MyGLRenderer implements GLSurfaceView.Renderer {
             // LADO DERECHO (Árboles)
             if (rand.nextFloat() > 0.3f) { // 70% probabilidad
                 float dist = 7 + rand.nextFloat() * 9.0f; // Entre 15 y 35 metros del centro
-                float objX = p.get(0) + perpX * dist;
-                float objZ = p.get(2) + perpZ * dist;
-                sceneryItems.add(new SceneryItem(new Vector4(objX, p.get(1), objZ, 1), 0)); // Tipo 0 = Árbol
+                float objX = px + perpX * dist;
+                float objZ = pz + perpZ * dist;
+                sceneryItems.add(new SceneryItem(new Vector4(objX, py, objZ, 1), 0)); // Tipo 0 = Árbol
             }
 
             // LADO IZQUIERDO (Gradas a veces, árboles otras)
             if (rand.nextFloat() > 0.6f) {
                 float dist = -8 - rand.nextFloat() * 10.0f; // Lado contrario (negativo)
-                float objX = p.get(0) + perpX * dist;
-                float objZ = p.get(2) + perpZ * dist;
+                float objX = px + perpX * dist;
+                float objZ = pz + perpZ * dist;
 
                 // Tipo 1 (Grada) si toca, o 0 (Árbol)
                 int type = (rand.nextFloat() > 0.5f) ? 1 : 0;
-                sceneryItems.add(new SceneryItem(new Vector4(objX, p.get(1), objZ, 1), type));
+                sceneryItems.add(new SceneryItem(new Vector4(objX, py, objZ, 1), type));
             }
         }
-    }
 
-    // --- CARGADORES DE TEXTURAS ---
-    private int loadTexture(GL10 gl, Context context, int resourceId) {
-        int[] textures = new int[1];
-        gl.glGenTextures(1, textures, 0);
-        int textureId = textures[0];
-        gl.glBindTexture(GL10.GL_TEXTURE_2D, textureId);
-        gl.glTexParameterf(GL10.GL_TEXTURE_2D, GL10.GL_TEXTURE_MIN_FILTER, GL10.GL_NEAREST);
-        gl.glTexParameterf(GL10.GL_TEXTURE_2D, GL10.GL_TEXTURE_MAG_FILTER, GL10.GL_NEAREST);
-        gl.glTexParameterf(GL10.GL_TEXTURE_2D, GL10.GL_TEXTURE_WRAP_S, GL10.GL_REPEAT);
-        gl.glTexParameterf(GL10.GL_TEXTURE_2D, GL10.GL_TEXTURE_WRAP_T, GL10.GL_REPEAT);
-        InputStream is = context.getResources().openRawResource(resourceId);
-        Bitmap bitmap;
-        try { bitmap = BitmapFactory.decodeStream(is); }
-        finally { try { is.close(); } catch (IOException e) {} }
-        GLUtils.texImage2D(GL10.GL_TEXTURE_2D, 0, bitmap, 0);
-        bitmap.recycle();
-        return textureId;
+        return sceneryItems;
     }
 
-    private void bindTexture(GL10 gl, int textureId) {
-        gl.glEnable(GL10.GL_TEXTURE_2D);
-        gl.glBindTexture(GL10.GL_TEXTURE_2D, textureId);
-    }
-    //función auxiliar para cargar el path a seguir
-    private void loadRoutePoints(Context context, int resourceId) {
-        InputStream inputStream = context.getResources().openRawResource(resourceId);
-        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-        String line;
-        try {
-            while ((line = reader.readLine()) != null) {
-                if (line.startsWith("v ")) {
-                    String[] parts = line.split("\\s+");
-                    float x = Float.parseFloat(parts[1]);
-                    float z = Float.parseFloat(parts[2]);
-                    float y = Float.parseFloat(parts[3]);
-                    routePoints.add(new Vector4(x, z, y, 1));
-                }
-            }
-        } catch (IOException e) {}
+    // Indexar en la rejilla (celdas de medio radio de pop-up)
+    private void indexScenery(List<SceneryItem> items) {
+        sceneryItems = items;
+        float[] xs = new float[sceneryItems.size()];
+        float[] zs = new float[sceneryItems.size()];
+        for (int i = 0; i < sceneryItems.size(); i++) {
+            xs[i] = sceneryItems.get(i).position.get(0);
+            zs[i] = sceneryItems.get(i).position.get(2);
+        }
+        sceneryGrid = new SpatialGrid(xs, zs, xs.length, RENDER_DISTANCE * 0.5f);
+        sceneryCandidates = new int[xs.length];
+        sceneryLod = newLodState(xs.length);
     }
 
-    // Clase auxiliar para dibujar elementos 2D (HUD)
-    class TextureRect {
-        private FloatBuffer vertexBuffer;
-        private FloatBuffer textureBuffer;
-
-        // Coordenadas cuadradas simples
-        private float vertices[] = {
-                0.0f, 0.0f, 0.0f,  // Abajo-Izq
-                1.0f, 0.0f, 0.0f,  // Abajo-Der
-                0.0f, 1.0f, 0.0f,  // Arriba-Izq
-                1.0f, 1.0f, 0.0f   // Arriba-Der
-        };
-
-        private float textureCoords[] = {
-                0.0f, 1.0f,  //invertir Y para que la imagen no salga al revés
-                1.0f, 1.0f,
-                0.0f, 0.0f,
-                1.0f, 0.0f
-        };
-
-        public TextureRect() {
-            ByteBuffer vbb = ByteBuffer.allocateDirect(vertices.length * 4);
-            vbb.order(ByteOrder.nativeOrder());
-            vertexBuffer = vbb.asFloatBuffer();
-            vertexBuffer.put(vertices);
-            vertexBuffer.position(0);
-
-            ByteBuffer tbb = ByteBuffer.allocateDirect(textureCoords.length * 4);
-            tbb.order(ByteOrder.nativeOrder());
-            textureBuffer = tbb.asFloatBuffer();
-            textureBuffer.put(textureCoords);
-            textureBuffer.position(0);
+    // --- GRABACIÓN ---
+    // Pool de carga: la grabación de la sesión anterior pasa a ser la del fantasma (null si no hay)
+    private ReplayPlayer loadGhost() throws IOException {
+        File current = new File(context.getFilesDir(), REPLAY_FILE);
+        File ghostFile = new File(context.getFilesDir(), GHOST_FILE);
+        if (current.length() > ReplayRecorder.HEADER_BYTES && !current.renameTo(ghostFile)) {
+            throw new IOException("No se pudo renombrar " + current);
         }
+        if (!ghostFile.exists()) return null;
+        try (FileChannel channel = new FileInputStream(ghostFile).getChannel()) {
+            ReplayPlayer replay = ReplayPlayer.read(channel);
+            return replay.isEmpty() ? null : replay;
+        }
+    }
 
-        public void draw(GL10 gl) {
-            gl.glEnableClientState(GL10.GL_VERTEX_ARRAY);
-            gl.glEnableClientState(GL10.GL_TEXTURE_COORD_ARRAY);
-
-            gl.glVertexPointer(3, GL10.GL_FLOAT, 0, vertexBuffer);
-            gl.glTexCoordPointer(2, GL10.GL_FLOAT, 0, textureBuffer);
-
-            gl.glDrawArrays(GL10.GL_TRIANGLE_STRIP, 0, 4);
+    // Hilo de GL, con la simulación parada: fantasma y grabación nueva en REPLAY_FILE
+    private void startReplay() {
+        if (simulationLoop == null) return; //sin ruta no hay carrera
+        if (ghostReplay != null) simulation.setGhost(ghostReplay);
+        try {
+            replayChannel = new FileOutputStream(new File(context.getFilesDir(), REPLAY_FILE)).getChannel();
+            simulation.setRecorder(new ReplayRecorder(REPLAY_BUFFER_BYTES, route.size()));
+            simulationLoop.setReplayOutput(replayChannel);
+        } catch (IOException e) {
+            Log.e("MyGLRenderer", "Grabación: " + e.getMessage());
+        }
+    }
 
-            gl.glDisableClientState(GL10.GL_VERTEX_ARRAY);
-            gl.glDisableClientState(GL10.GL_TEXTURE_COORD_ARRAY);
+    //función auxiliar para cargar el path a seguir
+    private static Route loadRoute(Context context, int resourceId) {
+        float[] points;
+        int count;
+        ByteBuffer binary = MeshAssets.open(context, resourceId); //ruta precompilada si existe
+        if (binary != null) {
+            points = MeshBinary.readPoints(binary);
+            count = points.length / 3;
+        } else {
+            ObjParser parser = new ObjParser();
+            InputStream inputStream = context.getResources().openRawResource(resourceId);
+            try {
+                parser.parse(inputStream);
+            } catch (IOException e) {
+            } finally {
+                try { inputStream.close(); } catch (IOException e) {}
+            }
+            points = parser.getPositions();
+            count = parser.getPositionCount();
         }
+        //curva equiespaciada: la velocidad en metros no depende de la densidad de route.obj
+        return Route.resample(points, count, ROUTE_SPACING);
     }
 }
\ No newline at end of file
@@ -0,0 +1,253 @@
+package com.example.virtuaracing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Lector de OBJ en streaming. Recorre los bytes directamente (sin readLine ni split), parsea
+ * floats y enteros a mano y guarda todo en arrays primitivos que crecen al doblar, así que cargar
+ * un modelo no genera basura por línea. Solo entiende lo que exporta Blender para este juego:
+ * "v", "vt", "vn" y "f" (con triangulación en abanico si vienen polígonos).
+ */
+public class ObjParser {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_MANTISSA_DIGITS = 18;
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private InputStream in;
+    private int pos, limit;
+
+    // Datos crudos tal y como vienen en el fichero
+    private float[] positions = new float[3 * 256];
+    private float[] texCoords = new float[2 * 256];
+    private float[] normals = new float[3 * 256];
+    private int positionFloats, texCoordFloats, normalFloats;
+
+    // Esquinas de los triángulos: tripletas (v, vt, vn) en base 0, -1 si falta el índice
+    private int[] corners = new int[3 * 3 * 256];
+    private int cornerCount;
+    private boolean anyNormal;
+
+    // Esquinas de la cara que se está leyendo (antes de triangular)
+    private int[] faceCorners = new int[3 * 8];
+
+    public static MeshData load(InputStream in) throws IOException {
+        ObjParser parser = new ObjParser();
+        parser.parse(in);
+        return parser.toMeshData();
+    }
+
+    public void parse(InputStream in) throws IOException {
+        this.in = in;
+        pos = limit = 0;
+        positionFloats = texCoordFloats = normalFloats = cornerCount = 0;
+        anyNormal = false;
+
+        int c;
+        while ((c = skipSpaces()) != -1) {
+            if (c == 'v') {
+                pos++;
+                int next = peek();
+                if (next == ' ' || next == '\t') {
+                    positions = ensure(positions, positionFloats + 3);
+                    positions[positionFloats++] = readFloat();
+                    positions[positionFloats++] = readFloat();
+                    positions[positionFloats++] = readFloat();
+                } else if (next == 't') {
+                    pos++;
+                    texCoords = ensure(texCoords, texCoordFloats + 2);
+                    texCoords[texCoordFloats++] = readFloat();
+                    // Blender usa origen abajo-izq, invertimos V como hacía el cargador antiguo
+                    texCoords[texCoordFloats++] = 1.0f - readFloat();
+                } else if (next == 'n') {
+                    pos++;
+                    normals = ensure(normals, normalFloats + 3);
+                    normals[normalFloats++] = readFloat();
+                    normals[normalFloats++] = readFloat();
+                    normals[normalFloats++] = readFloat();
+                }
+            } else if (c == 'f') {
+                pos++;
+                readFace();
+            }
+            skipLine();
+        }
+        this.in = null;
+    }
+
+    // Convierte las esquinas en el array intercalado que usa Object3D
+    public MeshData toMeshData() {
+        float[] out = new float[cornerCount * MeshData.STRIDE];
+        for (int i = 0; i < cornerCount; i++) {
+            writeCorner(i, out, i * MeshData.STRIDE);
+        }
+        return new MeshData(out, cornerCount, anyNormal);
+    }
+
+    // Escribe los 8 floats de la esquina i en out (posición, normal, uv)
+    void writeCorner(int corner, float[] out, int offset) {
+        int v = corners[corner * 3], t = corners[corner * 3 + 1], n = corners[corner * 3 + 2];
+        out[offset] = positions[v * 3];
+        out[offset + 1] = positions[v * 3 + 1];
+        out[offset + 2] = positions[v * 3 + 2];
+        if (n >= 0) {
+            out[offset + 3] = normals[n * 3];
+            out[offset + 4] = normals[n * 3 + 1];
+            out[offset + 5] = normals[n * 3 + 2];
+        }
+        if (t >= 0) {
+            out[offset + 6] = texCoords[t * 2];
+            out[offset + 7] = texCoords[t * 2 + 1];
+        }
+    }
+
+    public float[] getPositions() { return positions; }
+    public int getPositionCount() { return positionFloats / 3; }
+    public int[] getCorners() { return corners; }
+    public int getCornerCount() { return cornerCount; }
+    public boolean hasNormals() { return anyNormal; }
+
+    // --- CARAS ---
+    private void readFace() throws IOException {
+        int n = 0;
+        int c;
+        while ((c = skipSpaces()) == '-' || (c >= '0' && c <= '9')) {
+            faceCorners = ensure(faceCorners, (n + 1) * 3);
+            int base = n * 3;
+            faceCorners[base] = resolve(readInt(), positionFloats / 3);
+            faceCorners[base + 1] = -1;
+            faceCorners[base + 2] = -1;
+            if (peek() == '/') {
+                pos++;
+                if (peek() != '/') faceCorners[base + 1] = resolve(readInt(), texCoordFloats / 2);
+                if (peek() == '/') {
+                    pos++;
+                    c = peek();
+                    if (c == '-' || (c >= '0' && c <= '9')) {
+                        faceCorners[base + 2] = resolve(readInt(), normalFloats / 3);
+                        anyNormal = true;
+                    }
+                }
+            }
+            n++;
+        }
+        // Triangulación en abanico (0, i+1, i+2)
+        for (int i = 0; i < n - 2; i++) {
+            addCorner(0);
+            addCorner(i + 1);
+            addCorner(i + 2);
+        }
+    }
+
+    private void addCorner(int faceCorner) {
+        corners = ensure(corners, (cornerCount + 1) * 3);
+        int dst = cornerCount * 3, src = faceCorner * 3;
+        corners[dst] = faceCorners[src];
+        corners[dst + 1] = faceCorners[src + 1];
+        corners[dst + 2] = faceCorners[src + 2];
+        cornerCount++;
+    }
+
+    // Los índices OBJ empiezan en 1, y los negativos cuentan desde el final
+    private static int resolve(int objIndex, int count) {
+        return objIndex < 0 ? count + objIndex : objIndex - 1;
+    }
+
+    // --- TOKENIZADOR ---
+    private int peek() throws IOException {
+        if (pos == limit) {
+            int read;
+            do {
+                read = in.read(buffer, 0, buffer.length);
+            } while (read == 0);
+            if (read < 0) return -1;
+            pos = 0;
+            limit = read;
+        }
+        return buffer[pos];
+    }
+
+    // Salta espacios y tabuladores (no saltos de línea) y devuelve el siguiente byte
+    private int skipSpaces() throws IOException {
+        int c;
+        while ((c = peek()) == ' ' || c == '\t') pos++;
+        return c;
+    }
+
+    private void skipLine() throws IOException {
+        int c;
+        while ((c = peek()) != -1) {
+            pos++;
+            if (c == '\n') return;
+        }
+    }
+
+    private int readInt() throws IOException {
+        boolean negative = false;
+        int c = peek();
+        if (c == '-') { negative = true; pos++; }
+        else if (c == '+') pos++;
+        int value = 0;
+        while ((c = peek()) >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            pos++;
+        }
+        return negative ? -value : value;
+    }
+
+    private float readFloat() throws IOException {
+        int c = skipSpaces();
+        boolean negative = false;
+        if (c == '-') { negative = true; pos++; }
+        else if (c == '+') pos++;
+
+        long mantissa = 0;
+        int digits = 0, exponent = 0;
+        while ((c = peek()) >= '0' && c <= '9') {
+            if (digits < MAX_MANTISSA_DIGITS) {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) digits++;
+            } else {
+                exponent++;
+            }
+            pos++;
+        }
+        if (c == '.') {
+            pos++;
+            while ((c = peek()) >= '0' && c <= '9') {
+                if (digits < MAX_MANTISSA_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) digits++;
+                    exponent--;
+                }
+                pos++;
+            }
+        }
+        if (c == 'e' || c == 'E') {
+            pos++;
+            exponent += readInt();
+        }
+
+        double value = mantissa;
+        if (exponent < 0) {
+            value = -exponent < POW10.length ? value / POW10[-exponent] : value / Math.pow(10, -exponent);
+        } else if (exponent > 0) {
+            value = exponent < POW10.length ? value * POW10[exponent] : value * Math.pow(10, exponent);
+        }
+        return (float) (negative ? -value : value);
+    }
+
+    private static float[] ensure(float[] array, int size) {
+        return size <= array.length ? array : Arrays.copyOf(array, Math.max(size, array.length * 2));
+    }
+
+    private static int[] ensure(int[] array, int size) {
+        return size <= array.length ? array : Arrays.copyOf(array, Math.max(size, array.length * 2));
+    }
+}
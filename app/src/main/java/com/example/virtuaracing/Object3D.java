@@ -1,172 +1,331 @@
 package com.example.virtuaracing;
 
-import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import java.nio.ShortBuffer;
-import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.microedition.khronos.opengles.GL10;
+import javax.microedition.khronos.opengles.GL11;
 
 import android.content.Context;
 import android.opengl.GLES10;
 import android.opengl.GLES20;
+import android.util.Log;
 
 public class Object3D {
 
+    private static final String TAG = "Object3D";
+
+    // Modo indexado: vértices únicos + glDrawElements. A false se dibuja la lista expandida.
+    public static boolean indexedMeshes = true;
+
+    // Llamadas de GL que cuesta poner los punteros de una malla (lo que se ahorra si ya están)
+    private static final int ARRAY_POINTER_CALLS = 6;
+
+    private static final AtomicInteger nextId = new AtomicInteger(1); //se crean también en los hilos de carga
+    final int id = nextId.getAndIncrement(); //para ordenar la RenderQueue y reconocer la malla ya ligada
+
+    private FloatBuffer interleavedBuffer; // posición, normal y uv intercalados (stride 32 bytes)
     private FloatBuffer vertexBuffer;
     private FloatBuffer normalBuffer;
     private FloatBuffer textureBuffer; // ¡El buffer que faltaba!
     private int numVertices = 0;
+    private Bounds bounds = new Bounds(); // en espacio local, para el culling
 
-    public Object3D(Context context, int resourceId) {
-        loadModel(context, resourceId);
-    }
+    // Índices (ShortBuffer si caben en 16 bits, IntBuffer si no); null en modo no indexado
+    private Buffer indexBuffer;
+    private int indexType;
+    private int numIndices = 0;
 
-    private void loadModel(Context context, int resourceId) {
-        ArrayList<Float> tempVertices = new ArrayList<>();
-        ArrayList<Float> tempNormals = new ArrayList<>();
-        ArrayList<Float> tempTextures = new ArrayList<>();
+    // VBOs en GPU (0 = sin subir, se dibuja con arrays de cliente)
+    private int vertexVbo = 0;
+    private int indexVbo = 0;
 
-        // Listas finales para construir los buffers (sin índices compartidos para evitar errores de texturas)
-        ArrayList<Float> buildVertices = new ArrayList<>();
-        ArrayList<Float> buildNormals = new ArrayList<>();
-        ArrayList<Float> buildTextures = new ArrayList<>();
+    // Del .vrm si existe y si no del OBJ; un OBJ que no se puede leer lanza IOException
+    public Object3D(Context context, int resourceId) throws IOException {
+        if (!loadBinary(MeshAssets.open(context, resourceId))) setMesh(loadObj(context, resourceId));
+    }
 
-        InputStream inputStream = context.getResources().openRawResource(resourceId);
-        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-        String line;
+    /**
+     * Como Object3D(context, resourceId) para una malla que ya se ha leído con loadMeshData(): el
+     * .vrm se vuelve a mapear (sin copiar los vértices) y, si no hay, se usa 'loaded' en vez de
+     * parsear otra vez el OBJ.
+     */
+    public Object3D(Context context, int resourceId, MeshData loaded) {
+        if (!loadBinary(MeshAssets.open(context, resourceId))) setMesh(loaded);
+    }
 
-        try {
-            while ((line = reader.readLine()) != null) {
-                // Limpieza de espacios múltiples
-                String[] parts = line.trim().split("\\s+");
+    // Para geometría generada o procesada en CPU (trozos de carretera, lotes...)
+    public Object3D(MeshData mesh) {
+        setMesh(mesh);
+    }
 
-                if (parts.length == 0) continue;
+    /**
+     * Carga la malla solo a memoria, sin crear buffers de OpenGL, para poder procesarla antes
+     * (partirla, combinarla...). Usa el .vrm si existe y si no el OBJ.
+     */
+    public static MeshData loadMeshData(Context context, int resourceId) throws IOException {
+        ByteBuffer binary = MeshAssets.open(context, resourceId);
+        if (binary != null) {
+            try {
+                MeshData mesh = MeshBinary.read(binary);
+                return indexedMeshes ? mesh : MeshIndexer.expand(mesh);
+            } catch (IllegalArgumentException e) {
+                Log.w(TAG, "VRM inválido, se usa el OBJ: " + e.getMessage());
+            }
+        }
+        return loadObj(context, resourceId);
+    }
 
-                if (parts[0].equals("v")) {
-                    // Vértices (x, y, z)
-                    tempVertices.add(Float.parseFloat(parts[1]));
-                    tempVertices.add(Float.parseFloat(parts[2]));
-                    tempVertices.add(Float.parseFloat(parts[3]));
-                }
-                else if (parts[0].equals("vt")) {
-                    // Texturas (u, v)
-                    tempTextures.add(Float.parseFloat(parts[1]));
-                    // Blender usa origen abajo-izq, OpenGL arriba-izq a veces.
-                    // Normalmente invertimos V, pero probemos directo primero.
-                    tempTextures.add(1.0f - Float.parseFloat(parts[2]));
-                }
-                else if (parts[0].equals("vn")) {
-                    // Normales (nx, ny, nz)
-                    tempNormals.add(Float.parseFloat(parts[1]));
-                    tempNormals.add(Float.parseFloat(parts[2]));
-                    tempNormals.add(Float.parseFloat(parts[3]));
-                }
-                else if (parts[0].equals("f")) {
-                    // Caras (v/vt/vn v/vt/vn v/vt/vn)
-                    // Importante: Triangulamos manualmente si vienen quads, aunque pedimos exportar triángulos.
-                    int numPoints = parts.length - 1;
-
-                    // Lógica para procesar triángulos (fan triangulation si es un polígono)
-                    for (int i = 0; i < numPoints - 2; i++) {
-                        processVertex(parts[1], tempVertices, tempTextures, tempNormals, buildVertices, buildTextures, buildNormals);
-                        processVertex(parts[2 + i], tempVertices, tempTextures, tempNormals, buildVertices, buildTextures, buildNormals);
-                        processVertex(parts[3 + i], tempVertices, tempTextures, tempNormals, buildVertices, buildTextures, buildNormals);
-                    }
+    // Malla precompilada (assets/meshes/*.vrm), sin parseo de texto; false si no hay o no es válida
+    private boolean loadBinary(ByteBuffer binary) {
+        if (binary != null) {
+            try {
+                int flags = MeshBinary.flags(binary);
+                boolean indexed = (flags & MeshBinary.FLAG_INDEXED) != 0;
+                FloatBuffer view = MeshBinary.vertexView(binary);
+                if (view != null && indexed == indexedMeshes && (flags & MeshBinary.FLAG_INDEX32) == 0) {
+                    setInterleaved(view, MeshBinary.vertexCount(binary), (flags & MeshBinary.FLAG_NORMALS) != 0);
+                    if (indexed) setIndices(MeshBinary.indexView(binary).asShortBuffer(), GL10.GL_UNSIGNED_SHORT, MeshBinary.indexCount(binary));
+                } else {
+                    MeshData mesh = MeshBinary.read(binary);
+                    setMesh(indexedMeshes ? mesh : MeshIndexer.expand(mesh));
                 }
+                return true;
+            } catch (IllegalArgumentException e) {
+                Log.w(TAG, "VRM inválido, se usa el OBJ: " + e.getMessage());
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         }
+        return false;
+    }
 
-        // Convertir ArrayLists a Buffers
-        numVertices = buildVertices.size() / 3;
-
-        // Vertex Buffer
-        ByteBuffer vbb = ByteBuffer.allocateDirect(buildVertices.size() * 4);
-        vbb.order(ByteOrder.nativeOrder());
-        vertexBuffer = vbb.asFloatBuffer();
-        for (float f : buildVertices) vertexBuffer.put(f);
-        vertexBuffer.position(0);
-
-        // Texture Buffer
-        ByteBuffer tbb = ByteBuffer.allocateDirect(buildTextures.size() * 4);
-        tbb.order(ByteOrder.nativeOrder());
-        textureBuffer = tbb.asFloatBuffer();
-        for (float f : buildTextures) textureBuffer.put(f);
-        textureBuffer.position(0);
-
-        // Normal Buffer
-        if (!buildNormals.isEmpty()) {
-            ByteBuffer nbb = ByteBuffer.allocateDirect(buildNormals.size() * 4);
-            nbb.order(ByteOrder.nativeOrder());
-            normalBuffer = nbb.asFloatBuffer();
-            for (float f : buildNormals) normalBuffer.put(f);
-            normalBuffer.position(0);
+    // OBJ de res/raw; el error de lectura sube a quien carga (AssetPipeline lo da con el nombre)
+    private static MeshData loadObj(Context context, int resourceId) throws IOException {
+        ObjParser parser = new ObjParser();
+        try (InputStream inputStream = context.getResources().openRawResource(resourceId)) {
+            parser.parse(inputStream);
         }
+        if (!indexedMeshes) return parser.toMeshData();
+        MeshData mesh = MeshIndexer.index(parser);
+        Log.d(TAG, MeshIndexer.describeSavings(context.getResources().getResourceEntryName(resourceId), mesh));
+        return mesh;
     }
 
-    // Procesa un bloque "v/vt/vn"
-    private void processVertex(String part,
-                               ArrayList<Float> tempV, ArrayList<Float> tempT, ArrayList<Float> tempN,
-                               ArrayList<Float> outV, ArrayList<Float> outT, ArrayList<Float> outN) {
+    // Copia la malla intercalada (y sus índices) a buffers directos
+    private void setMesh(MeshData mesh) {
+        ByteBuffer bb = ByteBuffer.allocateDirect(mesh.vertexCount * MeshData.STRIDE_BYTES);
+        bb.order(ByteOrder.nativeOrder());
+        FloatBuffer interleaved = bb.asFloatBuffer();
+        interleaved.put(mesh.vertices, 0, mesh.vertexCount * MeshData.STRIDE);
+        setInterleaved(interleaved, mesh.vertexCount, mesh.hasNormals);
 
-        String[] indices = part.split("/");
+        if (mesh.isIndexed()) {
+            if (mesh.vertexCount <= 65536) {
+                ShortBuffer sb = ByteBuffer.allocateDirect(mesh.indexCount * 2).order(ByteOrder.nativeOrder()).asShortBuffer();
+                for (int i = 0; i < mesh.indexCount; i++) sb.put((short) mesh.indices[i]);
+                sb.position(0);
+                setIndices(sb, GL10.GL_UNSIGNED_SHORT, mesh.indexCount);
+            } else {
+                // Requiere OES_element_index_uint en GLES 1.x
+                IntBuffer ib = ByteBuffer.allocateDirect(mesh.indexCount * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+                ib.put(mesh.indices, 0, mesh.indexCount);
+                ib.position(0);
+                setIndices(ib, GLES20.GL_UNSIGNED_INT, mesh.indexCount);
+            }
+        }
+    }
+
+    // Crea las vistas de cada atributo sobre el buffer intercalado (directo o mapeado)
+    private void setInterleaved(FloatBuffer interleaved, int vertexCount, boolean hasNormals) {
+        numVertices = vertexCount;
+        if (vertexCount == 0) return;
+        bounds = Bounds.of(interleaved, vertexCount, MeshData.STRIDE);
+        interleaved.position(0);
+        interleavedBuffer = interleaved.slice();
+        vertexBuffer = interleaved.slice();
+        interleaved.position(MeshData.TEXCOORD_OFFSET);
+        textureBuffer = interleaved.slice();
+        if (hasNormals) {
+            interleaved.position(MeshData.NORMAL_OFFSET);
+            normalBuffer = interleaved.slice();
+        }
+    }
 
-        // 1. Vértice (siempre existe)
-        int vIdx = (Integer.parseInt(indices[0]) - 1) * 3;
-        outV.add(tempV.get(vIdx));
-        outV.add(tempV.get(vIdx + 1));
-        outV.add(tempV.get(vIdx + 2));
+    public Bounds getBounds() {
+        return bounds;
+    }
 
-        // 2. Textura (puede estar vacía si es v//vn)
-        if (indices.length > 1 && !indices[1].isEmpty()) {
-            int tIdx = (Integer.parseInt(indices[1]) - 1) * 2;
-            outT.add(tempT.get(tIdx));
-            outT.add(tempT.get(tIdx + 1));
-        } else {
-            // Si no hay textura, poner 0,0 por defecto
-            outT.add(0f); outT.add(0f);
+    private void setIndices(Buffer indices, int type, int count) {
+        indexBuffer = indices;
+        indexType = type;
+        numIndices = count;
+    }
+
+    /**
+     * Sube vértices e índices a VBOs. Se llama desde onSurfaceCreated: si el contexto EGL se ha
+     * perdido los ids antiguos ya no valen, así que siempre se generan nuevos.
+     */
+    public void upload(RenderBackend backend) {
+        vertexVbo = indexVbo = 0;
+        if (numVertices == 0) return;
+
+        int vertexBytes = numVertices * MeshData.STRIDE_BYTES;
+        interleavedBuffer.position(0);
+        vertexVbo = backend.createBuffer(false, interleavedBuffer, vertexBytes);
+        if (vertexVbo == 0) return; //sin VBOs (GLES 1.0): arrays de cliente
+        RenderStats.bytesUploaded += vertexBytes;
+
+        if (indexBuffer != null) {
+            int indexBytes = numIndices * indexSize();
+            indexBuffer.position(0);
+            indexVbo = backend.createBuffer(true, indexBuffer, indexBytes);
+            RenderStats.bytesUploaded += indexBytes;
+        }
+    }
+
+    // Libera los VBOs (la copia en CPU se conserva para volver a subirla)
+    public void release(RenderBackend backend) {
+        if (vertexVbo == 0) return;
+        int[] ids = {vertexVbo, indexVbo};
+        backend.deleteBuffers(ids, indexVbo != 0 ? 2 : 1);
+        vertexVbo = indexVbo = 0;
+    }
+
+    // Tras perder el contexto EGL los ids ya no existen: se olvidan sin llamar a OpenGL
+    public void discardGpu() {
+        vertexVbo = indexVbo = 0;
+    }
+
+    public boolean isUploaded() {
+        return vertexVbo != 0;
+    }
+
+    public boolean isEmpty() {
+        return numVertices == 0;
+    }
+
+    private int indexSize() {
+        return indexType == GL10.GL_UNSIGNED_SHORT ? 2 : 4;
+    }
+
+    // Los arrays se quedan habilitados y ligados: 'state' evita repetirlos en el siguiente dibujo
+    public void draw(GL10 gl, GlStateCache state) {
+        if (numVertices == 0) return;
+        countDraw(1);
+        bindArrays(gl, state);
+        submit(gl);
+    }
+
+    /**
+     * Dibuja todas las instancias del lote con GLES 1.x: los arrays se preparan una vez y se
+     * repite solo el glMultMatrixf + glDraw* de cada instancia. El dibujo instanciado de verdad
+     * (una sola llamada) lo hace Gles2Backend con un contexto ES 3.0.
+     */
+    public void drawInstances(GL10 gl, GlStateCache state, InstanceBatch batch) {
+        int instances = batch.size();
+        if (numVertices == 0 || instances == 0) return;
+
+        countDraw(instances);
+        bindArrays(gl, state);
+        float[] matrices = batch.matrices();
+        for (int i = 0; i < instances; i++) {
+            gl.glPushMatrix();
+            gl.glMultMatrixf(matrices, i * InstanceBatch.FLOATS_PER_INSTANCE);
+            submit(gl);
+            gl.glPopMatrix();
         }
+    }
+
+    int triangleCount() {
+        return (numIndices > 0 ? numIndices : numVertices) / 3;
+    }
 
-        // 3. Normal (puede faltar)
-        if (indices.length > 2 && !indices[2].isEmpty()) {
-            int nIdx = (Integer.parseInt(indices[2]) - 1) * 3;
-            outN.add(tempN.get(nIdx));
-            outN.add(tempN.get(nIdx + 1));
-            outN.add(tempN.get(nIdx + 2));
+    // Contadores de RenderStats para 'instances' llamadas de dibujo de esta malla
+    void countDraw(int instances) {
+        RenderStats.drawCalls += instances;
+        RenderStats.trianglesSubmitted += triangleCount() * instances;
+        RenderStats.instancesDrawn += instances;
+        // Sin VBO el driver copia los arrays de cliente en cada llamada
+        if (vertexVbo == 0) {
+            RenderStats.bytesUploaded += ((long) numVertices * MeshData.STRIDE_BYTES
+                    + (indexBuffer != null ? (long) numIndices * indexSize() : 0)) * instances;
         }
     }
 
-    public void draw(GL10 gl) {
-        // Habilitar arrays
-        gl.glEnableClientState(GL10.GL_VERTEX_ARRAY);
-        gl.glVertexPointer(3, GL10.GL_FLOAT, 0, vertexBuffer);
+    private void bindArrays(GL10 gl, GlStateCache state) {
+        // Habilitar arrays (solo los que cambian respecto al dibujo anterior)
+        setClientState(gl, state, GL10.GL_VERTEX_ARRAY, true);
+        setClientState(gl, state, GL10.GL_NORMAL_ARRAY, normalBuffer != null);
+        setClientState(gl, state, GL10.GL_TEXTURE_COORD_ARRAY, true);
+        if (!state.bindArrays(id, ARRAY_POINTER_CALLS)) return; //misma malla que el dibujo anterior
 
-        if (normalBuffer != null) {
-            gl.glEnableClientState(GL10.GL_NORMAL_ARRAY);
-            gl.glNormalPointer(GL10.GL_FLOAT, 0, normalBuffer);
+        if (vertexVbo != 0) {
+            GL11 gl11 = (GL11) gl;
+            gl11.glBindBuffer(GL11.GL_ARRAY_BUFFER, vertexVbo);
+            gl11.glVertexPointer(3, GL10.GL_FLOAT, MeshData.STRIDE_BYTES, 0);
+            if (normalBuffer != null) {
+                gl11.glNormalPointer(GL10.GL_FLOAT, MeshData.STRIDE_BYTES, MeshData.NORMAL_OFFSET * 4);
+            }
+            gl11.glTexCoordPointer(2, GL10.GL_FLOAT, MeshData.STRIDE_BYTES, MeshData.TEXCOORD_OFFSET * 4);
+            // Desligar el de vértices para que los arrays de cliente (HUD) sigan funcionando; el de
+            // índices se queda hasta que otra malla lo cambie
+            gl11.glBindBuffer(GL11.GL_ARRAY_BUFFER, 0);
+            gl11.glBindBuffer(GL11.GL_ELEMENT_ARRAY_BUFFER, indexVbo);
+            return;
         }
 
-        // ¡ESTO FALTABA! Habilitar texturas
-        if (textureBuffer != null) {
-            gl.glEnableClientState(GL10.GL_TEXTURE_COORD_ARRAY);
-            gl.glTexCoordPointer(2, GL10.GL_FLOAT, 0, textureBuffer);
+        if (gl instanceof GL11) ((GL11) gl).glBindBuffer(GL11.GL_ELEMENT_ARRAY_BUFFER, 0); //índices de cliente
+        gl.glVertexPointer(3, GL10.GL_FLOAT, MeshData.STRIDE_BYTES, vertexBuffer);
+        if (normalBuffer != null) gl.glNormalPointer(GL10.GL_FLOAT, MeshData.STRIDE_BYTES, normalBuffer);
+        gl.glTexCoordPointer(2, GL10.GL_FLOAT, MeshData.STRIDE_BYTES, textureBuffer);
+    }
+
+    static void setClientState(GL10 gl, GlStateCache state, int array, boolean enabled) {
+        if (!state.set(array, enabled)) return;
+        if (enabled) gl.glEnableClientState(array);
+        else gl.glDisableClientState(array);
+    }
+
+    private void submit(GL10 gl) {
+        if (vertexVbo != 0) {
+            if (indexVbo != 0) ((GL11) gl).glDrawElements(GL10.GL_TRIANGLES, numIndices, indexType, 0);
+            else gl.glDrawArrays(GL10.GL_TRIANGLES, 0, numVertices);
+        } else if (indexBuffer != null) {
+            gl.glDrawElements(GL10.GL_TRIANGLES, numIndices, indexType, indexBuffer);
+        } else {
+            gl.glDrawArrays(GL10.GL_TRIANGLES, 0, numVertices);
         }
+    }
+
+    // --- Datos para el backend de shaders (GLES 2/3) ---
+    int getVertexVbo() {
+        return vertexVbo;
+    }
 
-        // Dibujar
-        gl.glDrawArrays(GL10.GL_TRIANGLES, 0, numVertices);
+    int getIndexVbo() {
+        return indexVbo;
+    }
+
+    int getIndexType() {
+        return indexType;
+    }
+
+    int getIndexCount() {
+        return numIndices;
+    }
+
+    int getVertexCount() {
+        return numVertices;
+    }
 
-        // Limpiar estados
-        gl.glDisableClientState(GL10.GL_VERTEX_ARRAY);
-        gl.glDisableClientState(GL10.GL_NORMAL_ARRAY);
-        gl.glDisableClientState(GL10.GL_TEXTURE_COORD_ARRAY);
+    boolean hasNormals() {
+        return normalBuffer != null;
     }
 }
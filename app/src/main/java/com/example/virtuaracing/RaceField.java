@@ -0,0 +1,435 @@
+package com.example.virtuaracing;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parrilla de N coches guardada por columnas (un array por dato, índice = coche) para que el tick
+ * de la IA recorra memoria seguida y no cree objetos: distancia recorrida, velocidad, carril
+ * elegido y desplazamiento lateral, más lo necesario para interpolar entre ticks.
+ *
+ * El coche 0 es el jugador: va a velocidad fija por el centro y la IA no lo mueve. Los demás
+ * llevan cada uno su velocidad de crucero, frenan antes de las curvas cerradas y, si alcanzan a
+ * otro coche en su carril, cambian a uno libre o se ponen a su velocidad. También se apartan si
+ * el jugador les alcanza por detrás.
+ *
+ * Para encontrar al de delante se mantiene el orden por distancia en 'order' con una inserción
+ * (de un tick al siguiente casi no cambia), así que cada coche solo mira a sus vecinos. Los
+ * choques salen igual, barriendo ese orden: el de detrás se queda a la velocidad del de delante
+ * (el jugador no frena por nadie; sus contactos solo se cuentan).
+ *
+ * El tick va por fases (decidir, integrar, choques) y en cada una un coche solo escribe lo suyo y
+ * solo lee lo que dejó la fase anterior: el carril elegido se aplica al integrar y la velocidad del
+ * choque al final. Así, con setPool(), cada fase se reparte por tramos de coches en un ForkJoinPool
+ * y el resultado es idéntico bit a bit al de un solo hilo, se reparta como se reparta.
+ *
+ * computePoses() deja posición, rumbo, volante... de todos los coches en un solo array plano
+ * (POSE_FLOATS por coche) que WorldSnapshot copia de una vez.
+ */
+public class RaceField {
+
+    // Pose de cada coche en poses(): x, y, z, rumbo, volante, desplazamiento lateral, progreso, distancia
+    public static final int POSE_FLOATS = 8;
+    public static final int X = 0, Y = 1, Z = 2, ROTATION = 3, STEERING = 4, LATERAL = 5, PROGRESS = 6, DISTANCE = 7;
+
+    public static final int PLAYER = 0;
+    static final float[] LANES = {-3.5f, 0, 3.5f}; //desplazamiento lateral de cada carril
+    private static final int PLAYER_LANE = 1;
+
+    // Salida: jugador, rival adelantado (a la derecha) y rival atrasado (a la izquierda); el resto
+    // entre los dos rivales, a GRID_GAP metros como mucho (menos si no caben en la vuelta) y
+    // rotando de carril
+    private static final float[] GRID_DISTANCE = {0, 45, -27};
+    private static final int[] GRID_LANE = {PLAYER_LANE, 0, 2};
+    private static final float GRID_GAP = 14.0f;
+
+    // IA (metros y ticks)
+    private static final float CRUISE_MIN = 0.92f, CRUISE_RANGE = 0.16f; //crucero respecto al jugador
+    private static final float ACCELERATION = 0.01f, BRAKING = 0.05f;     //cambio de velocidad por tick
+    private static final float CORNER_LOOKAHEAD = 40.0f;   //metros por delante a los que mira la curva
+    private static final float CORNER_SLOWDOWN = 0.35f;    //pérdida de velocidad con el volante al máximo
+    private static final float MAX_STEERING = 50.0f;       //como Route.MAX_STEER
+    private static final float FOLLOW_DISTANCE = 18.0f;    //hueco al que empieza a reaccionar
+    private static final float SAFE_GAP = 7.0f;            //hueco al que se queda detrás
+    private static final float FOLLOW_GAIN = 0.05f;        //velocidad extra por metro de hueco sobre SAFE_GAP
+    private static final float REAR_CLEARANCE = 8.0f;      //hueco libre detrás para cambiar de carril...
+    private static final float CLOSING_TICKS = 30.0f;      //...más lo que el de detrás se acerque en estos ticks
+    private static final float YIELD_DISTANCE = 20.0f;     //se aparta si el jugador viene a menos
+    private static final float LANE_CHANGE_SPEED = 0.08f;  //metros laterales por tick
+    private static final float CAR_WIDTH = 2.5f;           //separación lateral mínima entre dos coches
+    private static final float CAR_LENGTH = 4.5f;          //por debajo, dos coches que se solapan chocan
+
+    private static final int TASKS_PER_THREAD = 4; //reparto en paralelo: hasta 4 tramos por hilo del pool
+    private static final int DECIDE = 0, INTEGRATE = 1, CONTACTS = 2, POSES = 3;
+
+    private final Route route;
+    private final float playerSpeed;
+    final int count;
+
+    // Estado (una columna por dato)
+    final float[] distance, previousDistance;
+    final float[] speed, cruiseSpeed, targetSpeed;
+    final float[] lateral, previousLateral;
+    final int[] lane; //carril elegido (índice en LANES)
+    private final int[] nextLane;         //elegido en este tick, se aplica al integrar
+    private final float[] contactSpeed;   //velocidad tras los choques, se aplica al final
+    private final boolean[] touching;     //en contacto con otro coche en el último tick
+    private long ticks;
+
+    // Coches ordenados por distancia (de menos a más)
+    private final int[] order;
+
+    private final float[] poses;
+    private float posesAlpha;
+
+    // Tareas del pool (se reutilizan en cada fase); null = todo en el hilo que llama
+    private ForkJoinPool pool;
+    private PhaseTask phaseTask;
+    private int phase;
+
+    /**
+     * @param carCount coches, incluido el jugador (los tres primeros salen como los rivales de siempre)
+     * @param seed velocidades de crucero de la IA: misma semilla, misma carrera
+     */
+    public RaceField(Route route, int carCount, float playerSpeed, long seed) {
+        this.route = route;
+        this.playerSpeed = playerSpeed;
+        this.count = carCount;
+        distance = new float[carCount];
+        previousDistance = new float[carCount];
+        speed = new float[carCount];
+        cruiseSpeed = new float[carCount];
+        targetSpeed = new float[carCount];
+        lateral = new float[carCount];
+        previousLateral = new float[carCount];
+        lane = new int[carCount];
+        nextLane = new int[carCount];
+        contactSpeed = new float[carCount];
+        touching = new boolean[carCount];
+        order = new int[carCount];
+        poses = new float[carCount * POSE_FLOATS];
+
+        Random random = new Random(seed);
+        float gridGap = Math.min(GRID_GAP, (route.length() - GRID_DISTANCE[1] + GRID_DISTANCE[2]) / Math.max(1, carCount - 2));
+        for (int i = 0; i < carCount; i++) {
+            boolean classic = i < GRID_DISTANCE.length;
+            distance[i] = route.wrap(classic ? GRID_DISTANCE[i] : GRID_DISTANCE[1] + (i - 2) * gridGap);
+            lane[i] = classic ? GRID_LANE[i] : (GRID_LANE[1] + i - 2) % LANES.length;
+            if (i > 2 && i == carCount - 1 && lane[i] == GRID_LANE[2]) {
+                lane[i] = 3 - lane[i - 1] - GRID_LANE[2]; //el último no cae pegado al rival atrasado
+            }
+            nextLane[i] = lane[i];
+            lateral[i] = LANES[lane[i]];
+            speed[i] = playerSpeed; //salida lanzada
+            cruiseSpeed[i] = i == PLAYER ? playerSpeed : playerSpeed * (CRUISE_MIN + CRUISE_RANGE * random.nextFloat());
+            targetSpeed[i] = speed[i];
+            order[i] = i;
+        }
+        System.arraycopy(distance, 0, previousDistance, 0, carCount);
+        System.arraycopy(lateral, 0, previousLateral, 0, carCount);
+        sortByDistance();
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Reparte las fases del tick y computePoses() en 'pool' (null: todo en el hilo que llama), en
+     * tramos de al menos 'minCarsPerTask' coches: con menos de dos tramos se queda en un hilo. Dónde
+     * compensa depende de los núcleos del dispositivo (se mide con RaceFieldBenchmark), así que el
+     * umbral lo pone quien conoce el dispositivo.
+     */
+    public void setPool(ForkJoinPool pool, int minCarsPerTask) {
+        splitInto(pool, pool == null ? 1 : Math.min(pool.getParallelism() * TASKS_PER_THREAD, count / Math.max(1, minCarsPerTask)));
+    }
+
+    // Con un número de tramos fijo, sin mirar el umbral (tests y RaceFieldBenchmark)
+    void splitInto(ForkJoinPool pool, int tasks) {
+        tasks = Math.min(tasks, count);
+        this.pool = tasks > 1 ? pool : null;
+        phaseTask = tasks > 1 ? new PhaseTask(tasks) : null;
+    }
+
+    // Si el tick se reparte en el pool
+    public boolean isParallel() {
+        return pool != null;
+    }
+
+    // --- TICK ---
+    public void tick() {
+        run(DECIDE);
+        run(INTEGRATE);
+        sortByDistance();
+        run(CONTACTS);
+        System.arraycopy(contactSpeed, 0, speed, 0, count); //copia: no compensa un invoke más
+        ticks++;
+    }
+
+    // Una fase sobre todos los coches, en este hilo o repartida en el pool
+    private void run(int phase) {
+        if (pool == null) {
+            runRange(phase, 0, count);
+            return;
+        }
+        this.phase = phase;
+        phaseTask.reinitialize();
+        pool.invoke(phaseTask);
+    }
+
+    // Las fases por orden de distancia (DECIDE, CONTACTS) recorren posiciones de 'order'; el resto, coches
+    private void runRange(int phase, int from, int to) {
+        switch (phase) {
+            case DECIDE:
+                for (int k = from; k < to; k++) {
+                    if (order[k] != PLAYER) decide(order[k], k);
+                }
+                break;
+            case INTEGRATE:
+                for (int i = from; i < to; i++) integrate(i);
+                break;
+            case CONTACTS:
+                for (int k = from; k < to; k++) contacts(order[k], k);
+                break;
+            default:
+                for (int i = from; i < to; i++) computePose(i, posesAlpha);
+        }
+    }
+
+    // Raíz de una fase: un tramo de coches por subtarea, todas reutilizadas de un tick a otro
+    // (RecursiveAction es Serializable, pero estas tareas nunca se serializan)
+    @SuppressWarnings("serial")
+    private class PhaseTask extends RecursiveAction {
+        private final RangeTask[] ranges;
+
+        PhaseTask(int tasks) {
+            ranges = new RangeTask[tasks];
+            for (int t = 0; t < tasks; t++) ranges[t] = new RangeTask(count * t / tasks, count * (t + 1) / tasks);
+        }
+
+        @Override
+        protected void compute() {
+            for (RangeTask range : ranges) range.reinitialize();
+            invokeAll(ranges);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private class RangeTask extends RecursiveAction {
+        private final int from, to;
+
+        RangeTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            runRange(phase, from, to);
+        }
+    }
+
+    // Inserción sobre el orden del tick anterior: O(n) salvo los que cruzan la meta
+    private void sortByDistance() {
+        for (int k = 1; k < count; k++) {
+            int car = order[k];
+            float d = distance[car];
+            int j = k - 1;
+            while (j >= 0 && distance[order[j]] > d) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = car;
+        }
+    }
+
+    // Velocidad objetivo y carril del coche i (posición k en el orden)
+    private void decide(int i, int k) {
+        nextLane[i] = lane[i];
+        float cruise = cruiseSpeed[i] * cornerFactor(distance[i]);
+        // Mientras cambia de carril ocupa los dos: le estorba lo que haya en cualquiera
+        float target = follow(k, lateral[i], LANES[lane[i]], cruise, -1);
+        boolean blocked = target < cruise;
+        // Si es el jugador el que viene detrás más rápido, se aparta
+        int behind = carNear(k, lateral[i], LANES[lane[i]], 0, YIELD_DISTANCE);
+        boolean yield = behind == PLAYER && speed[PLAYER] > speed[i];
+
+        if ((blocked || yield) && lateral[i] == LANES[lane[i]]) {
+            int free = freeAdjacentLane(k, lane[i]);
+            if (free >= 0) {
+                nextLane[i] = free;
+                target = follow(k, lateral[i], LANES[free], cruise, -1);
+            } else if (yield) {
+                //sin hueco: que no le embista, pero sin echarse encima de los de delante
+                target = Math.max(target, follow(k, lateral[i], LANES[lane[i]], speed[PLAYER], PLAYER));
+            }
+        }
+        targetSpeed[i] = Math.max(0, target);
+    }
+
+    /**
+     * Velocidad (como mucho 'target') para no alcanzar a ningún coche de la franja lateral
+     * [from, to] a menos de FOLLOW_DISTANCE por delante, salvo 'ignore': la de cada uno más lo que
+     * sobre de hueco sobre SAFE_GAP, o menos si está demasiado cerca.
+     */
+    private float follow(int k, float from, float to, float target, int ignore) {
+        int self = order[k];
+        for (int step = 1; step < count; step++) {
+            int j = order[(k + step) % count];
+            float g = gap(self, j);
+            if (g > FOLLOW_DISTANCE) break;
+            if (j != ignore && overlaps(j, from, to)) target = Math.min(target, speed[j] + (g - SAFE_GAP) * FOLLOW_GAIN);
+        }
+        return target;
+    }
+
+    // Más despacio cuanto más cerrada sea la curva que viene
+    private float cornerFactor(float d) {
+        if (route.isEmpty()) return 1;
+        float steering = Math.abs(route.steering(route.segmentAtDistance(d + CORNER_LOOKAHEAD)));
+        return 1 - CORNER_SLOWDOWN * Math.min(steering / MAX_STEERING, 1);
+    }
+
+    /**
+     * Primer coche que ocupe algo de la franja lateral [from, to] hasta 'ahead' metros por delante
+     * o, si ahead es 0, hasta 'behind' metros por detrás; -1 si no hay.
+     */
+    private int carNear(int k, float from, float to, float ahead, float behind) {
+        int self = order[k];
+        int direction = ahead > 0 ? 1 : -1;
+        float range = ahead > 0 ? ahead : behind;
+        for (int step = 1; step < count; step++) {
+            int j = order[Math.floorMod(k + direction * step, count)];
+            float g = direction > 0 ? gap(self, j) : gap(j, self);
+            if (g > range) return -1;
+            if (overlaps(j, from, to)) return j;
+        }
+        return -1;
+    }
+
+    // Cada coche ocupa desde donde está hasta el centro de su carril elegido (más su anchura)
+    private boolean overlaps(int car, float from, float to) {
+        float low = Math.min(from, to), high = Math.max(from, to);
+        float carLow = Math.min(lateral[car], LANES[lane[car]]), carHigh = Math.max(lateral[car], LANES[lane[car]]);
+        return carLow - high < CAR_WIDTH && low - carHigh < CAR_WIDTH;
+    }
+
+    /**
+     * Carril vecino libre (ver isFree); -1 si no hay (desde el centro, primero a la izquierda).
+     * Como todos deciden a la vez, al centro se entra desde la izquierda en los ticks pares y desde
+     * la derecha en los impares: así dos coches no eligen el mismo hueco desde lados opuestos.
+     */
+    private int freeAdjacentLane(int k, int current) {
+        if (current != PLAYER_LANE) {
+            boolean turn = (ticks & 1) == (current < PLAYER_LANE ? 0 : 1);
+            return turn && isFree(k, PLAYER_LANE) ? PLAYER_LANE : -1;
+        }
+        if (isFree(k, PLAYER_LANE - 1)) return PLAYER_LANE - 1;
+        return isFree(k, PLAYER_LANE + 1) ? PLAYER_LANE + 1 : -1;
+    }
+
+    // Nadie a menos de FOLLOW_DISTANCE por delante y el de detrás lo bastante lejos para no alcanzarle
+    private boolean isFree(int k, int laneIndex) {
+        float x = LANES[laneIndex];
+        if (carNear(k, x, x, FOLLOW_DISTANCE, 0) >= 0) return false;
+        int self = order[k];
+        int behind = carNear(k, x, x, 0, FOLLOW_DISTANCE);
+        return behind < 0 || gap(behind, self) > REAR_CLEARANCE + Math.max(0, speed[behind] - speed[self]) * CLOSING_TICKS;
+    }
+
+    // Metros desde 'back' hasta 'front' siguiendo la ruta (con vuelta)
+    private float gap(int back, int front) {
+        float g = distance[front] - distance[back];
+        return g < 0 ? g + route.length() : g;
+    }
+
+    // Carril elegido, posición con la velocidad del tick y luego la velocidad hacia su objetivo
+    private void integrate(int i) {
+        lane[i] = nextLane[i];
+        previousDistance[i] = distance[i];
+        previousLateral[i] = lateral[i];
+        distance[i] = route.wrap(distance[i] + speed[i]);
+
+        float dv = targetSpeed[i] - speed[i];
+        speed[i] = i == PLAYER ? playerSpeed : speed[i] + Math.max(-BRAKING, Math.min(ACCELERATION, dv));
+
+        float dl = LANES[lane[i]] - lateral[i];
+        if (Math.abs(dl) <= LANE_CHANGE_SPEED) lateral[i] = LANES[lane[i]]; //exacto: ya está en su carril
+        else lateral[i] += dl > 0 ? LANE_CHANGE_SPEED : -LANE_CHANGE_SPEED;
+    }
+
+    /**
+     * Choques del coche i (posición k en el orden ya integrado): barre hacia delante y hacia atrás
+     * mientras el hueco sea menor que CAR_LENGTH, sin mirar al resto de la parrilla.
+     */
+    private void contacts(int i, int k) {
+        float v = speed[i];
+        boolean touch = false;
+        for (int step = 1; step < count; step++) {
+            int j = order[(k + step) % count];
+            if (gap(i, j) >= CAR_LENGTH) break;
+            if (Math.abs(lateral[i] - lateral[j]) >= CAR_WIDTH) continue;
+            touch = true;
+            if (i != PLAYER) v = Math.min(v, speed[j]); //no atraviesa al de delante
+        }
+        for (int step = 1; !touch && step < count; step++) {
+            int j = order[Math.floorMod(k - step, count)];
+            if (gap(j, i) >= CAR_LENGTH) break;
+            touch = Math.abs(lateral[i] - lateral[j]) < CAR_WIDTH;
+        }
+        touching[i] = touch;
+        contactSpeed[i] = v;
+    }
+
+    // Coches en contacto con otro en el último tick
+    public int contacts() {
+        int n = 0;
+        for (boolean t : touching) if (t) n++;
+        return n;
+    }
+
+    public boolean isTouching(int car) {
+        return touching[car];
+    }
+
+    // --- POSES PARA EL DIBUJO ---
+    // Todas las poses entre el tick anterior (alpha = 0) y el último (alpha = 1)
+    public void computePoses(float alpha) {
+        posesAlpha = alpha;
+        run(POSES);
+    }
+
+    private void computePose(int i, float alpha) {
+        float moved = distance[i] - previousDistance[i];
+        if (moved < 0) moved += route.length(); //se ha dado la vuelta
+        float d = route.wrap(previousDistance[i] + moved * alpha);
+        int o = i * POSE_FLOATS;
+        float progress = route.progressAtDistance(d);
+        route.sample(progress, poses, o);
+        poses[o + LATERAL] = previousLateral[i] + (lateral[i] - previousLateral[i]) * alpha;
+        poses[o + PROGRESS] = progress;
+        poses[o + DISTANCE] = d;
+    }
+
+    // Poses de computePoses(), POSE_FLOATS por coche
+    public float[] poses() {
+        return poses;
+    }
+
+    public float distance(int car) {
+        return distance[car];
+    }
+
+    public float speed(int car) {
+        return speed[car];
+    }
+
+    public float lateral(int car) {
+        return lateral[car];
+    }
+
+    public int lane(int car) {
+        return lane[car];
+    }
+}
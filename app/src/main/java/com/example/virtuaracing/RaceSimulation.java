@@ -0,0 +1,290 @@
+package com.example.virtuaracing;
+
+/**
+ * Lógica de juego (avance, coches y cámara) separada del renderer para poder probarla en la JVM.
+ *
+ * La física va a paso fijo (TICKS_PER_SECOND): advance() acumula el tiempo real transcurrido,
+ * ejecuta los ticks que toquen y deja coches y cámara interpolados entre los dos últimos ticks,
+ * así que la carrera va igual de rápida a 60, 90 o 120 Hz y un frame lento no la frena. No reserva
+ * memoria: los CarState y los vectores de cámara se crean una vez y se actualizan en su sitio.
+ *
+ * Los coches los mueve RaceField (el 0 es el jugador); aquí quedan la rueda, la cámara y los
+ * CarState que lee el renderer.
+ *
+ * Con un ReplayRecorder cada tick graba el coche del jugador y las órdenes recibidas, y con un
+ * ReplayPlayer (setGhost) un coche fantasma repite una carrera grabada, tick a tick.
+ */
+public class RaceSimulation {
+
+    public static final int TICKS_PER_SECOND = 60;
+    public static final long TICK_NANOS = 1_000_000_000L / TICKS_PER_SECOND;
+    private static final int MAX_TICKS_PER_FRAME = 8; //tras un parón no intentamos recuperar todo
+
+    public static final float PLAYER_SPEED = 2.2f; // metros por tick
+    private static final float WHEEL_DEGREES_PER_METER = 17.0f;
+    static final float WHEEL_ROTATION_WRAP = 360.0f; //el ángulo de la rueda no crece sin límite (precisión)
+
+    public static final int DEFAULT_CARS = 3; //jugador y los dos rivales de siempre
+    private static final long FIELD_SEED = 1;
+
+    private static final float CAM_DIST = 16.0f, CAM_HEIGHT = 9.5f, CAM_TARGET_HEIGHT = 6.5f;
+    private static final float OVERHEAD_HEIGHT = 85.0f;
+
+    private final Route route;
+    private final RaceField field;
+    private final CarState[] cars;
+
+    // Estado de los dos últimos ticks (se interpola entre ellos al dibujar; los coches en field)
+    private float wheelRotation = 0.0f, previousWheelRotation = 0.0f;
+    private long tickCount = 0;
+    private boolean overheadView = false;
+    private int tickInputs; //órdenes de este tick, 1 << InputQueue.X (para la grabación)
+
+    // Grabación y fantasma
+    private ReplayRecorder recorder;
+    private ReplayPlayer ghostReplay;
+    private final CarState ghost = new CarState();
+    private final float[] ghostPose = new float[RaceField.POSE_FLOATS];
+    private float ghostProgress, previousGhostProgress;
+    private float ghostLateral, previousGhostLateral;
+    private float ghostSteering, previousGhostSteering;
+    private boolean ghostAtTick, ghostAtPreviousTick, ghostVisible;
+
+    // Reloj del paso fijo
+    private long lastTime = -1;
+    private long accumulator = 0;
+
+    // Estado interpolado que ve el renderer
+    private float renderWheelRotation = 0.0f;
+
+    // Cámara (la clase Camera comparte estos vectores)
+    public final Vector4 eye = new Vector4(0, 10, -20, 1);
+    public final Vector4 center = new Vector4(0, 0, 0, 1);
+    public final Vector4 up = new Vector4(0, 1, 0, 0);
+
+    public RaceSimulation(Route route) {
+        this(route, DEFAULT_CARS);
+    }
+
+    public RaceSimulation(Route route, int carCount) {
+        this.route = route;
+        field = new RaceField(route, carCount, PLAYER_SPEED, FIELD_SEED);
+        cars = new CarState[carCount];
+        for (int i = 0; i < cars.length; i++) {
+            cars[i] = new CarState();
+            cars[i].lateralOffset = field.lateral(i);
+        }
+    }
+
+    /**
+     * Avanza la simulación hasta nowNanos (System.nanoTime() en el juego): ejecuta tantos ticks
+     * fijos como quepan en el tiempo acumulado y deja el estado de dibujo interpolado con el resto.
+     */
+    public void advance(long nowNanos) {
+        update(nowNanos);
+        interpolate((float) accumulator / TICK_NANOS);
+    }
+
+    // Solo los ticks, sin tocar el estado de dibujo; devuelve cuántos se han ejecutado
+    public int update(long nowNanos) {
+        if (lastTime < 0) lastTime = nowNanos;
+        accumulator += nowNanos - lastTime;
+        lastTime = nowNanos;
+        if (accumulator > MAX_TICKS_PER_FRAME * TICK_NANOS) accumulator = MAX_TICKS_PER_FRAME * TICK_NANOS;
+
+        int ticks = 0;
+        while (accumulator >= TICK_NANOS) {
+            tick();
+            accumulator -= TICK_NANOS;
+            ticks++;
+        }
+        return ticks;
+    }
+
+    // Instante (en el reloj de update) al que corresponde el último tick
+    public long getLastTickTime() {
+        return lastTime - accumulator;
+    }
+
+    // Un tick y el estado de dibujo en ese mismo tick (sin interpolar)
+    public void step() {
+        tick();
+        interpolate(1);
+    }
+
+    // Olvida el tiempo acumulado (al volver de pausa no hay que recuperar el tiempo parado)
+    public void resetClock() {
+        lastTime = -1;
+        accumulator = 0;
+    }
+
+    // 1. Física a paso fijo (IA de todos los coches y rueda del jugador)
+    private void tick() {
+        field.tick();
+        previousWheelRotation = wheelRotation;
+        wheelRotation += PLAYER_SPEED * WHEEL_DEGREES_PER_METER;
+        if (wheelRotation >= WHEEL_ROTATION_WRAP) wheelRotation -= WHEEL_ROTATION_WRAP;
+        tickCount++;
+
+        if (recorder != null) {
+            float distance = field.distance(RaceField.PLAYER);
+            recorder.record(tickCount, route.progressAtDistance(distance), field.lateral(RaceField.PLAYER),
+                    route.steering(route.segmentAtDistance(distance)), tickInputs);
+        }
+        tickInputs = 0;
+        if (ghostReplay != null) tickGhost();
+    }
+
+    // El fantasma va por el mismo número de tick en su grabación
+    private void tickGhost() {
+        previousGhostProgress = ghostProgress;
+        previousGhostLateral = ghostLateral;
+        previousGhostSteering = ghostSteering;
+        ghostAtPreviousTick = ghostAtTick;
+        ghostAtTick = ghostReplay.moveTo(tickCount);
+        if (ghostAtTick) {
+            ghostProgress = ghostReplay.progress();
+            ghostLateral = ghostReplay.lateral();
+            ghostSteering = ghostReplay.steering();
+        }
+    }
+
+    // Coches y cámara entre el tick anterior (alpha = 0) y el último (alpha = 1)
+    public void interpolate(float alpha) {
+        float turned = wheelRotation - previousWheelRotation;
+        if (turned < 0) turned += WHEEL_ROTATION_WRAP;
+        renderWheelRotation = previousWheelRotation + turned * alpha;
+
+        // 2. Coches: todas las poses de una vez y de ahí a los CarState
+        field.computePoses(alpha);
+        float[] poses = field.poses();
+        for (int i = 0; i < cars.length; i++) {
+            CarState car = cars[i];
+            int o = i * RaceField.POSE_FLOATS;
+            car.position.set(poses[o + RaceField.X], poses[o + RaceField.Y], poses[o + RaceField.Z], 1);
+            car.rotationY = poses[o + RaceField.ROTATION];
+            car.steeringAngle = poses[o + RaceField.STEERING];
+            car.lateralOffset = poses[o + RaceField.LATERAL];
+            car.progress = poses[o + RaceField.PROGRESS];
+            car.distance = poses[o + RaceField.DISTANCE];
+        }
+
+        // 3. Fantasma (solo si la grabación tiene los dos ticks)
+        ghostVisible = ghostAtTick && ghostAtPreviousTick;
+        if (ghostVisible) interpolateGhost(alpha);
+
+        // 4. Cámara
+        updateCamera();
+    }
+
+    private void interpolateGhost(float alpha) {
+        float moved = ghostProgress - previousGhostProgress;
+        if (moved < -route.size() / 2.0f) moved += route.size(); //ha dado la vuelta
+        float progress = previousGhostProgress + moved * alpha;
+        if (progress >= route.size()) progress -= route.size();
+        route.sample(progress, ghostPose, 0);
+        ghostPose[RaceField.STEERING] = previousGhostSteering + (ghostSteering - previousGhostSteering) * alpha;
+        ghostPose[RaceField.LATERAL] = previousGhostLateral + (ghostLateral - previousGhostLateral) * alpha;
+        ghostPose[RaceField.PROGRESS] = progress;
+        ghostPose[RaceField.DISTANCE] = route.distanceAtProgress(progress);
+
+        ghost.position.set(ghostPose[RaceField.X], ghostPose[RaceField.Y], ghostPose[RaceField.Z], 1);
+        ghost.rotationY = ghostPose[RaceField.ROTATION];
+        ghost.steeringAngle = ghostPose[RaceField.STEERING];
+        ghost.lateralOffset = ghostPose[RaceField.LATERAL];
+        ghost.progress = progress;
+        ghost.distance = ghostPose[RaceField.DISTANCE];
+    }
+
+    // Rumbo y giro de volante vienen precalculados por segmento en Route
+    public void calculateCarState(float distance, CarState state) {
+        state.distance = distance;
+        route.sample(route.progressAtDistance(distance), state);
+    }
+
+    private void updateCamera() {
+        Vector4 playerPos = getPlayer().position;
+        if (!overheadView) {
+            // CÁMARA TRASERA (Juego normal)
+            double rads = Math.toRadians(getPlayer().rotationY);
+            float camX = playerPos.get(0) - (float) Math.sin(rads) * CAM_DIST;
+            float camZ = playerPos.get(2) - (float) Math.cos(rads) * CAM_DIST;
+            eye.set(camX, playerPos.get(1) + CAM_HEIGHT, camZ, 1);
+            center.set(playerPos.get(0), playerPos.get(1) + CAM_TARGET_HEIGHT, playerPos.get(2), 1);
+            up.set(0, 1, 0, 0);
+        } else {
+            // CÁMARA ZENITAL (Mapa aéreo): subimos mucho en Y y miramos abajo
+            eye.set(playerPos.get(0), OVERHEAD_HEIGHT, playerPos.get(2), 1);
+            center.set(playerPos);
+            up.set(0, 0, -1, 0);
+        }
+    }
+
+    public void toggleCameraMode() {
+        overheadView = !overheadView;
+        tickInputs |= 1 << InputQueue.TOGGLE_CAMERA;
+    }
+
+    // Graba desde el siguiente tick (null para dejar de grabar)
+    public void setRecorder(ReplayRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    public ReplayRecorder getRecorder() {
+        return recorder;
+    }
+
+    // Carrera grabada que repite el fantasma (null para quitarlo)
+    public void setGhost(ReplayPlayer replay) {
+        ghostReplay = replay;
+        ghostAtTick = ghostAtPreviousTick = ghostVisible = false;
+    }
+
+    // Si el fantasma está en pista en el último interpolate() (la grabación puede acabar o tener huecos)
+    public boolean isGhostVisible() {
+        return ghostVisible;
+    }
+
+    public CarState getGhost() {
+        return ghost;
+    }
+
+    // Pose del fantasma como las de getPoses(), válida si isGhostVisible()
+    public float[] getGhostPose() {
+        return ghostPose;
+    }
+
+    public CarState getPlayer() {
+        return cars[0];
+    }
+
+    public CarState[] getCars() {
+        return cars;
+    }
+
+    public float getPlayerProgress() {
+        return getPlayer().progress;
+    }
+
+    public float getPlayerDistance() {
+        return field.distance(RaceField.PLAYER);
+    }
+
+    // Poses de todos los coches del último interpolate(), RaceField.POSE_FLOATS por coche
+    public float[] getPoses() {
+        return field.poses();
+    }
+
+    public RaceField getField() {
+        return field;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    // Interpolada para el frame actual
+    public float getWheelRotation() {
+        return renderWheelRotation;
+    }
+}
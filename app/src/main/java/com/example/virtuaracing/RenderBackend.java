@@ -0,0 +1,101 @@
+package com.example.virtuaracing;
+
+import android.graphics.Bitmap;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Lo que MyGLRenderer necesita de OpenGL, para poder dibujar lo mismo con el pipeline fijo de
+ * GLES 1.x (Gl10Backend) o con shaders de GLES 2/3 (Gles2Backend). Las operaciones de matrices
+ * y luces siguen la semántica de GLES 1.x: multiplican por la derecha la matriz actual y la
+ * posición de una luz se transforma con la modelview del momento en que se fija.
+ *
+ * Se elige al arrancar (MainActivity) para poder comparar tiempos de frame entre los dos.
+ */
+public interface RenderBackend {
+
+    // Tipos de backend; contextVersion es la que hay que pedir a GLSurfaceView
+    enum Kind {
+        GL10(1), GLES2(2), GLES3(3);
+
+        public final int contextVersion;
+
+        Kind(int contextVersion) {
+            this.contextVersion = contextVersion;
+        }
+
+        /**
+         * @param requested nombre pedido (p. ej. extra "backend" del Intent) o null
+         * @param reqGlEsVersion versión que soporta el dispositivo (ConfigurationInfo, 0x30000 = 3.0)
+         * @return el pedido si el dispositivo lo soporta; si no, el mejor disponible
+         */
+        public static Kind select(String requested, int reqGlEsVersion) {
+            Kind best = reqGlEsVersion >= 0x30000 ? GLES3 : reqGlEsVersion >= 0x20000 ? GLES2 : GL10;
+            if (requested != null) {
+                for (Kind kind : values()) {
+                    if (kind.name().equalsIgnoreCase(requested) && kind.contextVersion <= best.contextVersion) return kind;
+                }
+            }
+            return best;
+        }
+    }
+
+    int LIGHT_COUNT = 2;
+    float ALPHA_REF = 0.1f; //con setAlphaTest se descartan los fragmentos con menos alfa
+    // Parámetros de setLight (como en glLightfv)
+    int LIGHT_POSITION = 0, LIGHT_AMBIENT = 1, LIGHT_DIFFUSE = 2, LIGHT_SPECULAR = 3;
+
+    Kind kind();
+
+    // --- ESTADO GENERAL ---
+    void init(float r, float g, float b);  //estado inicial del contexto y color de fondo
+    void viewport(int width, int height);
+    void viewport(int x, int y, int width, int height); //parte de la superficie (captura de impostores)
+    void setClearColor(float r, float g, float b);
+    void clear();
+    void setLighting(boolean enabled);
+    void setDepthTest(boolean enabled);
+    void setDepthWrite(boolean enabled);     //glDepthMask: sin escribir profundidad para lo semitransparente
+    void setBlending(boolean enabled);       //alpha normal (SRC_ALPHA, ONE_MINUS_SRC_ALPHA)
+    void setAlphaTest(boolean enabled);      //recortes (impostores); en GLES 2/3 solo sin iluminación
+    void setTexturing(boolean enabled);
+    void setColor(float r, float g, float b, float a); //con iluminación solo cuenta el alfa
+
+    // --- MATRICES (modelview salvo perspective/pushOrtho) ---
+    void perspective(float fovY, float aspect, float near, float far); //sustituye la proyección
+    void pushOrtho(float left, float right, float bottom, float top);  //guarda proyección y modelview (identidad)
+    void popOrtho();
+    void loadIdentity();
+    void lookAt(float ex, float ey, float ez, float cx, float cy, float cz, float ux, float uy, float uz);
+    void pushMatrix();
+    void popMatrix();
+    void translate(float x, float y, float z);
+    void rotate(float angle, float x, float y, float z);
+    void scale(float x, float y, float z);
+    void multMatrix(float[] m, int offset);
+
+    // --- LUCES (0..LIGHT_COUNT-1) ---
+    void setLightEnabled(int light, boolean enabled);
+    void setLight(int light, int parameter, float[] value);
+    void setLightAttenuation(int light, float constant, float linear, float quadratic);
+
+    // --- RECURSOS ---
+    int createTexture(Bitmap bitmap);        //con mipmaps si el contexto los puede generar
+    boolean supportsEtc2();
+    // Sube los niveles tal cual; 0 si el contexto no tiene ETC2 (quien llama sube el PNG)
+    default int createCompressedTexture(KtxFile ktx) {
+        return 0;
+    }
+    void bindTexture(int textureId);
+    int createBuffer(boolean indices, Buffer data, int bytes); //0 si no hay VBOs
+    void deleteBuffers(int[] ids, int count);
+    void readPixels(int x, int y, int width, int height, ByteBuffer rgba); //RGBA, filas de abajo arriba
+
+    // --- DIBUJO ---
+    void draw(Object3D mesh);
+    void drawInstances(Object3D mesh, InstanceBatch batch);
+    // Cuadrado unidad (0,0)-(1,1) con la región (u0,v0)-(u1,v1) de la textura derecha (v0 = fila
+    // de arriba, como TextureAtlas.uv), para el HUD
+    void drawQuad(float u0, float v0, float u1, float v1);
+}
@@ -0,0 +1,127 @@
+package com.example.virtuaracing;
+
+import java.util.Arrays;
+
+/**
+ * Lista de dibujos opacos del frame que se ordena antes de enviarla, para que los que comparten
+ * estado queden seguidos y GlStateCache pueda saltarse los cambios: primero por capa (el cielo
+ * antes que el resto), luego iluminación, textura y malla. A igualdad se respeta el orden de
+ * llegada.
+ *
+ * La clave de orden es un long (capa | sin luz | textura | malla | índice), así que ordenar es un
+ * LongSort de primitivos (Arrays.sort reservaría memoria con las claves casi en orden de llegada,
+ * que es lo normal). Tras la primera vez no reserva memoria salvo que crezca.
+ *
+ * @param <T> la malla (Object3D en el juego)
+ */
+public class RenderQueue<T> {
+
+    public static final int LAYER_SKY = 0, LAYER_OPAQUE = 1;
+
+    // Bits de cada campo de la clave
+    private static final int INDEX_BITS = 20, MESH_BITS = 20, TEXTURE_BITS = 18, LAYER_BITS = 4;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+    private long[] keys;
+    private Object[] meshes;
+    private InstanceBatch[] batches;
+    private boolean[] lit;
+    private int[] textures;
+    private boolean[] hasMatrix;
+    private float[] matrices;
+    private int size;
+
+    public RenderQueue(int capacity) {
+        keys = new long[capacity];
+        meshes = new Object[capacity];
+        batches = new InstanceBatch[capacity];
+        lit = new boolean[capacity];
+        textures = new int[capacity];
+        hasMatrix = new boolean[capacity];
+        matrices = new float[capacity * 16];
+    }
+
+    public void clear() {
+        Arrays.fill(meshes, 0, size, null); //no retener mallas liberadas
+        Arrays.fill(batches, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Añade un dibujo. 'matrix' (se copia) se multiplica por la vista antes de dibujar; null = la
+     * malla ya está en coordenadas de mundo. Con 'instances' se dibuja el lote entero.
+     */
+    public void add(int layer, boolean lighting, int texture, int meshId, T mesh,
+                    float[] matrix, int matrixOffset, InstanceBatch instances) {
+        if (size == keys.length) grow();
+        int i = size++;
+        keys[i] = key(layer, lighting, texture, meshId) | i;
+        meshes[i] = mesh;
+        batches[i] = instances;
+        lit[i] = lighting;
+        textures[i] = texture;
+        hasMatrix[i] = matrix != null;
+        if (matrix != null) System.arraycopy(matrix, matrixOffset, matrices, i * 16, 16);
+    }
+
+    // Clave sin el índice: los campos que no caben se recortan (solo empeora el agrupado)
+    static long key(int layer, boolean lighting, int texture, int meshId) {
+        long k = layer & ((1L << LAYER_BITS) - 1);
+        k = k << 1 | (lighting ? 0 : 1);
+        k = k << TEXTURE_BITS | (texture & ((1L << TEXTURE_BITS) - 1));
+        k = k << MESH_BITS | (meshId & ((1L << MESH_BITS) - 1));
+        return k << INDEX_BITS;
+    }
+
+    public void sort() {
+        LongSort.sort(keys, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Accesos por posición en el orden de envío (después de sort())
+    private int item(int position) {
+        return (int) (keys[position] & INDEX_MASK);
+    }
+
+    @SuppressWarnings("unchecked")
+    public T mesh(int position) {
+        return (T) meshes[item(position)];
+    }
+
+    public InstanceBatch instances(int position) {
+        return batches[item(position)];
+    }
+
+    public boolean lighting(int position) {
+        return lit[item(position)];
+    }
+
+    public int texture(int position) {
+        return textures[item(position)];
+    }
+
+    // Offset de la matriz en matrices(), o -1 si el dibujo no lleva matriz propia
+    public int matrixOffset(int position) {
+        int i = item(position);
+        return hasMatrix[i] ? i * 16 : -1;
+    }
+
+    public float[] matrices() {
+        return matrices;
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, keys.length * 2);
+        if (capacity > INDEX_MASK + 1) throw new IllegalStateException("Demasiados dibujos en la cola");
+        keys = Arrays.copyOf(keys, capacity);
+        meshes = Arrays.copyOf(meshes, capacity);
+        batches = Arrays.copyOf(batches, capacity);
+        lit = Arrays.copyOf(lit, capacity);
+        textures = Arrays.copyOf(textures, capacity);
+        hasMatrix = Arrays.copyOf(hasMatrix, capacity);
+        matrices = Arrays.copyOf(matrices, capacity * 16);
+    }
+}
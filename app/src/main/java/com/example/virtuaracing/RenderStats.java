@@ -0,0 +1,51 @@
+package com.example.virtuaracing;
+
+/**
+ * Contadores globales de lo que se envía a la GPU en cada frame. El renderer llama a endFrame()
+ * al final de onDrawFrame y los valores del frame terminado quedan en los campos last*.
+ */
+public final class RenderStats {
+
+    // Frame en curso
+    public static long bytesUploaded;
+    public static int objectsDrawn;
+    public static int objectsCulled;
+    public static int drawCalls;
+    public static int textureBinds;
+    public static int trianglesSubmitted;
+    public static int instancesDrawn; //mallas dibujadas, sueltas o dentro de un lote instanciado
+    public static int stateCallsSkipped; //llamadas de GL redundantes que GlStateCache ha evitado
+    public static int trianglesSavedByLod; //triángulos que no se envían por dibujar niveles de detalle simplificados
+    public static int impostorsDrawn; //objetos lejanos dibujados como impostor
+
+    // Último frame completo
+    public static long lastBytesUploaded;
+    public static int lastObjectsDrawn;
+    public static int lastObjectsCulled;
+    public static int lastDrawCalls;
+    public static int lastTextureBinds;
+    public static int lastTrianglesSubmitted;
+    public static int lastInstancesDrawn;
+    public static int lastStateCallsSkipped;
+    public static int lastTrianglesSavedByLod;
+    public static int lastImpostorsDrawn;
+
+    private RenderStats() {}
+
+    public static void endFrame() {
+        lastBytesUploaded = bytesUploaded;
+        lastObjectsDrawn = objectsDrawn;
+        lastObjectsCulled = objectsCulled;
+        lastDrawCalls = drawCalls;
+        lastTextureBinds = textureBinds;
+        lastTrianglesSubmitted = trianglesSubmitted;
+        lastInstancesDrawn = instancesDrawn;
+        lastStateCallsSkipped = stateCallsSkipped;
+        lastTrianglesSavedByLod = trianglesSavedByLod;
+        lastImpostorsDrawn = impostorsDrawn;
+        bytesUploaded = 0;
+        objectsDrawn = objectsCulled = 0;
+        drawCalls = textureBinds = trianglesSubmitted = instancesDrawn = stateCallsSkipped = 0;
+        trianglesSavedByLod = impostorsDrawn = 0;
+    }
+}
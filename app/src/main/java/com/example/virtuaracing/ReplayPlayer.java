@@ -0,0 +1,203 @@
+package com.example.virtuaracing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Lectura de una grabación de ReplayRecorder (.vrr) tick a tick. Al crearlo recorre el fichero una
+ * vez para indexar los fotogramas clave; seek() salta al último clave anterior al tick pedido y
+ * decodifica desde ahí (como mucho keyframeInterval registros) y moveTo() avanza sin buscar cuando
+ * se pide el tick siguiente, que es lo normal al reproducir un fantasma.
+ *
+ * Tras un salto de ticks en la grabación (pausa o anillo desbordado) los ticks que faltan no
+ * existen: seek() y moveTo() devuelven false y el estado se queda en el último tick anterior.
+ */
+public class ReplayPlayer {
+
+    private static final float PROGRESS_SCALE = ReplayRecorder.PROGRESS_SCALE;
+    private static final float LATERAL_SCALE = ReplayRecorder.LATERAL_SCALE;
+    private static final float STEERING_SCALE = ReplayRecorder.STEERING_SCALE;
+    private static final int MOVED = ReplayRecorder.MOVED, LATERAL = ReplayRecorder.LATERAL,
+            STEERING = ReplayRecorder.STEERING, INPUT = ReplayRecorder.INPUT, KEYFRAME = ReplayRecorder.KEYFRAME;
+
+    private final byte[] data;
+    private final int end; //fin del último registro completo
+    private final int keyframeInterval, progressPeriod;
+    private final int[] keyPositions;
+    private final long[] keyTicks;
+    private final long firstTick, lastTick;
+
+    // Registro decodificado y posición del siguiente
+    private int position;
+    private boolean valid;
+    private long tick;
+    private int progress, move, lateral, steering, inputs;
+    private boolean truncated; //el último registro leído se salía del fichero
+
+    public ReplayPlayer(ByteBuffer buffer) throws IOException {
+        ByteBuffer bb = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (bb.remaining() < ReplayRecorder.HEADER_BYTES || bb.getInt() != ReplayRecorder.MAGIC) {
+            throw new IOException("No es una grabación VRR");
+        }
+        int version = bb.getInt();
+        if (version != ReplayRecorder.VERSION) throw new IOException("Versión VRR no soportada: " + version);
+        keyframeInterval = bb.getInt();
+        progressPeriod = bb.getInt();
+        data = new byte[bb.remaining()];
+        bb.get(data);
+
+        // Índice de fotogramas clave (los registros se recorren enteros para validar el fichero)
+        int[] positions = new int[16];
+        long[] ticks = new long[16];
+        int keys = 0, complete = 0;
+        long last = -1;
+        position = 0;
+        while (position < data.length) {
+            int at = position;
+            if (keys == 0 && (data[at] & KEYFRAME) == 0) throw new IOException("La grabación no empieza en un fotograma clave");
+            if (!decodeNext()) break; //fichero cortado a medio registro (la app murió al volcar): se ignora el resto
+            complete = position;
+            if ((data[at] & KEYFRAME) != 0) {
+                if (keys == positions.length) {
+                    positions = Arrays.copyOf(positions, keys * 2);
+                    ticks = Arrays.copyOf(ticks, keys * 2);
+                }
+                positions[keys] = at;
+                ticks[keys++] = tick;
+            }
+            last = tick;
+        }
+        keyPositions = Arrays.copyOf(positions, keys);
+        keyTicks = Arrays.copyOf(ticks, keys);
+        firstTick = keys > 0 ? keyTicks[0] : -1;
+        lastTick = last;
+        end = complete;
+        position = 0;
+        valid = false;
+    }
+
+    // Lee el canal hasta el final (un fichero .vrr abierto con FileInputStream.getChannel())
+    public static ReplayPlayer read(ReadableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        while (channel.read(buffer) >= 0) {
+            if (!buffer.hasRemaining()) {
+                ByteBuffer bigger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                bigger.put(buffer);
+                buffer = bigger;
+            }
+        }
+        buffer.flip();
+        return new ReplayPlayer(buffer);
+    }
+
+    /**
+     * Se coloca en 'target': true si la grabación tiene ese tick, false si cae antes del primero,
+     * después del último o en un salto (el estado queda en el tick anterior más cercano, si hay).
+     */
+    public boolean seek(long target) {
+        int key = lastKeyframeAtOrBefore(target);
+        if (key < 0) {
+            valid = false;
+            return false;
+        }
+        position = keyPositions[key];
+        decodeNext();
+        valid = true;
+        return stepTo(target);
+    }
+
+    // Como seek(), pero sin buscar si target está un poco por delante del tick actual
+    public boolean moveTo(long target) {
+        if (valid && target >= tick && target - tick <= keyframeInterval) return stepTo(target);
+        return seek(target);
+    }
+
+    private boolean stepTo(long target) {
+        while (tick < target && position < end && nextTick() <= target) decodeNext();
+        return tick == target;
+    }
+
+    // Tick del registro en 'position' sin decodificarlo
+    private long nextTick() {
+        if ((data[position] & KEYFRAME) == 0) return tick + 1;
+        long v = 0;
+        int p = position + 1;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[p++];
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
+    }
+
+    private int lastKeyframeAtOrBefore(long target) {
+        int lo = 0, hi = keyTicks.length - 1, found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keyTicks[mid] <= target) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    // Decodifica el registro en 'position'; false si el fichero acaba antes que él (estado a medias)
+    private boolean decodeNext() {
+        truncated = false;
+        int flags = data[position++] & 0xFF;
+        if ((flags & KEYFRAME) != 0) {
+            tick = readVarLong();
+            progress = readVarInt();
+            move = ReplayRecorder.unzigzag(readVarInt());
+            lateral = ReplayRecorder.unzigzag(readVarInt());
+            steering = ReplayRecorder.unzigzag(readVarInt());
+        } else {
+            tick++;
+            if ((flags & MOVED) != 0) move += ReplayRecorder.unzigzag(readVarInt());
+            progress += move;
+            if (progressPeriod > 0) {
+                if (progress >= progressPeriod) progress -= progressPeriod;
+                else if (progress < 0) progress += progressPeriod;
+            }
+            if ((flags & LATERAL) != 0) lateral += ReplayRecorder.unzigzag(readVarInt());
+            if ((flags & STEERING) != 0) steering += ReplayRecorder.unzigzag(readVarInt());
+        }
+        inputs = (flags & INPUT) != 0 ? readVarInt() : 0;
+        return !truncated;
+    }
+
+    private int readVarInt() {
+        return (int) readVarLong();
+    }
+
+    private long readVarLong() {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (position == data.length) {
+                truncated = true;
+                return 0;
+            }
+            byte b = data[position++];
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
+    }
+
+    public long firstTick() { return firstTick; }
+    public long lastTick() { return lastTick; }
+    public int keyframes() { return keyTicks.length; }
+    public boolean isEmpty() { return keyTicks.length == 0; }
+
+    // Estado del tick en el que está (tras seek/moveTo)
+    public long tick() { return tick; }
+    public float progress() { return progress / PROGRESS_SCALE; }
+    public float lateral() { return lateral / LATERAL_SCALE; }
+    public float steering() { return steering / STEERING_SCALE; }
+    public int inputs() { return inputs; }
+}
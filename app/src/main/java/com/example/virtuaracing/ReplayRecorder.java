@@ -0,0 +1,246 @@
+package com.example.virtuaracing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Grabación de una carrera (.vrr): por tick, las órdenes del jugador y el estado de su coche
+ * (progreso en la ruta, desplazamiento lateral y giro del volante) cuantizados a enteros y
+ * guardados como diferencias en varint, en un anillo de bytes que flush() vuelca a un canal.
+ * record() no reserva memoria: codifica en un array de trabajo y copia al anillo.
+ *
+ * El fichero empieza con una cabecera little-endian de 16 bytes:
+ *
+ *   int magic ("VRRP"), int versión, int ticks entre fotogramas clave,
+ *   int periodo del progreso (tamaño de la ruta por PROGRESS_SCALE, 0 si no da la vuelta)
+ *
+ * y sigue con un registro por tick. Cada registro empieza con un byte de flags:
+ *
+ *   - KEYFRAME: estado completo (tick en varint, progreso, avance por tick, lateral y volante en
+ *     zigzag). Se escribe cada keyframeInterval ticks y tras un salto de ticks; ReplayPlayer salta
+ *     de uno a otro para buscar un tick sin decodificar desde el principio.
+ *   - Si no, el tick es el anterior + 1 y solo van los campos que cambian: MOVED (segunda
+ *     diferencia del progreso, 0 a velocidad constante), LATERAL y STEERING (diferencias).
+ *   - INPUT: máscara de órdenes (bits de InputQueue) en varint; sin él, ninguna orden.
+ *
+ * A velocidad constante y sin cambiar de carril un tick ocupa 1 byte. Si el anillo se llena antes
+ * de volcarlo se pierde lo más antiguo hasta el siguiente fotograma clave, de modo que lo que
+ * queda siempre se puede decodificar.
+ */
+public class ReplayRecorder {
+
+    public static final int MAGIC = 0x50525256; // "VRRP" leído en little-endian
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 16;
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 60; //un segundo
+
+    // Cuantización: progreso en 1/10000 de segmento, lateral en mm, volante en centésimas de grado
+    public static final float PROGRESS_SCALE = 10000.0f;
+    public static final float LATERAL_SCALE = 1000.0f;
+    public static final float STEERING_SCALE = 100.0f;
+
+    static final int MOVED = 1, LATERAL = 2, STEERING = 4, INPUT = 8, KEYFRAME = 0x80;
+    private static final int MAX_RECORD_BYTES = 1 + 10 + 4 * 5 + 5; //flags, tick y 5 varints
+    private static final int MIN_KEYFRAME_BYTES = 6;
+
+    private final byte[] ring;
+    private final int mask;
+    private final ByteBuffer ringBuffer; //vista del anillo para escribir en el canal
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private final byte[] record = new byte[MAX_RECORD_BYTES];
+    private final int keyframeInterval;
+    private final int progressPeriod;
+
+    // Posiciones absolutas (sin dar la vuelta) en el flujo de registros
+    private long start, written, flushed;
+    private boolean headerWritten;
+
+    // Índice de fotogramas clave del anillo (posición y tick), también circular
+    private final long[] keyPositions, keyTicks;
+    private int keyFirst, keyCount;
+
+    // Último estado grabado
+    private long lastTick = -1;
+    private int lastProgress, lastMove, lastLateral, lastSteering;
+    private int sinceKeyframe;
+
+    /**
+     * @param capacity       bytes del anillo (se redondea a potencia de 2, mínimo 64)
+     * @param progressPeriod tamaño de la ruta (Route.size()): el progreso vuelve a 0 al pasarlo
+     */
+    public ReplayRecorder(int capacity, float progressPeriod) {
+        this(capacity, progressPeriod, DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    public ReplayRecorder(int capacity, float progressPeriod, int keyframeInterval) {
+        int size = Integer.highestOneBit(Math.max(64, capacity - 1)) << 1;
+        ring = new byte[size];
+        mask = size - 1;
+        ringBuffer = ByteBuffer.wrap(ring);
+        keyPositions = new long[size / MIN_KEYFRAME_BYTES + 1];
+        keyTicks = new long[keyPositions.length];
+        this.keyframeInterval = Math.max(1, keyframeInterval);
+        this.progressPeriod = Math.round(progressPeriod * PROGRESS_SCALE);
+    }
+
+    /**
+     * Graba el estado del tick 'tick' (normalmente el anterior + 1). inputs es la máscara de
+     * órdenes recibidas en ese tick, 1 << InputQueue.X por cada una.
+     */
+    public void record(long tick, float progress, float lateral, float steering, int inputs) {
+        int q = Math.round(progress * PROGRESS_SCALE);
+        int l = Math.round(lateral * LATERAL_SCALE);
+        int s = Math.round(steering * STEERING_SCALE);
+        boolean consecutive = lastTick >= 0 && tick == lastTick + 1;
+        int move = consecutive ? wrapDelta(q - lastProgress) : 0;
+        boolean keyframe = !consecutive || sinceKeyframe >= keyframeInterval || keyCount == 0;
+
+        int n = encode(keyframe, tick, q, move, l, s, inputs);
+        while (written + n - start > ring.length) {
+            if (keyCount > 1) {
+                // Se pierde lo anterior al segundo fotograma clave
+                keyFirst = (keyFirst + 1) % keyPositions.length;
+                keyCount--;
+                start = keyPositions[keyFirst];
+            } else {
+                // Solo queda la cadena actual: se vacía y este registro pasa a ser clave
+                start = written;
+                keyCount = 0;
+                if (!keyframe) {
+                    keyframe = true;
+                    n = encode(true, tick, q, move, l, s, inputs);
+                }
+            }
+        }
+
+        if (keyframe) {
+            int k = (keyFirst + keyCount) % keyPositions.length;
+            keyPositions[k] = written;
+            keyTicks[k] = tick;
+            keyCount++;
+            sinceKeyframe = 0;
+        }
+        int offset = (int) (written & mask);
+        int first = Math.min(n, ring.length - offset);
+        System.arraycopy(record, 0, ring, offset, first);
+        System.arraycopy(record, first, ring, 0, n - first);
+        written += n;
+        sinceKeyframe++;
+
+        lastTick = tick;
+        lastProgress = q;
+        lastMove = move;
+        lastLateral = l;
+        lastSteering = s;
+    }
+
+    // Registro en 'record'; devuelve su tamaño
+    private int encode(boolean keyframe, long tick, int q, int move, int l, int s, int inputs) {
+        int n = 1;
+        int flags = inputs != 0 ? INPUT : 0;
+        if (keyframe) {
+            flags |= KEYFRAME;
+            n = putVarLong(record, n, tick);
+            n = putVarInt(record, n, q);
+            n = putVarInt(record, n, zigzag(move));
+            n = putVarInt(record, n, zigzag(l));
+            n = putVarInt(record, n, zigzag(s));
+        } else {
+            if (move != lastMove) {
+                flags |= MOVED;
+                n = putVarInt(record, n, zigzag(move - lastMove));
+            }
+            if (l != lastLateral) {
+                flags |= LATERAL;
+                n = putVarInt(record, n, zigzag(l - lastLateral));
+            }
+            if (s != lastSteering) {
+                flags |= STEERING;
+                n = putVarInt(record, n, zigzag(s - lastSteering));
+            }
+        }
+        if (inputs != 0) n = putVarInt(record, n, inputs);
+        record[0] = (byte) flags;
+        return n;
+    }
+
+    // Avance por el camino corto si el progreso ha dado la vuelta a la ruta
+    private int wrapDelta(int delta) {
+        if (progressPeriod <= 0) return delta;
+        if (delta > progressPeriod / 2) return delta - progressPeriod;
+        if (delta < -progressPeriod / 2) return delta + progressPeriod;
+        return delta;
+    }
+
+    /**
+     * Escribe en el canal la cabecera (la primera vez) y lo grabado desde el último volcado (o
+     * desde el registro más antiguo que quede en el anillo, si se ha llenado). El anillo hace de
+     * buffer: se escribe en uno o dos trozos grandes, sin copias.
+     */
+    public void flush(WritableByteChannel channel) throws IOException {
+        if (!headerWritten) {
+            header.clear();
+            header.putInt(MAGIC).putInt(VERSION).putInt(keyframeInterval).putInt(progressPeriod);
+            header.flip();
+            while (header.hasRemaining()) channel.write(header);
+            headerWritten = true;
+        }
+        long from = Math.max(flushed, start);
+        while (from < written) {
+            int offset = (int) (from & mask);
+            int length = (int) Math.min(written - from, ring.length - offset);
+            ringBuffer.limit(offset + length);
+            ringBuffer.position(offset);
+            while (ringBuffer.hasRemaining()) channel.write(ringBuffer);
+            from += length;
+        }
+        flushed = written;
+    }
+
+    // Bytes grabados que aún no se han volcado
+    public int pending() {
+        return (int) (written - Math.max(flushed, start));
+    }
+
+    // Bytes grabados en total (incluidos los ya volcados o perdidos)
+    public long size() {
+        return written;
+    }
+
+    public long lastTick() {
+        return lastTick;
+    }
+
+    public int keyframeInterval() {
+        return keyframeInterval;
+    }
+
+    // --- VARINT (7 bits por byte, el alto indica que sigue otro) ---
+    static int zigzag(int v) {
+        return (v << 1) ^ (v >> 31);
+    }
+
+    static int unzigzag(int v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static int putVarInt(byte[] out, int n, int v) {
+        while ((v & ~0x7F) != 0) {
+            out[n++] = (byte) (v & 0x7F | 0x80);
+            v >>>= 7;
+        }
+        out[n++] = (byte) v;
+        return n;
+    }
+
+    private static int putVarLong(byte[] out, int n, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out[n++] = (byte) (v & 0x7F | 0x80);
+            v >>>= 7;
+        }
+        out[n++] = (byte) v;
+        return n;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.virtuaracing;
+
+/**
+ * Últimas N muestras de una métrica en un anillo de tamaño fijo, con percentiles bajo demanda.
+ * add() es O(1) y ni add() ni percentile() reservan memoria: se ordena con LongSort en un array de
+ * trabajo creado en el constructor (un anillo son dos tramos ya ordenados, el caso en el que
+ * Arrays.sort sí reserva) y el orden se reutiliza entre consultas hasta que llega una muestra nueva.
+ */
+public class RingHistogram {
+
+    private final long[] samples;
+    private final long[] sorted;
+    private int count, next;
+    private boolean sortedValid;
+
+    public RingHistogram(int capacity) {
+        samples = new long[capacity];
+        sorted = new long[capacity];
+    }
+
+    public void add(long value) {
+        samples[next] = value;
+        next = next + 1 == samples.length ? 0 : next + 1;
+        if (count < samples.length) count++;
+        sortedValid = false;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long last() {
+        return count == 0 ? 0 : samples[next == 0 ? samples.length - 1 : next - 1];
+    }
+
+    // Percentil por rango más cercano (p en [0, 1]); 0 si aún no hay muestras
+    public long percentile(double p) {
+        if (count == 0) return 0;
+        if (!sortedValid) {
+            System.arraycopy(samples, 0, sorted, 0, count);
+            LongSort.sort(sorted, count);
+            sortedValid = true;
+        }
+        int rank = (int) Math.ceil(p * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, rank))];
+    }
+
+    public void clear() {
+        count = next = 0;
+        sortedValid = false;
+    }
+}
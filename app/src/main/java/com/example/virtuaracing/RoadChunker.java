@@ -0,0 +1,102 @@
+package com.example.virtuaracing;
+
+import java.util.Arrays;
+
+/**
+ * Parte la malla de la carretera en trozos a lo largo de la ruta. Cada triángulo va al trozo del
+ * punto de ruta más cercano a su centroide (en XZ), y el trozo k agrupa los puntos de ruta
+ * [k * pointsPerChunk, (k + 1) * pointsPerChunk). Así el coste de dibujar la carretera depende
+ * de lo que hay cerca del jugador y no de la longitud de la pista.
+ */
+public final class RoadChunker {
+
+    private RoadChunker() {}
+
+    public static int chunkCount(int routeCount, int pointsPerChunk) {
+        return Math.max(1, (routeCount + pointsPerChunk - 1) / pointsPerChunk);
+    }
+
+    /**
+     * @param route puntos de ruta (x, y, z) consecutivos
+     * @return un MeshData indexado por trozo (vacío si no le toca ningún triángulo)
+     */
+    public static MeshData[] split(MeshData mesh, float[] route, int routeCount, int pointsPerChunk) {
+        int chunks = chunkCount(routeCount, pointsPerChunk);
+        int triangles = mesh.drawCount() / 3;
+
+        // 1. Trozo de cada triángulo
+        float[] xs = new float[routeCount], zs = new float[routeCount];
+        for (int i = 0; i < routeCount; i++) {
+            xs[i] = route[i * 3];
+            zs[i] = route[i * 3 + 2];
+        }
+        SpatialGrid grid = new SpatialGrid(xs, zs, routeCount, 20.0f);
+        int[] candidates = new int[routeCount];
+        int[] chunkOf = new int[triangles];
+        int[] trianglesPerChunk = new int[chunks];
+        for (int t = 0; t < triangles; t++) {
+            float cx = 0, cz = 0;
+            for (int k = 0; k < 3; k++) {
+                int o = vertexOf(mesh, t * 3 + k) * MeshData.STRIDE;
+                cx += mesh.vertices[o];
+                cz += mesh.vertices[o + 2];
+            }
+            int nearest = routeCount == 0 ? 0 : nearest(grid, xs, zs, cx / 3, cz / 3, candidates);
+            chunkOf[t] = nearest / pointsPerChunk;
+            trianglesPerChunk[chunkOf[t]]++;
+        }
+
+        // 2. Triángulos ordenados por trozo (cubetas)
+        int[] chunkStart = new int[chunks + 1];
+        for (int c = 0; c < chunks; c++) chunkStart[c + 1] = chunkStart[c] + trianglesPerChunk[c];
+        int[] order = new int[triangles];
+        int[] fill = Arrays.copyOf(chunkStart, chunks);
+        for (int t = 0; t < triangles; t++) order[fill[chunkOf[t]]++] = t;
+
+        // 3. Reindexar los vértices usados por cada trozo
+        MeshData[] out = new MeshData[chunks];
+        int[] remap = new int[mesh.vertexCount];
+        Arrays.fill(remap, -1);
+        for (int c = 0; c < chunks; c++) {
+            int[] indices = new int[trianglesPerChunk[c] * 3];
+            float[] vertices = new float[indices.length * MeshData.STRIDE];
+            int used = 0, n = 0;
+            for (int k = chunkStart[c] * 3; k < chunkStart[c + 1] * 3; k++) {
+                int v = vertexOf(mesh, order[k / 3] * 3 + k % 3);
+                if (remap[v] < 0) {
+                    remap[v] = used;
+                    System.arraycopy(mesh.vertices, v * MeshData.STRIDE, vertices, used * MeshData.STRIDE, MeshData.STRIDE);
+                    used++;
+                }
+                indices[n++] = remap[v];
+            }
+            // Limpiar solo lo que se ha tocado
+            for (int k = chunkStart[c] * 3; k < chunkStart[c + 1] * 3; k++) {
+                remap[vertexOf(mesh, order[k / 3] * 3 + k % 3)] = -1;
+            }
+            out[c] = new MeshData(Arrays.copyOf(vertices, used * MeshData.STRIDE), used, mesh.hasNormals, indices, n);
+        }
+        return out;
+    }
+
+    private static int vertexOf(MeshData mesh, int corner) {
+        return mesh.isIndexed() ? mesh.indices[corner] : corner;
+    }
+
+    // Vecino más cercano: se amplía el radio de búsqueda hasta encontrar candidatos
+    private static int nearest(SpatialGrid grid, float[] xs, float[] zs, float x, float z, int[] candidates) {
+        for (float radius = 10.0f; ; radius *= 2) {
+            int found = grid.query(x, z, radius, candidates);
+            int best = -1;
+            float bestSq = Float.MAX_VALUE;
+            for (int k = 0; k < found; k++) {
+                int i = candidates[k];
+                float dx = xs[i] - x, dz = zs[i] - z;
+                float dSq = dx * dx + dz * dz;
+                if (dSq < bestSq || (dSq == bestSq && i < best)) { bestSq = dSq; best = i; }
+            }
+            // Solo es seguro si el mejor está dentro del radio consultado
+            if (best >= 0 && bestSq <= radius * radius) return best;
+        }
+    }
+}
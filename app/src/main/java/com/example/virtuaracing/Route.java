@@ -0,0 +1,267 @@
+package com.example.virtuaracing;
+
+import java.util.Arrays;
+
+/**
+ * Ruta cerrada guardada en arrays planos (x, y, z por separado) con todo lo que se consulta cada
+ * frame ya calculado al cargar: rumbo y giro de volante de cada segmento, longitud del segmento y
+ * distancia acumulada desde la salida. El segmento i va del punto i al i+1 (el último vuelve al 0).
+ *
+ * Acceso por índice en O(1) y por distancia recorrida en O(log n) (búsqueda binaria). Las rutas
+ * creadas con resample() tienen los puntos equiespaciados sobre una Catmull-Rom centrípeta que
+ * pasa por los puntos del OBJ, y entonces la búsqueda por distancia es directa (O(1)) y la
+ * velocidad en metros no depende de lo densa que sea la ruta original.
+ */
+public class Route {
+
+    private static final float STEER_GAIN = 7.5f;  //ganancia de giro del volante
+    private static final float MAX_STEER = 50.0f;  //lím máx de giro
+    private static final int LUT_SUBDIVISIONS = 16;  //muestras por tramo al medir la curva
+    private static final float MIN_POINT_DISTANCE = 1e-3f; //puntos repetidos del OBJ
+
+    private final int count;
+    private final float[] xs, ys, zs;
+    private final float[] heading;       //grados, atan2(dx, dz) del segmento
+    private final float[] steering;      //giro del volante mirando el segmento siguiente
+    private final float[] segmentLength;
+    private final float[] distance;      //distancia acumulada hasta el punto i (count + 1 valores)
+    private final float spacing;         //> 0 si los puntos están equiespaciados sobre la curva
+
+    // positions: x, y, z intercalados (como los devuelve ObjParser o MeshBinary.readPoints)
+    public Route(float[] positions, int count) {
+        this(positions, count, 0);
+    }
+
+    /**
+     * Remuestrea la ruta por longitud de arco: ajusta una Catmull-Rom centrípeta cerrada a los puntos, la mide
+     * con una tabla de distancias (LUT_SUBDIVISIONS muestras por tramo) y coloca un punto cada
+     * spacing metros, ajustado para que la vuelta sea un número entero de tramos iguales.
+     */
+    public static Route resample(float[] positions, int count, float spacing) {
+        float[] control = removeDuplicates(positions, count);
+        int n = control.length / 3;
+        if (n < 3) return new Route(control, n);
+
+        // Tabla de longitud de arco: lut[k] = distancia hasta el parámetro k / LUT_SUBDIVISIONS
+        int samples = n * LUT_SUBDIVISIONS;
+        float[] lut = new float[samples + 1];
+        float[] prev = new float[3], cur = new float[3];
+        evaluate(control, n, 0, prev);
+        for (int k = 1; k <= samples; k++) {
+            evaluate(control, n, k / (float) LUT_SUBDIVISIONS, cur);
+            float dx = cur[0] - prev[0], dy = cur[1] - prev[1], dz = cur[2] - prev[2];
+            lut[k] = lut[k - 1] + (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+            float[] swap = prev; prev = cur; cur = swap;
+        }
+
+        float total = lut[samples];
+        int outCount = Math.max(3, Math.round(total / spacing));
+        float step = total / outCount;
+        float[] out = new float[outCount * 3];
+        float[] p = new float[3];
+        int k = 0;
+        for (int i = 0; i < outCount; i++) {
+            float target = i * step;
+            while (k < samples - 1 && lut[k + 1] <= target) k++; //la LUT es creciente: avance lineal
+            float span = lut[k + 1] - lut[k];
+            float t = span > 0 ? (target - lut[k]) / span : 0;
+            evaluate(control, n, (k + t) / LUT_SUBDIVISIONS, p);
+            out[i * 3] = p[0];
+            out[i * 3 + 1] = p[1];
+            out[i * 3 + 2] = p[2];
+        }
+        return new Route(out, outCount, step);
+    }
+
+    private Route(float[] positions, int count, float spacing) {
+        this.spacing = spacing;
+        this.count = count;
+        xs = new float[count];
+        ys = new float[count];
+        zs = new float[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = positions[i * 3];
+            ys[i] = positions[i * 3 + 1];
+            zs[i] = positions[i * 3 + 2];
+        }
+
+        heading = new float[count];
+        segmentLength = new float[count];
+        distance = new float[count + 1];
+        for (int i = 0; i < count; i++) {
+            int next = (i + 1) % count;
+            double dx = xs[next] - xs[i];
+            double dz = zs[next] - zs[i];
+            float dy = ys[next] - ys[i];
+            heading[i] = (float) Math.toDegrees(Math.atan2(dx, dz));
+            //equiespaciada: la longitud es la medida sobre la curva, no la de la cuerda
+            segmentLength[i] = spacing > 0 ? spacing : (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+            distance[i + 1] = distance[i] + segmentLength[i];
+        }
+
+        steering = new float[count];
+        for (int i = 0; i < count; i++) {
+            float angleDiff = heading[(i + 1) % count] - heading[i]; //cuánto cambia la curva
+            //corregir el salto de 360 a 0 grados
+            while (angleDiff < -180) angleDiff += 360;
+            while (angleDiff > 180) angleDiff -= 360;
+            float steer = angleDiff * STEER_GAIN;
+            if (steer > MAX_STEER) steer = MAX_STEER;
+            if (steer < -MAX_STEER) steer = -MAX_STEER;
+            steering[i] = steer;
+        }
+    }
+
+    public int size() { return count; }
+    public boolean isEmpty() { return count == 0; }
+
+    public float x(int i) { return xs[i]; }
+    public float y(int i) { return ys[i]; }
+    public float z(int i) { return zs[i]; }
+    public float heading(int segment) { return heading[segment]; }
+    public float steering(int segment) { return steering[segment]; }
+    public float segmentLength(int segment) { return segmentLength[segment]; }
+    public float distanceAt(int i) { return distance[i]; }
+    public float spacing() { return spacing; }
+
+    // Longitud de la vuelta completa (incluye el segmento que cierra el circuito)
+    public float length() { return distance[count]; }
+
+    /**
+     * Segmento que contiene la distancia d (se da la vuelta si d cae fuera de [0, length)).
+     * Directa si la ruta está equiespaciada; si no, búsqueda binaria sobre la distancia acumulada.
+     */
+    public int segmentAtDistance(float d) {
+        d = wrap(d);
+        if (spacing > 0) return Math.min((int) (d / spacing), count - 1);
+        int lo = 0, hi = count - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (distance[mid] <= d) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    // Progreso (índice de punto + fracción del segmento) correspondiente a la distancia d
+    public float progressAtDistance(float d) {
+        if (count == 0) return 0;
+        d = wrap(d);
+        int segment = segmentAtDistance(d);
+        float len = segmentLength[segment];
+        float t = len > 0 ? (d - distance[segment]) / len : 0;
+        return segment + Math.min(t, 1.0f);
+    }
+
+    // Distancia recorrida desde la salida para un progreso dado (inversa de progressAtDistance)
+    public float distanceAtProgress(float progress) {
+        int idx = (int) progress;
+        return distance[idx] + segmentLength[idx] * (progress - idx);
+    }
+
+    /** Posición interpolada, rumbo del chasis y giro del volante para un progreso en [0, size). */
+    public void sample(float progress, CarState state) {
+        state.progress = progress;
+        if (count == 0) return;
+
+        int idx = Math.min((int) progress, count - 1);
+        int next = idx + 1 == count ? 0 : idx + 1;
+        float t = progress - idx;
+        state.position.set(
+                xs[idx] * (1 - t) + xs[next] * t,
+                ys[idx] * (1 - t) + ys[next] * t,
+                zs[idx] * (1 - t) + zs[next] * t, 1);
+        state.rotationY = heading[idx];
+        state.steeringAngle = steering[idx];
+    }
+
+    // Como sample(progress, CarState) en out[offset..]: x, y, z, rumbo y giro del volante (RaceField)
+    public void sample(float progress, float[] out, int offset) {
+        if (count == 0) return;
+        int idx = Math.min((int) progress, count - 1);
+        int next = idx + 1 == count ? 0 : idx + 1;
+        float t = progress - idx;
+        out[offset] = xs[idx] * (1 - t) + xs[next] * t;
+        out[offset + 1] = ys[idx] * (1 - t) + ys[next] * t;
+        out[offset + 2] = zs[idx] * (1 - t) + zs[next] * t;
+        out[offset + 3] = heading[idx];
+        out[offset + 4] = steering[idx];
+    }
+
+    // Copia intercalada x, y, z (para RoadChunker)
+    public float[] positions() {
+        float[] out = new float[count * 3];
+        for (int i = 0; i < count; i++) {
+            out[i * 3] = xs[i];
+            out[i * 3 + 1] = ys[i];
+            out[i * 3 + 2] = zs[i];
+        }
+        return out;
+    }
+
+    // Lleva una distancia a [0, length) dando las vueltas que haga falta
+    public float wrap(float d) {
+        float total = distance[count];
+        if (d >= 0 && d < total) return d; //caso normal, sin división
+        if (total <= 0) return 0;
+        d %= total;
+        if (d < 0) d += total;
+        return d;
+    }
+
+    // Quita los puntos consecutivos repetidos (también el último si cierra sobre el primero)
+    private static float[] removeDuplicates(float[] positions, int count) {
+        float[] out = new float[count * 3];
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            float x = positions[i * 3], y = positions[i * 3 + 1], z = positions[i * 3 + 2];
+            if (n > 0 && isSame(out, n - 1, x, y, z)) continue;
+            out[n * 3] = x;
+            out[n * 3 + 1] = y;
+            out[n * 3 + 2] = z;
+            n++;
+        }
+        while (n > 1 && isSame(out, 0, out[(n - 1) * 3], out[(n - 1) * 3 + 1], out[(n - 1) * 3 + 2])) n--;
+        return Arrays.copyOf(out, n * 3);
+    }
+
+    private static boolean isSame(float[] points, int i, float x, float y, float z) {
+        float dx = points[i * 3] - x, dy = points[i * 3 + 1] - y, dz = points[i * 3 + 2] - z;
+        return dx * dx + dy * dy + dz * dz < MIN_POINT_DISTANCE * MIN_POINT_DISTANCE;
+    }
+
+    // Catmull-Rom centrípeta cerrada (no hace bucles ni se pasa de largo aunque los puntos estén
+    // repartidos de forma irregular): parámetro u en [0, n), el tramo i va del punto i al i+1
+    private static void evaluate(float[] control, int n, float u, float[] out) {
+        int i = (int) u;
+        float t = u - i;
+        if (i >= n) { i = n - 1; t = 1; }
+        int i0 = (i - 1 + n) % n, i1 = i, i2 = (i + 1) % n, i3 = (i + 2) % n;
+        // Nudos separados por la raíz de la distancia entre puntos (alfa = 0.5)
+        float k0 = 0;
+        float k1 = k0 + knot(control, i0, i1);
+        float k2 = k1 + knot(control, i1, i2);
+        float k3 = k2 + knot(control, i2, i3);
+        float k = k1 + (k2 - k1) * t;
+        for (int c = 0; c < 3; c++) {
+            float p0 = control[i0 * 3 + c], p1 = control[i1 * 3 + c];
+            float p2 = control[i2 * 3 + c], p3 = control[i3 * 3 + c];
+            // Pirámide de Barry-Goldman
+            float a1 = lerp(p0, p1, k0, k1, k), a2 = lerp(p1, p2, k1, k2, k), a3 = lerp(p2, p3, k2, k3, k);
+            float b1 = lerp(a1, a2, k0, k2, k), b2 = lerp(a2, a3, k1, k3, k);
+            out[c] = lerp(b1, b2, k1, k2, k);
+        }
+    }
+
+    private static float knot(float[] control, int a, int b) {
+        float dx = control[b * 3] - control[a * 3];
+        float dy = control[b * 3 + 1] - control[a * 3 + 1];
+        float dz = control[b * 3 + 2] - control[a * 3 + 2];
+        return (float) Math.sqrt(Math.sqrt(dx * dx + dy * dy + dz * dz));
+    }
+
+    // Interpolación de a (en el nudo ka) a b (en kb) evaluada en k
+    private static float lerp(float a, float b, float ka, float kb, float k) {
+        return (a * (kb - k) + b * (k - ka)) / (kb - ka);
+    }
+}
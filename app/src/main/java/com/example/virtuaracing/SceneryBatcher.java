@@ -0,0 +1,120 @@
+package com.example.virtuaracing;
+
+import java.util.Arrays;
+
+/**
+ * Batching estático del escenario: como árboles y gradas no se mueven nunca, al cargar se copian
+ * sus vértices ya transformados a coordenadas de mundo y se juntan en una malla por región del
+ * plano XZ (todas comparten el atlas de texturas). En cada frame se dibuja o descarta la región
+ * entera con una sola llamada, sin tocar la pila de matrices por objeto.
+ *
+ * Las matrices de las instancias deben ser rígidas (rotación + traslación): las normales se
+ * transforman con la parte 3x3 sin renormalizar.
+ */
+public final class SceneryBatcher {
+
+    // Vértices por malla fusionada: con índices de 16 bits no hace falta OES_element_index_uint
+    public static final int MAX_VERTICES = 65536;
+
+    private SceneryBatcher() {}
+
+    /**
+     * @param models malla de cada tipo de objeto (indexada o no)
+     * @param instances matriz de modelo de cada objeto, en el orden de modelOf
+     * @param modelOf tipo de cada instancia (índice en models)
+     * @param regionSize lado de las regiones cuadradas en XZ (metros)
+     * @return una malla indexada por región no vacía (más de una si la región no cabe en MAX_VERTICES)
+     */
+    public static MeshData[] merge(MeshData[] models, InstanceBatch instances, int[] modelOf, float regionSize) {
+        return merge(models, instances, modelOf, regionSize, null);
+    }
+
+    /**
+     * Como merge(), rellenando además regionOf (si no es null) con la malla devuelta en la que ha
+     * quedado cada instancia.
+     */
+    public static MeshData[] merge(MeshData[] models, InstanceBatch instances, int[] modelOf, float regionSize,
+                                   int[] regionOf) {
+        int count = instances.size();
+        if (count == 0) return new MeshData[0];
+        float[] m = instances.matrices();
+
+        // 1. Región de cada instancia según su origen, y orden por región
+        int[] cellX = new int[count], cellZ = new int[count];
+        int minX = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            int o = i * InstanceBatch.FLOATS_PER_INSTANCE;
+            cellX[i] = (int) Math.floor(m[o + 12] / regionSize);
+            cellZ[i] = (int) Math.floor(m[o + 14] / regionSize);
+            minX = Math.min(minX, cellX[i]);
+            maxX = Math.max(maxX, cellX[i]);
+            minZ = Math.min(minZ, cellZ[i]);
+        }
+        long cols = maxX - minX + 1;
+        long[] order = new long[count]; //celda en los bits altos, instancia en los 24 bajos
+        for (int i = 0; i < count; i++) {
+            order[i] = ((cellZ[i] - minZ) * cols + (cellX[i] - minX)) << 24 | i;
+        }
+        Arrays.sort(order);
+
+        // 2. Recorrer las instancias por región, cortando también al llenar una malla
+        MeshData[] out = new MeshData[count];
+        int regions = 0;
+        int first = 0;
+        while (first < count) {
+            long cell = order[first] >>> 24;
+            int last = first, vertices = 0, indices = 0;
+            boolean normals = true;
+            while (last < count && order[last] >>> 24 == cell) {
+                MeshData model = models[modelOf[(int) (order[last] & 0xFFFFFF)]];
+                if (vertices > 0 && vertices + model.vertexCount > MAX_VERTICES) break;
+                vertices += model.vertexCount;
+                indices += model.drawCount();
+                normals &= model.hasNormals;
+                if (regionOf != null) regionOf[(int) (order[last] & 0xFFFFFF)] = regions;
+                last++;
+            }
+            out[regions++] = build(models, m, modelOf, order, first, last, vertices, indices, normals);
+            first = last;
+        }
+        return Arrays.copyOf(out, regions);
+    }
+
+    // Copia transformada de las instancias order[first, last) en una sola malla indexada
+    private static MeshData build(MeshData[] models, float[] m, int[] modelOf, long[] order,
+                                  int first, int last, int vertexCount, int indexCount, boolean normals) {
+        float[] vertices = new float[vertexCount * MeshData.STRIDE];
+        int[] indices = new int[indexCount];
+        int base = 0, n = 0;
+        for (int k = first; k < last; k++) {
+            int instance = (int) (order[k] & 0xFFFFFF);
+            MeshData model = models[modelOf[instance]];
+            transform(model, m, instance * InstanceBatch.FLOATS_PER_INSTANCE, vertices, base * MeshData.STRIDE);
+            if (model.isIndexed()) {
+                for (int i = 0; i < model.indexCount; i++) indices[n++] = base + model.indices[i];
+            } else {
+                for (int i = 0; i < model.vertexCount; i++) indices[n++] = base + i;
+            }
+            base += model.vertexCount;
+        }
+        return new MeshData(vertices, vertexCount, normals, indices, indexCount);
+    }
+
+    // Posición con la matriz completa, normal con su parte 3x3 y uv sin cambios
+    static void transform(MeshData model, float[] m, int o, float[] out, int outOffset) {
+        float[] in = model.vertices;
+        for (int v = 0; v < model.vertexCount; v++) {
+            int s = v * MeshData.STRIDE, d = outOffset + s;
+            float x = in[s], y = in[s + 1], z = in[s + 2];
+            out[d] = m[o] * x + m[o + 4] * y + m[o + 8] * z + m[o + 12];
+            out[d + 1] = m[o + 1] * x + m[o + 5] * y + m[o + 9] * z + m[o + 13];
+            out[d + 2] = m[o + 2] * x + m[o + 6] * y + m[o + 10] * z + m[o + 14];
+            float nx = in[s + 3], ny = in[s + 4], nz = in[s + 5];
+            out[d + 3] = m[o] * nx + m[o + 4] * ny + m[o + 8] * nz;
+            out[d + 4] = m[o + 1] * nx + m[o + 5] * ny + m[o + 9] * nz;
+            out[d + 5] = m[o + 2] * nx + m[o + 6] * ny + m[o + 10] * nz;
+            out[d + 6] = in[s + 6];
+            out[d + 7] = in[s + 7];
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.virtuaracing;
+
+import android.opengl.GLES20;
+import android.util.Log;
+
+/**
+ * Programa de GLSL con las locations de sus uniforms resueltas al enlazar y una UniformCache,
+ * para que glUniform* solo se llame cuando el valor cambia. Los atributos van en locations
+ * fijas (glBindAttribLocation), las mismas para todos los programas.
+ */
+public class ShaderProgram {
+
+    private static final String TAG = "ShaderProgram";
+
+    private final int program;
+    private final int[] locations;
+    private final UniformCache cache;
+
+    private ShaderProgram(int program, String[] uniforms) {
+        this.program = program;
+        locations = new int[uniforms.length];
+        for (int i = 0; i < uniforms.length; i++) locations[i] = GLES20.glGetUniformLocation(program, uniforms[i]);
+        cache = new UniformCache(uniforms.length);
+    }
+
+    /**
+     * Compila y enlaza. attributes[i] queda en la location i; uniforms[i] es el hueco i de los
+     * set*. Devuelve null si falla (el error va al log).
+     */
+    public static ShaderProgram build(String vertexSource, String fragmentSource, String[] attributes, String[] uniforms) {
+        int vs = compile(GLES20.GL_VERTEX_SHADER, vertexSource);
+        int fs = compile(GLES20.GL_FRAGMENT_SHADER, fragmentSource);
+        if (vs == 0 || fs == 0) {
+            if (vs != 0) GLES20.glDeleteShader(vs);
+            if (fs != 0) GLES20.glDeleteShader(fs);
+            return null;
+        }
+
+        int program = GLES20.glCreateProgram();
+        GLES20.glAttachShader(program, vs);
+        GLES20.glAttachShader(program, fs);
+        for (int i = 0; i < attributes.length; i++) GLES20.glBindAttribLocation(program, i, attributes[i]);
+        GLES20.glLinkProgram(program);
+        GLES20.glDeleteShader(vs); //se liberan con el programa
+        GLES20.glDeleteShader(fs);
+        int[] status = new int[1];
+        GLES20.glGetProgramiv(program, GLES20.GL_LINK_STATUS, status, 0);
+        if (status[0] == 0) {
+            Log.w(TAG, "Error enlazando: " + GLES20.glGetProgramInfoLog(program));
+            GLES20.glDeleteProgram(program);
+            return null;
+        }
+        return new ShaderProgram(program, uniforms);
+    }
+
+    private static int compile(int type, String source) {
+        int shader = GLES20.glCreateShader(type);
+        GLES20.glShaderSource(shader, source);
+        GLES20.glCompileShader(shader);
+        int[] status = new int[1];
+        GLES20.glGetShaderiv(shader, GLES20.GL_COMPILE_STATUS, status, 0);
+        if (status[0] == 0) {
+            Log.w(TAG, "Error compilando: " + GLES20.glGetShaderInfoLog(shader));
+            GLES20.glDeleteShader(shader);
+            return 0;
+        }
+        return shader;
+    }
+
+    public void use() {
+        GLES20.glUseProgram(program);
+    }
+
+    // Los set* suponen que el programa está en uso; los uniforms que el shader no usa se ignoran
+    public void setMatrix(int uniform, float[] m) {
+        if (locations[uniform] >= 0 && cache.changed(uniform, m, 0, 16)) {
+            GLES20.glUniformMatrix4fv(locations[uniform], 1, false, m, 0);
+        }
+    }
+
+    public void setVector(int uniform, float x, float y, float z, float w) {
+        if (locations[uniform] >= 0 && cache.changed(uniform, x, y, z, w)) {
+            GLES20.glUniform4f(locations[uniform], x, y, z, w);
+        }
+    }
+
+    public void setVector3(int uniform, float[] v) {
+        if (locations[uniform] >= 0 && cache.changed(uniform, v, 0, 3)) {
+            GLES20.glUniform3f(locations[uniform], v[0], v[1], v[2]);
+        }
+    }
+
+    public void delete() {
+        GLES20.glDeleteProgram(program);
+    }
+}
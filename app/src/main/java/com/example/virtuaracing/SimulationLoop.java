@@ -0,0 +1,124 @@
+package com.example.virtuaracing;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Hilo propio para la simulación, fuera del hilo de GL. En cada vuelta aplica las órdenes de
+ * InputQueue, ejecuta los ticks fijos que toquen y, si algo ha cambiado, publica una foto en
+ * SnapshotBuffer; luego duerme hasta el siguiente tick. El renderer solo lee fotos, así que la
+ * lógica de juego ya no suma tiempo al frame.
+ *
+ * Si la simulación graba la carrera (ReplayRecorder), este hilo vuelca la grabación al canal de
+ * setReplayOutput() cada REPLAY_FLUSH_BYTES y al parar, nunca desde el hilo de GL.
+ */
+public class SimulationLoop implements Runnable {
+
+    private final RaceSimulation simulation;
+    private final SnapshotBuffer snapshots;
+    private final InputQueue input;
+    private final LongSupplier clock; //System::nanoTime en el juego
+    private final float[] lastState;  //estado publicado en la foto anterior
+
+    static final int REPLAY_FLUSH_BYTES = 4096; //unos segundos de carrera
+    private WritableByteChannel replayOutput;   //solo se toca con el hilo parado o desde él
+    private volatile IOException replayError;
+
+    private Thread thread;
+    private volatile boolean running;
+    private volatile Runnable publishListener; //p. ej. requestRender() en RENDERMODE_WHEN_DIRTY
+
+    public SimulationLoop(RaceSimulation simulation, SnapshotBuffer snapshots, InputQueue input, LongSupplier clock) {
+        this.simulation = simulation;
+        this.snapshots = snapshots;
+        this.input = input;
+        this.clock = clock;
+        this.lastState = new float[snapshots.writeBuffer().stateSize()];
+    }
+
+    // Arranca (o reanuda) el hilo; no recupera el tiempo que haya estado parado
+    public synchronized void start() {
+        if (thread != null) return;
+        simulation.resetClock();
+        simulation.update(clock.getAsLong());
+        simulation.interpolate(1);
+        publish(); //que el renderer tenga una foto válida desde el primer frame
+        running = true;
+        thread = new Thread(this, "Simulacion");
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        if (thread == null) return;
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+        flushReplay(0); //la app puede morir en segundo plano
+    }
+
+    /**
+     * Canal al que se vuelca la grabación de la simulación (p. ej. un FileChannel). Con el hilo
+     * parado; si una escritura falla se deja de volcar y el error queda en getReplayError().
+     */
+    public synchronized void setReplayOutput(WritableByteChannel output) {
+        replayOutput = output;
+        replayError = null;
+    }
+
+    public IOException getReplayError() {
+        return replayError;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Se llama desde el hilo de simulación cada vez que hay una foto nueva
+    public void setPublishListener(Runnable listener) {
+        publishListener = listener;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            boolean changed = false;
+            int command;
+            while ((command = input.poll()) != InputQueue.NONE) {
+                if (command == InputQueue.TOGGLE_CAMERA) simulation.toggleCameraMode();
+                changed = true;
+            }
+            if (simulation.update(clock.getAsLong()) > 0 || changed) {
+                simulation.interpolate(1);
+                publish();
+            }
+            flushReplay(REPLAY_FLUSH_BYTES);
+            long wait = simulation.getLastTickTime() + RaceSimulation.TICK_NANOS - clock.getAsLong();
+            if (wait > 0) LockSupport.parkNanos(this, wait);
+        }
+    }
+
+    private void flushReplay(int minBytes) {
+        ReplayRecorder recorder = simulation.getRecorder();
+        if (recorder == null || replayOutput == null || recorder.pending() < Math.max(1, minBytes)) return;
+        try {
+            recorder.flush(replayOutput);
+        } catch (IOException e) {
+            replayError = e;
+            replayOutput = null;
+        }
+    }
+
+    private void publish() {
+        snapshots.writeBuffer().capture(simulation, lastState, simulation.getLastTickTime());
+        snapshots.publish();
+        Runnable listener = publishListener;
+        if (listener != null) listener.run();
+    }
+}
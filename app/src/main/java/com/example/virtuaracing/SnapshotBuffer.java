@@ -0,0 +1,43 @@
+package com.example.virtuaracing;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Triple buffer sin bloqueos entre el hilo de simulación (escribe) y el de render (lee). Hay tres
+ * WorldSnapshot: uno del escritor, uno del lector y uno intermedio que se intercambia con un
+ * getAndSet atómico. Ninguno de los dos hilos espera nunca al otro y cada foto la toca un solo
+ * hilo a la vez, así que el lector no puede ver una foto a medio escribir.
+ */
+public class SnapshotBuffer {
+
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH = 4; //el intermedio tiene una foto que el lector aún no ha visto
+
+    private final WorldSnapshot[] buffers = new WorldSnapshot[3];
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0;  //solo el escritor
+    private int front = 2; //solo el lector
+
+    public SnapshotBuffer(int carCount) {
+        for (int i = 0; i < buffers.length; i++) buffers[i] = new WorldSnapshot(carCount);
+    }
+
+    // --- ESCRITOR ---
+    public WorldSnapshot writeBuffer() {
+        return buffers[back];
+    }
+
+    // Publica la foto escrita y se queda con la que estaba en medio para la siguiente
+    public void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    // --- LECTOR ---
+    // Última foto publicada (o la misma que antes si no hay ninguna nueva)
+    public WorldSnapshot acquire() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX_MASK;
+        }
+        return buffers[front];
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.virtuaracing;
+
+/**
+ * Rejilla uniforme en el plano XZ para consultar qué objetos estáticos caen cerca de un punto.
+ * Se construye una vez (ordenación por cubetas en formato CSR: cellStart + items) y las consultas
+ * no reservan memoria: el llamador pasa el array donde se escriben los candidatos.
+ */
+public class SpatialGrid {
+
+    private final float cellSize;
+    private final float minX, minZ;
+    private final int cols, rows;
+    private final int[] cellStart; // items de la celda c: items[cellStart[c] .. cellStart[c + 1])
+    private final int[] items;
+    private final int count;
+
+    public SpatialGrid(float[] xs, float[] zs, int count, float cellSize) {
+        this.cellSize = cellSize;
+        this.count = count;
+
+        float loX = Float.MAX_VALUE, loZ = Float.MAX_VALUE, hiX = -Float.MAX_VALUE, hiZ = -Float.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            loX = Math.min(loX, xs[i]); hiX = Math.max(hiX, xs[i]);
+            loZ = Math.min(loZ, zs[i]); hiZ = Math.max(hiZ, zs[i]);
+        }
+        if (count == 0) { loX = loZ = hiX = hiZ = 0; }
+        minX = loX;
+        minZ = loZ;
+        cols = (int) ((hiX - loX) / cellSize) + 1;
+        rows = (int) ((hiZ - loZ) / cellSize) + 1;
+
+        // Contar por celda, acumular y repartir
+        cellStart = new int[cols * rows + 1];
+        int[] cellOf = new int[count];
+        for (int i = 0; i < count; i++) {
+            cellOf[i] = cellIndex(xs[i], zs[i]);
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < cols * rows; c++) cellStart[c + 1] += cellStart[c];
+        items = new int[count];
+        int[] fill = new int[cols * rows];
+        for (int i = 0; i < count; i++) {
+            int c = cellOf[i];
+            items[cellStart[c] + fill[c]++] = i;
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    private int cellIndex(float x, float z) {
+        int cx = clamp((int) ((x - minX) / cellSize), cols);
+        int cz = clamp((int) ((z - minZ) / cellSize), rows);
+        return cz * cols + cx;
+    }
+
+    private static int clamp(int v, int n) {
+        return v < 0 ? 0 : (v >= n ? n - 1 : v);
+    }
+
+    /**
+     * Escribe en out los índices de los objetos de todas las celdas que tocan el círculo
+     * (x, z, radius) y devuelve cuántos hay. Son candidatos: el llamador hace la prueba exacta.
+     * out debe tener al menos size() posiciones.
+     */
+    public int query(float x, float z, float radius, int[] out) {
+        if (count == 0) return 0;
+        int c0 = clamp((int) Math.floor((x - radius - minX) / cellSize), cols);
+        int c1 = clamp((int) Math.floor((x + radius - minX) / cellSize), cols);
+        int r0 = clamp((int) Math.floor((z - radius - minZ) / cellSize), rows);
+        int r1 = clamp((int) Math.floor((z + radius - minZ) / cellSize), rows);
+        float radiusSq = radius * radius;
+
+        int n = 0;
+        for (int r = r0; r <= r1; r++) {
+            // Distancia en Z del punto a la fila (0 si está dentro)
+            float cellMinZ = minZ + r * cellSize;
+            float dz = Math.max(0, Math.max(cellMinZ - z, z - (cellMinZ + cellSize)));
+            for (int c = c0; c <= c1; c++) {
+                float cellMinX = minX + c * cellSize;
+                float dx = Math.max(0, Math.max(cellMinX - x, x - (cellMinX + cellSize)));
+                if (dx * dx + dz * dz > radiusSq) continue; // la celda no toca el círculo
+
+                int cell = r * cols + c;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) out[n++] = items[k];
+            }
+        }
+        return n;
+    }
+}
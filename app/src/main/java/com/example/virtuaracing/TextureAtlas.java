@@ -0,0 +1,88 @@
+package com.example.virtuaracing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dónde está cada imagen dentro de un atlas (en píxeles, origen arriba a la izquierda como en
+ * el PNG). Lo genera TexturePacker en el build y se guarda junto al atlas como texto:
+ *
+ * <pre>
+ * ancho alto
+ * nombre x y w h
+ * ...
+ * </pre>
+ */
+public class TextureAtlas {
+
+    public final int width, height;
+    private final String[] names;
+    private final int[] rects; //x, y, w, h por imagen
+
+    public TextureAtlas(int width, int height, String[] names, int[] rects) {
+        this.width = width;
+        this.height = height;
+        this.names = names;
+        this.rects = rects;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String name(int i) {
+        return names[i];
+    }
+
+    public int x(int i) { return rects[4 * i]; }
+    public int y(int i) { return rects[4 * i + 1]; }
+    public int width(int i) { return rects[4 * i + 2]; }
+    public int height(int i) { return rects[4 * i + 3]; }
+
+    public int indexOf(String name) {
+        for (int i = 0; i < names.length; i++) if (names[i].equals(name)) return i;
+        return -1;
+    }
+
+    // Coordenadas de textura {u0, v0, u1, v1} de la imagen i (v0 = fila de arriba)
+    public float[] uv(int i) {
+        return new float[] {
+                (float) x(i) / width, (float) y(i) / height,
+                (float) (x(i) + width(i)) / width, (float) (y(i) + height(i)) / height
+        };
+    }
+
+    public void write(Writer out) throws IOException {
+        out.write(width + " " + height + "\n");
+        for (int i = 0; i < names.length; i++) {
+            out.write(names[i] + " " + x(i) + " " + y(i) + " " + width(i) + " " + height(i) + "\n");
+        }
+        out.flush();
+    }
+
+    public static TextureAtlas read(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line = reader.readLine();
+        if (line == null) throw new IOException("Atlas vacío");
+        String[] size = line.trim().split("\\s+");
+        List<String> names = new ArrayList<>();
+        List<int[]> rects = new ArrayList<>();
+        while ((line = reader.readLine()) != null) {
+            String[] parts = line.trim().split("\\s+");
+            if (parts.length < 5) continue;
+            names.add(parts[0]);
+            rects.add(new int[] {Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                    Integer.parseInt(parts[3]), Integer.parseInt(parts[4])});
+        }
+        int[] flat = new int[rects.size() * 4];
+        for (int i = 0; i < rects.size(); i++) System.arraycopy(rects.get(i), 0, flat, 4 * i, 4);
+        return new TextureAtlas(Integer.parseInt(size[0]), Integer.parseInt(size[1]),
+                names.toArray(new String[0]), flat);
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.virtuaracing;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Sube las texturas que prepara la tarea bakeTextures (assets/textures/):
+ *
+ *  - Si el backend tiene ETC2, el .ktx: los niveles van a la GPU tal cual, sin decodificar PNG
+ *    ni generar mipmaps al arrancar, y ocupan una cuarta parte que en RGBA.
+ *  - Si no (GLES 1.x/2.0), el PNG: el del atlas si existe o el original de res/raw.
+ *
+ * Las imágenes del HUD se piden como regiones de su atlas; sin atlas, cada una es su propia
+ * textura entera. Cada subida deja en el log lo que ocupa frente a la misma textura en RGBA.
+ *
+ * prepare*() lee y decodifica sin tocar OpenGL, así que puede ir en los hilos de AssetPipeline;
+ * upload()/regions() crean las texturas y van en el hilo de GL. load*() hace las dos cosas. Si
+ * el contexto rechaza el .ktx al subirlo, se lee el PNG en ese momento.
+ */
+public final class TextureLoader {
+
+    private static final String TAG = "TextureLoader";
+    private static final String DIR = "textures/";
+
+    // Región de una textura, con las coordenadas de TextureAtlas.uv (v0 = fila de arriba)
+    public static final class Region {
+        public final int texture;
+        public final float u0, v0, u1, v1;
+
+        Region(int texture, float u0, float v0, float u1, float v1) {
+            this.texture = texture;
+            this.u0 = u0;
+            this.v0 = v0;
+            this.u1 = u1;
+            this.v1 = v1;
+        }
+    }
+
+    // Textura lista para subir, preparada fuera del hilo de GL: el KTX mapeado o el PNG decodificado
+    public static final class Image {
+        final String name;
+        final int resourceId; //0 en los atlas
+        final KtxFile ktx;
+        final Bitmap bitmap;
+        final TextureAtlas atlas; //solo en prepareAtlas
+
+        Image(String name, int resourceId, KtxFile ktx, Bitmap bitmap, TextureAtlas atlas) {
+            this.name = name;
+            this.resourceId = resourceId;
+            this.ktx = ktx;
+            this.bitmap = bitmap;
+            this.atlas = atlas;
+        }
+    }
+
+    private final Context context;
+    private final RenderBackend gfx;
+
+    public TextureLoader(Context context, RenderBackend gfx) {
+        this.context = context;
+        this.gfx = gfx;
+    }
+
+    // Textura de res/raw: su .ktx si se puede, si no el PNG (en el hilo de GL)
+    public int load(int resourceId) {
+        return upload(prepare(resourceId));
+    }
+
+    /**
+     * Regiones de las imágenes de res/raw dentro del atlas 'atlasName', en el mismo orden. Las
+     * que no estén en el atlas (o si no hay atlas) se cargan sueltas con load().
+     */
+    public Region[] loadAtlas(String atlasName, int... resourceIds) {
+        return regions(prepareAtlas(atlasName), resourceIds);
+    }
+
+    // --- PREPARACIÓN (cualquier hilo) ---
+    public Image prepare(int resourceId) {
+        String name = context.getResources().getResourceEntryName(resourceId);
+        KtxFile ktx = readKtx(name);
+        if (ktx != null) return new Image(name, resourceId, ktx, null, null);
+        try (InputStream is = context.getResources().openRawResource(resourceId)) {
+            return new Image(name, resourceId, null, decodePng(is), null);
+        } catch (IOException e) {
+            throw new RuntimeException("No se pudo leer la textura " + name, e);
+        }
+    }
+
+    // null si no hay atlas (build sin bakeTextures): regions() cargará las imágenes sueltas
+    public Image prepareAtlas(String atlasName) {
+        TextureAtlas atlas;
+        try (InputStream is = context.getAssets().open(DIR + atlasName + ".atlas")) {
+            atlas = TextureAtlas.read(is);
+        } catch (IOException e) {
+            return null;
+        }
+        KtxFile ktx = readKtx(atlasName);
+        if (ktx != null) return new Image(atlasName, 0, ktx, null, atlas);
+        try (InputStream is = context.getAssets().open(DIR + atlasName + ".png")) {
+            return new Image(atlasName, 0, null, decodePng(is), atlas);
+        } catch (IOException e) {
+            Log.w(TAG, "Atlas " + atlasName + " sin imagen: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // null si el backend no tiene ETC2 o no hay .ktx válido
+    private KtxFile readKtx(String name) {
+        if (!gfx.supportsEtc2()) return null;
+        ByteBuffer data = MeshAssets.openAsset(context, DIR + name + ".ktx");
+        if (data == null) return null;
+        try {
+            KtxFile ktx = KtxFile.read(data);
+            return ktx.internalFormat == Etc2Codec.GL_COMPRESSED_RGBA8_ETC2_EAC ? ktx : null;
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, name + ".ktx: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // PNG de una imagen preparada con su .ktx: el del atlas o el original de res/raw
+    private Bitmap readPng(Image image) {
+        try (InputStream is = image.atlas != null ? context.getAssets().open(DIR + image.name + ".png")
+                : context.getResources().openRawResource(image.resourceId)) {
+            return decodePng(is);
+        } catch (IOException e) {
+            throw new RuntimeException("No se pudo leer la textura " + image.name, e);
+        }
+    }
+
+    private static Bitmap decodePng(InputStream is) throws IOException {
+        Bitmap bitmap = BitmapFactory.decodeStream(is);
+        if (bitmap == null) throw new IOException("PNG no válido");
+        return bitmap;
+    }
+
+    // --- SUBIDA (hilo de GL) ---
+    public int upload(Image image) {
+        if (image.ktx != null) {
+            KtxFile ktx = image.ktx;
+            int texture = gfx.createCompressedTexture(ktx);
+            if (texture != 0) {
+                long rgba = 0;
+                for (int l = 0; l < ktx.levelCount(); l++) {
+                    rgba += 4L * MipChain.levelSize(ktx.width, l) * MipChain.levelSize(ktx.height, l);
+                }
+                Log.d(TAG, image.name + ": ETC2 " + ktx.width + "x" + ktx.height + ", " + ktx.levelCount() + " niveles, "
+                        + ktx.dataBytes() / 1024 + " KB (RGBA " + rgba / 1024 + " KB)");
+                return texture;
+            }
+            Log.w(TAG, image.name + ": el contexto no acepta ETC2, se sube el PNG");
+        }
+        Bitmap bitmap = image.bitmap != null ? image.bitmap : readPng(image);
+        int texture = gfx.createTexture(bitmap);
+        Log.d(TAG, image.name + ": PNG " + bitmap.getWidth() + "x" + bitmap.getHeight() + ", "
+                + 4L * bitmap.getWidth() * bitmap.getHeight() / 1024 + " KB en RGBA");
+        bitmap.recycle();
+        return texture;
+    }
+
+    // Sube el atlas (si lo hay) y devuelve las regiones de las imágenes, como loadAtlas()
+    public Region[] regions(Image atlasImage, int... resourceIds) {
+        Region[] regions = new Region[resourceIds.length];
+        TextureAtlas atlas = atlasImage != null ? atlasImage.atlas : null;
+        int texture = atlas != null ? upload(atlasImage) : -1;
+        for (int i = 0; i < resourceIds.length; i++) {
+            int index = atlas != null ? atlas.indexOf(context.getResources().getResourceEntryName(resourceIds[i])) : -1;
+            if (index >= 0) {
+                float[] uv = atlas.uv(index);
+                regions[i] = new Region(texture, uv[0], uv[1], uv[2], uv[3]);
+            } else {
+                regions[i] = new Region(load(resourceIds[i]), 0, 0, 1, 1);
+            }
+        }
+        return regions;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.virtuaracing;
+
+import java.util.Arrays;
+
+/**
+ * Empaqueta varias imágenes en un atlas de lados potencia de dos (para poder usar mipmaps y
+ * REPEAT también en GLES 1.x/2.0) con estanterías: de la más alta a la más baja, en filas. Se
+ * prueba del tamaño más pequeño al más grande y se queda el primero en el que caben todas.
+ *
+ * Cada imagen lleva alrededor 'padding' píxeles copiados de su propio borde, para que el
+ * filtrado y los mipmaps no mezclen imágenes vecinas. Los huecos se redondean a múltiplos de 4
+ * para que con un padding múltiplo de 4 cada imagen empiece en un bloque de ETC2 propio.
+ */
+public final class TexturePacker {
+
+    private TexturePacker() {}
+
+    public static TextureAtlas pack(String[] names, int[] widths, int[] heights, int padding, int maxSize) {
+        Integer[] order = new Integer[names.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> heights[b] != heights[a] ? heights[b] - heights[a] : widths[b] - widths[a]);
+
+        // Tamaños candidatos 2^we x 2^he por área creciente; a igual área, del más cuadrado al
+        // más ancho y luego los altos
+        int maxExp = 31 - Integer.numberOfLeadingZeros(maxSize);
+        for (int e = 0; e <= 2 * maxExp; e++) {
+            int square = (e + 1) / 2;
+            for (int k = 0; k <= e; k++) {
+                int we = k <= e - square ? square + k : square - (k - (e - square));
+                int he = e - we;
+                if (we > maxExp || he > maxExp || we < 0 || he < 0) continue;
+                int[] rects = place(order, widths, heights, padding, 1 << we, 1 << he);
+                if (rects != null) return new TextureAtlas(1 << we, 1 << he, names.clone(), rects);
+            }
+        }
+        throw new IllegalArgumentException("Las imágenes no caben en un atlas de " + maxSize + "x" + maxSize);
+    }
+
+    private static int[] place(Integer[] order, int[] widths, int[] heights, int padding, int atlasW, int atlasH) {
+        int[] rects = new int[order.length * 4];
+        int x = 0, y = 0, shelf = 0;
+        for (int i : order) {
+            int w = (widths[i] + 2 * padding + 3) & ~3, h = (heights[i] + 2 * padding + 3) & ~3;
+            if (w > atlasW) return null;
+            if (x + w > atlasW) { //estantería nueva
+                y += shelf;
+                x = 0;
+                shelf = 0;
+            }
+            if (y + h > atlasH) return null;
+            rects[4 * i] = x + padding;
+            rects[4 * i + 1] = y + padding;
+            rects[4 * i + 2] = widths[i];
+            rects[4 * i + 3] = heights[i];
+            x += w;
+            shelf = Math.max(shelf, h);
+        }
+        return rects;
+    }
+
+    /**
+     * Pinta las imágenes (ARGB) en el atlas, con el margen relleno repitiendo su borde. Lo que no
+     * ocupa ninguna queda transparente.
+     */
+    public static int[] compose(TextureAtlas atlas, int[][] images, int padding) {
+        int[] out = new int[atlas.width * atlas.height];
+        for (int i = 0; i < atlas.size(); i++) {
+            int w = atlas.width(i), h = atlas.height(i);
+            int[] src = images[i];
+            for (int y = -padding; y < h + padding; y++) {
+                int sy = Math.max(0, Math.min(h - 1, y));
+                int dy = atlas.y(i) + y;
+                if (dy < 0 || dy >= atlas.height) continue;
+                for (int x = -padding; x < w + padding; x++) {
+                    int dx = atlas.x(i) + x;
+                    if (dx < 0 || dx >= atlas.width) continue;
+                    out[dy * atlas.width + dx] = src[sy * w + Math.max(0, Math.min(w - 1, x))];
+                }
+            }
+        }
+        return out;
+    }
+}
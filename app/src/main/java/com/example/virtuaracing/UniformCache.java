@@ -0,0 +1,58 @@
+package com.example.virtuaracing;
+
+import java.util.Arrays;
+
+/**
+ * Último valor enviado de cada uniform de un programa, para no repetir glUniform* con el mismo
+ * valor (los uniforms se conservan en el programa entre frames y entre cambios de programa).
+ * Cada uniform ocupa un hueco con espacio para una mat4; el llamador decide el índice.
+ */
+public class UniformCache {
+
+    private final float[] values;
+    private final boolean[] valid;
+
+    public UniformCache(int slots) {
+        values = new float[slots * 16];
+        valid = new boolean[slots];
+    }
+
+    // true (y guarda el valor) si v[offset .. offset + count) no es lo último enviado a ese hueco
+    public boolean changed(int slot, float[] v, int offset, int count) {
+        int base = slot * 16;
+        if (valid[slot]) {
+            boolean same = true;
+            for (int i = 0; i < count && same; i++) same = values[base + i] == v[offset + i];
+            if (same) return false;
+        }
+        System.arraycopy(v, offset, values, base, count);
+        valid[slot] = true;
+        return true;
+    }
+
+    public boolean changed(int slot, float x) {
+        int base = slot * 16;
+        if (valid[slot] && values[base] == x) return false;
+        values[base] = x;
+        valid[slot] = true;
+        return true;
+    }
+
+    public boolean changed(int slot, float x, float y, float z, float w) {
+        int base = slot * 16;
+        if (valid[slot] && values[base] == x && values[base + 1] == y && values[base + 2] == z && values[base + 3] == w) {
+            return false;
+        }
+        values[base] = x;
+        values[base + 1] = y;
+        values[base + 2] = z;
+        values[base + 3] = w;
+        valid[slot] = true;
+        return true;
+    }
+
+    // Tras perder el contexto (o relinkar) lo que hay en la GPU ya no es lo que dice la caché
+    public void invalidate() {
+        Arrays.fill(valid, false);
+    }
+}
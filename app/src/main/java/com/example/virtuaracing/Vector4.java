@@ -22,6 +22,18 @@ public class Vector4 {
         values[index] = value;
     }
 
+    // --- Variantes sin reservar memoria: escriben en out (que puede ser this) y lo devuelven ---
+
+    public Vector4 set(float x, float y, float z, float w) {
+        values[0] = x; values[1] = y; values[2] = z; values[3] = w;
+        return this;
+    }
+
+    public Vector4 set(Vector4 o) {
+        System.arraycopy(o.values, 0, values, 0, 4);
+        return this;
+    }
+
     public float module() {
         float length = 0.0f;
         for(int i = 0; i < values.length; i++)
@@ -37,6 +49,19 @@ public class Vector4 {
             return new Vector4(values[0] / l, values[1] / l, values[2] / l, values[3] / l);
     }
 
+    public Vector4 normalize(Vector4 out) {
+        float l = module();
+        if (l == 0) return out.set(this);
+        return out.set(values[0] / l, values[1] / l, values[2] / l, values[3] / l);
+    }
+
+    public Vector4 cross3(Vector4 o, Vector4 out) {
+        float x = values[1] * o.values[2] - values[2] * o.values[1];
+        float y = values[2] * o.values[0] - values[0] * o.values[2];
+        float z = values[0] * o.values[1] - values[1] * o.values[0];
+        return out.set(x, y, z, 0.0f);
+    }
+
     public Vector4 cross3(Vector4 o) {
         Vector4 result = new Vector4(
                 values[1] * o.values[2] - values[2] * o.values[1],
@@ -57,6 +82,12 @@ public class Vector4 {
         return add(new Vector4(x, y, z, w));
     }
 
+    public Vector4 add(Vector4 o, Vector4 out) {
+        for(int i = 0; i < 4; i++)
+            out.values[i] = values[i] + o.values[i];
+        return out;
+    }
+
     public Vector4 mult(float d) {
         Vector4 v = new Vector4();
         for(int i = 0; i < 4; i++)
@@ -64,6 +95,12 @@ public class Vector4 {
         return v;
     }
 
+    public Vector4 mult(float d, Vector4 out) {
+        for(int i = 0; i < 4; i++)
+            out.values[i] = values[i] * d;
+        return out;
+    }
+
 
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -0,0 +1,100 @@
+package com.example.virtuaracing;
+
+/**
+ * Foto del mundo que el hilo de simulación pasa al renderer: coches, fantasma, cámara y valores
+ * del HUD en los dos últimos ticks, en arrays planos para poder copiarla sin reservar memoria. El
+ * renderer interpola entre ambos con el instante del último tick, igual que hacía
+ * RaceSimulation.advance().
+ *
+ * Cada WorldSnapshot solo lo toca un hilo a la vez (lo garantiza SnapshotBuffer).
+ */
+public class WorldSnapshot {
+
+    // Por coche, la pose de RaceField: x, y, z, rumbo, volante, desplazamiento lateral, progreso, distancia
+    static final int CAR_FLOATS = RaceField.POSE_FLOATS;
+    private static final int X = RaceField.X, Y = RaceField.Y, Z = RaceField.Z, ROTATION = RaceField.ROTATION,
+            STEERING = RaceField.STEERING, LATERAL = RaceField.LATERAL, PROGRESS = RaceField.PROGRESS,
+            DISTANCE = RaceField.DISTANCE;
+
+    final int carCount;
+    private final int ghostOffset, cameraOffset, wheelOffset; //el fantasma: su pose y 1 si está en pista
+    final float[] previous, current;
+    long tick;           //número de tick de current
+    long tickTime;       //instante (nanoTime) de current
+
+    public WorldSnapshot(int carCount) {
+        this.carCount = carCount;
+        ghostOffset = carCount * CAR_FLOATS;
+        cameraOffset = ghostOffset + CAR_FLOATS + 1;
+        wheelOffset = cameraOffset + 9; //eye, center, up
+        previous = new float[wheelOffset + 1];
+        current = new float[wheelOffset + 1];
+    }
+
+    // Hilo de simulación: guarda el estado del último tick; last es el estado publicado antes
+    void capture(RaceSimulation simulation, float[] last, long tickTime) {
+        System.arraycopy(last, 0, previous, 0, last.length);
+        System.arraycopy(simulation.getPoses(), 0, current, 0, carCount * CAR_FLOATS);
+        boolean ghost = simulation.isGhostVisible();
+        if (ghost) System.arraycopy(simulation.getGhostPose(), 0, current, ghostOffset, CAR_FLOATS);
+        current[ghostOffset + CAR_FLOATS] = ghost ? 1 : 0;
+        for (int k = 0; k < 3; k++) {
+            current[cameraOffset + k] = simulation.eye.get(k);
+            current[cameraOffset + 3 + k] = simulation.center.get(k);
+            current[cameraOffset + 6 + k] = simulation.up.get(k);
+        }
+        current[wheelOffset] = simulation.getWheelRotation();
+        this.tick = simulation.getTickCount();
+        this.tickTime = tickTime;
+        System.arraycopy(current, 0, last, 0, last.length);
+    }
+
+    // Tamaño del array de estado que hay que pasar a capture()
+    public int stateSize() {
+        return current.length;
+    }
+
+    // Hilo de render: coches y cámara a alpha entre el tick anterior (0) y el último (1)
+    public void interpolate(float alpha, CarState[] cars, Vector4 eye, Vector4 center, Vector4 up) {
+        for (int i = 0; i < carCount; i++) interpolateCar(i * CAR_FLOATS, alpha, cars[i]);
+        int c = cameraOffset;
+        eye.set(lerp(c, alpha), lerp(c + 1, alpha), lerp(c + 2, alpha), 1);
+        center.set(lerp(c + 3, alpha), lerp(c + 4, alpha), lerp(c + 5, alpha), 1);
+        up.set(lerp(c + 6, alpha), lerp(c + 7, alpha), lerp(c + 8, alpha), 0);
+    }
+
+    // Coche fantasma a alpha en 'car'; false si no está en pista en los dos ticks (no se dibuja)
+    public boolean ghost(float alpha, CarState car) {
+        if (previous[ghostOffset + CAR_FLOATS] == 0 || current[ghostOffset + CAR_FLOATS] == 0) return false;
+        interpolateCar(ghostOffset, alpha, car);
+        return true;
+    }
+
+    private void interpolateCar(int o, float alpha, CarState car) {
+        car.position.set(lerp(o + X, alpha), lerp(o + Y, alpha), lerp(o + Z, alpha), 1);
+        car.rotationY = lerpAngle(previous[o + ROTATION], current[o + ROTATION], 360, alpha);
+        car.steeringAngle = lerp(o + STEERING, alpha);
+        car.lateralOffset = lerp(o + LATERAL, alpha); //cambios de carril
+        car.progress = current[o + PROGRESS];
+        car.distance = current[o + DISTANCE];
+    }
+
+    public float wheelRotation(float alpha) {
+        return lerpAngle(previous[wheelOffset], current[wheelOffset], RaceSimulation.WHEEL_ROTATION_WRAP, alpha);
+    }
+
+    public long getTick() { return tick; }
+    public long getTickTime() { return tickTime; }
+
+    private float lerp(int i, float alpha) {
+        return previous[i] + (current[i] - previous[i]) * alpha;
+    }
+
+    // Por el camino corto si el ángulo ha dado la vuelta (period = 360 para grados)
+    private static float lerpAngle(float from, float to, float period, float alpha) {
+        float delta = to - from;
+        if (delta > period / 2) delta -= period;
+        if (delta < -period / 2) delta += period;
+        return from + delta * alpha;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tiempo de pared de la fase de preparación de la carga (parseo de los OBJ de res/raw e
+ * indexado, lo mismo que hace Object3D sin .vrm) en serie y con AssetPipeline sobre pools de
+ * distintos tamaños. Las subidas son instantáneas: solo se mide la CPU que sale del hilo de GL.
+ * Con un solo núcleo no hay aceleración; con varios, el límite es el modelo más grande.
+ */
+public class AssetLoadBenchmark {
+
+    private static final String[] FILES = {"road", "sky", "chassis", "wheel", "tree", "route"};
+    private static final int WARMUP = 100;
+    private static final int RUNS = 30;
+
+    private static MeshData parse(byte[] bytes) throws IOException {
+        ObjParser parser = new ObjParser();
+        parser.parse(new ByteArrayInputStream(bytes));
+        return MeshIndexer.index(parser);
+    }
+
+    @Test
+    public void parseStage_scalesWithThreads() throws Exception {
+        byte[][] files = new byte[FILES.length][];
+        for (int i = 0; i < FILES.length; i++) files[i] = Files.readAllBytes(TestAssets.raw(FILES[i] + ".obj").toPath());
+        int[] expected = new int[FILES.length];
+        for (int i = 0; i < FILES.length; i++) expected[i] = parse(files[i]).vertexCount;
+
+        for (int i = 0; i < WARMUP; i++) for (byte[] file : files) parse(file);
+        long start = System.nanoTime();
+        for (int run = 0; run < RUNS; run++) for (byte[] file : files) parse(file);
+        long serial = (System.nanoTime() - start) / RUNS;
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("núcleos: " + cores + ", en serie: " + serial / 1000 + " us");
+        System.out.println("hilos  carga(us)  aceleración");
+        for (int threads : new int[]{1, 2, 4, cores}) {
+            ExecutorService pool = AssetPipeline.newWorkerPool(threads);
+            try {
+                for (int i = 0; i < WARMUP; i++) load(pool, files, expected);
+                start = System.nanoTime();
+                for (int run = 0; run < RUNS; run++) load(pool, files, expected);
+                long parallel = (System.nanoTime() - start) / RUNS;
+                System.out.printf("%5d %10d %12.2f%n", threads, parallel / 1000, serial / (double) parallel);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    // Una carga completa: preparar todo en el pool y "subir" (comprobar) en este hilo
+    private static void load(ExecutorService pool, byte[][] files, int[] expected) {
+        AssetPipeline pipeline = new AssetPipeline(pool);
+        for (int i = 0; i < files.length; i++) {
+            byte[] file = files[i];
+            int vertices = expected[i];
+            pipeline.upload(FILES[i], pipeline.prepare(FILES[i], () -> parse(file)),
+                    mesh -> assertEquals(vertices, mesh.vertexCount));
+        }
+        while (!pipeline.isDone()) {
+            if (pipeline.runUploads(Long.MAX_VALUE, System::nanoTime) == 0) Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AssetPipelineTest {
+
+    // Llama a runUploads como el renderer, frame a frame, hasta terminar
+    private static void runToEnd(AssetPipeline pipeline) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!pipeline.isDone()) {
+            assertTrue("la carga no termina", System.nanoTime() < deadline);
+            pipeline.runUploads(1_000_000, System::nanoTime);
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void uploads_runOnCallingThreadWithPreparedData() throws InterruptedException {
+        ExecutorService pool = AssetPipeline.newWorkerPool(3);
+        try {
+            AssetPipeline pipeline = new AssetPipeline(pool);
+            Thread glThread = Thread.currentThread();
+            List<Integer> uploaded = new ArrayList<>();
+            List<Thread> preparedOn = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                int value = i;
+                pipeline.upload("asset" + i, pipeline.prepare("asset" + i, () -> {
+                    synchronized (preparedOn) { preparedOn.add(Thread.currentThread()); }
+                    return value * value;
+                }), data -> {
+                    assertSame(glThread, Thread.currentThread());
+                    uploaded.add(data);
+                });
+            }
+            assertTrue(pipeline.progress() < 1);
+            runToEnd(pipeline);
+
+            assertEquals(1, pipeline.progress(), 0f);
+            assertEquals(8, uploaded.size());
+            for (int i = 0; i < 8; i++) assertTrue(uploaded.contains(i * i));
+            for (Thread thread : preparedOn) assertNotSame(glThread, thread);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void runUploads_respectsBudget() {
+        AssetPipeline pipeline = new AssetPipeline(Runnable::run); //preparación inmediata
+        int[] uploads = new int[1];
+        for (int i = 0; i < 10; i++) {
+            pipeline.upload("asset" + i, pipeline.prepare("asset" + i, () -> 1), data -> uploads[0] += data);
+        }
+        assertEquals(0.5f, pipeline.progress(), 1e-6f); //preparado, falta subir
+
+        long[] now = {0};
+        // Cada lectura del reloj avanza 1 ms: con 3 ms de presupuesto caben 3 subidas
+        assertEquals(3, pipeline.runUploads(3_000_000, () -> now[0] += 1_000_000));
+        assertEquals(3, uploads[0]);
+        // Sin presupuesto sigue avanzando de una en una
+        assertEquals(1, pipeline.runUploads(0, () -> now[0] += 1_000_000));
+        assertEquals(6, pipeline.runUploads(Long.MAX_VALUE, () -> now[0]));
+        assertEquals(10, uploads[0]);
+        assertTrue(pipeline.isDone());
+        assertEquals(0, pipeline.runUploads(Long.MAX_VALUE, () -> now[0]));
+    }
+
+    @Test
+    public void failure_reportsNameAndKeepsGoing() {
+        AssetPipeline pipeline = new AssetPipeline(Runnable::run);
+        List<String> uploaded = new ArrayList<>();
+        pipeline.upload("roto", pipeline.prepare("roto", () -> {
+            throw new IOException("no existe");
+        }), data -> uploaded.add("roto"));
+        pipeline.upload("bueno", pipeline.prepare("bueno", () -> "bueno"), uploaded::add);
+
+        try {
+            pipeline.runUploads(Long.MAX_VALUE, System::nanoTime);
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("roto"));
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertFalse(pipeline.isDone());
+        pipeline.runUploads(Long.MAX_VALUE, System::nanoTime);
+        assertEquals(1, uploaded.size());
+        assertEquals("bueno", uploaded.get(0));
+        assertTrue(pipeline.isDone());
+    }
+
+    @Test
+    public void dependencies_joinWithoutDeadlockOnOneThread() throws InterruptedException {
+        ExecutorService pool = AssetPipeline.newWorkerPool(1);
+        try {
+            AssetPipeline pipeline = new AssetPipeline(pool);
+            CompletableFuture<Integer> base = pipeline.prepare("base", () -> 20);
+            CompletableFuture<Integer> derived = pipeline.prepare("derivado", () -> base.join() + 1);
+            int[] result = new int[1];
+            pipeline.upload("derivado", pipeline.prepare("final", () -> derived.join() * 2), data -> result[0] = data);
+            runToEnd(pipeline);
+            assertEquals(42, result[0]);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
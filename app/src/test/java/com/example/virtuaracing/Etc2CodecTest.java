@@ -0,0 +1,104 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.*;
+
+public class Etc2CodecTest {
+
+    // PSNR de los canales de color (ponderados por alfa) y del alfa por separado
+    private static double psnr(int[] a, int[] b, boolean alpha) {
+        double sum = 0;
+        int samples = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (alpha) {
+                double d = (a[i] >>> 24) - (b[i] >>> 24);
+                sum += d * d;
+                samples++;
+            } else {
+                double weight = (a[i] >>> 24) / 255.0;
+                for (int shift = 0; shift < 24; shift += 8) {
+                    double d = ((a[i] >> shift) & 0xFF) - ((b[i] >> shift) & 0xFF);
+                    sum += weight * d * d;
+                    samples++;
+                }
+            }
+        }
+        double mse = sum / samples;
+        return mse == 0 ? Double.POSITIVE_INFINITY : 10 * Math.log10(255.0 * 255.0 / mse);
+    }
+
+    @Test
+    public void solidBlocks_areExact() {
+        int[] colors = {0xFF000000, 0xFFFFFFFF, 0x00000000, 0x80808080, 0xFF224488};
+        for (int color : colors) {
+            int[] argb = new int[8 * 8];
+            Arrays.fill(argb, color);
+            int[] decoded = Etc2Codec.decode(Etc2Codec.encode(argb, 8, 8), 8, 8);
+            for (int p : decoded) {
+                assertEquals(color >>> 24, p >>> 24);
+                for (int shift = 0; shift < 24; shift += 8) {
+                    assertEquals(Integer.toHexString(color), (color >> shift) & 0xFF, (p >> shift) & 0xFF, 4);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void gradients_roundTripWithGoodQuality() {
+        int w = 64, h = 32;
+        int[] argb = new int[w * h];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                argb[y * w + x] = (x * 4) << 24 | (x * 4) << 16 | (y * 8) << 8 | ((x + y) * 2);
+            }
+        }
+        byte[] encoded = Etc2Codec.encode(argb, w, h);
+        assertEquals(w * h, encoded.length); //1 byte por píxel
+        int[] decoded = Etc2Codec.decode(encoded, w, h);
+        assertTrue(psnr(argb, decoded, true) > 40);
+        assertTrue(psnr(argb, decoded, false) > 32);
+    }
+
+    @Test
+    public void noise_staysBounded() {
+        Random random = new Random(3);
+        int w = 16, h = 16;
+        int[] argb = new int[w * h];
+        for (int i = 0; i < argb.length; i++) argb[i] = random.nextInt();
+        int[] decoded = Etc2Codec.decode(Etc2Codec.encode(argb, w, h), w, h);
+        assertTrue(psnr(argb, decoded, true) > 12);
+    }
+
+    @Test
+    public void oddSizes_roundTrip() {
+        int[] argb = new int[5 * 3];
+        Arrays.fill(argb, 0xFF10A020);
+        assertEquals(2 * 1 * Etc2Codec.BLOCK_BYTES, Etc2Codec.encodedSize(5, 3));
+        int[] decoded = Etc2Codec.decode(Etc2Codec.encode(argb, 5, 3), 5, 3);
+        assertEquals(15, decoded.length);
+        for (int p : decoded) assertEquals(0xFF, p >>> 24);
+    }
+
+    @Test
+    public void shippedHud_compressesWithGoodQuality() throws IOException {
+        for (String name : TexturePackerTest.HUD) {
+            BufferedImage image = ImageIO.read(TestAssets.raw(name + ".png"));
+            // Un recorte del centro basta y el test sigue siendo rápido
+            int w = Math.min(256, image.getWidth()), h = Math.min(256, image.getHeight());
+            int x0 = (image.getWidth() - w) / 2, y0 = (image.getHeight() - h) / 2;
+            int[] argb = image.getRGB(x0, y0, w, h, null, 0, w);
+            int[] decoded = Etc2Codec.decode(Etc2Codec.encode(argb, w, h), w, h);
+            double alpha = psnr(argb, decoded, true), color = psnr(argb, decoded, false);
+            assertTrue(name + " alfa " + alpha, alpha > 30);
+            assertTrue(name + " color " + color, color > 30);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FramePacerTest {
+
+    private static final long MS = 1_000_000L;
+    private static final long VSYNC = 1_000_000_000L / 60;
+
+    // Reloj manual: los tests deciden cuánto dura cada frame
+    private long now = 5_000 * MS;
+
+    private FramePacer pacer(int fps) {
+        return new FramePacer(() -> now, fps);
+    }
+
+    // Un frame completo: espera lo que diga el pacer, dibuja durante workNanos
+    private boolean frame(FramePacer pacer, long workNanos, boolean changed) {
+        now += pacer.waitNanos();
+        pacer.beginFrame();
+        now += workNanos;
+        return pacer.endFrame(changed);
+    }
+
+    // Un frame en un panel de 60 Hz: cpuNanos en onDrawFrame, la GPU acaba gpuNanos después del
+    // principio y eglSwapBuffers se bloquea hasta el primer vsync tras eso
+    private void vsyncFrame(FramePacer pacer, long cpuNanos, long gpuNanos) {
+        now += pacer.waitNanos();
+        pacer.beginFrame();
+        long start = now;
+        now += cpuNanos;
+        pacer.endFrame(true);
+        long done = Math.max(now, start + gpuNanos);
+        now = (done / VSYNC + 1) * VSYNC;
+    }
+
+    @Test
+    public void fpsCap_spacesFramesEvenlyOnAFastDevice() {
+        FramePacer pacer = pacer(30);
+        long start = now;
+        for (int i = 0; i < 90; i++) frame(pacer, 2 * MS, true); // un dispositivo capaz de ~500 FPS
+        // 90 frames a 30 FPS: el último empieza a los 89 intervalos
+        long expected = 89 * pacer.getFrameBudgetNanos() + 2 * MS;
+        assertEquals(expected, now - start, MS);
+    }
+
+    @Test
+    public void lateFrame_doesNotCauseACatchUpBurst() {
+        FramePacer pacer = pacer(60);
+        frame(pacer, 1 * MS, true);
+        now += 200 * MS; // parón (GC, cambio de app...)
+        assertEquals(0, pacer.waitNanos());
+        pacer.beginFrame();
+        pacer.endFrame(true);
+        // El siguiente vuelve a esperar un intervalo completo en vez de ir a ráfagas
+        assertTrue(pacer.waitNanos() > 15 * MS);
+    }
+
+    @Test
+    public void overBudget_lowersResolutionDownToTheMinimum() {
+        FramePacer pacer = pacer(60);
+        int changes = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (frame(pacer, 25 * MS, true)) changes++;
+        }
+        assertEquals(FramePacer.MIN_SCALE, pacer.getResolutionScale(), 0f);
+        assertEquals("de 1.0 a 0.5 en pasos de 0.1", 5, changes);
+    }
+
+    @Test
+    public void lightLoad_restoresFullResolutionWithHysteresis() {
+        FramePacer pacer = pacer(60);
+        for (int i = 0; i < 100; i++) frame(pacer, 25 * MS, true);
+        float lowered = pacer.getResolutionScale();
+        assertTrue(lowered < 1);
+
+        // Entre el 60% y el 90% del presupuesto no se toca la escala
+        for (int i = 0; i < 300; i++) frame(pacer, 12 * MS, true);
+        assertEquals(lowered, pacer.getResolutionScale(), 0f);
+
+        for (int i = 0; i < 1000; i++) frame(pacer, 4 * MS, true);
+        assertEquals(1.0f, pacer.getResolutionScale(), 0f);
+    }
+
+    @Test
+    public void swapBlockedOnVsync_keepsFullResolution() {
+        FramePacer pacer = pacer(60);
+        for (int i = 0; i < 1000; i++) vsyncFrame(pacer, 2 * MS, 4 * MS);
+        assertEquals(1.0f, pacer.getResolutionScale(), 0f);
+        assertEquals(2 * MS, pacer.getAverageFrameNanos(), MS / 10);
+    }
+
+    @Test
+    public void missedVsync_lowersResolution() {
+        FramePacer pacer = pacer(60);
+        for (int i = 0; i < 200; i++) vsyncFrame(pacer, 2 * MS, 20 * MS); //la GPU no llega: 30 FPS
+        assertEquals(2 * VSYNC, pacer.getAverageFrameNanos(), MS);
+        assertTrue(pacer.getResolutionScale() < 1);
+    }
+
+    @Test
+    public void fpsCapWait_doesNotCountTowardsTheFrame() {
+        FramePacer pacer = pacer(30);
+        for (int i = 0; i < 200; i++) frame(pacer, 3 * MS, true);
+        assertEquals(3 * MS, pacer.getAverageFrameNanos(), MS / 10);
+        assertEquals(1.0f, pacer.getResolutionScale(), 0f);
+    }
+
+    @Test
+    public void idleGaps_areNotMeasured() {
+        FramePacer pacer = pacer(60);
+        for (int i = 0; i < 40; i++) frame(pacer, 2 * MS, false); //escena quieta: a demanda
+        float average = pacer.getAverageFrameNanos();
+        now += 500 * MS; //sin frames hasta que la simulación pide uno
+        frame(pacer, 2 * MS, true);
+        assertEquals(average, pacer.getAverageFrameNanos(), 0f);
+
+        frame(pacer, 2 * MS, true);
+        now += 3_000 * MS; //app en segundo plano con la escena en marcha
+        frame(pacer, 2 * MS, true);
+        assertEquals(2 * MS, pacer.getAverageFrameNanos(), MS / 10);
+    }
+
+    @Test
+    public void unchangedFrames_markTheSceneStatic() {
+        FramePacer pacer = pacer(60);
+        for (int i = 0; i < 29; i++) frame(pacer, MS, false);
+        assertFalse(pacer.isStatic());
+        frame(pacer, MS, false);
+        assertTrue(pacer.isStatic());
+        frame(pacer, MS, true);
+        assertFalse(pacer.isStatic());
+    }
+}
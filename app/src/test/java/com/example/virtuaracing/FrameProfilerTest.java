@@ -0,0 +1,101 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FrameProfilerTest {
+
+    private long now = 0;
+
+    @Test
+    public void ringHistogram_percentilesOverTheLastSamplesOnly() {
+        RingHistogram h = new RingHistogram(100);
+        assertEquals(0, h.percentile(0.5));
+        for (int i = 1; i <= 100; i++) h.add(i);
+        assertEquals(50, h.percentile(0.50));
+        assertEquals(95, h.percentile(0.95));
+        assertEquals(99, h.percentile(0.99));
+        assertEquals(100, h.percentile(1.0));
+        assertEquals(100, h.last());
+
+        // 100 muestras más: las antiguas salen del anillo
+        for (int i = 1001; i <= 1100; i++) h.add(i);
+        assertEquals(100, h.size());
+        assertEquals(1050, h.percentile(0.50));
+        assertEquals(1100, h.last());
+
+        // Orden correcto con datos desordenados (la ordenación es propia, no Arrays.sort)
+        Random rand = new Random(7);
+        long[] values = new long[100];
+        for (int i = 0; i < values.length; i++) h.add(values[i] = rand.nextInt(10_000));
+        Arrays.sort(values);
+        for (double p : new double[]{0.01, 0.5, 0.9, 0.95, 0.99, 1.0}) {
+            assertEquals(values[(int) Math.ceil(p * values.length) - 1], h.percentile(p));
+        }
+    }
+
+    @Test
+    public void phases_areTimedFromTheLastMark() {
+        FrameProfiler profiler = new FrameProfiler(() -> now, 64);
+        profiler.setEnabled(true);
+        for (int frame = 0; frame < 10; frame++) {
+            profiler.beginFrame();
+            now += 100; profiler.endPhase(FrameProfiler.SIMULATION);
+            now += 300; profiler.endPhase(FrameProfiler.ROAD);
+            now += 50;  profiler.endPhase(FrameProfiler.HUD);
+            now += 25;  profiler.endPhase(FrameProfiler.ROAD); // una fase en dos trozos
+            profiler.endFrame(12, 4, 3000 + frame);
+        }
+        assertEquals(10, profiler.frameCount());
+        assertEquals(100, profiler.percentile(FrameProfiler.SIMULATION, 0.5));
+        assertEquals(325, profiler.percentile(FrameProfiler.ROAD, 0.99));
+        assertEquals(0, profiler.percentile(FrameProfiler.CARS, 0.5));
+        assertEquals(475, profiler.percentile(FrameProfiler.FRAME, 0.5));
+        assertEquals(12, profiler.last(FrameProfiler.DRAW_CALLS));
+        assertEquals(3009, profiler.percentile(FrameProfiler.TRIANGLES, 1.0));
+        assertEquals(3004, profiler.percentile(FrameProfiler.TRIANGLES, 0.5));
+    }
+
+    @Test
+    public void disabled_recordsNothingAndEnablingStartsClean() {
+        FrameProfiler profiler = new FrameProfiler(() -> now, 64);
+        profiler.beginFrame();
+        now += 1000;
+        profiler.endPhase(FrameProfiler.CARS);
+        profiler.endFrame(1, 1, 1);
+        assertEquals(0, profiler.frameCount());
+
+        profiler.setEnabled(true);
+        profiler.beginFrame();
+        profiler.endFrame(1, 1, 1);
+        profiler.setEnabled(false);
+        profiler.setEnabled(true);
+        assertEquals(0, profiler.frameCount());
+    }
+
+    @Test
+    public void framesAndPercentileQueries_allocateNothing() {
+        FrameProfiler profiler = new FrameProfiler(System::nanoTime, 256);
+        profiler.setEnabled(true);
+        long[] sink = new long[1];
+
+        long allocated = TestAllocations.allocatedBytes(1, () -> {
+            for (int frame = 0; frame < 5_000; frame++) {
+                profiler.beginFrame();
+                for (int phase = 0; phase < FrameProfiler.PHASE_COUNT; phase++) profiler.endPhase(phase);
+                profiler.endFrame(frame, 3, frame * 2);
+                if (frame % 30 == 0) {
+                    for (int m = 0; m < FrameProfiler.METRIC_COUNT; m++) {
+                        sink[0] += profiler.percentile(m, 0.50) + profiler.percentile(m, 0.95) + profiler.percentile(m, 0.99);
+                    }
+                }
+            }
+        });
+        assertEquals("bytes reservados en 5000 frames", 0, allocated);
+        assertTrue(sink[0] > 0);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.virtuaracing;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FrustumTest {
+
+    private Frustum frustum;
+
+    @Before
+    public void setUp() {
+        // Como el juego: 60º, near 1, far 200, cámara en el origen mirando a +Z
+        frustum = new Frustum();
+        frustum.setPerspective(60, 16f / 9f, 1, 200);
+        frustum.update(0, 0, 0, 0, 0, 1, 0, 1, 0);
+    }
+
+    @Test
+    public void pointsInFront_areVisible() {
+        assertTrue(frustum.isSphereVisible(0, 0, 10, 0));
+        assertTrue(frustum.isSphereVisible(0, 0, 199, 0));
+        assertTrue(frustum.isSphereVisible(5, 3, 20, 0));
+    }
+
+    @Test
+    public void behindNearOrFar_areCulled() {
+        assertFalse(frustum.isSphereVisible(0, 0, -10, 1));
+        assertFalse(frustum.isSphereVisible(0, 0, 0.5f, 0));
+        assertFalse(frustum.isSphereVisible(0, 0, 210, 5));
+    }
+
+    @Test
+    public void sides_useVerticalFovAndAspect() {
+        // Vertical: tan(30º) * 10 = 5.77
+        assertTrue(frustum.isSphereVisible(0, 5.5f, 10, 0));
+        assertFalse(frustum.isSphereVisible(0, 6.0f, 10, 0));
+        assertFalse(frustum.isSphereVisible(0, -6.0f, 10, 0));
+        // Horizontal: 5.77 * 16/9 = 10.26
+        assertTrue(frustum.isSphereVisible(10.0f, 0, 10, 0));
+        assertFalse(frustum.isSphereVisible(10.5f, 0, 10, 0));
+        assertFalse(frustum.isSphereVisible(-10.5f, 0, 10, 0));
+    }
+
+    @Test
+    public void sphereStraddlingPlane_isVisible() {
+        assertTrue(frustum.isSphereVisible(0, 0, -2, 3));
+        assertTrue(frustum.isSphereVisible(12, 0, 10, 2));
+        assertFalse(frustum.isSphereVisible(12, 0, 10, 0.5f));
+    }
+
+    @Test
+    public void planeDistances_areSigned() {
+        // Plano near (0): z - 1 ; plano far (1): 200 - z
+        assertEquals(9, frustum.distance(0, 0, 0, 10), 1e-4f);
+        assertEquals(190, frustum.distance(1, 0, 0, 10), 1e-4f);
+    }
+
+    @Test
+    public void overheadCamera_withUpAlongMinusZ() {
+        // Cámara cenital del juego: eye (0,85,0), mira abajo, up (0,0,-1)
+        frustum.update(new Vector4(0, 85, 0, 1), new Vector4(0, 0, 0, 1), new Vector4(0, 0, -1, 0));
+        assertTrue(frustum.isSphereVisible(0, 0, 0, 0));
+        assertTrue(frustum.isSphereVisible(0, 0, 40, 0));   // 85 * tan(30º) = 49
+        assertFalse(frustum.isSphereVisible(0, 0, 55, 0));
+        assertFalse(frustum.isSphereVisible(0, 100, 0, 5)); // por encima de la cámara
+    }
+}
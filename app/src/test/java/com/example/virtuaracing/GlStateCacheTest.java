@@ -0,0 +1,71 @@
+package com.example.virtuaracing;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GlStateCacheTest {
+
+    private static final int LIGHTING = 0x0B50, DEPTH_TEST = 0x0B71, VERTEX_ARRAY = 0x8074;
+
+    @Before
+    public void resetStats() {
+        RenderStats.endFrame();
+    }
+
+    @Test
+    public void capabilities_onlyChangesAreSent() {
+        GlStateCache state = new GlStateCache();
+        assertTrue(state.set(LIGHTING, true)); //desconocido: siempre se envía
+        assertFalse(state.set(LIGHTING, true));
+        assertTrue(state.set(DEPTH_TEST, true));
+        assertTrue(state.set(LIGHTING, false));
+        assertFalse(state.set(LIGHTING, false));
+        assertFalse(state.set(DEPTH_TEST, true));
+        assertEquals(3, RenderStats.stateCallsSkipped);
+    }
+
+    @Test
+    public void textureAndArrays_countTheCallsTheySave() {
+        GlStateCache state = new GlStateCache();
+        assertTrue(state.bindTexture(3));
+        assertFalse(state.bindTexture(3));
+        assertTrue(state.bindTexture(4));
+
+        assertTrue(state.bindArrays(7, 6));
+        assertFalse(state.bindArrays(7, 6));
+        state.forgetArrays(); //p. ej. se ha subido un VBO
+        assertTrue(state.bindArrays(7, 6));
+        assertEquals(1 + 6, RenderStats.stateCallsSkipped);
+    }
+
+    @Test
+    public void invalidate_forgetsEverything() {
+        GlStateCache state = new GlStateCache();
+        state.set(VERTEX_ARRAY, true);
+        state.bindTexture(1);
+        state.bindArrays(2, 4);
+        state.invalidate();
+        assertTrue(state.set(VERTEX_ARRAY, true));
+        assertTrue(state.bindTexture(1));
+        assertTrue(state.bindArrays(2, 4));
+        assertEquals(0, RenderStats.stateCallsSkipped);
+    }
+
+    @Test
+    public void sortedFrame_skipsMoreThanUnsorted() {
+        // Dos texturas alternadas frente a las mismas agrupadas: la cola ordenada evita los cambios
+        int unsorted = skippedFor(new int[] {1, 2, 1, 2, 1, 2, 1, 2});
+        int sorted = skippedFor(new int[] {1, 1, 1, 1, 2, 2, 2, 2});
+        assertEquals(0, unsorted);
+        assertEquals(6, sorted);
+    }
+
+    private static int skippedFor(int[] textures) {
+        RenderStats.endFrame();
+        GlStateCache state = new GlStateCache();
+        for (int t : textures) state.bindTexture(t);
+        return RenderStats.stateCallsSkipped;
+    }
+}
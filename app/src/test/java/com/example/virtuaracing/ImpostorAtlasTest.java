@@ -0,0 +1,76 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class ImpostorAtlasTest {
+
+    @Test
+    public void fitTileSize_shrinksToSurface() {
+        assertEquals(64, ImpostorAtlas.fitTileSize(2, 8, 64, 1920, 1080));
+        assertEquals(32, ImpostorAtlas.fitTileSize(2, 8, 64, 400, 300));
+        assertEquals(16, ImpostorAtlas.fitTileSize(2, 8, 100, 200, 32)); //100 -> 64 -> ... -> 16
+        assertEquals(0, ImpostorAtlas.fitTileSize(2, 8, 64, 4, 4));
+    }
+
+    @Test
+    public void viewFor_roundsToNearestCapturedAngle() {
+        ImpostorAtlas atlas = new ImpostorAtlas(2, 8, 64);
+        assertEquals(0, atlas.viewFor(0));
+        assertEquals(0, atlas.viewFor(22));
+        assertEquals(1, atlas.viewFor(23));
+        assertEquals(2, atlas.viewFor(90));
+        assertEquals(0, atlas.viewFor(350));
+        assertEquals(7, atlas.viewFor(-45));
+        assertEquals(4, atlas.viewFor(-180));
+        assertEquals(2, atlas.viewFor(450));
+        assertEquals(90, atlas.viewYaw(2), 0f);
+    }
+
+    @Test
+    public void uv_flipsRowsOfModels() {
+        ImpostorAtlas atlas = new ImpostorAtlas(2, 8, 64);
+        assertEquals(512, atlas.width());
+        assertEquals(128, atlas.height());
+        // El modelo 0 está abajo en el framebuffer y arriba en la imagen
+        assertEquals(0, atlas.tileY(0));
+        assertArrayEquals(new float[]{0.25f, 0.5f, 0.375f, 1.0f}, atlas.uv(0, 2), 0f);
+        assertArrayEquals(new float[]{0.875f, 0.0f, 1.0f, 0.5f}, atlas.uv(1, 7), 0f);
+    }
+
+    @Test
+    public void fadeIn_isLinearInsideBand() {
+        assertEquals(0, ImpostorAtlas.fadeIn(30, 35, 45), 0f);
+        assertEquals(0.5f, ImpostorAtlas.fadeIn(40, 35, 45), 1e-6f);
+        assertEquals(1, ImpostorAtlas.fadeIn(80, 35, 45), 0f);
+    }
+
+    @Test
+    public void toImage_keysBackground_flipsRows_andBleedsColor() {
+        // 3x2 de abajo arriba: fila de abajo magenta, magenta, rojo; fila de arriba todo magenta salvo un verde
+        int[][] rgb = {{0xFF00FF, 0xFC02FF, 0xFF0000}, {0x00FF00, 0xFF00FF, 0xFF00FF}};
+        ByteBuffer pixels = ByteBuffer.allocate(3 * 2 * 4);
+        for (int[] row : rgb) {
+            for (int c : row) pixels.put((byte) (c >> 16)).put((byte) (c >> 8)).put((byte) c).put((byte) 0xFF);
+        }
+        ByteBuffer image = ImpostorAtlas.toImage(pixels, 3, 2, 0xFF00FF, 8);
+
+        // Fila 0 de la imagen = fila de arriba del framebuffer: verde, fondo, fondo
+        assertArrayEquals(new byte[]{0, (byte) 0xFF, 0, (byte) 0xFF}, pixel(image, 0, 0));
+        assertArrayEquals(new byte[]{0, (byte) 0xFF, 0, 0}, pixel(image, 1, 0));        //color del verde
+        assertArrayEquals(new byte[]{(byte) 0xFF, 0, 0, 0}, pixel(image, 2, 0));        //color del rojo
+        // Fila 1: fondo, casi fondo (dentro de la tolerancia), rojo
+        assertArrayEquals(new byte[]{0, (byte) 0xFF, 0, 0}, pixel(image, 0, 1));
+        assertArrayEquals(new byte[]{(byte) 0xFF, 0, 0, 0}, pixel(image, 1, 1));
+        assertArrayEquals(new byte[]{(byte) 0xFF, 0, 0, (byte) 0xFF}, pixel(image, 2, 1));
+    }
+
+    private static byte[] pixel(ByteBuffer image, int x, int y) {
+        byte[] p = new byte[4];
+        for (int k = 0; k < 4; k++) p[k] = image.get((y * 3 + x) * 4 + k);
+        return p;
+    }
+}
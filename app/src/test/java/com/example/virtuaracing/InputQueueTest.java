@@ -0,0 +1,42 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class InputQueueTest {
+
+    @Test
+    public void offerAndPoll_inOrderUntilFull() {
+        InputQueue queue = new InputQueue(4);
+        assertEquals(InputQueue.NONE, queue.poll());
+        for (int i = 1; i <= 4; i++) assertTrue(queue.offer(i));
+        assertFalse("llena", queue.offer(5));
+        for (int i = 1; i <= 4; i++) assertEquals(i, queue.poll());
+        assertEquals(InputQueue.NONE, queue.poll());
+        assertTrue(queue.offer(6));
+        assertEquals(6, queue.poll());
+    }
+
+    @Test(timeout = 30_000)
+    public void stress_producerAndConsumerThreads_loseNothing() throws Exception {
+        InputQueue queue = new InputQueue(16);
+        final int total = 1_000_000;
+        Thread producer = new Thread(() -> {
+            for (int i = 1; i <= total; i++) {
+                while (!queue.offer(i)) Thread.yield();
+            }
+        });
+        producer.start();
+
+        int expected = 1;
+        while (expected <= total) {
+            int command = queue.poll();
+            if (command == InputQueue.NONE) { Thread.yield(); continue; }
+            assertEquals(expected, command);
+            expected++;
+        }
+        producer.join();
+        assertEquals(InputQueue.NONE, queue.poll());
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.*;
+
+public class InstanceBatchTest {
+
+    private static final float EPS = 1e-4f;
+
+    // Aplica la matriz i del lote a un punto (x, y, z, 1)
+    private static float[] transform(InstanceBatch batch, int i, float x, float y, float z) {
+        float[] m = batch.matrices();
+        int o = i * InstanceBatch.FLOATS_PER_INSTANCE;
+        return new float[] {
+                m[o] * x + m[o + 4] * y + m[o + 8] * z + m[o + 12],
+                m[o + 1] * x + m[o + 5] * y + m[o + 9] * z + m[o + 13],
+                m[o + 2] * x + m[o + 6] * y + m[o + 10] * z + m[o + 14]
+        };
+    }
+
+    private static void assertPoint(float[] expected, float[] actual) {
+        for (int k = 0; k < 3; k++) assertEquals("componente " + k, expected[k], actual[k], EPS);
+    }
+
+    @Test
+    public void translateThenRotate_matchesGlOrder() {
+        InstanceBatch batch = new InstanceBatch(1);
+        batch.translate(1, 2, 3);
+        batch.rotate(90, 0, 1, 0); //como glRotatef: (1,0,0) -> (0,0,-1)
+        batch.emit();
+
+        assertEquals(1, batch.size());
+        assertPoint(new float[] {1, 2, 2}, transform(batch, 0, 1, 0, 0));
+        assertPoint(new float[] {1, 2, 3}, transform(batch, 0, 0, 0, 0));
+        assertEquals(1, batch.matrices()[15], 0);
+    }
+
+    @Test
+    public void rotateAroundArbitraryAxis_keepsAxisAndLength() {
+        InstanceBatch batch = new InstanceBatch(1);
+        batch.rotate(37, 1, 1, 0);
+        batch.emit();
+
+        float s = (float) Math.sqrt(0.5);
+        assertPoint(new float[] {s, s, 0}, transform(batch, 0, s, s, 0)); //el eje no se mueve
+        float[] p = transform(batch, 0, 0, 0, 2);
+        assertEquals(2, Math.sqrt(p[0] * p[0] + p[1] * p[1] + p[2] * p[2]), EPS);
+    }
+
+    @Test
+    public void scaleAppliesBeforeTranslation() {
+        InstanceBatch batch = new InstanceBatch(1);
+        batch.translate(10, 0, 0);
+        batch.scale(2, 3, 4);
+        batch.emit();
+        assertPoint(new float[] {12, 3, 4}, transform(batch, 0, 1, 1, 1));
+    }
+
+    @Test
+    public void pushPop_restoresParentMatrix() {
+        // Como un coche con sus ruedas: matriz del coche y una rueda trasladada sobre ella
+        InstanceBatch batch = new InstanceBatch(2);
+        batch.translate(5, 0, 0);
+        batch.rotate(180, 0, 1, 0);
+        batch.push();
+        batch.translate(1, 0, 0);
+        batch.emit();
+        batch.pop();
+        batch.emit();
+
+        assertPoint(new float[] {4, 0, 0}, transform(batch, 0, 0, 0, 0));
+        assertPoint(new float[] {5, 0, 0}, transform(batch, 1, 0, 0, 0));
+    }
+
+    @Test
+    public void emit_growsAndKeepsEarlierInstances() {
+        InstanceBatch batch = new InstanceBatch(1);
+        for (int i = 0; i < 100; i++) {
+            batch.loadIdentity();
+            batch.translate(i, 0, 0);
+            batch.emit();
+        }
+        assertEquals(100, batch.size());
+        for (int i = 0; i < 100; i++) assertEquals(i, transform(batch, i, 0, 0, 0)[0], 0);
+
+        FloatBuffer buffer = batch.buffer();
+        assertEquals(0, buffer.position());
+        assertEquals(100 * InstanceBatch.FLOATS_PER_INSTANCE, buffer.limit());
+        assertEquals(99, buffer.get(99 * InstanceBatch.FLOATS_PER_INSTANCE + 12), 0);
+
+        batch.clear();
+        assertEquals(0, batch.size());
+        assertEquals(0, batch.buffer().limit());
+    }
+
+    @Test
+    public void refillingEveryFrame_allocatesNothing() {
+        InstanceBatch batch = new InstanceBatch(4);
+        float[] sink = new float[1];
+
+        long allocated = TestAllocations.allocatedBytes(3, () -> {
+            for (int frame = 0; frame < 5_000; frame++) {
+                batch.clear();
+                for (int i = 0; i < 40; i++) {
+                    batch.loadIdentity();
+                    batch.translate(i, 0, frame);
+                    batch.rotate(frame, 0, 1, 0);
+                    batch.push();
+                    batch.translate(1, 1, 1);
+                    batch.emit();
+                    batch.pop();
+                }
+                sink[0] += batch.buffer().get(12);
+            }
+        });
+        assertEquals("bytes reservados en 5000 frames", 0, allocated);
+        assertTrue(sink[0] != 0);
+    }
+}
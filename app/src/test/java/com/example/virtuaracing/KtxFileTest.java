@@ -0,0 +1,74 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class KtxFileTest {
+
+    private static ByteBuffer write(int width, int height, byte[][] levels) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        KtxFile.write(out, Etc2Codec.GL_COMPRESSED_RGBA8_ETC2_EAC, KtxFile.GL_RGBA, width, height, levels);
+        byte[] bytes = out.toByteArray();
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        return direct;
+    }
+
+    @Test
+    public void roundTrip_keepsLevels() throws IOException {
+        byte[][] levels = {new byte[64], new byte[16], new byte[3]}; //el último fuerza relleno
+        for (byte[] level : levels) {
+            for (int i = 0; i < level.length; i++) level[i] = (byte) (i * 31 + level.length);
+        }
+        ByteBuffer file = write(8, 8, levels);
+        assertEquals(KtxFile.HEADER_BYTES + 4 + 64 + 4 + 16 + 4 + 4, file.capacity());
+
+        KtxFile ktx = KtxFile.read(file);
+        assertEquals(Etc2Codec.GL_COMPRESSED_RGBA8_ETC2_EAC, ktx.internalFormat);
+        assertEquals(8, ktx.width);
+        assertEquals(8, ktx.height);
+        assertEquals(3, ktx.levelCount());
+        assertEquals(83, ktx.dataBytes());
+        for (int l = 0; l < levels.length; l++) {
+            ByteBuffer level = ktx.level(l);
+            assertTrue(level.isDirect());
+            byte[] read = new byte[level.remaining()];
+            level.get(read);
+            assertArrayEquals(levels[l], read);
+            assertEquals("level() no consume el nivel", levels[l].length, ktx.level(l).remaining());
+        }
+    }
+
+    @Test
+    public void encodedChain_hasEtc2Sizes() throws IOException {
+        int[][] chain = MipChain.build(new int[16 * 8], 16, 8, Integer.MAX_VALUE);
+        KtxFile ktx = KtxFile.read(write(16, 8, Etc2Codec.encodeLevels(chain, 16, 8)));
+        assertEquals(5, ktx.levelCount());
+        int[] expected = {8 * 16, 2 * 16, 16, 16, 16};
+        for (int l = 0; l < expected.length; l++) assertEquals(expected[l], ktx.level(l).remaining());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void notKtx_throws() {
+        KtxFile.read(ByteBuffer.allocate(KtxFile.HEADER_BYTES));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncated_throws() throws IOException {
+        ByteBuffer file = write(4, 4, new byte[][]{new byte[16]});
+        file.limit(file.limit() - 1);
+        KtxFile.read(file);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedAfterHeader_throws() throws IOException {
+        ByteBuffer file = write(4, 4, new byte[][]{new byte[16]});
+        file.limit(KtxFile.HEADER_BYTES); //ni el tamaño del primer nivel: TextureLoader cae al PNG
+        KtxFile.read(file);
+    }
+}
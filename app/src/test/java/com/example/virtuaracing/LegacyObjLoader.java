@@ -0,0 +1,81 @@
+package com.example.virtuaracing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+
+/**
+ * Copia del antiguo Object3D.loadModel (readLine + split + ArrayList&lt;Float&gt;), sin Context,
+ * para comparar resultados y rendimiento con ObjParser.
+ */
+class LegacyObjLoader {
+
+    ArrayList<Float> vertices = new ArrayList<>();
+    ArrayList<Float> normals = new ArrayList<>();
+    ArrayList<Float> textures = new ArrayList<>();
+
+    static LegacyObjLoader load(InputStream inputStream) throws IOException {
+        LegacyObjLoader result = new LegacyObjLoader();
+        ArrayList<Float> tempVertices = new ArrayList<>();
+        ArrayList<Float> tempNormals = new ArrayList<>();
+        ArrayList<Float> tempTextures = new ArrayList<>();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] parts = line.trim().split("\\s+");
+            if (parts.length == 0) continue;
+
+            if (parts[0].equals("v")) {
+                tempVertices.add(Float.parseFloat(parts[1]));
+                tempVertices.add(Float.parseFloat(parts[2]));
+                tempVertices.add(Float.parseFloat(parts[3]));
+            } else if (parts[0].equals("vt")) {
+                tempTextures.add(Float.parseFloat(parts[1]));
+                tempTextures.add(1.0f - Float.parseFloat(parts[2]));
+            } else if (parts[0].equals("vn")) {
+                tempNormals.add(Float.parseFloat(parts[1]));
+                tempNormals.add(Float.parseFloat(parts[2]));
+                tempNormals.add(Float.parseFloat(parts[3]));
+            } else if (parts[0].equals("f")) {
+                int numPoints = parts.length - 1;
+                for (int i = 0; i < numPoints - 2; i++) {
+                    result.processVertex(parts[1], tempVertices, tempTextures, tempNormals);
+                    result.processVertex(parts[2 + i], tempVertices, tempTextures, tempNormals);
+                    result.processVertex(parts[3 + i], tempVertices, tempTextures, tempNormals);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void processVertex(String part, ArrayList<Float> tempV, ArrayList<Float> tempT, ArrayList<Float> tempN) {
+        String[] indices = part.split("/");
+
+        int vIdx = (Integer.parseInt(indices[0]) - 1) * 3;
+        vertices.add(tempV.get(vIdx));
+        vertices.add(tempV.get(vIdx + 1));
+        vertices.add(tempV.get(vIdx + 2));
+
+        if (indices.length > 1 && !indices[1].isEmpty()) {
+            int tIdx = (Integer.parseInt(indices[1]) - 1) * 2;
+            textures.add(tempT.get(tIdx));
+            textures.add(tempT.get(tIdx + 1));
+        } else {
+            textures.add(0f); textures.add(0f);
+        }
+
+        if (indices.length > 2 && !indices[2].isEmpty()) {
+            int nIdx = (Integer.parseInt(indices[2]) - 1) * 3;
+            normals.add(tempN.get(nIdx));
+            normals.add(tempN.get(nIdx + 1));
+            normals.add(tempN.get(nIdx + 2));
+        }
+    }
+
+    int vertexCount() {
+        return vertices.size() / 3;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.virtuaracing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copia del antiguo calculateCarState sobre List&lt;Vector4&gt; (dos atan2 por coche y frame),
+ * para comparar resultados y rendimiento con Route.
+ */
+class LegacyRouteSampler {
+
+    final List<Vector4> routePoints = new ArrayList<>();
+
+    LegacyRouteSampler(float[] positions, int count) {
+        for (int i = 0; i < count; i++) {
+            routePoints.add(new Vector4(positions[i * 3], positions[i * 3 + 1], positions[i * 3 + 2], 1));
+        }
+    }
+
+    void calculateCarState(float progress, CarState state) {
+        state.progress = progress;
+        if (routePoints.isEmpty()) return;
+
+        int idx = (int) progress;
+        int nextIdx = (idx + 1) % routePoints.size();
+        float t = progress - idx;
+
+        Vector4 p1 = routePoints.get(idx);
+        Vector4 p2 = routePoints.get(nextIdx);
+
+        float x = p1.get(0) * (1-t) + p2.get(0) * t;
+        float y = p1.get(1) * (1-t) + p2.get(1) * t;
+        float z = p1.get(2) * (1-t) + p2.get(2) * t;
+        state.position.set(x, y, z, 1);
+
+        double dx = p2.get(0) - p1.get(0);
+        double dz = p2.get(2) - p1.get(2);
+        float currentHeading = (float) Math.toDegrees(Math.atan2(dx, dz));
+        state.rotationY = currentHeading;
+
+        int nextNextIdx = (nextIdx + 1) % routePoints.size();
+        Vector4 p3 = routePoints.get(nextNextIdx);
+
+        double dxNext = p3.get(0) - p2.get(0);
+        double dzNext = p3.get(2) - p2.get(2);
+        float futureHeading = (float) Math.toDegrees(Math.atan2(dxNext, dzNext));
+
+        float angleDiff = futureHeading - currentHeading;
+        while (angleDiff < -180) angleDiff += 360;
+        while (angleDiff > 180) angleDiff -= 360;
+
+        float steer = angleDiff * 7.5f;
+        if(steer > 50) steer = 50;
+        if(steer < -50) steer = -50;
+        state.steeringAngle = steer;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LodSelectorTest {
+
+    private final LodSelector lod = new LodSelector(0.2f, 0.1f, 0.04f);
+
+    @Test
+    public void firstSelection_usesPlainThresholds() {
+        assertEquals(3, lod.levelCount());
+        assertEquals(0, lod.select(-1, 1, 5));    // 0.2
+        assertEquals(1, lod.select(-1, 1, 11));   // 0.09
+        assertEquals(2, lod.select(-1, 1, 30));   // 0.033
+        assertEquals(0, lod.select(-1, 1, 0));    // dentro del objeto
+    }
+
+    @Test
+    public void nearThreshold_keepsCurrentLevel() {
+        // 0.095 y 0.105 están dentro del margen de 0.1 (0.08..0.12): no cambia en ningún sentido
+        assertEquals(0, lod.select(0, 0.095f, 1));
+        assertEquals(1, lod.select(1, 0.105f, 1));
+        assertEquals(1, lod.select(0, 0.07f, 1));
+        assertEquals(0, lod.select(1, 0.13f, 1));
+    }
+
+    @Test
+    public void largeJumps_crossSeveralLevels() {
+        assertEquals(2, lod.select(0, 0.01f, 1));
+        assertEquals(0, lod.select(2, 0.5f, 1));
+    }
+
+    @Test
+    public void movingAway_andBack_changesAtDifferentDistances() {
+        int level = 0, down = -1, up = -1;
+        for (int d = 10; d <= 40; d++) {
+            int next = lod.select(level, 1, d);
+            if (level == 0 && next == 1) down = d;
+            level = next;
+        }
+        for (int d = 40; d >= 5; d--) {
+            int next = lod.select(level, 1, d);
+            if (level == 1 && next == 0) up = d;
+            level = next;
+        }
+        assertEquals(13, down); // 1/13 < 0.08
+        assertEquals(8, up);    // 1/8 > 0.12
+    }
+}
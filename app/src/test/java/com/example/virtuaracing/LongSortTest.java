@@ -0,0 +1,38 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LongSortTest {
+
+    @Test
+    public void sortsLikeArraysSort() {
+        Random rand = new Random(3);
+        for (int n : new int[]{0, 1, 2, 7, 100, 1000}) {
+            long[][] inputs = new long[4][n];
+            for (int i = 0; i < n; i++) {
+                inputs[0][i] = rand.nextLong();               //desordenado
+                inputs[1][i] = (i + n / 3) % Math.max(1, n);  //anillo: dos tramos ordenados
+                inputs[2][i] = n - i;                         //al revés
+                inputs[3][i] = rand.nextInt(4);               //muchos repetidos
+            }
+            for (long[] input : inputs) {
+                long[] expected = input.clone(), actual = input.clone();
+                Arrays.sort(expected);
+                LongSort.sort(actual, n);
+                assertArrayEquals("n = " + n, expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void leavesTheRestOfTheArrayAlone() {
+        long[] a = {5, 3, 9, 1, -7, 4};
+        LongSort.sort(a, 4);
+        assertArrayEquals(new long[]{1, 3, 5, 9, -7, 4}, a);
+    }
+}
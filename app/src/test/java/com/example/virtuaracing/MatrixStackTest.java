@@ -0,0 +1,94 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MatrixStackTest {
+
+    private static final float EPS = 1e-4f;
+
+    private static float[] apply(MatrixStack m, float x, float y, float z, float w) {
+        float[] out = new float[4];
+        m.transform(x, y, z, w, out, 0);
+        return out;
+    }
+
+    private static void assertVector(float[] expected, float[] actual) {
+        for (int k = 0; k < expected.length; k++) assertEquals("componente " + k, expected[k], actual[k], EPS);
+    }
+
+    @Test
+    public void lookAt_movesEyeToOriginLookingDownNegativeZ() {
+        MatrixStack m = new MatrixStack(1);
+        m.lookAt(5, 2, 10, 5, 2, 0, 0, 1, 0);
+
+        assertVector(new float[] {0, 0, 0, 1}, apply(m, 5, 2, 10, 1));
+        assertVector(new float[] {0, 0, -10, 1}, apply(m, 5, 2, 0, 1)); //el centro queda delante
+        assertVector(new float[] {1, 0, 0, 0}, apply(m, 1, 0, 0, 0));
+    }
+
+    @Test
+    public void perspective_mapsNearAndFarToClipLimits() {
+        MatrixStack m = new MatrixStack(1);
+        m.perspective(90, 2, 1, 100);
+
+        float[] near = apply(m, 0, 0, -1, 1);
+        float[] far = apply(m, 0, 0, -100, 1);
+        assertEquals(-1, near[2] / near[3], EPS);
+        assertEquals(1, far[2] / far[3], EPS);
+        // fov 90º: en z = -1 el borde superior está en y = 1; con aspecto 2 el derecho en x = 2
+        float[] corner = apply(m, 2, 1, -1, 1);
+        assertVector(new float[] {1, 1}, new float[] {corner[0] / corner[3], corner[1] / corner[3]});
+    }
+
+    @Test
+    public void ortho_mapsHudPixelsToNdc() {
+        MatrixStack m = new MatrixStack(1);
+        m.ortho(0, 1920, 0, 1080, -1, 1);
+
+        assertVector(new float[] {-1, -1, 0, 1}, apply(m, 0, 0, 0, 1));
+        assertVector(new float[] {1, 1, 0, 1}, apply(m, 1920, 1080, 0, 1));
+    }
+
+    @Test
+    public void operationsComposeLikeGlOnTheRight() {
+        MatrixStack m = new MatrixStack(1);
+        m.translate(10, 0, 0);
+        m.rotate(90, 0, 0, 1); //(1,0,0) -> (0,1,0)
+        m.scale(2, 2, 2);
+
+        assertVector(new float[] {10, 2, 0, 1}, apply(m, 1, 0, 0, 1));
+
+        // multiply con una matriz equivalente a las tres operaciones da lo mismo que aplicarlas
+        MatrixStack same = new MatrixStack(1);
+        same.multiply(m.get().clone(), 0);
+        assertArrayEquals(m.get(), same.get(), EPS);
+    }
+
+    @Test
+    public void pushPop_restoresMatrixAndChecksDepth() {
+        MatrixStack m = new MatrixStack(2);
+        m.translate(1, 2, 3);
+        float[] saved = m.get().clone();
+
+        m.push();
+        m.rotate(45, 0, 1, 0);
+        m.push();
+        m.scale(3, 3, 3);
+        try {
+            m.push();
+            fail("tendría que estar llena");
+        } catch (IllegalStateException expected) {
+        }
+        m.pop();
+        m.pop();
+        assertArrayEquals(saved, m.get(), 0);
+
+        try {
+            m.pop();
+            fail("tendría que estar vacía");
+        } catch (IllegalStateException expected) {
+        }
+    }
+}
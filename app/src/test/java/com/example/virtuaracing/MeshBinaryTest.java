@@ -0,0 +1,97 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.*;
+
+public class MeshBinaryTest {
+
+    private static MeshData parseObj(String name) throws IOException {
+        try (InputStream in = TestAssets.open(name + ".obj")) {
+            return ObjParser.load(in);
+        }
+    }
+
+    private static ByteBuffer bake(MeshData mesh, boolean quantize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MeshBinary.write(mesh, quantize, out);
+        // Como en el móvil: buffer directo, igual que el mapeado del APK
+        byte[] bytes = out.toByteArray();
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        return direct;
+    }
+
+    @Test
+    public void roundTrip_isExact() throws IOException {
+        for (String name : TestAssets.MODELS) {
+            MeshData obj = parseObj(name);
+            ByteBuffer binary = bake(obj, false);
+            assertEquals(MeshBinary.HEADER_BYTES + obj.vertexCount * MeshData.STRIDE_BYTES, binary.capacity());
+
+            MeshData read = MeshBinary.read(binary);
+            assertEquals(name, obj.vertexCount, read.vertexCount);
+            assertEquals(name, obj.hasNormals, read.hasNormals);
+            assertArrayEquals(name, obj.vertices, read.vertices, 0f);
+
+            FloatBuffer view = MeshBinary.vertexView(binary);
+            assertNotNull(view);
+            float[] viewed = new float[view.remaining()];
+            view.get(viewed);
+            assertArrayEquals(name, obj.vertices, viewed, 0f);
+        }
+    }
+
+    @Test
+    public void quantizedRoundTrip_isClose() throws IOException {
+        for (String name : TestAssets.MODELS) {
+            MeshData obj = parseObj(name);
+            ByteBuffer binary = bake(obj, true);
+            assertEquals(MeshBinary.HEADER_BYTES + obj.vertexCount * MeshBinary.QUANTIZED_STRIDE_BYTES, binary.capacity());
+            assertNull(MeshBinary.vertexView(binary));
+
+            MeshData read = MeshBinary.read(binary);
+            float maxExtent = 0;
+            for (int i = 0; i < obj.vertexCount; i++) {
+                for (int k = 0; k < 3; k++) maxExtent = Math.max(maxExtent, Math.abs(obj.vertices[i * MeshData.STRIDE + k]));
+            }
+            float positionTolerance = 2 * maxExtent / 65535f + 1e-5f;
+            for (int i = 0; i < obj.vertexCount; i++) {
+                int o = i * MeshData.STRIDE;
+                for (int k = 0; k < 3; k++) {
+                    assertEquals(name, obj.vertices[o + k], read.vertices[o + k], positionTolerance);
+                    assertEquals(name, obj.vertices[o + MeshData.NORMAL_OFFSET + k], read.vertices[o + MeshData.NORMAL_OFFSET + k], 0.01f);
+                }
+                for (int k = 0; k < 2; k++) {
+                    assertEquals(name, obj.vertices[o + MeshData.TEXCOORD_OFFSET + k], read.vertices[o + MeshData.TEXCOORD_OFFSET + k], 1f / 8192);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void routePoints_roundTrip() throws IOException {
+        ObjParser parser = new ObjParser();
+        try (InputStream in = TestAssets.open("route.obj")) {
+            parser.parse(in);
+        }
+        assertEquals(0, parser.getCornerCount());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MeshBinary.writePoints(parser.getPositions(), parser.getPositionCount(), out);
+
+        float[] points = MeshBinary.readPoints(ByteBuffer.wrap(out.toByteArray()));
+        assertEquals(parser.getPositionCount() * 3, points.length);
+        for (int i = 0; i < points.length; i++) assertEquals(parser.getPositions()[i], points[i], 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void garbage_isRejected() {
+        MeshBinary.read(ByteBuffer.wrap(new byte[MeshBinary.HEADER_BYTES]));
+    }
+}
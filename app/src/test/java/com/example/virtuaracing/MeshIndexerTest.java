@@ -0,0 +1,64 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class MeshIndexerTest {
+
+    private static ObjParser parse(InputStream in) throws IOException {
+        ObjParser parser = new ObjParser();
+        try (InputStream closeable = in) {
+            parser.parse(closeable);
+        }
+        return parser;
+    }
+
+    @Test
+    public void shippedModels_indexedMatchesExpanded() throws IOException {
+        for (String name : TestAssets.MODELS) {
+            ObjParser parser = parse(TestAssets.open(name + ".obj"));
+            MeshData expanded = parser.toMeshData();
+            MeshData indexed = MeshIndexer.index(parser);
+
+            System.out.println(MeshIndexer.describeSavings(name, indexed));
+            assertEquals(name, expanded.vertexCount, indexed.indexCount);
+            assertTrue(name, indexed.vertexCount < expanded.vertexCount);
+            assertTrue(name, MeshIndexer.byteSize(indexed) < MeshIndexer.byteSize(expanded));
+            assertArrayEquals(name, expanded.vertices, MeshIndexer.expand(indexed).vertices, 0f);
+        }
+    }
+
+    @Test
+    public void sharedCorners_areMerged_differentNormalsAreNot() throws IOException {
+        String obj = "v 0 0 0\nv 1 0 0\nv 0 1 0\nv 1 1 0\nvn 0 0 1\nvn 0 0 -1\n"
+                + "f 1//1 2//1 3//1\nf 3//1 2//1 4//1\nf 1//2 2//2 3//2\n";
+        ObjParser parser = parse(new ByteArrayInputStream(obj.getBytes(StandardCharsets.US_ASCII)));
+        MeshData indexed = MeshIndexer.index(parser);
+
+        assertEquals(9, indexed.indexCount);
+        assertEquals(7, indexed.vertexCount); // 4 con la normal 1 + 3 con la normal 2
+        assertArrayEquals(new int[]{0, 1, 2, 2, 1, 3, 4, 5, 6}, indexed.indices);
+    }
+
+    @Test
+    public void indexedBinary_roundTrip() throws IOException {
+        ObjParser parser = parse(TestAssets.open("chassis.obj"));
+        MeshData indexed = MeshIndexer.index(parser);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MeshBinary.write(indexed, false, out);
+
+        ByteBuffer binary = ByteBuffer.wrap(out.toByteArray());
+        assertEquals(indexed.indexCount, MeshBinary.indexCount(binary));
+        MeshData read = MeshBinary.read(binary);
+        assertArrayEquals(indexed.vertices, read.vertices, 0f);
+        assertArrayEquals(indexed.indices, read.indices);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.*;
+
+public class MeshSimplifierTest {
+
+    private static MeshData load(String name) throws IOException {
+        ObjParser parser = new ObjParser();
+        try (InputStream in = TestAssets.open(name + ".obj")) {
+            parser.parse(in);
+        }
+        return MeshIndexer.index(parser);
+    }
+
+    private static float[] bounds(MeshData mesh) {
+        float[] b = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+        for (int i = 0; i < mesh.drawCount(); i++) {
+            int o = (mesh.isIndexed() ? mesh.indices[i] : i) * MeshData.STRIDE;
+            for (int k = 0; k < 3; k++) {
+                b[k] = Math.min(b[k], mesh.vertices[o + k]);
+                b[k + 3] = Math.max(b[k + 3], mesh.vertices[o + k]);
+            }
+        }
+        return b;
+    }
+
+    private static void assertValid(String name, MeshData mesh) {
+        assertTrue(name, mesh.isIndexed());
+        assertEquals(name, 0, mesh.indexCount % 3);
+        boolean[] used = new boolean[mesh.vertexCount];
+        for (int i = 0; i < mesh.indexCount; i += 3) {
+            int a = mesh.indices[i], b = mesh.indices[i + 1], c = mesh.indices[i + 2];
+            for (int v : new int[]{a, b, c}) {
+                assertTrue(name, v >= 0 && v < mesh.vertexCount);
+                used[v] = true;
+            }
+            assertTrue(name + ": triángulo degenerado", a != b && b != c && a != c);
+        }
+        for (boolean u : used) assertTrue(name + ": vértice sin usar", u);
+    }
+
+    @Test
+    public void shippedModels_reachTarget_andKeepShape() throws IOException {
+        for (String name : new String[]{"chassis", "wheel", "tree"}) {
+            MeshData full = load(name);
+            int triangles = MeshSimplifier.triangleCount(full);
+            float[] fullBounds = bounds(full);
+            float size = 0;
+            for (int k = 0; k < 3; k++) size = Math.max(size, fullBounds[k + 3] - fullBounds[k]);
+
+            for (float ratio : new float[]{0.5f, 0.25f}) {
+                MeshData lod = MeshSimplifier.simplify(full, ratio);
+                int lodTriangles = MeshSimplifier.triangleCount(lod);
+                System.out.println(name + " x" + ratio + ": " + triangles + " -> " + lodTriangles + " triángulos");
+
+                assertValid(name, lod);
+                assertTrue(name, lodTriangles <= Math.round(triangles * ratio) + 1);
+                assertTrue(name, lodTriangles >= triangles * ratio * 0.5f);
+                float[] lodBounds = bounds(lod);
+                for (int k = 0; k < 6; k++) {
+                    assertEquals(name + " caja " + k, fullBounds[k], lodBounds[k], size * 0.1f);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void flatGrid_collapsesToFewTriangles_withoutMovingTheBorder() {
+        int n = 8; //8x8 celdas en el plano y = 0
+        float[] vertices = new float[(n + 1) * (n + 1) * MeshData.STRIDE];
+        for (int z = 0; z <= n; z++) {
+            for (int x = 0; x <= n; x++) {
+                int o = (z * (n + 1) + x) * MeshData.STRIDE;
+                vertices[o] = x;
+                vertices[o + 2] = z;
+                vertices[o + 4] = 1; //normal +y
+                vertices[o + 6] = x / (float) n;
+                vertices[o + 7] = z / (float) n;
+            }
+        }
+        int[] indices = new int[n * n * 6];
+        int i = 0;
+        for (int z = 0; z < n; z++) {
+            for (int x = 0; x < n; x++) {
+                int a = z * (n + 1) + x, b = a + 1, c = a + n + 1, d = c + 1;
+                indices[i++] = a; indices[i++] = c; indices[i++] = b;
+                indices[i++] = b; indices[i++] = c; indices[i++] = d;
+            }
+        }
+        MeshData grid = new MeshData(vertices, (n + 1) * (n + 1), true, indices, indices.length);
+
+        MeshData lod = MeshSimplifier.simplify(grid, 2);
+        assertValid("plano", lod);
+        assertTrue(MeshSimplifier.triangleCount(lod) <= 16);
+        assertArrayEquals(new float[]{0, 0, 0, n, 0, n}, bounds(lod), 0f);
+        // Ningún triángulo se da la vuelta: la normal geométrica sigue hacia +y
+        for (int t = 0; t < lod.indexCount; t += 3) {
+            int a = lod.indices[t] * MeshData.STRIDE, b = lod.indices[t + 1] * MeshData.STRIDE,
+                    c = lod.indices[t + 2] * MeshData.STRIDE;
+            float e1x = lod.vertices[b] - lod.vertices[a], e1z = lod.vertices[b + 2] - lod.vertices[a + 2];
+            float e2x = lod.vertices[c] - lod.vertices[a], e2z = lod.vertices[c + 2] - lod.vertices[a + 2];
+            assertTrue(e1z * e2x - e1x * e2z > 0);
+        }
+    }
+
+    @Test
+    public void nonIndexedInput_isWelded() throws IOException {
+        ObjParser parser = new ObjParser();
+        try (InputStream in = TestAssets.open("wheel.obj")) {
+            parser.parse(in);
+        }
+        MeshData expanded = parser.toMeshData();
+        MeshData lod = MeshSimplifier.simplify(expanded, 0.5f);
+        assertValid("wheel", lod);
+        assertTrue(MeshSimplifier.triangleCount(lod) <= expanded.vertexCount / 6 + 1);
+    }
+}
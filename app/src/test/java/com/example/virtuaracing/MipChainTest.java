@@ -0,0 +1,54 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class MipChainTest {
+
+    @Test
+    public void levelSizes_goDownToOne() {
+        assertEquals(11, MipChain.fullLevelCount(1024, 512));
+        assertEquals(1, MipChain.fullLevelCount(1, 1));
+        assertEquals(3, MipChain.fullLevelCount(5, 3));
+        assertEquals(256, MipChain.levelSize(1024, 2));
+        assertEquals(1, MipChain.levelSize(4, 5));
+
+        int[][] chain = MipChain.build(new int[64 * 16], 64, 16, Integer.MAX_VALUE);
+        assertEquals(7, chain.length);
+        for (int l = 0; l < chain.length; l++) {
+            assertEquals(MipChain.levelSize(64, l) * MipChain.levelSize(16, l), chain[l].length);
+        }
+        assertEquals(3, MipChain.build(new int[64 * 16], 64, 16, 3).length);
+    }
+
+    @Test
+    public void solidColor_staysTheSame() {
+        int[] argb = new int[32 * 32];
+        Arrays.fill(argb, 0xFF336699);
+        int[][] chain = MipChain.build(argb, 32, 32, Integer.MAX_VALUE);
+        assertSame(argb, chain[0]);
+        for (int[] level : chain) {
+            for (int p : level) assertEquals(0xFF336699, p);
+        }
+    }
+
+    @Test
+    public void transparentPixels_doNotDarkenColor() {
+        // Un píxel rojo opaco y tres transparentes negros: el color medio sigue siendo rojo
+        int[] argb = {0xFFFF0000, 0x00000000, 0x00000000, 0x00000000};
+        int p = MipChain.downsample(argb, 2, 2)[0];
+        assertEquals(0xFF0000, p & 0xFFFFFF);
+        assertEquals(0x40, p >>> 24);
+    }
+
+    @Test
+    public void oddSizes_clampToEdge() {
+        int[] argb = {0xFF000000, 0xFFFFFFFF, 0xFF000000};
+        int[] half = MipChain.downsample(argb, 3, 1);
+        assertEquals(1, half.length);
+        assertEquals(0xFF, half[0] >>> 24);
+    }
+}
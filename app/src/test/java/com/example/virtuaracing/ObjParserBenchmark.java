@@ -0,0 +1,59 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compara tiempo de carga y bytes reservados entre el cargador antiguo y ObjParser para los
+ * modelos de res/raw. No es un JMH de verdad, pero con el calentamiento basta para ver el orden
+ * de magnitud. Los ficheros se leen antes a memoria para medir solo el parseo.
+ */
+public class ObjParserBenchmark {
+
+    private static final int WARMUP = 20;
+    private static final int RUNS = 50;
+
+    private interface Loader {
+        void load(InputStream in) throws IOException;
+    }
+
+    @Test
+    public void compareWithLegacyLoader() throws IOException {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        System.out.println("modelo      legacy(us)  parser(us)  legacy(KB)  parser(KB)");
+        for (String name : TestAssets.MODELS) {
+            byte[] bytes = Files.readAllBytes(TestAssets.raw(name + ".obj").toPath());
+
+            long[] legacy = measure(threads, thread, bytes, LegacyObjLoader::load);
+            long[] parser = measure(threads, thread, bytes, ObjParser::load);
+
+            System.out.printf("%-10s %11d %11d %11d %11d%n", name,
+                    legacy[0] / 1000, parser[0] / 1000, legacy[1] / 1024, parser[1] / 1024);
+            // El parser solo reserva los arrays finales, nunca más que el cargador con boxing
+            assertTrue(name, parser[1] < legacy[1]);
+        }
+    }
+
+    // Devuelve {nanos por carga, bytes reservados por carga}
+    private static long[] measure(com.sun.management.ThreadMXBean threads, long thread,
+                                  byte[] bytes, Loader loader) throws IOException {
+        for (int i = 0; i < WARMUP; i++) loader.load(new ByteArrayInputStream(bytes));
+
+        long allocBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) loader.load(new ByteArrayInputStream(bytes));
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocBefore;
+        return new long[]{elapsed / RUNS, allocated / RUNS};
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class ObjParserTest {
+
+    private static MeshData parse(String obj) throws IOException {
+        return ObjParser.load(new ByteArrayInputStream(obj.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    public void shippedModels_matchLegacyLoader() throws IOException {
+        for (String name : TestAssets.MODELS) {
+            LegacyObjLoader legacy;
+            MeshData mesh;
+            try (InputStream in = TestAssets.open(name + ".obj")) { legacy = LegacyObjLoader.load(in); }
+            try (InputStream in = TestAssets.open(name + ".obj")) { mesh = ObjParser.load(in); }
+
+            assertEquals(name, legacy.vertexCount(), mesh.vertexCount);
+            assertEquals(name, !legacy.normals.isEmpty(), mesh.hasNormals);
+            for (int i = 0; i < mesh.vertexCount; i++) {
+                int o = i * MeshData.STRIDE;
+                for (int k = 0; k < 3; k++) {
+                    assertEquals(name, legacy.vertices.get(i * 3 + k), mesh.vertices[o + k], 1e-5f);
+                    if (mesh.hasNormals) {
+                        assertEquals(name, legacy.normals.get(i * 3 + k), mesh.vertices[o + MeshData.NORMAL_OFFSET + k], 1e-6f);
+                    }
+                }
+                assertEquals(name, legacy.textures.get(i * 2), mesh.vertices[o + MeshData.TEXCOORD_OFFSET], 1e-6f);
+                assertEquals(name, legacy.textures.get(i * 2 + 1), mesh.vertices[o + MeshData.TEXCOORD_OFFSET + 1], 1e-6f);
+            }
+        }
+    }
+
+    @Test
+    public void quad_isFanTriangulated() throws IOException {
+        MeshData mesh = parse("v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\nf 1 2 3 4\n");
+        assertEquals(6, mesh.vertexCount);
+        float[] expectedX = {0, 1, 1, 0, 1, 0};
+        for (int i = 0; i < 6; i++) assertEquals(expectedX[i], mesh.vertices[i * MeshData.STRIDE], 0f);
+        assertFalse(mesh.hasNormals);
+    }
+
+    @Test
+    public void missingTexCoord_andNegativeIndices() throws IOException {
+        MeshData mesh = parse("v 1 2 3\r\nv 4 5 6\r\nv 7 8 9\r\nvn 0 1 0\r\nf -3//1 -2//1 -1//1\r\n");
+        assertEquals(3, mesh.vertexCount);
+        assertTrue(mesh.hasNormals);
+        assertEquals(7f, mesh.vertices[2 * MeshData.STRIDE], 0f);
+        assertEquals(1f, mesh.vertices[MeshData.NORMAL_OFFSET + 1], 0f);
+        assertEquals(0f, mesh.vertices[MeshData.TEXCOORD_OFFSET], 0f);
+    }
+
+    @Test
+    public void floats_withExponentAndSign() throws IOException {
+        MeshData mesh = parse("# comentario\nv -1.5e2 +0.25 3E-3\nvt 0.25 0.75\nf 1/1 1/1 1/1\n");
+        assertEquals(-150f, mesh.vertices[0], 0f);
+        assertEquals(0.25f, mesh.vertices[1], 0f);
+        assertEquals(0.003f, mesh.vertices[2], 1e-9f);
+        assertEquals(0.25f, mesh.vertices[MeshData.TEXCOORD_OFFSET], 0f);
+        assertEquals(0.25f, mesh.vertices[MeshData.TEXCOORD_OFFSET + 1], 0f); // 1 - 0.75
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Coste por coche de un tick de RaceField (IA e integración) y de computePoses() (lo que se copia
+ * a la foto del renderer) con parrillas de distinto tamaño en route.obj. El coste por coche del
+ * tick no es constante: depende de cuántos vecinos caen dentro de su distancia de reacción (con
+ * más de ~100 coches la ruta de 537 m va llena).
+ *
+ * El segundo caso reparte el tick a la fuerza (sin el umbral de RaceField.setPool) en ForkJoinPool
+ * de 1 a N hilos, para ver a partir de cuántos coches compensa: es la medida con la que se ajusta
+ * MyGLRenderer.PARALLEL_CARS_PER_TASK. Hay que correrlo en un dispositivo con varios núcleos: con
+ * uno solo no hay aceleración, solo se ve lo que cuesta el reparto.
+ */
+public class RaceFieldBenchmark {
+
+    private static final int WARMUP = 3000;
+    private static final int TICKS = 5000;
+
+    @Test
+    public void costPerCar_scalesWithFieldSize() throws IOException {
+        Route route = RaceSimulationTest.loadRoute();
+        System.out.println("coches  tick(ns/coche)  poses(ns/coche)  tick+poses(us)");
+        for (int cars : new int[]{16, 64, 256, 1024}) {
+            RaceField field = new RaceField(route, cars, RaceSimulation.PLAYER_SPEED, 1);
+            for (int i = 0; i < WARMUP; i++) {
+                field.tick();
+                field.computePoses(0.5f);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < TICKS; i++) field.tick();
+            long tick = (System.nanoTime() - start) / TICKS;
+            start = System.nanoTime();
+            for (int i = 0; i < TICKS; i++) field.computePoses(0.5f);
+            long poses = (System.nanoTime() - start) / TICKS;
+
+            System.out.printf("%6d %15.1f %16.1f %15.1f%n", cars, tick / (double) cars, poses / (double) cars,
+                    (tick + poses) / 1000.0);
+        }
+    }
+
+    @Test
+    public void parallelTick_findsTheCrossover() throws IOException {
+        Route route = RaceSimulationTest.loadRoute();
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("núcleos: " + cores);
+        System.out.println("coches  hilos  tick(us)  aceleración");
+        for (int cars : new int[]{16, 64, 256, 1024}) {
+            RaceField serial = new RaceField(route, cars, RaceSimulation.PLAYER_SPEED, 1);
+            long base = timeTicks(serial);
+            System.out.printf("%6d %6s %9.1f %12.2f%n", cars, "-", base / 1000.0, 1.0);
+            for (int threads : new int[]{1, 2, 4, cores}) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                    RaceField parallel = new RaceField(route, cars, RaceSimulation.PLAYER_SPEED, 1);
+                    parallel.splitInto(pool, Math.min(threads * 4, cars / 4));
+                    long time = timeTicks(parallel);
+                    assertArrayEquals(serial.distance, parallel.distance, 0f); //mismos ticks, misma carrera
+                    System.out.printf("%6d %6d %9.1f %12.2f%n", cars, threads, time / 1000.0, base / (double) time);
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        }
+    }
+
+    // ns por tick tras el calentamiento (WARMUP + TICKS ticks en total)
+    private static long timeTicks(RaceField field) {
+        for (int i = 0; i < WARMUP; i++) field.tick();
+        long start = System.nanoTime();
+        for (int i = 0; i < TICKS; i++) field.tick();
+        return (System.nanoTime() - start) / TICKS;
+    }
+}
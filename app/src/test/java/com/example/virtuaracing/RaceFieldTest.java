@@ -0,0 +1,211 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class RaceFieldTest {
+
+    private static final float SPEED = RaceSimulation.PLAYER_SPEED;
+    private static final float CAR_LENGTH = 4.5f;
+    private static final float CAR_HALF_WIDTH = 1.0f;
+
+    @Test
+    public void firstThreeCars_startOnTheClassicGrid() throws IOException {
+        Route route = RaceSimulationTest.loadRoute();
+        RaceField field = new RaceField(route, 5, SPEED, 1);
+        field.tick();
+        assertEquals(SPEED, field.distance(0), 1e-4f);
+        assertEquals(45 + SPEED, field.distance(1), 1e-3f);
+        assertEquals(route.length() - 27 + SPEED, field.distance(2), 1e-3f);
+        assertEquals(0, field.lateral(0), 0f);
+        assertEquals(-3.5f, field.lateral(1), 0f);
+        assertEquals(3.5f, field.lateral(2), 0f);
+        // El resto, por delante y repartidos por carriles
+        assertTrue(field.distance(3) > field.distance(1) && field.distance(4) > field.distance(3));
+        assertNotEquals(field.lane(3), field.lane(4));
+    }
+
+    @Test
+    public void poses_matchTheRoute() throws IOException {
+        Route route = RaceSimulationTest.loadRoute();
+        RaceField field = new RaceField(route, 16, SPEED, 1);
+        for (int i = 0; i < 100; i++) field.tick();
+        field.computePoses(1);
+        CarState expected = new CarState();
+        for (int car = 0; car < field.size(); car++) {
+            int o = car * RaceField.POSE_FLOATS;
+            float[] poses = field.poses();
+            assertEquals(field.distance(car), poses[o + RaceField.DISTANCE], 0f);
+            route.sample(route.progressAtDistance(field.distance(car)), expected);
+            assertEquals(expected.progress, poses[o + RaceField.PROGRESS], 0f);
+            assertEquals(expected.position.get(0), poses[o + RaceField.X], 0f);
+            assertEquals(expected.position.get(2), poses[o + RaceField.Z], 0f);
+            assertEquals(expected.rotationY, poses[o + RaceField.ROTATION], 0f);
+            assertEquals(field.lateral(car), poses[o + RaceField.LATERAL], 0f);
+        }
+    }
+
+    @Test
+    public void sameSeed_givesTheSameRace() throws IOException {
+        Route route = RaceSimulationTest.loadRoute();
+        RaceField a = new RaceField(route, 64, SPEED, 7), b = new RaceField(route, 64, SPEED, 7);
+        for (int i = 0; i < 3000; i++) {
+            a.tick();
+            b.tick();
+        }
+        assertArrayEquals(a.distance, b.distance, 0f);
+        assertArrayEquals(a.lateral, b.lateral, 0f);
+        assertArrayEquals(a.speed, b.speed, 0f);
+    }
+
+    @Test
+    public void pool_givesTheSameRaceAsOneThread() throws IOException {
+        Route route = RaceSimulationTest.loadRoute();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int cars : new int[]{16, 64, 256}) {
+                RaceField serial = new RaceField(route, cars, SPEED, 5), parallel = new RaceField(route, cars, SPEED, 5);
+                parallel.splitInto(pool, 4); //sin mirar el umbral de setPool(), a la fuerza
+                assertTrue(parallel.isParallel());
+                for (int t = 0; t < 3000; t++) {
+                    serial.tick();
+                    parallel.tick();
+                    if (t % 100 == 0) {
+                        serial.computePoses(0.25f);
+                        parallel.computePoses(0.25f);
+                        assertArrayEquals(serial.poses(), parallel.poses(), 0f);
+                    }
+                }
+                assertArrayEquals(serial.distance, parallel.distance, 0f);
+                assertArrayEquals(serial.speed, parallel.speed, 0f);
+                assertArrayEquals(serial.lateral, parallel.lateral, 0f);
+                assertArrayEquals(serial.lane, parallel.lane);
+                assertEquals(serial.contacts(), parallel.contacts());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void setPool_keepsSmallFieldsOnOneThread() throws IOException {
+        Route route = RaceSimulationTest.loadRoute();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            RaceField small = new RaceField(route, 64, SPEED, 1);
+            small.setPool(pool, 64);
+            assertFalse("un solo tramo no se reparte", small.isParallel());
+            small.setPool(pool, 16);
+            assertTrue(small.isParallel());
+            small.setPool(null, 16);
+            assertFalse(small.isParallel());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void contactSweep_findsTheSamePairsAsAllPairs() throws IOException {
+        Route route = RaceSimulationTest.loadRoute();
+        RaceField field = new RaceField(route, 64, SPEED, 2);
+        int touched = 0;
+        for (int t = 0; t < 3000; t++) {
+            field.tick();
+            for (int i = 0; i < field.size(); i++) {
+                boolean expected = false;
+                for (int j = 0; j < field.size(); j++) {
+                    if (j == i) continue;
+                    float gap = Math.abs(field.distance(i) - field.distance(j));
+                    gap = Math.min(gap, route.length() - gap);
+                    expected |= gap < CAR_LENGTH && Math.abs(field.lateral(i) - field.lateral(j)) < 2.5f;
+                }
+                assertEquals("coche " + i + " en el tick " + t, expected, field.isTouching(i));
+                if (expected) touched++;
+            }
+        }
+        assertTrue("contactos: " + touched, touched > 0); //el jugador no frena por nadie
+    }
+
+    @Test
+    public void rearEndedCar_limitsTheOneBehind() throws IOException {
+        Route route = RaceSimulationTest.loadRoute();
+        RaceField field = new RaceField(route, 3, SPEED, 1);
+        // El 2 encima del 1, en su carril y más rápido
+        field.lane[2] = 0;
+        field.lateral[2] = RaceField.LANES[0];
+        field.distance[2] = field.distance(1) - 3;
+        field.speed[1] = 1.2f;
+        field.speed[2] = 2.0f;
+        field.tick();
+        assertTrue(field.isTouching(1) && field.isTouching(2));
+        assertFalse(field.isTouching(0));
+        assertEquals(field.speed(1), field.speed(2), 0f);
+    }
+
+    @Test
+    public void fasterCar_overtakesByChangingLane() throws IOException {
+        Route route = RaceSimulationTest.loadRoute();
+        RaceField field = new RaceField(route, 3, SPEED, 1);
+        // El rival de atrás, en el carril del de delante y bastante más rápido
+        field.cruiseSpeed[1] = 1.5f;
+        field.cruiseSpeed[2] = 2.6f;
+        field.lane[2] = 0;
+        field.lateral[2] = field.previousLateral[2] = RaceField.LANES[0];
+
+        float lead = 72; //metros que le saca el 1 al 2
+        boolean changedLane = false;
+        for (int i = 0; i < 3000 && lead > -20; i++) {
+            float before1 = field.distance(1), before2 = field.distance(2);
+            field.tick();
+            lead += moved(route, before1, field.distance(1)) - moved(route, before2, field.distance(2));
+            changedLane |= field.lane(2) != 0;
+            assertFalse("alcance en el tick " + i, Math.abs(lead) < CAR_LENGTH
+                    && Math.abs(field.lateral(1) - field.lateral(2)) < 2 * CAR_HALF_WIDTH);
+        }
+        assertTrue("no adelanta: " + lead, lead <= -20);
+        assertTrue(changedLane);
+    }
+
+    @Test
+    public void crowdedField_neverOverlaps() throws IOException {
+        Route route = RaceSimulationTest.loadRoute();
+        RaceField field = new RaceField(route, 64, SPEED, 3);
+        int laneChanges = 0;
+        int[] lanes = field.lane.clone();
+        for (int t = 0; t < 6000; t++) {
+            field.tick();
+            for (int i = 1; i < field.size(); i++) {
+                if (field.lane(i) != lanes[i]) laneChanges++;
+                lanes[i] = field.lane(i);
+                for (int j = i + 1; j < field.size(); j++) {
+                    float gap = Math.abs(field.distance(i) - field.distance(j));
+                    gap = Math.min(gap, route.length() - gap);
+                    boolean sideBySide = Math.abs(field.lateral(i) - field.lateral(j)) < 2 * CAR_HALF_WIDTH;
+                    assertFalse("coches " + i + " y " + j + " en el tick " + t, gap < CAR_LENGTH && sideBySide);
+                }
+            }
+        }
+        assertTrue("cambios de carril: " + laneChanges, laneChanges > 0);
+    }
+
+    @Test
+    public void tick_allocatesNothing() throws IOException {
+        RaceField field = new RaceField(RaceSimulationTest.loadRoute(), 256, SPEED, 1);
+        assertEquals(0, TestAllocations.allocatedBytes(1, () -> {
+            for (int i = 0; i < 2000; i++) {
+                field.tick();
+                field.computePoses(0.5f);
+            }
+        }));
+    }
+
+    // Metros recorridos entre dos distancias de un mismo coche (con vuelta)
+    private static float moved(Route route, float before, float after) {
+        float d = after - before;
+        return d < 0 ? d + route.length() : d;
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RaceSimulationTest {
+
+    static Route loadRoute() throws IOException {
+        ObjParser parser = new ObjParser();
+        try (InputStream in = TestAssets.open("route.obj")) {
+            parser.parse(in);
+        }
+        return Route.resample(parser.getPositions(), parser.getPositionCount(), 2.0f);
+    }
+
+    @Test
+    public void steadyStateFrame_allocatesNothing() throws IOException {
+        RaceSimulation simulation = new RaceSimulation(loadRoute());
+
+        // Calentamiento (incluye una vuelta completa y los dos modos de cámara)
+        for (int i = 0; i < 2000; i++) {
+            if (i % 500 == 0) simulation.toggleCameraMode();
+            simulation.step();
+        }
+        long allocated = TestAllocations.allocatedBytes(() -> {
+            for (int i = 0; i < 10_000; i++) simulation.step();
+        });
+
+        assertEquals("bytes reservados en 10000 frames", 0, allocated);
+    }
+
+    @Test
+    public void carStates_areReusedAndFollowTheRoute() throws IOException {
+        Route route = loadRoute();
+        RaceSimulation simulation = new RaceSimulation(route);
+        CarState player = simulation.getPlayer();
+        Vector4 position = player.position;
+
+        simulation.step();
+        assertSame(position, simulation.getPlayer().position);
+        assertEquals(RaceSimulation.PLAYER_SPEED, player.distance, 1e-6f);
+
+        // Ruta equiespaciada: el progreso es la distancia entre la separación de puntos
+        float progress = RaceSimulation.PLAYER_SPEED / route.spacing();
+        assertEquals(progress, player.progress, 1e-4f);
+        float t = progress - 1;
+        assertEquals(route.x(1) * (1 - t) + route.x(2) * t, position.get(0), 1e-4f);
+        assertEquals(route.z(1) * (1 - t) + route.z(2) * t, position.get(2), 1e-4f);
+
+        // Rival adelantado 45 metros y atrasado 27 (con vuelta)
+        CarState[] cars = simulation.getCars();
+        assertEquals(player.distance + 45, cars[1].distance, 1e-3f);
+        assertEquals(player.distance - 27 + route.length(), cars[2].distance, 1e-3f);
+        assertEquals(-3.5f, cars[1].lateralOffset, 0f);
+    }
+
+    @Test
+    public void overheadCamera_looksDownAtPlayer() throws IOException {
+        RaceSimulation simulation = new RaceSimulation(loadRoute());
+        simulation.toggleCameraMode();
+        simulation.step();
+        Vector4 player = simulation.getPlayer().position;
+        assertEquals(85, simulation.eye.get(1), 0f);
+        assertEquals(player.get(0), simulation.center.get(0), 0f);
+        assertEquals(-1, simulation.up.get(2), 0f);
+
+        simulation.toggleCameraMode();
+        simulation.step();
+        assertEquals(1, simulation.up.get(1), 0f);
+    }
+
+    @Test
+    public void unevenFrameIntervals_giveIdenticalResults() throws IOException {
+        Route route = loadRoute();
+        long end = 10_000_000_000L; // 10 s de carrera
+        RaceSimulation at60 = runFrames(route, end, new Random(1), 16_666_667L, 16_666_667L);
+        RaceSimulation at120 = runFrames(route, end, new Random(2), 8_333_333L, 8_333_333L);
+        RaceSimulation uneven = runFrames(route, end, new Random(3), 1_000_000L, 50_000_000L);
+
+        assertEquals(10 * RaceSimulation.TICKS_PER_SECOND, at60.getTickCount());
+        for (RaceSimulation other : new RaceSimulation[]{at120, uneven}) {
+            assertEquals(at60.getTickCount(), other.getTickCount());
+            assertEquals(at60.getPlayerDistance(), other.getPlayerDistance(), 0f);
+            for (int k = 0; k < 3; k++) {
+                assertEquals(at60.getPlayer().position.get(k), other.getPlayer().position.get(k), 0f);
+                assertEquals(at60.eye.get(k), other.eye.get(k), 0f);
+            }
+            assertEquals(at60.getWheelRotation(), other.getWheelRotation(), 0f);
+        }
+    }
+
+    // Frames de duración aleatoria entre minFrame y maxFrame que acaban justo en end
+    private static RaceSimulation runFrames(Route route, long end, Random rand, long minFrame, long maxFrame) {
+        RaceSimulation simulation = new RaceSimulation(route);
+        long start = 123_456_789L, now = 0;
+        simulation.advance(start);
+        while (now < end) {
+            now = Math.min(end, now + minFrame + (long) (rand.nextDouble() * (maxFrame - minFrame)));
+            simulation.advance(start + now);
+        }
+        return simulation;
+    }
+
+    @Test
+    public void partialTick_interpolatesBetweenTicks() throws IOException {
+        RaceSimulation simulation = new RaceSimulation(loadRoute());
+        simulation.advance(0);
+        simulation.advance(RaceSimulation.TICK_NANOS * 2); // dos ticks justos
+        assertEquals(2, simulation.getTickCount());
+        assertEquals(2 * RaceSimulation.PLAYER_SPEED, simulation.getPlayerDistance(), 1e-4f);
+        // Sin resto acumulado se dibuja el tick anterior (el dibujo va un tick por detrás)
+        assertEquals(RaceSimulation.PLAYER_SPEED, simulation.getPlayer().distance, 1e-4f);
+
+        simulation.advance(RaceSimulation.TICK_NANOS * 2 + RaceSimulation.TICK_NANOS / 2);
+        assertEquals(2, simulation.getTickCount());
+        // Entre el tick 1 y el 2: medio paso por detrás del último tick
+        assertEquals(1.5f * RaceSimulation.PLAYER_SPEED, simulation.getPlayer().distance, 1e-3f);
+    }
+
+    @Test
+    public void ghost_followsTheRecordedRun() throws IOException {
+        Route route = loadRoute();
+        int ticks = 2 * route.size(); //más de una vuelta
+        RaceSimulation recorded = new RaceSimulation(route);
+        ReplayRecorder recorder = new ReplayRecorder(64 * 1024, route.size());
+        recorded.setRecorder(recorder);
+        float[] xs = new float[ticks + 1], zs = new float[ticks + 1], laterals = new float[ticks + 1];
+        for (int t = 1; t <= ticks; t++) {
+            recorded.step();
+            xs[t] = recorded.getPlayer().position.get(0);
+            zs[t] = recorded.getPlayer().position.get(2);
+            laterals[t] = recorded.getPlayer().lateralOffset;
+        }
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        recorder.flush(Channels.newChannel(file));
+
+        RaceSimulation race = new RaceSimulation(route);
+        race.setGhost(new ReplayPlayer(ByteBuffer.wrap(file.toByteArray())));
+        race.step();
+        assertFalse("sin tick anterior no hay con qué interpolar", race.isGhostVisible());
+        for (int t = 2; t <= ticks; t++) {
+            race.step();
+            assertTrue(race.isGhostVisible());
+            CarState ghost = race.getGhost();
+            assertEquals("x en el tick " + t, xs[t], ghost.position.get(0), 0.01f);
+            assertEquals("z en el tick " + t, zs[t], ghost.position.get(2), 0.01f);
+            assertEquals(laterals[t], ghost.lateralOffset, 1e-3f);
+        }
+        race.step(); //la grabación se ha acabado
+        assertFalse(race.isGhostVisible());
+    }
+
+    @Test
+    public void recordingAndGhost_allocateNothing() throws IOException {
+        Route route = loadRoute();
+        RaceSimulation recorded = new RaceSimulation(route);
+        ReplayRecorder recorder = new ReplayRecorder(1 << 20, route.size());
+        recorded.setRecorder(recorder);
+        for (int i = 0; i < 20_000; i++) recorded.step();
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        recorder.flush(Channels.newChannel(file));
+
+        RaceSimulation simulation = new RaceSimulation(route);
+        simulation.setRecorder(new ReplayRecorder(4096, route.size())); //da la vuelta sin volcar
+        simulation.setGhost(new ReplayPlayer(ByteBuffer.wrap(file.toByteArray())));
+        for (int i = 0; i < 8000; i++) simulation.step();
+        long allocated = TestAllocations.allocatedBytes(() -> {
+            for (int i = 0; i < 10_000; i++) simulation.step();
+        });
+        assertTrue(simulation.isGhostVisible());
+        assertEquals(0, allocated);
+    }
+
+    @Test
+    public void longHitch_isClampedAndResetClockSkipsPausedTime() throws IOException {
+        RaceSimulation simulation = new RaceSimulation(loadRoute());
+        simulation.advance(0);
+        simulation.advance(5_000_000_000L); // 5 s de golpe
+        long ticks = simulation.getTickCount();
+        assertTrue("ticks tras el parón: " + ticks, ticks > 0 && ticks <= 8);
+
+        simulation.resetClock();
+        simulation.advance(60_000_000_000L); // vuelta de pausa
+        assertEquals(ticks, simulation.getTickCount());
+        simulation.advance(60_000_000_000L + RaceSimulation.TICK_NANOS);
+        assertEquals(ticks + 1, simulation.getTickCount());
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+
+import static org.junit.Assert.*;
+
+public class RenderQueueTest {
+
+    private static final float[] IDENTITY = {1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1};
+
+    @Test
+    public void sort_groupsByLayerLightingTextureAndMesh() {
+        RenderQueue<String> queue = new RenderQueue<>(4);
+        queue.add(RenderQueue.LAYER_OPAQUE, true, 2, 1, "carretera", null, 0, null);
+        queue.add(RenderQueue.LAYER_OPAQUE, true, 1, 5, "árbol", null, 0, null);
+        queue.add(RenderQueue.LAYER_OPAQUE, false, 1, 1, "sin luz", null, 0, null);
+        queue.add(RenderQueue.LAYER_SKY, false, 9, 9, "cielo", IDENTITY, 0, null);
+        queue.add(RenderQueue.LAYER_OPAQUE, true, 1, 3, "grada", null, 0, null);
+        queue.add(RenderQueue.LAYER_OPAQUE, true, 2, 1, "carretera 2", null, 0, null);
+        queue.sort();
+
+        String[] expected = {"cielo", "grada", "árbol", "carretera", "carretera 2", "sin luz"};
+        assertEquals(expected.length, queue.size());
+        for (int i = 0; i < expected.length; i++) assertEquals(expected[i], queue.mesh(i));
+        assertFalse(queue.lighting(0));
+        assertEquals(2, queue.texture(3));
+    }
+
+    @Test
+    public void itemsKeepTheirMatrixAndBatch() {
+        RenderQueue<String> queue = new RenderQueue<>(2);
+        InstanceBatch batch = new InstanceBatch(1);
+        float[] m = new float[20];
+        for (int i = 0; i < m.length; i++) m[i] = i;
+        queue.add(RenderQueue.LAYER_OPAQUE, true, 1, 2, "lote", null, 0, batch);
+        queue.add(RenderQueue.LAYER_OPAQUE, true, 1, 1, "suelto", m, 4, null);
+        m[4] = -1; //la cola guarda una copia
+        queue.sort();
+
+        assertEquals("suelto", queue.mesh(0));
+        int offset = queue.matrixOffset(0);
+        assertTrue(offset >= 0);
+        for (int k = 0; k < 16; k++) assertEquals(k + 4, queue.matrices()[offset + k], 0);
+        assertNull(queue.instances(0));
+        assertSame(batch, queue.instances(1));
+        assertEquals(-1, queue.matrixOffset(1));
+
+        queue.clear();
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void steadyState_doesNotAllocate() {
+        RenderQueue<String> queue = new RenderQueue<>(8);
+        assertEquals(0, TestAllocations.allocatedBytes(3, () -> {
+            for (int frame = 0; frame < 1000; frame++) {
+                for (int i = 0; i < 200; i++) {
+                    queue.add(RenderQueue.LAYER_OPAQUE, i % 3 != 0, i % 4, i % 7, "m", i % 2 == 0 ? IDENTITY : null, 0, null);
+                }
+                queue.sort();
+                for (int i = 0; i < queue.size(); i++) queue.mesh(i);
+                queue.clear();
+            }
+        }));
+    }
+
+    @Test
+    public void keysInArrivalOrder_sortWithoutAllocating() {
+        // Lo normal en el juego: tramos largos que ya llegan ordenados (trozos de carretera,
+        // regiones...), justo el caso en el que Arrays.sort fusiona con un array nuevo
+        RenderQueue<String> queue = new RenderQueue<>(8);
+        assertEquals(0, TestAllocations.allocatedBytes(3, () -> {
+            for (int frame = 0; frame < 1000; frame++) {
+                for (int i = 0; i < 300; i++) queue.add(RenderQueue.LAYER_OPAQUE, true, i / 100, i % 100, "m", null, 0, null);
+                for (int i = 0; i < 50; i++) queue.add(RenderQueue.LAYER_OPAQUE, true, 0, i, "m", null, 0, null);
+                queue.sort();
+                queue.clear();
+            }
+        }));
+    }
+}
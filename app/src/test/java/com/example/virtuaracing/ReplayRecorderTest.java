@@ -0,0 +1,215 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ReplayRecorderTest {
+
+    private static final float PERIOD = 268; //puntos de route.obj remuestreada
+    private static final float PROGRESS_STEP = 0.5f / ReplayRecorder.PROGRESS_SCALE;
+    private static final float LATERAL_STEP = 0.5f / ReplayRecorder.LATERAL_SCALE;
+    private static final float STEERING_STEP = 0.5f / ReplayRecorder.STEERING_SCALE;
+
+    // Carrera sintética: avance constante con vuelta, cambios de carril, volante y alguna orden
+    private static final class Run {
+        final float[] progress, lateral, steering;
+        final int[] inputs;
+
+        Run(int ticks, long seed) {
+            progress = new float[ticks + 1];
+            lateral = new float[ticks + 1];
+            steering = new float[ticks + 1];
+            inputs = new int[ticks + 1];
+            Random random = new Random(seed);
+            float p = 3, l = 0, target = 0;
+            for (int t = 1; t <= ticks; t++) {
+                p += 1.1f + (t % 900 < 300 ? 0 : 0.2f);
+                if (p >= PERIOD) p -= PERIOD;
+                if (random.nextInt(200) == 0) target = (random.nextInt(3) - 1) * 3.5f;
+                l += Math.max(-0.08f, Math.min(0.08f, target - l));
+                progress[t] = p;
+                lateral[t] = l;
+                steering[t] = (float) Math.sin(p * 0.1) * 12;
+                inputs[t] = random.nextInt(500) == 0 ? 1 << InputQueue.TOGGLE_CAMERA : 0;
+            }
+        }
+
+        void record(ReplayRecorder recorder, int t) {
+            recorder.record(t, progress[t], lateral[t], steering[t], inputs[t]);
+        }
+
+        void assertAt(ReplayPlayer player, int t) {
+            assertEquals(t, player.tick());
+            assertEquals("progreso en " + t, progress[t], player.progress(), PROGRESS_STEP + 1e-4f);
+            assertEquals("lateral en " + t, lateral[t], player.lateral(), LATERAL_STEP + 1e-6f);
+            assertEquals("volante en " + t, steering[t], player.steering(), STEERING_STEP + 1e-5f);
+            assertEquals("órdenes en " + t, inputs[t], player.inputs());
+        }
+    }
+
+    @Test
+    public void roundTrip_withSeveralFlushes_matchesWithinQuantization() throws IOException {
+        Run run = new Run(5000, 1);
+        ReplayRecorder recorder = new ReplayRecorder(64 * 1024, PERIOD);
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(file);
+        for (int t = 1; t <= 5000; t++) {
+            run.record(recorder, t);
+            if (t % 700 == 0) recorder.flush(channel);
+        }
+        recorder.flush(channel);
+        assertEquals(0, recorder.pending());
+        assertEquals(ReplayRecorder.HEADER_BYTES + recorder.size(), file.size());
+
+        ReplayPlayer player = new ReplayPlayer(ByteBuffer.wrap(file.toByteArray()));
+        assertEquals(1, player.firstTick());
+        assertEquals(5000, player.lastTick());
+        assertEquals(5000 / ReplayRecorder.DEFAULT_KEYFRAME_INTERVAL + 1, player.keyframes());
+        for (int t = 1; t <= 5000; t++) {
+            assertTrue(player.moveTo(t));
+            run.assertAt(player, t);
+        }
+        assertFalse(player.moveTo(5001));
+        assertEquals(5000, player.tick());
+    }
+
+    @Test
+    public void oneMinute_takesAFewKilobytes() throws IOException {
+        Route route = RaceSimulationTest.loadRoute();
+        RaceSimulation simulation = new RaceSimulation(route, 16);
+        ReplayRecorder recorder = new ReplayRecorder(64 * 1024, route.size());
+        simulation.setRecorder(recorder);
+        int minute = 60 * RaceSimulation.TICKS_PER_SECOND;
+        for (int i = 0; i < minute; i++) {
+            if (i % 1000 == 999) simulation.toggleCameraMode();
+            simulation.step();
+        }
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        recorder.flush(Channels.newChannel(file));
+        System.out.printf("grabación: %d bytes por minuto (%.2f por tick)%n", file.size(), recorder.size() / (float) minute);
+        assertTrue("bytes por minuto: " + file.size(), file.size() < 16 * 1024);
+
+        ReplayPlayer player = new ReplayPlayer(ByteBuffer.wrap(file.toByteArray()));
+        assertEquals(minute, player.lastTick());
+        assertTrue(player.seek(1000));
+        assertEquals(1 << InputQueue.TOGGLE_CAMERA, player.inputs());
+    }
+
+    @Test
+    public void seek_matchesSequentialDecoding() throws IOException {
+        Run run = new Run(3000, 2);
+        ReplayRecorder recorder = new ReplayRecorder(64 * 1024, PERIOD, 45);
+        for (int t = 1; t <= 3000; t++) run.record(recorder, t);
+        ReplayPlayer player = new ReplayPlayer(ByteBuffer.wrap(flushToBytes(recorder)));
+
+        Random random = new Random(3);
+        for (int i = 0; i < 500; i++) {
+            int t = 1 + random.nextInt(3000);
+            assertTrue(i % 2 == 0 ? player.seek(t) : player.moveTo(t));
+            run.assertAt(player, t);
+        }
+        assertFalse(player.seek(0));
+    }
+
+    @Test
+    public void fullRing_dropsOldestUpToAKeyframe() throws IOException {
+        Run run = new Run(2000, 4);
+        ReplayRecorder recorder = new ReplayRecorder(256, PERIOD, 30);
+        for (int t = 1; t <= 2000; t++) run.record(recorder, t);
+        assertTrue(recorder.pending() <= 256);
+        ReplayPlayer player = new ReplayPlayer(ByteBuffer.wrap(flushToBytes(recorder)));
+
+        assertTrue("primer tick: " + player.firstTick(), player.firstTick() > 1800);
+        assertEquals(2000, player.lastTick());
+        assertFalse(player.seek(player.firstTick() - 1));
+        for (long t = player.firstTick(); t <= 2000; t++) {
+            assertTrue(player.moveTo(t));
+            run.assertAt(player, (int) t);
+        }
+    }
+
+    @Test
+    public void gapInTicks_startsANewKeyframe() throws IOException {
+        Run run = new Run(300, 5);
+        ReplayRecorder recorder = new ReplayRecorder(64 * 1024, PERIOD);
+        for (int t = 1; t <= 100; t++) run.record(recorder, t);
+        for (int t = 200; t <= 300; t++) run.record(recorder, t); //pausa de 99 ticks
+        ReplayPlayer player = new ReplayPlayer(ByteBuffer.wrap(flushToBytes(recorder)));
+
+        assertFalse(player.seek(150));
+        run.assertAt(player, 100); //se queda en el último tick antes del hueco
+        assertFalse(player.moveTo(151));
+        assertTrue(player.moveTo(200));
+        run.assertAt(player, 200);
+        assertTrue(player.seek(99));
+        for (int t = 200; t <= 300; t++) {
+            assertTrue(player.moveTo(t));
+            run.assertAt(player, t);
+        }
+    }
+
+    @Test
+    public void truncatedFile_keepsCompleteRecords() throws IOException {
+        Run run = new Run(61, 6);
+        ReplayRecorder recorder = new ReplayRecorder(64 * 1024, PERIOD);
+        for (int t = 1; t <= 61; t++) run.record(recorder, t); //el 61 es un fotograma clave
+        byte[] bytes = flushToBytes(recorder);
+
+        // Registro del tick 61 cortado a la mitad
+        ReplayPlayer player = new ReplayPlayer(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 2)));
+        assertEquals(60, player.lastTick());
+        assertEquals(1, player.keyframes());
+        assertTrue(player.seek(60));
+        run.assertAt(player, 60);
+        assertFalse(player.moveTo(61));
+    }
+
+    @Test
+    public void fileCutAnywhere_keepsTheCompleteRecordsBeforeTheCut() throws IOException {
+        Run run = new Run(200, 8);
+        ReplayRecorder recorder = new ReplayRecorder(64 * 1024, PERIOD, 50);
+        for (int t = 1; t <= 200; t++) run.record(recorder, t);
+        byte[] bytes = flushToBytes(recorder);
+
+        long previous = -1;
+        for (int length = ReplayRecorder.HEADER_BYTES + 1; length <= bytes.length; length++) {
+            ReplayPlayer player = new ReplayPlayer(ByteBuffer.wrap(Arrays.copyOf(bytes, length)));
+            assertTrue("corte en " + length, player.lastTick() >= previous);
+            previous = player.lastTick();
+            if (player.isEmpty()) continue; //ni el primer registro entero
+            assertTrue(player.seek(player.lastTick()));
+            run.assertAt(player, (int) player.lastTick());
+        }
+        assertEquals(200, previous);
+    }
+
+    @Test(expected = IOException.class)
+    public void wrongMagic_isRejected() throws IOException {
+        new ReplayPlayer(ByteBuffer.wrap(new byte[ReplayRecorder.HEADER_BYTES + 4]));
+    }
+
+    @Test
+    public void record_allocatesNothing() {
+        Run run = new Run(20_000, 7);
+        ReplayRecorder recorder = new ReplayRecorder(1024, PERIOD); //se llena y da la vuelta muchas veces
+        for (int t = 1; t <= 5000; t++) run.record(recorder, t);
+        assertEquals(0, TestAllocations.allocatedBytes(() -> {
+            for (int t = 5001; t <= 20_000; t++) run.record(recorder, t);
+        }));
+    }
+
+    private static byte[] flushToBytes(ReplayRecorder recorder) throws IOException {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        recorder.flush(Channels.newChannel(file));
+        return file.toByteArray();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RoadChunkerTest {
+
+    private static final int POINTS_PER_CHUNK = 16;
+
+    // Cada triángulo como texto de sus 24 floats, para comparar multiconjuntos
+    private static List<String> triangles(MeshData mesh) {
+        MeshData expanded = MeshIndexer.expand(mesh);
+        List<String> out = new ArrayList<>();
+        for (int t = 0; t < expanded.vertexCount / 3; t++) {
+            int o = t * 3 * MeshData.STRIDE;
+            out.add(Arrays.toString(Arrays.copyOfRange(expanded.vertices, o, o + 3 * MeshData.STRIDE)));
+        }
+        return out;
+    }
+
+    private static ObjParser parse(String file) throws IOException {
+        ObjParser parser = new ObjParser();
+        try (InputStream in = TestAssets.open(file)) {
+            parser.parse(in);
+        }
+        return parser;
+    }
+
+    @Test
+    public void chunks_coverExactlyTheOriginalTriangles() throws IOException {
+        MeshData road = MeshIndexer.index(parse("road.obj"));
+        ObjParser route = parse("route.obj");
+
+        MeshData[] chunks = RoadChunker.split(road, route.getPositions(), route.getPositionCount(), POINTS_PER_CHUNK);
+        assertEquals(RoadChunker.chunkCount(route.getPositionCount(), POINTS_PER_CHUNK), chunks.length);
+
+        List<String> original = triangles(road);
+        List<String> merged = new ArrayList<>();
+        int nonEmpty = 0;
+        for (MeshData chunk : chunks) {
+            merged.addAll(triangles(chunk));
+            if (chunk.indexCount > 0) nonEmpty++;
+        }
+        Collections.sort(original);
+        Collections.sort(merged);
+        assertEquals(original, merged);
+        assertTrue("la carretera debería repartirse en muchos trozos", nonEmpty > chunks.length / 2);
+    }
+
+    @Test
+    public void chunk_isSpatiallyCompact() throws IOException {
+        MeshData road = MeshIndexer.index(parse("road.obj"));
+        ObjParser route = parse("route.obj");
+        MeshData[] chunks = RoadChunker.split(road, route.getPositions(), route.getPositionCount(), POINTS_PER_CHUNK);
+
+        float whole = Bounds.of(road).radius;
+        for (MeshData chunk : chunks) {
+            if (chunk.vertexCount == 0) continue;
+            assertTrue(Bounds.of(chunk).radius < whole / 4);
+        }
+    }
+
+    @Test
+    public void expandedInput_isSupported() throws IOException {
+        MeshData road = parse("road.obj").toMeshData();
+        ObjParser route = parse("route.obj");
+        MeshData[] chunks = RoadChunker.split(road, route.getPositions(), route.getPositionCount(), POINTS_PER_CHUNK);
+        int total = 0;
+        for (MeshData chunk : chunks) total += chunk.indexCount;
+        assertEquals(road.vertexCount, total);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compara el antiguo calculateCarState (List&lt;Vector4&gt; + dos atan2) con Route.sample y con la
+ * búsqueda por distancia, sobre la ruta real y con tres coches por frame como en RaceSimulation.
+ * Al estilo de ObjParserBenchmark: calentamiento y varias rondas, no es un JMH de verdad.
+ */
+public class RouteBenchmark {
+
+    private static final int WARMUP = 5;
+    private static final int RUNS = 10;
+    private static final int FRAMES = 200_000;
+    private static final float[] OFFSETS = {0, 25, -15};
+
+    private interface Sampler {
+        void sample(float progress, CarState out);
+    }
+
+    @Test
+    public void compareWithLegacyCalculateCarState() throws IOException {
+        ObjParser parser = new ObjParser();
+        try (InputStream in = TestAssets.open("route.obj")) {
+            parser.parse(in);
+        }
+        Route route = new Route(parser.getPositions(), parser.getPositionCount());
+        LegacyRouteSampler legacy = new LegacyRouteSampler(parser.getPositions(), parser.getPositionCount());
+        CarState state = new CarState();
+
+        double legacyNs = measure(legacy::calculateCarState, route.size(), state);
+        double routeNs = measure(route::sample, route.size(), state);
+        double distanceNs = measure((p, out) -> route.sample(route.progressAtDistance(p * 3.7f), out),
+                route.size(), state);
+        Route resampled = Route.resample(parser.getPositions(), parser.getPositionCount(), 2.0f);
+        double resampledNs = measure((p, out) -> resampled.sample(resampled.progressAtDistance(p * 3.7f), out),
+                route.size(), state);
+
+        System.out.println("ruta de " + route.size() + " puntos, ns por coche");
+        System.out.printf("legacy (List + atan2)   %8.2f%n", legacyNs);
+        System.out.printf("Route.sample            %8.2f%n", routeNs);
+        System.out.printf("Route por distancia     %8.2f%n", distanceNs);
+        System.out.printf("remuestreada (directa)  %8.2f%n", resampledNs);
+
+        // Que el JIT no se salte el trabajo y que ambos den lo mismo
+        legacy.calculateCarState(12.5f, state);
+        float heading = state.rotationY;
+        route.sample(12.5f, state);
+        assertEquals(heading, state.rotationY, 0f);
+    }
+
+    private static double measure(Sampler sampler, int size, CarState state) {
+        long best = Long.MAX_VALUE;
+        float sink = 0;
+        for (int run = 0; run < WARMUP + RUNS; run++) {
+            float progress = 0;
+            long t0 = System.nanoTime();
+            for (int frame = 0; frame < FRAMES; frame++) {
+                progress += RaceSimulation.PLAYER_SPEED;
+                if (progress >= size) progress = 0;
+                for (float offset : OFFSETS) {
+                    float p = progress + offset;
+                    if (p >= size) p -= size;
+                    if (p < 0) p += size;
+                    sampler.sample(p, state);
+                    sink += state.steeringAngle;
+                }
+            }
+            long elapsed = System.nanoTime() - t0;
+            if (run >= WARMUP) best = Math.min(best, elapsed);
+        }
+        if (sink == Float.MIN_VALUE) System.out.println(sink);
+        return best / (double) FRAMES / OFFSETS.length;
+    }
+}
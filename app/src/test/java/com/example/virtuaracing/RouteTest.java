@@ -0,0 +1,184 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class RouteTest {
+
+    // Cuadrado de 10 x 10 recorrido en sentido horario visto desde arriba
+    private static final float[] SQUARE = {0, 0, 0, 0, 0, 10, 10, 0, 10, 10, 0, 0};
+
+    @Test
+    public void square_precomputesHeadingLengthAndDistance() {
+        Route route = new Route(SQUARE, 4);
+        assertEquals(4, route.size());
+        assertEquals(40, route.length(), 1e-5f);
+        assertEquals(0, route.heading(0), 1e-4f);   // hacia +Z
+        assertEquals(90, route.heading(1), 1e-4f);  // hacia +X
+        assertEquals(180, Math.abs(route.heading(2)), 1e-4f);
+        assertEquals(-90, route.heading(3), 1e-4f);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(10, route.segmentLength(i), 1e-5f);
+            assertEquals(10 * i, route.distanceAt(i), 1e-5f);
+        }
+        // Giro de 90 grados en cada esquina: el volante satura
+        assertEquals(50, route.steering(0), 0f);
+    }
+
+    @Test
+    public void distanceLookup_wrapsAndIsInverseOfProgress() {
+        Route route = new Route(SQUARE, 4);
+        assertEquals(0, route.segmentAtDistance(0));
+        assertEquals(0, route.segmentAtDistance(9.99f));
+        assertEquals(1, route.segmentAtDistance(10));
+        assertEquals(3, route.segmentAtDistance(39));
+        assertEquals(0, route.segmentAtDistance(41));
+        assertEquals(3, route.segmentAtDistance(-1));
+
+        assertEquals(2.5f, route.progressAtDistance(25), 1e-5f);
+        assertEquals(0.5f, route.progressAtDistance(45), 1e-5f);
+        assertEquals(25, route.distanceAtProgress(2.5f), 1e-5f);
+    }
+
+    @Test
+    public void sample_matchesLegacyCalculateCarState() throws IOException {
+        ObjParser parser = new ObjParser();
+        try (InputStream in = TestAssets.open("route.obj")) {
+            parser.parse(in);
+        }
+        Route route = new Route(parser.getPositions(), parser.getPositionCount());
+        LegacyRouteSampler legacy = new LegacyRouteSampler(parser.getPositions(), parser.getPositionCount());
+
+        CarState expected = new CarState(), actual = new CarState();
+        for (float progress = 0; progress < route.size(); progress += 0.37f) {
+            legacy.calculateCarState(progress, expected);
+            route.sample(progress, actual);
+            for (int k = 0; k < 3; k++) {
+                assertEquals(expected.position.get(k), actual.position.get(k), 0f);
+            }
+            assertEquals(expected.rotationY, actual.rotationY, 0f);
+            assertEquals(expected.steeringAngle, actual.steeringAngle, 0f);
+        }
+    }
+
+    @Test
+    public void emptyRoute_leavesStateUntouched() {
+        Route route = new Route(new float[0], 0);
+        CarState state = new CarState();
+        route.sample(3, state);
+        assertTrue(route.isEmpty());
+        assertEquals(3, state.progress, 0f);
+        assertEquals(0, route.progressAtDistance(5), 0f);
+    }
+
+    @Test
+    public void resample_circleWithUnevenPoints_isEquallySpacedOnTheCircle() {
+        // 24 puntos de un círculo de radio 30 con separación angular irregular
+        int n = 24;
+        float[] points = new float[n * 3];
+        for (int i = 0; i < n; i++) {
+            double a = 2 * Math.PI * (i + 0.4 * Math.sin(i * 1.7)) / n;
+            points[i * 3] = (float) (30 * Math.cos(a));
+            points[i * 3 + 2] = (float) (30 * Math.sin(a));
+        }
+        Route route = Route.resample(points, n, 1.0f);
+
+        assertEquals(2 * Math.PI * 30, route.length(), 2.0);
+        assertEquals(1.0f, route.spacing(), 0.01f);
+        float minChord = Float.MAX_VALUE, maxChord = 0;
+        for (int i = 0; i < route.size(); i++) {
+            float r = (float) Math.hypot(route.x(i), route.z(i));
+            assertEquals("radio del punto " + i, 30, r, 0.3f);
+            int next = (i + 1) % route.size();
+            float chord = (float) Math.hypot(route.x(next) - route.x(i), route.z(next) - route.z(i));
+            minChord = Math.min(minChord, chord);
+            maxChord = Math.max(maxChord, chord);
+        }
+        // Velocidad constante: todos los tramos miden lo mismo (±2%)
+        assertTrue(minChord + " .. " + maxChord, maxChord / minChord < 1.02f);
+    }
+
+    @Test
+    public void resample_gameRoute_isSmoothAndMovesAtConstantSpeed() throws IOException {
+        float[] points = loadRoutePositions();
+        int count = points.length / 3;
+        Route route = Route.resample(points, count, 2.0f);
+
+        // Avanzar la misma distancia en cada paso recorre siempre la misma cuerda
+        CarState a = new CarState(), b = new CarState();
+        float step = 2.2f;
+        for (float d = 0; d < route.length(); d += step) {
+            route.sample(route.progressAtDistance(d), a);
+            route.sample(route.progressAtDistance(d + step), b);
+            float moved = (float) Math.sqrt(sq(b.position.get(0) - a.position.get(0))
+                    + sq(b.position.get(1) - a.position.get(1)) + sq(b.position.get(2) - a.position.get(2)));
+            assertEquals("paso en d=" + d, step, moved, 0.05f * step);
+        }
+
+        // Suavidad: el rumbo cambia poco entre tramos consecutivos (la poligonal original llega a más)
+        float maxTurn = 0;
+        for (int i = 0; i < route.size(); i++) {
+            maxTurn = Math.max(maxTurn, Math.abs(turn(route.heading((i + 1) % route.size()) - route.heading(i))));
+        }
+        assertTrue("giro máximo por tramo " + maxTurn, maxTurn < 12);
+    }
+
+    @Test
+    public void resample_thinnedRoute_staysCloseToTheFullOne() throws IOException {
+        float[] points = loadRoutePositions();
+        int count = points.length / 3;
+        float[] half = new float[((count + 1) / 2) * 3];
+        for (int i = 0; i < count; i += 2) System.arraycopy(points, i * 3, half, (i / 2) * 3, 3);
+
+        Route full = Route.resample(points, count, 2.0f);
+        Route thin = Route.resample(half, half.length / 3, 2.0f);
+        assertEquals(full.length(), thin.length(), full.length() * 0.01f);
+
+        // Cada punto de la ruta aclarada queda cerca de la completa
+        for (int i = 0; i < thin.size(); i++) {
+            float best = Float.MAX_VALUE;
+            for (int j = 0; j < full.size(); j++) {
+                best = Math.min(best, sq(thin.x(i) - full.x(j)) + sq(thin.z(i) - full.z(j)));
+            }
+            assertTrue("punto " + i + " a " + Math.sqrt(best) + " m", Math.sqrt(best) < 1.0);
+        }
+    }
+
+    @Test
+    public void resample_passesThroughControlPoints() {
+        Route route = Route.resample(SQUARE, 4, 0.25f);
+        for (int c = 0; c < 4; c++) {
+            float best = Float.MAX_VALUE;
+            for (int i = 0; i < route.size(); i++) {
+                best = Math.min(best, sq(route.x(i) - SQUARE[c * 3]) + sq(route.z(i) - SQUARE[c * 3 + 2]));
+            }
+            assertTrue("esquina " + c, Math.sqrt(best) < 0.25f);
+        }
+        // Distancia directa: sin búsqueda binaria, mismo resultado que acumulando
+        assertEquals(route.length() / 2, route.distanceAt(route.size() / 2), 1e-3f);
+        assertEquals(route.size() / 2, route.segmentAtDistance(route.length() / 2 + 1e-3f));
+    }
+
+    private static float[] loadRoutePositions() throws IOException {
+        ObjParser parser = new ObjParser();
+        try (InputStream in = TestAssets.open("route.obj")) {
+            parser.parse(in);
+        }
+        return Arrays.copyOf(parser.getPositions(), parser.getPositionCount() * 3);
+    }
+
+    private static float turn(float angle) {
+        while (angle < -180) angle += 360;
+        while (angle > 180) angle -= 360;
+        return angle;
+    }
+
+    private static float sq(float v) {
+        return v * v;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Antes/después del batching estático del escenario con distinta densidad de objetos a lo largo
+ * de una pista circular: llamadas de dibujo y tiempo de CPU por frame del recorrido objeto a
+ * objeto de drawScenery (rejilla + distancia + frustum + matriz) frente al de las regiones
+ * fusionadas (distancia + frustum por región). Las llamadas de GL no se cuentan en el tiempo.
+ */
+public class SceneryBatchBenchmark {
+
+    private static final float RENDER_DISTANCE = 45.0f;
+    private static final float REGION_SIZE = 22.5f;
+    private static final float TRACK_RADIUS = 400.0f;
+    private static final int FRAMES = 2000;
+
+    @Test
+    public void compareObjectsWithRegions() throws IOException {
+        ObjParser parser = new ObjParser();
+        try (InputStream in = TestAssets.open("tree.obj")) {
+            parser.parse(in);
+        }
+        MeshData tree = MeshIndexer.index(parser);
+        Bounds treeBounds = Bounds.of(tree);
+
+        Frustum frustum = new Frustum();
+        frustum.setPerspective(60, 16 / 9f, 1, 200);
+
+        System.out.println("objetos  regiones  draws/frame(obj)  draws/frame(reg)  obj(us/frame)  reg(us/frame)");
+        long previousRegionDraws = 0, previousObjectDraws = 0, regionDraws = 0, objectDraws = 0;
+        for (int n : new int[]{250, 1_000, 4_000}) {
+            Random rand = new Random(n);
+            float[] xs = new float[n], zs = new float[n];
+            InstanceBatch instances = new InstanceBatch(n);
+            for (int i = 0; i < n; i++) {
+                double a = rand.nextDouble() * 2 * Math.PI;
+                float r = TRACK_RADIUS + (rand.nextBoolean() ? 1 : -1) * (7 + rand.nextFloat() * 10);
+                xs[i] = (float) Math.cos(a) * r;
+                zs[i] = (float) Math.sin(a) * r;
+                instances.loadIdentity();
+                instances.translate(xs[i], 0, zs[i]);
+                instances.emit();
+            }
+            SpatialGrid grid = new SpatialGrid(xs, zs, n, RENDER_DISTANCE * 0.5f);
+            int[] candidates = new int[n];
+            MeshData[] merged = SceneryBatcher.merge(new MeshData[]{tree}, instances, new int[n], REGION_SIZE);
+            Bounds[] regions = new Bounds[merged.length];
+            for (int r = 0; r < merged.length; r++) regions[r] = Bounds.of(merged[r]);
+            InstanceBatch batch = new InstanceBatch(64);
+
+            for (int warm = 0; warm < 3; warm++) {
+                perObject(grid, xs, zs, candidates, treeBounds, frustum, batch);
+                perRegion(regions, frustum);
+            }
+            previousRegionDraws = regionDraws;
+            previousObjectDraws = objectDraws;
+            long t0 = System.nanoTime();
+            objectDraws = perObject(grid, xs, zs, candidates, treeBounds, frustum, batch);
+            long t1 = System.nanoTime();
+            regionDraws = perRegion(regions, frustum);
+            long t2 = System.nanoTime();
+
+            System.out.printf("%7d %9d %17.1f %17.1f %14.2f %14.2f%n", n, regions.length,
+                    objectDraws / (double) FRAMES, regionDraws / (double) FRAMES,
+                    (t1 - t0) / 1000.0 / FRAMES, (t2 - t1) / 1000.0 / FRAMES);
+        }
+        // Con 4 veces más objetos las llamadas por objeto se multiplican y las de regiones apenas cambian
+        assertTrue(objectDraws > previousObjectDraws * 3);
+        assertTrue(regionDraws < previousRegionDraws * 1.5);
+        assertTrue(regionDraws * 5 < objectDraws);
+    }
+
+    // Cámara recorriendo la pista a 1.5 m por frame
+    private static void look(Frustum frustum, int frame) {
+        double a = frame * 1.5 / TRACK_RADIUS, b = a + 0.05;
+        frustum.update((float) Math.cos(a) * TRACK_RADIUS, 3, (float) Math.sin(a) * TRACK_RADIUS,
+                (float) Math.cos(b) * TRACK_RADIUS, 1, (float) Math.sin(b) * TRACK_RADIUS, 0, 1, 0);
+    }
+
+    // Una llamada por objeto visible (camino de GLES 1.x sin fusionar)
+    private static long perObject(SpatialGrid grid, float[] xs, float[] zs, int[] candidates, Bounds b,
+                                  Frustum frustum, InstanceBatch batch) {
+        long draws = 0;
+        for (int frame = 0; frame < FRAMES; frame++) {
+            look(frustum, frame);
+            double a = frame * 1.5 / TRACK_RADIUS;
+            float px = (float) Math.cos(a) * TRACK_RADIUS, pz = (float) Math.sin(a) * TRACK_RADIUS;
+            batch.clear();
+            int found = grid.query(px, pz, RENDER_DISTANCE, candidates);
+            for (int c = 0; c < found; c++) {
+                int i = candidates[c];
+                float dx = xs[i] - px, dz = zs[i] - pz;
+                if (dx * dx + dz * dz >= RENDER_DISTANCE * RENDER_DISTANCE) continue;
+                if (!frustum.isSphereVisible(xs[i] + b.centerX, b.centerY, zs[i] + b.centerZ, b.radius)) continue;
+                batch.loadIdentity();
+                batch.translate(xs[i], 0, zs[i]);
+                batch.emit();
+            }
+            draws += batch.size();
+        }
+        return draws;
+    }
+
+    // Una llamada por región visible
+    private static long perRegion(Bounds[] regions, Frustum frustum) {
+        long draws = 0;
+        for (int frame = 0; frame < FRAMES; frame++) {
+            look(frustum, frame);
+            double a = frame * 1.5 / TRACK_RADIUS;
+            float px = (float) Math.cos(a) * TRACK_RADIUS, pz = (float) Math.sin(a) * TRACK_RADIUS;
+            for (Bounds b : regions) {
+                float dx = b.centerX - px, dz = b.centerZ - pz;
+                if ((float) Math.sqrt(dx * dx + dz * dz) - b.radius > RENDER_DISTANCE) continue;
+                if (frustum.isSphereVisible(b.centerX, b.centerY, b.centerZ, b.radius)) draws++;
+            }
+        }
+        return draws;
+    }
+}
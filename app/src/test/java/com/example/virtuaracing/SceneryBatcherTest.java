@@ -0,0 +1,178 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class SceneryBatcherTest {
+
+    private static final float REGION_SIZE = 22.5f;
+
+    private static MeshData load(String file) throws IOException {
+        ObjParser parser = new ObjParser();
+        try (InputStream in = TestAssets.open(file)) {
+            parser.parse(in);
+        }
+        return MeshIndexer.index(parser);
+    }
+
+    // Triángulo como texto (posición, normal y uv redondeados) para comparar multiconjuntos
+    private static String vertex(float[] v) {
+        StringBuilder sb = new StringBuilder();
+        for (float f : v) sb.append(String.format("%.3f ", f + 0.0f)); //+0.0f: sin -0.000
+        return sb.toString();
+    }
+
+    private static List<String> triangles(MeshData mesh) {
+        MeshData expanded = MeshIndexer.expand(mesh);
+        List<String> out = new ArrayList<>();
+        float[] v = new float[MeshData.STRIDE];
+        for (int t = 0; t < expanded.vertexCount / 3; t++) {
+            StringBuilder tri = new StringBuilder();
+            for (int k = 0; k < 3; k++) {
+                System.arraycopy(expanded.vertices, (t * 3 + k) * MeshData.STRIDE, v, 0, MeshData.STRIDE);
+                tri.append(vertex(v)).append("| ");
+            }
+            out.add(tri.toString());
+        }
+        return out;
+    }
+
+    // La instancia transformada por separado, sin pasar por SceneryBatcher
+    private static List<String> transformedInstance(MeshData model, float[] m, int o) {
+        MeshData expanded = MeshIndexer.expand(model);
+        float[] copy = expanded.vertices.clone();
+        for (int v = 0; v < expanded.vertexCount; v++) {
+            int s = v * MeshData.STRIDE;
+            float[] p = {expanded.vertices[s], expanded.vertices[s + 1], expanded.vertices[s + 2], 1};
+            float[] n = {expanded.vertices[s + 3], expanded.vertices[s + 4], expanded.vertices[s + 5], 0};
+            for (int r = 0; r < 3; r++) {
+                float pr = 0, nr = 0;
+                for (int c = 0; c < 4; c++) {
+                    pr += m[o + c * 4 + r] * p[c];
+                    nr += m[o + c * 4 + r] * n[c];
+                }
+                copy[s + r] = pr;
+                copy[s + 3 + r] = nr;
+            }
+        }
+        return triangles(new MeshData(copy, expanded.vertexCount, expanded.hasNormals));
+    }
+
+    @Test
+    public void mergedRegions_equalIndividuallyTransformedInstances() throws IOException {
+        MeshData[] models = {load("tree.obj"), load("chassis.obj")};
+        Random rand = new Random(7);
+        int count = 60;
+        InstanceBatch instances = new InstanceBatch(count);
+        int[] modelOf = new int[count];
+        Set<String> cells = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            float x = rand.nextFloat() * 200 - 100, y = rand.nextFloat() * 5, z = rand.nextFloat() * 200 - 100;
+            modelOf[i] = rand.nextInt(models.length);
+            instances.loadIdentity();
+            instances.translate(x, y, z);
+            instances.rotate(rand.nextInt(4) * 90 + rand.nextFloat() * 30, 0, 1, 0);
+            instances.emit();
+            cells.add(Math.floor(x / REGION_SIZE) + "," + Math.floor(z / REGION_SIZE));
+        }
+
+        MeshData[] regions = SceneryBatcher.merge(models, instances, modelOf, REGION_SIZE);
+        assertEquals("una malla por región ocupada", cells.size(), regions.length);
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            expected.addAll(transformedInstance(models[modelOf[i]], instances.matrices(), i * InstanceBatch.FLOATS_PER_INSTANCE));
+        }
+        List<String> merged = new ArrayList<>();
+        for (MeshData region : regions) {
+            assertTrue(region.isIndexed());
+            assertTrue(region.vertexCount <= SceneryBatcher.MAX_VERTICES);
+            merged.addAll(triangles(region));
+        }
+        Collections.sort(expected);
+        Collections.sort(merged);
+        assertEquals(expected, merged);
+    }
+
+    @Test
+    public void regionOnlyContainsNearbyInstances() throws IOException {
+        MeshData tree = load("tree.obj");
+        Bounds local = Bounds.of(tree);
+        float reach = (float) Math.sqrt(local.centerX * local.centerX + local.centerZ * local.centerZ) + local.radius;
+
+        InstanceBatch instances = new InstanceBatch(2);
+        instances.translate(5, 0, 5);
+        instances.emit();
+        instances.loadIdentity();
+        instances.translate(105, 0, 5);
+        instances.emit();
+
+        MeshData[] regions = SceneryBatcher.merge(new MeshData[] {tree}, instances, new int[2], REGION_SIZE);
+        assertEquals(2, regions.length);
+        for (MeshData region : regions) {
+            Bounds b = Bounds.of(region);
+            assertEquals(tree.vertexCount, region.vertexCount);
+            assertTrue(b.maxX - b.minX <= 2 * reach);
+        }
+    }
+
+    @Test
+    public void crowdedRegion_isSplitToKeepShortIndices() {
+        int vertexCount = 40_000; //lista sin indexar: dos no caben en 16 bits
+        MeshData big = new MeshData(new float[vertexCount * MeshData.STRIDE], vertexCount, true);
+        InstanceBatch instances = new InstanceBatch(3);
+        for (int i = 0; i < 3; i++) {
+            instances.loadIdentity();
+            instances.translate(i, 0, 0);
+            instances.emit();
+        }
+
+        MeshData[] regions = SceneryBatcher.merge(new MeshData[] {big}, instances, new int[3], REGION_SIZE);
+        assertEquals(3, regions.length);
+        for (MeshData region : regions) {
+            assertEquals(vertexCount, region.vertexCount);
+            assertEquals(vertexCount, region.indexCount);
+            assertEquals(vertexCount - 1, region.indices[vertexCount - 1]);
+        }
+    }
+
+    @Test
+    public void regionOf_pointsToTheMeshHoldingEachInstance() throws IOException {
+        MeshData tree = load("tree.obj");
+        float[] xs = {5, 105, 8, -40, 110};
+        InstanceBatch instances = new InstanceBatch(xs.length);
+        for (float x : xs) {
+            instances.loadIdentity();
+            instances.translate(x, 0, 5);
+            instances.emit();
+        }
+
+        int[] regionOf = new int[xs.length];
+        MeshData[] regions = SceneryBatcher.merge(new MeshData[] {tree}, instances, new int[xs.length], REGION_SIZE, regionOf);
+        assertEquals(3, regions.length);
+        int[] perRegion = new int[regions.length];
+        for (int i = 0; i < xs.length; i++) {
+            Bounds b = Bounds.of(regions[regionOf[i]]);
+            assertTrue("instancia " + i, xs[i] >= b.minX && xs[i] <= b.maxX);
+            perRegion[regionOf[i]]++;
+        }
+        for (int r = 0; r < regions.length; r++) {
+            assertEquals(perRegion[r] * tree.vertexCount, regions[r].vertexCount);
+        }
+    }
+
+    @Test
+    public void noInstances_noRegions() {
+        assertEquals(0, SceneryBatcher.merge(new MeshData[0], new InstanceBatch(1), new int[0], REGION_SIZE).length);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class SimulationLoopTest {
+
+    @Test(timeout = 10_000)
+    public void loop_publishesTicksAndAppliesInput() throws Exception {
+        RaceSimulation simulation = new RaceSimulation(RaceSimulationTest.loadRoute());
+        SnapshotBuffer snapshots = new SnapshotBuffer(simulation.getCars().length);
+        InputQueue input = new InputQueue(16);
+        AtomicLong clock = new AtomicLong(1_000_000_000L);
+        SimulationLoop loop = new SimulationLoop(simulation, snapshots, input, clock::get);
+        AtomicInteger published = new AtomicInteger();
+        loop.setPublishListener(published::incrementAndGet);
+
+        loop.start();
+        assertEquals("foto inicial al arrancar", 0, snapshots.acquire().getTick());
+
+        clock.addAndGet(RaceSimulation.TICK_NANOS * 3);
+        WorldSnapshot snapshot = waitForTick(snapshots, 3);
+        CarState[] cars = new CarState[3];
+        for (int i = 0; i < cars.length; i++) cars[i] = new CarState();
+        Vector4 eye = new Vector4(0, 0, 0, 1), center = new Vector4(0, 0, 0, 1), up = new Vector4(0, 0, 0, 0);
+        snapshot.interpolate(1, cars, eye, center, up);
+        assertEquals(1, up.get(1), 0f);
+        assertEquals(-3.5f, cars[1].lateralOffset, 0f);
+        assertTrue("avisos de foto nueva: " + published.get(), published.get() >= 2);
+
+        // La orden de cámara llega por la cola y se publica aunque no haya tick
+        assertTrue(input.offer(InputQueue.TOGGLE_CAMERA));
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        do {
+            snapshots.acquire().interpolate(1, cars, eye, center, up);
+        } while (up.get(2) != -1 && System.nanoTime() < deadline);
+        assertEquals(-1, up.get(2), 0f);
+        assertEquals(85, eye.get(1), 0f);
+
+        loop.stop();
+        assertFalse(loop.isRunning());
+        assertEquals(3, simulation.getTickCount());
+    }
+
+    @Test
+    public void snapshot_interpolatesBetweenTicks() throws Exception {
+        RaceSimulation simulation = new RaceSimulation(RaceSimulationTest.loadRoute());
+        WorldSnapshot snapshot = new WorldSnapshot(simulation.getCars().length);
+        float[] last = new float[snapshot.stateSize()];
+        simulation.step();
+        snapshot.capture(simulation, last, 0);
+        float x1 = simulation.getPlayer().position.get(0);
+        simulation.step();
+        snapshot.capture(simulation, last, RaceSimulation.TICK_NANOS);
+        float x2 = simulation.getPlayer().position.get(0);
+
+        CarState[] cars = {new CarState(), new CarState(), new CarState()};
+        Vector4 eye = new Vector4(0, 0, 0, 1), center = new Vector4(0, 0, 0, 1), up = new Vector4(0, 0, 0, 0);
+        snapshot.interpolate(0.5f, cars, eye, center, up);
+        assertEquals((x1 + x2) / 2, cars[0].position.get(0), 1e-4f);
+        assertEquals(2, snapshot.getTick());
+    }
+
+    @Test(timeout = 10_000)
+    public void stop_flushesTheRecordingAndTheGhostIsPublished() throws Exception {
+        Route route = RaceSimulationTest.loadRoute();
+        RaceSimulation simulation = new RaceSimulation(route);
+        simulation.setRecorder(new ReplayRecorder(4096, route.size()));
+        SnapshotBuffer snapshots = new SnapshotBuffer(simulation.getCars().length);
+        AtomicLong clock = new AtomicLong(0);
+        SimulationLoop loop = new SimulationLoop(simulation, snapshots, new InputQueue(16), clock::get);
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        loop.setReplayOutput(Channels.newChannel(file));
+
+        loop.start();
+        clock.addAndGet(RaceSimulation.TICK_NANOS * 5);
+        waitForTick(snapshots, 5);
+        loop.stop();
+        assertNull(loop.getReplayError());
+        assertEquals(0, simulation.getRecorder().pending());
+        ReplayPlayer replay = new ReplayPlayer(ByteBuffer.wrap(file.toByteArray()));
+        assertEquals(5, replay.lastTick());
+
+        // Una segunda carrera con la grabación como fantasma: la foto lo lleva al renderer
+        RaceSimulation race = new RaceSimulation(route);
+        race.setGhost(replay);
+        WorldSnapshot snapshot = new WorldSnapshot(race.getCars().length);
+        float[] last = new float[snapshot.stateSize()];
+        CarState ghost = new CarState();
+        race.step();
+        snapshot.capture(race, last, 0);
+        assertFalse(snapshot.ghost(1, ghost));
+        race.step();
+        snapshot.capture(race, last, RaceSimulation.TICK_NANOS);
+        assertFalse("la foto anterior no lo tenía", snapshot.ghost(1, ghost));
+        race.step();
+        snapshot.capture(race, last, 2 * RaceSimulation.TICK_NANOS);
+        assertTrue(snapshot.ghost(1, ghost));
+        assertEquals(race.getPlayer().position.get(0), ghost.position.get(0), 0.01f); //misma salida, mismo sitio
+        assertEquals(race.getPlayer().progress, ghost.progress, 1e-3f);
+    }
+
+    private static WorldSnapshot waitForTick(SnapshotBuffer snapshots, long tick) throws InterruptedException {
+        WorldSnapshot snapshot;
+        while ((snapshot = snapshots.acquire()).getTick() < tick) Thread.sleep(1);
+        return snapshot;
+    }
+}
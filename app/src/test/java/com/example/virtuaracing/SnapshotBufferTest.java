@@ -0,0 +1,80 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class SnapshotBufferTest {
+
+    @Test
+    public void acquire_returnsLatestPublishedAndKeepsItUntilANewOne() {
+        SnapshotBuffer buffer = new SnapshotBuffer(3);
+        for (long k = 1; k <= 3; k++) {
+            buffer.writeBuffer().tick = k;
+            buffer.publish();
+        }
+        WorldSnapshot read = buffer.acquire();
+        assertEquals(3, read.getTick());
+        assertSame(read, buffer.acquire()); // sin foto nueva se queda con la misma
+
+        buffer.writeBuffer().tick = 4;
+        assertNotSame("el escritor nunca escribe en la foto del lector", read, buffer.writeBuffer());
+        buffer.publish();
+        assertEquals(4, buffer.acquire().getTick());
+    }
+
+    /**
+     * El escritor rellena cada foto entera con el mismo valor (su número de secuencia) y la publica
+     * sin parar; el lector comprueba que nunca ve mezclados dos valores ni retrocede.
+     */
+    @Test(timeout = 30_000)
+    public void stress_noTornReads() throws Exception {
+        SnapshotBuffer buffer = new SnapshotBuffer(3);
+        final long writes = 500_000;
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        Thread writer = new Thread(() -> {
+            for (long k = 1; k <= writes; k++) {
+                WorldSnapshot s = buffer.writeBuffer();
+                Arrays.fill(s.previous, k);
+                Arrays.fill(s.current, k);
+                s.tick = k;
+                s.tickTime = k;
+                buffer.publish();
+                if ((k & 1023) == 0) Thread.yield(); //que el lector también corra con un solo núcleo
+            }
+            done.set(true);
+        });
+
+        long reads = 0, distinct = 0, lastTick = 0;
+        writer.start();
+        while (!done.get() || lastTick < writes) {
+            WorldSnapshot s = buffer.acquire();
+            long tick = s.tick;
+            if (tick < lastTick) { failure.set("retrocede de " + lastTick + " a " + tick); break; }
+            if (s.tickTime != tick) { failure.set("tickTime " + s.tickTime + " con tick " + tick); break; }
+            for (int i = 0; i < s.current.length; i++) {
+                if (s.current[i] != (float) tick || s.previous[i] != (float) tick) {
+                    failure.set("foto rota en el tick " + tick + ", posición " + i);
+                    break;
+                }
+            }
+            if (failure.get() != null) break;
+            if (tick != lastTick) distinct++;
+            lastTick = tick;
+            reads++;
+            if ((reads & 1023) == 0) Thread.yield();
+        }
+        writer.join();
+
+        assertNull(failure.get(), failure.get());
+        assertEquals(writes, lastTick);
+        assertTrue("el lector debe ver varias fotos distintas: " + distinct, distinct > 10);
+        System.out.println("lecturas: " + reads + ", fotos distintas vistas: " + distinct);
+    }
+}
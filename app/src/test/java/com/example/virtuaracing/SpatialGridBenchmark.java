@@ -0,0 +1,82 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compara la rejilla con el recorrido lineal de drawScenery para 1k, 10k y 100k objetos
+ * repartidos a lo largo de una pista larga, con la misma prueba exacta de distancia.
+ */
+public class SpatialGridBenchmark {
+
+    private static final float RENDER_DISTANCE = 45.0f;
+    private static final int QUERIES = 2000;
+
+    @Test
+    public void compareWithLinearScan() {
+        System.out.println("objetos  lineal(cand)  rejilla(cand)  lineal(us/q)  rejilla(us/q)");
+        for (int n : new int[]{1_000, 10_000, 100_000}) {
+            Random rand = new Random(n);
+            // Pista circular cuyo perímetro crece con el número de objetos (densidad constante)
+            float radius = n * 0.5f / (float) (2 * Math.PI) + 50;
+            float[] xs = new float[n], zs = new float[n];
+            for (int i = 0; i < n; i++) {
+                double a = rand.nextDouble() * 2 * Math.PI;
+                float side = (rand.nextFloat() - 0.5f) * 40;
+                xs[i] = (float) Math.cos(a) * (radius + side);
+                zs[i] = (float) Math.sin(a) * (radius + side);
+            }
+            SpatialGrid grid = new SpatialGrid(xs, zs, n, RENDER_DISTANCE * 0.5f);
+            int[] out = new int[n];
+            float[] qx = new float[QUERIES], qz = new float[QUERIES];
+            for (int q = 0; q < QUERIES; q++) {
+                double a = 2 * Math.PI * q / QUERIES;
+                qx[q] = (float) Math.cos(a) * radius;
+                qz[q] = (float) Math.sin(a) * radius;
+            }
+
+            long linearVisible = 0, gridVisible = 0, gridCandidates = 0;
+            for (int warm = 0; warm < 3; warm++) { linearScan(xs, zs, n, qx, qz); gridScan(grid, xs, zs, out, qx, qz); }
+
+            long t0 = System.nanoTime();
+            linearVisible = linearScan(xs, zs, n, qx, qz);
+            long t1 = System.nanoTime();
+            long[] g = gridScan(grid, xs, zs, out, qx, qz);
+            long t2 = System.nanoTime();
+            gridVisible = g[0];
+            gridCandidates = g[1];
+
+            assertEquals(linearVisible, gridVisible);
+            System.out.printf("%7d %13d %14d %13.2f %14.2f%n", n, (long) n, gridCandidates / QUERIES,
+                    (t1 - t0) / 1000.0 / QUERIES, (t2 - t1) / 1000.0 / QUERIES);
+        }
+    }
+
+    private static long linearScan(float[] xs, float[] zs, int n, float[] qx, float[] qz) {
+        long visible = 0;
+        for (int q = 0; q < qx.length; q++) {
+            for (int i = 0; i < n; i++) {
+                float dx = xs[i] - qx[q], dz = zs[i] - qz[q];
+                if (dx * dx + dz * dz < RENDER_DISTANCE * RENDER_DISTANCE) visible++;
+            }
+        }
+        return visible;
+    }
+
+    private static long[] gridScan(SpatialGrid grid, float[] xs, float[] zs, int[] out, float[] qx, float[] qz) {
+        long visible = 0, candidates = 0;
+        for (int q = 0; q < qx.length; q++) {
+            int found = grid.query(qx[q], qz[q], RENDER_DISTANCE, out);
+            candidates += found;
+            for (int k = 0; k < found; k++) {
+                int i = out[k];
+                float dx = xs[i] - qx[q], dz = zs[i] - qz[q];
+                if (dx * dx + dz * dz < RENDER_DISTANCE * RENDER_DISTANCE) visible++;
+            }
+        }
+        return new long[]{visible, candidates};
+    }
+}
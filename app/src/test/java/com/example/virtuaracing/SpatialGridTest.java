@@ -0,0 +1,55 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SpatialGridTest {
+
+    @Test
+    public void query_containsEveryItemInsideRadius() {
+        Random rand = new Random(1);
+        int n = 5000;
+        float[] xs = new float[n], zs = new float[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = rand.nextFloat() * 1000 - 500;
+            zs[i] = rand.nextFloat() * 400 - 200;
+        }
+        SpatialGrid grid = new SpatialGrid(xs, zs, n, 22.5f);
+        int[] out = new int[grid.size()];
+
+        for (int q = 0; q < 200; q++) {
+            float x = rand.nextFloat() * 1200 - 600, z = rand.nextFloat() * 600 - 300, r = 45;
+            int found = grid.query(x, z, r, out);
+            boolean[] candidate = new boolean[n];
+            for (int k = 0; k < found; k++) {
+                assertFalse("duplicado", candidate[out[k]]);
+                candidate[out[k]] = true;
+            }
+            for (int i = 0; i < n; i++) {
+                float dx = xs[i] - x, dz = zs[i] - z;
+                if (dx * dx + dz * dz < r * r) assertTrue("falta " + i, candidate[i]);
+            }
+        }
+    }
+
+    @Test
+    public void emptyGrid_returnsNothing() {
+        SpatialGrid grid = new SpatialGrid(new float[0], new float[0], 0, 10);
+        assertEquals(0, grid.query(0, 0, 100, new int[0]));
+    }
+
+    @Test
+    public void queryOutsideBounds_returnsNothing() {
+        float[] xs = {0, 10, 20}, zs = {0, 0, 0};
+        SpatialGrid grid = new SpatialGrid(xs, zs, 3, 5);
+        int[] out = new int[3];
+        assertEquals(0, grid.query(500, 500, 45, out));
+        int found = grid.query(10, 0, 1, out);
+        boolean hasMiddle = false;
+        for (int k = 0; k < found; k++) hasMiddle |= out[k] == 1;
+        assertTrue(hasMiddle);
+    }
+}
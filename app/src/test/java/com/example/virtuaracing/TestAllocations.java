@@ -0,0 +1,31 @@
+package com.example.virtuaracing;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Memoria reservada por el hilo del test (ThreadMXBean de HotSpot), para comprobar que el código
+ * de cada frame o tick no reserva nada. El trabajo se repite antes de medir para que el JIT lo
+ * compile: con el intérprete o a medio compilar salen reservas que no son del código.
+ */
+final class TestAllocations {
+
+    private TestAllocations() {}
+
+    // Bytes reservados por una ejecución de 'work' (el calentamiento, si hace falta, ya hecho)
+    static long allocatedBytes(Runnable work) {
+        return allocatedBytes(0, work);
+    }
+
+    // Ejecuta 'work' warmUps veces y devuelve los bytes que reserva la siguiente
+    static long allocatedBytes(int warmUps, Runnable work) {
+        for (int i = 0; i < warmUps; i++) work.run();
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        threads.getThreadAllocatedBytes(thread); //la primera consulta puede reservar
+
+        long before = threads.getThreadAllocatedBytes(thread);
+        work.run();
+        return threads.getThreadAllocatedBytes(thread) - before;
+    }
+}
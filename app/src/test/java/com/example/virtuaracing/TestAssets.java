@@ -0,0 +1,27 @@
+package com.example.virtuaracing;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Acceso a los recursos de res/raw desde los tests de JVM (sin Context de Android).
+ * Gradle lanza los tests desde el directorio del módulo, pero también se acepta la raíz.
+ */
+final class TestAssets {
+
+    static final String[] MODELS = {"road", "sky", "chassis", "wheel", "tree"};
+
+    private TestAssets() {}
+
+    static File raw(String fileName) {
+        File file = new File("src/main/res/raw", fileName);
+        if (!file.exists()) file = new File("app/src/main/res/raw", fileName);
+        return file;
+    }
+
+    static InputStream open(String fileName) throws IOException {
+        return new FileInputStream(raw(fileName));
+    }
+}
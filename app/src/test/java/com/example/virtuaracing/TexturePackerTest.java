@@ -0,0 +1,124 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.*;
+
+public class TexturePackerTest {
+
+    static final String[] HUD = {"hud_needle", "hud_pos", "hud_speed_bg"};
+
+    private static void assertValid(TextureAtlas atlas, int[] widths, int[] heights, int padding) {
+        assertEquals(0, atlas.width & (atlas.width - 1));
+        assertEquals(0, atlas.height & (atlas.height - 1));
+        for (int i = 0; i < atlas.size(); i++) {
+            assertEquals(widths[i], atlas.width(i));
+            assertEquals(heights[i], atlas.height(i));
+            assertTrue(atlas.x(i) >= padding && atlas.x(i) + widths[i] + padding <= atlas.width);
+            assertTrue(atlas.y(i) >= padding && atlas.y(i) + heights[i] + padding <= atlas.height);
+            assertEquals("alineada a bloques de 4", 0, (atlas.x(i) - padding) % 4);
+            assertEquals(0, (atlas.y(i) - padding) % 4);
+            for (int j = 0; j < i; j++) {
+                boolean apart = atlas.x(i) + widths[i] + padding <= atlas.x(j) - padding
+                        || atlas.x(j) + widths[j] + padding <= atlas.x(i) - padding
+                        || atlas.y(i) + heights[i] + padding <= atlas.y(j) - padding
+                        || atlas.y(j) + heights[j] + padding <= atlas.y(i) - padding;
+                assertTrue("solapan " + i + " y " + j, apart);
+            }
+        }
+    }
+
+    @Test
+    public void pack_hasNoOverlapsAndPowerOfTwoSize() {
+        Random random = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            int n = 1 + random.nextInt(20);
+            String[] names = new String[n];
+            int[] widths = new int[n], heights = new int[n];
+            long area = 0;
+            for (int i = 0; i < n; i++) {
+                names[i] = "img" + i;
+                widths[i] = 1 + random.nextInt(200);
+                heights[i] = 1 + random.nextInt(200);
+                area += (long) widths[i] * heights[i];
+            }
+            TextureAtlas atlas = TexturePacker.pack(names, widths, heights, 4, 4096);
+            assertValid(atlas, widths, heights, 4);
+            assertTrue((long) atlas.width * atlas.height >= area);
+        }
+    }
+
+    @Test
+    public void pack_picksSmallestSize() {
+        // Huecos de 64x68: no caben en 128x64 ni en 64x128
+        TextureAtlas atlas = TexturePacker.pack(new String[]{"a", "b"}, new int[]{60, 60}, new int[]{64, 64}, 2, 1024);
+        assertEquals(128, atlas.width);
+        assertEquals(128, atlas.height);
+
+        atlas = TexturePacker.pack(new String[]{"a", "b"}, new int[]{60, 60}, new int[]{60, 60}, 2, 1024);
+        assertEquals(128, atlas.width);
+        assertEquals(64, atlas.height);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pack_tooBig_throws() {
+        TexturePacker.pack(new String[]{"a"}, new int[]{300}, new int[]{10}, 0, 256);
+    }
+
+    @Test
+    public void shippedHud_fitsAndComposesExactly() throws IOException {
+        int n = HUD.length;
+        int[] widths = new int[n], heights = new int[n];
+        int[][] pixels = new int[n][];
+        for (int i = 0; i < n; i++) {
+            BufferedImage image = ImageIO.read(TestAssets.raw(HUD[i] + ".png"));
+            widths[i] = image.getWidth();
+            heights[i] = image.getHeight();
+            pixels[i] = image.getRGB(0, 0, widths[i], heights[i], null, 0, widths[i]);
+        }
+        TextureAtlas atlas = TexturePacker.pack(HUD, widths, heights, 8, 4096);
+        assertValid(atlas, widths, heights, 8);
+
+        int[] argb = TexturePacker.compose(atlas, pixels, 8);
+        for (int i = 0; i < n; i++) {
+            for (int y = 0; y < heights[i]; y += 7) {
+                for (int x = 0; x < widths[i]; x += 5) {
+                    assertEquals(pixels[i][y * widths[i] + x], argb[(atlas.y(i) + y) * atlas.width + atlas.x(i) + x]);
+                }
+            }
+            // El margen repite el borde
+            assertEquals(pixels[i][0], argb[(atlas.y(i) - 8) * atlas.width + atlas.x(i) - 8]);
+        }
+    }
+
+    @Test
+    public void atlasFile_roundTrip() throws IOException {
+        TextureAtlas atlas = TexturePacker.pack(new String[]{"a", "b", "c"}, new int[]{10, 20, 30},
+                new int[]{30, 20, 10}, 1, 256);
+        StringWriter out = new StringWriter();
+        atlas.write(out);
+        TextureAtlas read = TextureAtlas.read(new ByteArrayInputStream(out.toString().getBytes(StandardCharsets.UTF_8)));
+        assertEquals(atlas.width, read.width);
+        assertEquals(atlas.height, read.height);
+        assertEquals(3, read.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(atlas.name(i), read.name(i));
+            assertArrayEquals(atlas.uv(i), read.uv(i), 0f);
+        }
+        assertEquals(1, read.indexOf("b"));
+        assertEquals(-1, read.indexOf("z"));
+
+        float[] uv = read.uv(0);
+        assertEquals((float) read.x(0) / read.width, uv[0], 1e-6f);
+        assertEquals((float) (read.x(0) + 10) / read.width, uv[2], 1e-6f);
+    }
+}
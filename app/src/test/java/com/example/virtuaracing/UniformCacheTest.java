@@ -0,0 +1,40 @@
+package com.example.virtuaracing;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class UniformCacheTest {
+
+    @Test
+    public void repeatedValue_isNotSentAgain() {
+        UniformCache cache = new UniformCache(2);
+        assertTrue(cache.changed(0, 1, 2, 3, 4));
+        assertFalse(cache.changed(0, 1, 2, 3, 4));
+        assertTrue(cache.changed(0, 1, 2, 3, 5));
+        assertTrue(cache.changed(1, 1, 2, 3, 5)); //cada hueco va por separado
+    }
+
+    @Test
+    public void matrix_comparesAllValuesFromOffset() {
+        UniformCache cache = new UniformCache(1);
+        float[] m = new float[20];
+        for (int i = 0; i < m.length; i++) m[i] = i;
+
+        assertTrue(cache.changed(0, m, 4, 16));
+        assertFalse(cache.changed(0, m, 4, 16));
+        m[19] = -1; //último elemento de la matriz
+        assertTrue(cache.changed(0, m, 4, 16));
+        m[0] = -1; //fuera de la matriz
+        assertFalse(cache.changed(0, m, 4, 16));
+    }
+
+    @Test
+    public void invalidate_forcesResend() {
+        UniformCache cache = new UniformCache(1);
+        assertTrue(cache.changed(0, 0.5f));
+        assertFalse(cache.changed(0, 0.5f));
+        cache.invalidate();
+        assertTrue(cache.changed(0, 0.5f));
+    }
+}
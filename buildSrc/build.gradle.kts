@@ -0,0 +1,40 @@
+// Herramientas de build del juego (horneado de assets). Reutiliza las clases puras de Java del
+// módulo app para que el formato que se escribe aquí y el que se lee en el móvil sean el mismo.
+plugins {
+    `java-library`
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    implementation(gradleApi())
+}
+
+val sharedSources = listOf(
+    "MeshData.java",
+    "MeshBinary.java",
+    "MeshIndexer.java",
+    "ObjParser.java",
+    "Etc2Codec.java",
+    "KtxFile.java",
+    "MipChain.java",
+    "TextureAtlas.java",
+    "TexturePacker.java",
+)
+
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            include("com/example/virtuaracing/tools/**")
+            sharedSources.forEach { include("com/example/virtuaracing/$it") }
+        }
+    }
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
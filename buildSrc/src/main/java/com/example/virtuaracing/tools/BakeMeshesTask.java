@@ -0,0 +1,72 @@
+package com.example.virtuaracing.tools;
+
+import com.example.virtuaracing.MeshBinary;
+import com.example.virtuaracing.MeshData;
+import com.example.virtuaracing.MeshIndexer;
+import com.example.virtuaracing.ObjParser;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Convierte cada OBJ de res/raw en una malla binaria (meshes/&lt;nombre&gt;.vrm) dentro de un
+ * directorio de assets generado, ya indexada (vértices únicos + índices). Los OBJ sin caras (la
+ * ruta) se guardan como lista de puntos.
+ */
+public abstract class BakeMeshesTask extends DefaultTask {
+
+    @InputDirectory
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract DirectoryProperty getObjDir();
+
+    @Input
+    public abstract Property<Boolean> getQuantize();
+
+    @OutputDirectory
+    public abstract DirectoryProperty getOutputDir();
+
+    @TaskAction
+    public void bake() throws IOException {
+        File meshDir = new File(getOutputDir().get().getAsFile(), "meshes");
+        if (!meshDir.isDirectory() && !meshDir.mkdirs()) {
+            throw new IOException("No se pudo crear " + meshDir);
+        }
+        File[] objs = getObjDir().get().getAsFile().listFiles((dir, name) -> name.endsWith(".obj"));
+        if (objs == null) return;
+
+        boolean quantize = getQuantize().getOrElse(false);
+        ObjParser parser = new ObjParser();
+        for (File obj : objs) {
+            try (InputStream in = new FileInputStream(obj)) {
+                parser.parse(in);
+            }
+            String name = obj.getName().substring(0, obj.getName().length() - ".obj".length());
+            File out = new File(meshDir, name + ".vrm");
+            try (OutputStream os = new BufferedOutputStream(new FileOutputStream(out))) {
+                if (parser.getCornerCount() == 0) {
+                    MeshBinary.writePoints(parser.getPositions(), parser.getPositionCount(), os);
+                } else {
+                    MeshData mesh = MeshIndexer.index(parser);
+                    MeshBinary.write(mesh, quantize, os);
+                    getLogger().lifecycle("bakeMeshes: " + MeshIndexer.describeSavings(name, mesh));
+                }
+            }
+            getLogger().info("bakeMeshes: {} -> {} ({} bytes)", obj.getName(), out.getName(), out.length());
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.virtuaracing.tools;
+
+import com.example.virtuaracing.Etc2Codec;
+import com.example.virtuaracing.KtxFile;
+import com.example.virtuaracing.MipChain;
+import com.example.virtuaracing.TextureAtlas;
+import com.example.virtuaracing.TexturePacker;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Prepara las texturas de res/raw para subirlas sin decodificar (assets/textures/):
+ *
+ *  - Las imágenes cuyo nombre empieza por el prefijo del atlas (hud_) se empaquetan en un solo
+ *    atlas: &lt;atlas&gt;.ktx (ETC2 con mipmaps), &lt;atlas&gt;.png (el mismo atlas sin comprimir,
+ *    para GLES 1.x/2.0) y &lt;atlas&gt;.atlas (dónde está cada imagen).
+ *  - El resto se comprime una a una en &lt;nombre&gt;.ktx con la cadena de mipmaps completa.
+ *
+ * Los niveles del atlas se limitan a los que conserva el margen entre imágenes.
+ */
+public abstract class BakeTexturesTask extends DefaultTask {
+
+    private static final int ATLAS_PADDING = 8;
+    private static final int ATLAS_MAX_SIZE = 4096;
+
+    @InputDirectory
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract DirectoryProperty getPngDir();
+
+    @Input
+    public abstract Property<String> getAtlasPrefix();
+
+    @Input
+    public abstract Property<String> getAtlasName();
+
+    @OutputDirectory
+    public abstract DirectoryProperty getOutputDir();
+
+    @TaskAction
+    public void bake() throws IOException {
+        File textureDir = new File(getOutputDir().get().getAsFile(), "textures");
+        if (!textureDir.isDirectory() && !textureDir.mkdirs()) {
+            throw new IOException("No se pudo crear " + textureDir);
+        }
+        File[] pngs = getPngDir().get().getAsFile().listFiles((dir, name) -> name.endsWith(".png"));
+        if (pngs == null) return;
+        Arrays.sort(pngs); //mismo atlas en cada build
+
+        String prefix = getAtlasPrefix().get();
+        List<String> atlasNames = new ArrayList<>();
+        List<BufferedImage> atlasImages = new ArrayList<>();
+        for (File png : pngs) {
+            String name = png.getName().substring(0, png.getName().length() - ".png".length());
+            BufferedImage image = ImageIO.read(png);
+            if (image == null) throw new IOException("No se pudo leer " + png);
+            if (name.startsWith(prefix)) {
+                atlasNames.add(name);
+                atlasImages.add(image);
+            } else {
+                int w = image.getWidth(), h = image.getHeight();
+                writeKtx(new File(textureDir, name + ".ktx"), name, pixels(image), w, h, Integer.MAX_VALUE);
+            }
+        }
+        if (!atlasNames.isEmpty()) bakeAtlas(textureDir, atlasNames, atlasImages);
+    }
+
+    private void bakeAtlas(File textureDir, List<String> names, List<BufferedImage> images) throws IOException {
+        int n = names.size();
+        int[] widths = new int[n], heights = new int[n];
+        int[][] pixels = new int[n][];
+        for (int i = 0; i < n; i++) {
+            widths[i] = images.get(i).getWidth();
+            heights[i] = images.get(i).getHeight();
+            pixels[i] = pixels(images.get(i));
+        }
+        TextureAtlas atlas = TexturePacker.pack(names.toArray(new String[0]), widths, heights, ATLAS_PADDING, ATLAS_MAX_SIZE);
+        int[] argb = TexturePacker.compose(atlas, pixels, ATLAS_PADDING);
+        String name = getAtlasName().get();
+
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(new File(textureDir, name + ".atlas")),
+                StandardCharsets.UTF_8)) {
+            atlas.write(out);
+        }
+        BufferedImage image = new BufferedImage(atlas.width, atlas.height, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, atlas.width, atlas.height, argb, 0, atlas.width);
+        ImageIO.write(image, "png", new File(textureDir, name + ".png"));
+
+        int levels = 32 - Integer.numberOfLeadingZeros(ATLAS_PADDING); //el margen llega al menos a 1 píxel
+        writeKtx(new File(textureDir, name + ".ktx"), name, argb, atlas.width, atlas.height, levels);
+    }
+
+    private void writeKtx(File file, String name, int[] argb, int width, int height, int maxLevels) throws IOException {
+        int[][] chain = MipChain.build(argb, width, height, maxLevels);
+        byte[][] levels = Etc2Codec.encodeLevels(chain, width, height);
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file))) {
+            KtxFile.write(os, Etc2Codec.GL_COMPRESSED_RGBA8_ETC2_EAC, KtxFile.GL_RGBA, width, height, levels);
+        }
+        long rgba = 0;
+        for (int l = 0; l < chain.length; l++) rgba += (long) chain[l].length * 4;
+        getLogger().lifecycle("bakeTextures: {} {}x{}, {} niveles, ETC2 {} KB (RGBA {} KB)",
+                name, width, height, chain.length, file.length() / 1024, rgba / 1024);
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        int w = image.getWidth(), h = image.getHeight();
+        return image.getRGB(0, 0, w, h, null, 0, w);
+    }
+}